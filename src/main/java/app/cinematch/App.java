@@ -5,8 +5,11 @@ import app.cinematch.agent.ChatAgent;
 import app.cinematch.agent.Memory;
 import app.cinematch.agent.Profile;
 import app.cinematch.api.OllamaClient;
+import app.cinematch.api.OllamaTransport;
 import app.cinematch.agent.langchain.LangChain4jAgentBridge;
 import app.cinematch.ui.swing.MainFrame;
+import app.cinematch.util.DescriptionCache;
+import app.cinematch.util.HistoryRepository;
 import com.formdev.flatlaf.FlatDarkLaf;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
@@ -14,28 +17,67 @@ import javax.swing.UIManager;
 public class App {
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(App::startUi);
-    }
-
-    private static void startUi() {
-        try { UIManager.setLookAndFeel(new FlatDarkLaf()); } catch (Exception ex) { ex.printStackTrace(); }
+        // Stockage en écriture différée : les clics ne bloquent plus sur le disque
+        // (écriture groupée en arrière-plan, flush automatique à la fermeture)
+        if (System.getProperty("cinematch.storage.writeBehind") == null) {
+            System.setProperty("cinematch.storage.writeBehind", "true");
+        }
+        // Instantané binaire mappé : démarrage sans parsing JSON (export JSON toujours possible)
+        if (System.getProperty("cinematch.storage.format") == null) {
+            System.setProperty("cinematch.storage.format", "binary");
+        }
+        // Descriptions générées gardées sur disque : un titre déjà décrit ne rappelle pas le modèle
+        if (System.getProperty(DescriptionCache.PROP_FILE) == null) {
+            System.setProperty(DescriptionCache.PROP_FILE, "src/main/resources/descriptions.json");
+        }
+        // Pool de connexions HTTP vers Ollama (à régler avant la création du premier HttpClient)
+        OllamaTransport.applyPoolDefaults();
 
         // Variables d'environnement
         String ollamaUrl   = System.getenv().getOrDefault("OLLAMA_BASE_URL", "http://localhost:11434");
         String ollamaModel = System.getenv().getOrDefault("OLLAMA_MODEL", "qwen2.5:7b-instruct");
 
+        // Transport HTTP unique vers Ollama : pool de connexions, délais et limite de requêtes
+        // simultanées communs au client REST maison et au modèle LangChain4j
+        OllamaTransport transport = OllamaTransport.shared();
+        OllamaClient ollamaClient = new OllamaClient(ollamaUrl, ollamaModel, transport);
+
+        // Préchargement du modèle pendant la construction de l'UI : la première
+        // recommandation ne paie pas le chargement à froid
+        ollamaClient.warmUp().thenAccept(ok -> {
+            if (!ok) {
+                System.err.println("[App] Préchargement du modèle " + ollamaModel + " impossible (Ollama injoignable ?)");
+            }
+        });
+
+        SwingUtilities.invokeLater(() -> startUi(ollamaUrl, ollamaModel, transport, ollamaClient));
+    }
+
+    private static void startUi(String ollamaUrl, String ollamaModel,
+                                OllamaTransport transport, OllamaClient ollamaClient) {
+        try { UIManager.setLookAndFeel(new FlatDarkLaf()); } catch (Exception ex) { ex.printStackTrace(); }
+
+        // Stockage de l'historique (JSON par défaut, -Dcinematch.storage.backend=h2 pour la base embarquée)
+        HistoryRepository repo = HistoryRepository.fromSystemProperties();
+
         // Services
-        MovieRecommenderService recommender = new MovieRecommenderService(ollamaUrl, ollamaModel);
+        MovieRecommenderService recommender = new MovieRecommenderService(
+                ollamaClient, repo::addOrUpdate, DescriptionCache.fromSystemProperties());
         Profile profile = Profile.defaultCinemaExpert(); // <-- créer AVANT usage
-        LangChain4jAgentBridge bridge = new LangChain4jAgentBridge(ollamaUrl, ollamaModel, profile, recommender);
+        LangChain4jAgentBridge bridge =
+                new LangChain4jAgentBridge(ollamaUrl, ollamaModel, profile, recommender, repo, transport);
 
-        // Client Ollama (le client REST maison, utile pour d'autres usages)
-        OllamaClient ollamaClient = new OllamaClient(ollamaUrl, ollamaModel);
+        // Bilan du routage du chat à la fermeture : branches, durées, part confiée au LLM
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (bridge.metrics().total() > 0) {
+                System.out.print(bridge.metrics().summary());
+            }
+        }, "routing-metrics"));
 
         // ChatAgent qui délègue ses réponses au bridge LangChain4j (tools wishlist)
-        ChatAgent agent = new ChatAgent(ollamaClient, profile, new Memory(), bridge::ask);
+        ChatAgent agent = new ChatAgent(ollamaClient, profile, new Memory(repo), bridge::ask);
 
         // UI principale
-        new MainFrame(recommender, agent).setVisible(true);
+        new MainFrame(recommender, agent, repo).setVisible(true);
     }
 }
@@ -2,13 +2,23 @@ package app.cinematch;
 
 import app.cinematch.api.OllamaClient;
 import app.cinematch.model.Recommendation;
+import app.cinematch.util.DescriptionCache;
 import app.cinematch.util.JsonStorage;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Service de recommandation de films.
@@ -17,11 +27,27 @@ import java.util.function.BiConsumer;
  * <ul>
  *   <li>Dialogue avec {@link OllamaClient} pour générer des propositions ;</li>
  *   <li>Persistance (title, status) via un « sink » injectable
- *       ({@link JsonStorage#addOrUpdate(String, String)} par défaut).</li>
+ *       ({@link JsonStorage#addOrUpdate(String, String)} par défaut) ;</li>
+ *   <li>Cache des descriptions ({@link DescriptionCache}, mémoire seule par défaut) :
+ *       redemander la description d’un titre ne rappelle pas le modèle, sauf
+ *       régénération explicite ({@link #regenerateDescription(String)}).</li>
  * </ul>
  */
 public class MovieRecommenderService {
 
+    /** Version des prompts de description : à incrémenter à chaque modification (clé de cache). */
+    private static final String DESCRIPTION_PROMPT_VERSION = "v1";
+
+    /** Prompt système des descriptions courtes. */
+    private static final String DESCRIPTION_SYSTEM =
+            "Tu es un critique cinéma. Donne une courte description, sans spoiler.";
+
+    /** Taille maximale d’un lot de recommandations. */
+    public static final int MAX_BATCH = 10;
+
+    /** Titres exclus rappelés au modèle au plus (les autres sont filtrés localement). */
+    private static final int MAX_EXCLUDED_IN_PROMPT = 30;
+
     /** Parser JSON (Jackson). */
     private static final ObjectMapper PARSER = new ObjectMapper();
 
@@ -34,6 +60,9 @@ public class MovieRecommenderService {
     /** Point d'injection pour la persistance (title, status) -> void. */
     private final BiConsumer<String, String> storageSink;
 
+    /** Cache des descriptions générées. */
+    private final DescriptionCache descriptions;
+
     // =========================
     // CONSTRUCTEURS
     // =========================
@@ -72,9 +101,28 @@ public class MovieRecommenderService {
     public MovieRecommenderService(
             final OllamaClient ollama,
             final BiConsumer<String, String> storageSink
+    ) {
+        this(ollama, storageSink, null);
+    }
+
+    /**
+     * Constructeur complet : client Ollama, sink et cache des descriptions.
+     *
+     * @param ollama       client Ollama
+     * @param storageSink  fonction de persistance (title, status)
+     * @param descriptions cache des descriptions ({@code null} = cache mémoire par défaut)
+     */
+    public MovieRecommenderService(
+            final OllamaClient ollama,
+            final BiConsumer<String, String> storageSink,
+            final DescriptionCache descriptions
     ) {
         this.ollama = ollama;
         this.storageSink = (storageSink != null) ? storageSink : JsonStorage::addOrUpdate;
+        this.descriptions = (descriptions != null)
+                ? descriptions
+                : new DescriptionCache(DescriptionCache.DEFAULT_MAX,
+                        Duration.ofHours(DescriptionCache.DEFAULT_TTL_HOURS), null);
     }
 
     // =========================
@@ -126,17 +174,159 @@ public class MovieRecommenderService {
         return requestRecommendation(system, user, "Suggestion IA");
     }
 
+    /**
+     * Recommande jusqu’à {@code n} films aléatoires en un seul appel au modèle.
+     *
+     * @param n       nombre de propositions voulues (borné à {@link #MAX_BATCH})
+     * @param exclude titres à ne pas proposer (comparés sans casse), peut être {@code null}
+     * @return propositions distinctes hors exclusions (peut en compter moins que {@code n})
+     */
+    public List<Recommendation> recommendBatch(final int n, final Set<String> exclude) {
+        final int count = Math.max(1, Math.min(n, MAX_BATCH));
+        final String system =
+                "Tu es un programmateur de ciné-club. Suggère des films ou des pépites à découvrir. "
+                        + "Réponds uniquement avec un tableau JSON strict.";
+        final String user =
+                "Génère " + count + " idées de films différentes à regarder avec ce format : "
+                        + "[{\"title\":\"...\",\"pitch\":\"...\",\"year\":\"(optionnel)\","
+                        + "\"platform\":\"Plateforme fictive ou réelle\"}]. "
+                        + "Le pitch doit donner envie." + excludedHint(exclude);
+        return requestBatch(system, user, "Suggestion IA", count, exclude);
+    }
+
+    /**
+     * Recommande jusqu’à {@code n} films proches d’un titre apprécié, en un seul appel au modèle.
+     *
+     * @param likedTitle film apprécié (point de départ)
+     * @param n          nombre de propositions voulues (borné à {@link #MAX_BATCH})
+     * @param exclude    titres à ne pas proposer (comparés sans casse), peut être {@code null}
+     * @return propositions distinctes hors exclusions, pitch mentionnant le film d’origine
+     */
+    public List<Recommendation> recommendBatchFromLike(final String likedTitle, final int n,
+                                                       final Set<String> exclude) {
+        final int count = Math.max(1, Math.min(n, MAX_BATCH));
+        final String system =
+                "Tu es un assistant cinéma ultra créatif. Tu connais les films existants et tu peux aussi "
+                        + "imaginer un faux service de streaming crédible. "
+                        + "N’inclus jamais : jeux vidéo, livres ou autres qui ne sont pas des films, séries ou "
+                        + "documentaires. Réponds toujours en tableau JSON strict, sans texte supplémentaire.";
+        final String user =
+                "Film apprécié : '" + likedTitle + "'. Propose " + count + " recommandations nuancées, "
+                        + "EXCLUSIVEMENT des films, séries ou documentaires similaires, avec ce format JSON : "
+                        + "[{\"title\":\"Titre exact\",\"pitch\":\"Pourquoi ce choix\",\"year\":\""
+                        + "(optionnel)\",\"platform\":\"Plateforme fictive ou réelle\"}]. "
+                        + "Chaque pitch doit faire le lien avec le film donné." + excludedHint(exclude);
+        final Set<String> excluded = new HashSet<>();
+        if (exclude != null) {
+            excluded.addAll(exclude);
+        }
+        excluded.add(likedTitle);
+        final List<Recommendation> out = new ArrayList<>();
+        for (Recommendation rec : requestBatch(system, user, "Inspiré de " + likedTitle, count, excluded)) {
+            String reason = rec.reason();
+            if (!reason.toLowerCase().contains(likedTitle.toLowerCase())) {
+                reason = reason + " — Inspiré de " + likedTitle;
+            }
+            out.add(new Recommendation(rec.title(), reason, rec.platform(), null));
+        }
+        return out;
+    }
+
     /**
      * Génère une courte description (2–3 phrases) sans spoiler.
+     * Une description déjà générée pour ce titre est resservie depuis le cache.
      *
      * @param movieTitle titre du film
      * @return description produite par le LLM
      */
     public String generateDescription(final String movieTitle) {
-        final String system = "Tu es un critique cinéma. Donne une courte description, sans spoiler.";
-        final String user =
-                "Décris le film '" + movieTitle + "' en 2 à 3 phrases maximum avec un style immersif.";
-        return ollama.chat(system, user);
+        final String key = descriptionKey(movieTitle);
+        final String cached = descriptions.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return remember(key, ollama.chat(DESCRIPTION_SYSTEM, descriptionPrompt(movieTitle)));
+    }
+
+    /**
+     * Comme {@link #generateDescription(String)}, mais transmet le texte au fil de sa
+     * génération (voir {@link OllamaClient#chatStream(String, String, Consumer)}).
+     * Depuis le cache, le texte est transmis d’un bloc. Une génération interrompue renvoie
+     * le texte déjà reçu, qui n’est pas mis en cache.
+     *
+     * @param movieTitle titre du film
+     * @param onToken    consommateur des fragments, appelé sur le thread appelant
+     * @return description complète produite par le LLM
+     */
+    public String generateDescriptionStream(final String movieTitle, final Consumer<String> onToken) {
+        final String key = descriptionKey(movieTitle);
+        final String cached = descriptions.get(key);
+        if (cached != null) {
+            emit(onToken, cached);
+            return cached;
+        }
+        final String text = ollama.chatStream(DESCRIPTION_SYSTEM, descriptionPrompt(movieTitle), onToken);
+        // interrompu (ex. SwingWorker.cancel(true)) : texte tronqué, à ne pas garder en cache
+        return Thread.currentThread().isInterrupted() ? text : remember(key, text);
+    }
+
+    /**
+     * Variante non bloquante de {@link #generateDescriptionStream(String, Consumer)}
+     * (voir {@link OllamaClient#chatStreamAsync(String, String, Consumer)}) : annuler le
+     * futur interrompt la génération côté Ollama. Depuis le cache, le futur est déjà
+     * terminé et le texte est transmis d’un bloc, sur le thread appelant.
+     *
+     * @param movieTitle titre du film
+     * @param onToken    consommateur des fragments, appelé hors EDT
+     * @return futur de la description complète
+     */
+    public CompletableFuture<String> generateDescriptionAsync(final String movieTitle,
+                                                              final Consumer<String> onToken) {
+        final String key = descriptionKey(movieTitle);
+        final String cached = descriptions.get(key);
+        if (cached != null) {
+            emit(onToken, cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+        final CompletableFuture<String> f =
+                ollama.chatStreamAsync(DESCRIPTION_SYSTEM, descriptionPrompt(movieTitle), onToken);
+        // effet de bord seulement : le futur renvoyé reste celui du client (annulation directe)
+        f.thenAccept(text -> remember(key, text));
+        return f;
+    }
+
+    /**
+     * Génère une nouvelle description, sans passer par le cache : l’entrée existante est
+     * retirée, puis remplacée par la réponse du LLM.
+     *
+     * @param movieTitle titre du film
+     * @return description produite par le LLM
+     */
+    public String regenerateDescription(final String movieTitle) {
+        final String key = descriptionKey(movieTitle);
+        descriptions.remove(key);
+        return remember(key, ollama.chat(DESCRIPTION_SYSTEM, descriptionPrompt(movieTitle)));
+    }
+
+    /**
+     * Variante non bloquante de {@link #regenerateDescription(String)}, transmise au fil de
+     * sa génération comme {@link #generateDescriptionAsync(String, Consumer)}.
+     *
+     * @param movieTitle titre du film
+     * @param onToken    consommateur des fragments, appelé hors EDT
+     * @return futur de la nouvelle description
+     */
+    public CompletableFuture<String> regenerateDescriptionAsync(final String movieTitle,
+                                                                final Consumer<String> onToken) {
+        descriptions.remove(descriptionKey(movieTitle));
+        return generateDescriptionAsync(movieTitle, onToken);
+    }
+
+    /**
+     * @return le cache des descriptions (compteurs de succès / échecs)
+     */
+    public DescriptionCache descriptionCache() {
+        return descriptions;
     }
 
     /**
@@ -153,6 +343,60 @@ public class MovieRecommenderService {
     // INTERNE / UTILITAIRES
     // =========================
 
+    /**
+     * Clé de cache d’une description : version du prompt, modèle et titre normalisé.
+     *
+     * @param movieTitle titre du film
+     * @return clé de cache
+     */
+    private String descriptionKey(final String movieTitle) {
+        return DescriptionCache.key(ollama.model(), DESCRIPTION_PROMPT_VERSION, movieTitle);
+    }
+
+    /**
+     * Garde une description en cache, sauf réponse vide ou erreur du client.
+     *
+     * @param key  clé de cache
+     * @param text texte renvoyé par le LLM
+     * @return {@code text}
+     */
+    private String remember(final String key, final String text) {
+        if (isUsableDescription(text)) {
+            descriptions.put(key, text);
+        }
+        return text;
+    }
+
+    /**
+     * @param text texte renvoyé par le LLM
+     * @return {@code true} si c’est une vraie description (ni vide, ni erreur du client)
+     */
+    static boolean isUsableDescription(final String text) {
+        return text != null && !text.isBlank() && !"[vide]".equals(text) && !text.startsWith("[Erreur Ollama]");
+    }
+
+    /**
+     * Transmet un texte entier à un consommateur de fragments éventuel.
+     *
+     * @param onToken consommateur (peut être {@code null})
+     * @param text    texte à transmettre
+     */
+    private static void emit(final Consumer<String> onToken, final String text) {
+        if (onToken != null) {
+            onToken.accept(text);
+        }
+    }
+
+    /**
+     * Prompt utilisateur d’une description courte.
+     *
+     * @param movieTitle titre du film
+     * @return prompt à envoyer au LLM
+     */
+    private static String descriptionPrompt(final String movieTitle) {
+        return "Décris le film '" + movieTitle + "' en 2 à 3 phrases maximum avec un style immersif.";
+    }
+
     /**
      * Exécute une requête de recommandation auprès du LLM, puis applique des fallbacks robustes.
      *
@@ -167,11 +411,72 @@ public class MovieRecommenderService {
             final String defaultReason
     ) {
         final String raw = ollama.chat(system, user).trim();
-        final ParsedRecommendation parsed = parse(raw);
+        return normalize(parse(raw), extractFirstMeaningfulLine(raw), defaultReason);
+    }
+
+    /**
+     * Exécute une requête de lot auprès du LLM : tableau JSON attendu, un objet seul accepté
+     * (mêmes fallbacks que {@link #requestRecommendation}). Filtre localement les exclusions
+     * et les doublons.
+     *
+     * @param system        prompt système
+     * @param user          prompt utilisateur
+     * @param defaultReason raison par défaut si aucun pitch exploitable
+     * @param max           nombre maximal de propositions gardées
+     * @param exclude       titres exclus (peut être {@code null})
+     * @return recommandations normalisées
+     */
+    private List<Recommendation> requestBatch(
+            final String system,
+            final String user,
+            final String defaultReason,
+            final int max,
+            final Collection<String> exclude
+    ) {
+        final String raw = ollama.chat(system, user).trim();
+        final List<ParsedRecommendation> parsed = parseArray(raw);
+        final List<Recommendation> candidates = new ArrayList<>();
+        if (parsed.isEmpty()) {
+            candidates.add(normalize(parse(raw), extractFirstMeaningfulLine(raw), defaultReason));
+        } else {
+            for (ParsedRecommendation p : parsed) {
+                if (p.title != null && !p.title.isBlank()) {
+                    candidates.add(normalize(p, "", defaultReason));
+                }
+            }
+        }
 
+        final Set<String> seen = new HashSet<>();
+        if (exclude != null) {
+            for (String t : exclude) {
+                seen.add(titleKey(t));
+            }
+        }
+        final List<Recommendation> out = new ArrayList<>();
+        for (Recommendation rec : candidates) {
+            if (out.size() >= max) {
+                break;
+            }
+            if (!rec.title().isEmpty() && seen.add(titleKey(rec.title()))) {
+                out.add(rec);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Applique les fallbacks (titre, pitch, année, plateforme) à une proposition parsée.
+     *
+     * @param parsed        proposition (éventuellement vide)
+     * @param rawTitle      titre de repli (ex. première ligne de la réponse)
+     * @param defaultReason raison par défaut si aucun pitch exploitable
+     * @return recommandation normalisée
+     */
+    private Recommendation normalize(final ParsedRecommendation parsed, final String rawTitle,
+                                     final String defaultReason) {
         final String title = firstNonBlank(
                 parsed.title,
-                extractFirstMeaningfulLine(raw),
+                rawTitle,
                 "Suggestion mystère"
         );
 
@@ -184,6 +489,32 @@ public class MovieRecommenderService {
         return new Recommendation(title, pitch, platform, null);
     }
 
+    /**
+     * Rappelle au modèle une partie des titres exclus.
+     *
+     * @param exclude titres exclus (peut être {@code null})
+     * @return consigne à ajouter au prompt, ou chaîne vide
+     */
+    private static String excludedHint(final Set<String> exclude) {
+        if (exclude == null || exclude.isEmpty()) {
+            return "";
+        }
+        final List<String> shown = new ArrayList<>();
+        for (String t : exclude) {
+            if (shown.size() >= MAX_EXCLUDED_IN_PROMPT) {
+                break;
+            }
+            if (t != null && !t.isBlank()) {
+                shown.add(t.trim());
+            }
+        }
+        return shown.isEmpty() ? "" : " Ne propose aucun de ces titres : " + String.join(", ", shown) + ".";
+    }
+
+    private static String titleKey(final String title) {
+        return title == null ? "" : title.trim().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * Parse le JSON (éventuel) retourné par le LLM.
      *
@@ -199,26 +530,64 @@ public class MovieRecommenderService {
             return new ParsedRecommendation();
         }
         try {
-            final JsonNode node = PARSER.readTree(json);
-            final ParsedRecommendation parsed = new ParsedRecommendation();
-            parsed.title = Optional.ofNullable(node.get("title"))
-                    .map(JsonNode::asText)
-                    .orElse(null);
-            parsed.pitch = Optional.ofNullable(node.get("pitch"))
-                    .map(JsonNode::asText)
-                    .orElse(null);
-            parsed.year = Optional.ofNullable(node.get("year"))
-                    .map(JsonNode::asText)
-                    .orElse(null);
-            parsed.platform = Optional.ofNullable(node.get("platform"))
-                    .map(JsonNode::asText)
-                    .orElse(null);
-            return parsed;
+            return fromNode(PARSER.readTree(json));
         } catch (IOException e) {
             return new ParsedRecommendation();
         }
     }
 
+    /**
+     * Parse le tableau JSON (éventuel) retourné par le LLM pour un lot.
+     *
+     * @param raw texte brut renvoyé par le LLM
+     * @return propositions lues (objets seulement), liste vide si aucun tableau exploitable
+     */
+    private List<ParsedRecommendation> parseArray(final String raw) {
+        final List<ParsedRecommendation> out = new ArrayList<>();
+        if (raw == null) {
+            return out;
+        }
+        final int start = raw.indexOf('[');
+        final int end = raw.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            return out;
+        }
+        try {
+            final JsonNode node = PARSER.readTree(raw.substring(start, end + 1));
+            if (node.isArray()) {
+                for (JsonNode item : node) {
+                    if (item.isObject()) {
+                        out.add(fromNode(item));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            out.clear();
+        }
+        return out;
+    }
+
+    /**
+     * @param node objet JSON d’une proposition
+     * @return champs lus (absents = {@code null})
+     */
+    private static ParsedRecommendation fromNode(final JsonNode node) {
+        final ParsedRecommendation parsed = new ParsedRecommendation();
+        parsed.title = Optional.ofNullable(node.get("title"))
+                .map(JsonNode::asText)
+                .orElse(null);
+        parsed.pitch = Optional.ofNullable(node.get("pitch"))
+                .map(JsonNode::asText)
+                .orElse(null);
+        parsed.year = Optional.ofNullable(node.get("year"))
+                .map(JsonNode::asText)
+                .orElse(null);
+        parsed.platform = Optional.ofNullable(node.get("platform"))
+                .map(JsonNode::asText)
+                .orElse(null);
+        return parsed;
+    }
+
     /**
      * Extrait le plus grand objet JSON { ... } d’un texte.
      *
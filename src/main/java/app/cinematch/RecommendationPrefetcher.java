@@ -0,0 +1,360 @@
+package app.cinematch;
+
+import app.cinematch.api.LlmPriority;
+import app.cinematch.model.Recommendation;
+import app.cinematch.util.HistoryRepository;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * File de recommandations préparées d’avance pour la vue « Swipe ».
+ *
+ * <p>Un thread de fond garde jusqu’à {@code capacity} recommandations prêtes à afficher
+ * (titre, raison, plateforme <em>et</em> description) : passer à la suivante ne coûte
+ * alors plus aucun appel au modèle. La file est complétée après chaque retrait.</p>
+ *
+ * <p>Si la file est vide, {@link #next()} rend un futur complété dès qu’une recommandation
+ * est trouvée, <em>sans</em> sa description ({@link Prepared#description()} {@code null}) :
+ * l’appelant la génère lui-même, au fil de l’eau.</p>
+ *
+ * <p>Invalidation : un titre passé en « envie » depuis sa préparation n’est jamais servi
+ * (vérifié au retrait et à chaque {@link #historyChanged()}) ; {@link #clear()} vide la file.
+ * Les propositions sont demandées par lots, titres exclus transmis au service. Après
+ * {@link #MAX_ATTEMPTS} lots vides ou propositions inutilisables d’affilée, le remplissage
+ * s’arrête jusqu’à la prochaine demande. Les appels au modèle du remplissage passent en
+ * priorité {@link LlmPriority#PREFETCH} : ils ne retardent ni le chat ni l’écran. Thread-safe.</p>
+ */
+public final class RecommendationPrefetcher implements AutoCloseable {
+
+    /** Propriété système : nombre de recommandations préparées d’avance. */
+    public static final String PROP_SIZE = "cinematch.prefetch.size";
+    /** Taille de file par défaut. */
+    public static final int DEFAULT_SIZE = 3;
+    /** Lots vides ou propositions inutilisables tolérés d’affilée avant d’abandonner. */
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * Recommandation prête à afficher.
+     *
+     * @param recommendation la recommandation
+     * @param description    sa description, ou {@code null} si elle reste à générer
+     */
+    public record Prepared(Recommendation recommendation, String description) { }
+
+    private final MovieRecommenderService service;
+    private final HistoryRepository repo;
+    private final int capacity;
+    private final Executor executor;
+    private final ExecutorService ownExecutor;
+
+    private final Deque<Prepared> ready = new ArrayDeque<>();
+    private final Deque<CompletableFuture<Prepared>> waiters = new ArrayDeque<>();
+    private boolean filling;
+    private boolean closed;
+    private long epoch;
+    private String lastServed;
+
+    /**
+     * @param service  service de recommandation
+     * @param repo     historique (titres en « envie » à ne pas reproposer)
+     * @param capacity nombre de recommandations préparées d’avance (au moins 1)
+     */
+    public RecommendationPrefetcher(final MovieRecommenderService service,
+                                    final HistoryRepository repo,
+                                    final int capacity) {
+        this(service, repo, capacity, null);
+    }
+
+    RecommendationPrefetcher(final MovieRecommenderService service, final HistoryRepository repo,
+                             final int capacity, final Executor executor) {
+        this.service = Objects.requireNonNull(service, "service must not be null");
+        this.repo = Objects.requireNonNull(repo, "repo must not be null");
+        this.capacity = Math.max(1, capacity);
+        if (executor == null) {
+            this.ownExecutor = Executors.newSingleThreadExecutor(r -> {
+                final Thread t = new Thread(r, "cinematch-prefetch");
+                t.setDaemon(true);
+                return t;
+            });
+            this.executor = ownExecutor;
+        } else {
+            this.ownExecutor = null;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * Construit la file selon {@code -Dcinematch.prefetch.size}.
+     *
+     * @param service service de recommandation
+     * @param repo    historique
+     * @return la file configurée
+     */
+    public static RecommendationPrefetcher fromSystemProperties(final MovieRecommenderService service,
+                                                                final HistoryRepository repo) {
+        return new RecommendationPrefetcher(service, repo, Integer.getInteger(PROP_SIZE, DEFAULT_SIZE));
+    }
+
+    /**
+     * Rend la prochaine recommandation et relance le remplissage de la file.
+     *
+     * @return futur déjà complété si une recommandation était prête ; sinon complété par le
+     *         thread de fond (exceptionnellement si le service échoue)
+     */
+    public CompletableFuture<Prepared> next() {
+        CompletableFuture<Prepared> result = null;
+        while (result == null) {
+            final Prepared p;
+            synchronized (this) {
+                if (closed) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("Préchargement arrêté"));
+                }
+                p = ready.poll();
+                if (p == null) {
+                    result = new CompletableFuture<>();
+                    waiters.add(result);
+                }
+            }
+            if (p != null && !excluded(p.recommendation().title())) {
+                served(p.recommendation().title());
+                result = CompletableFuture.completedFuture(p);
+            }
+        }
+        scheduleFill();
+        return result;
+    }
+
+    /** Retire de la file les titres passés en « envie » puis la complète. */
+    public void historyChanged() {
+        final Prepared[] snapshot;
+        synchronized (this) {
+            snapshot = ready.toArray(new Prepared[0]);
+        }
+        for (Prepared p : snapshot) {
+            if (excluded(p.recommendation().title())) {
+                synchronized (this) {
+                    ready.remove(p);
+                }
+            }
+        }
+        scheduleFill();
+    }
+
+    /** Vide la file ; une préparation en cours est abandonnée. */
+    public synchronized void clear() {
+        ready.clear();
+        epoch++;
+    }
+
+    /** @return nombre de recommandations prêtes */
+    public synchronized int readyCount() {
+        return ready.size();
+    }
+
+    /** Arrête le remplissage ; les demandes en attente sont annulées. */
+    @Override
+    public void close() {
+        final Deque<CompletableFuture<Prepared>> pending;
+        synchronized (this) {
+            closed = true;
+            ready.clear();
+            pending = new ArrayDeque<>(waiters);
+            waiters.clear();
+        }
+        pending.forEach(f -> f.cancel(false));
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    // -------- internes
+
+    private void scheduleFill() {
+        synchronized (this) {
+            if (filling || closed) {
+                return;
+            }
+            filling = true;
+        }
+        try {
+            executor.execute(() -> LlmPriority.call(LlmPriority.PREFETCH, () -> {
+                try {
+                    fill();
+                } catch (RuntimeException e) {
+                    giveUp(e);
+                }
+                return null;
+            }));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                filling = false;
+            }
+        }
+    }
+
+    /**
+     * Boucle du thread de fond : sert les demandes en attente puis complète la file. Les
+     * propositions arrivent par lots ({@link MovieRecommenderService#recommendBatch}) : un
+     * seul appel au modèle pour toutes les places libres, titres exclus déjà filtrés.
+     */
+    private void fill() {
+        final Deque<Recommendation> candidates = new ArrayDeque<>();
+        int failures = 0;
+        while (true) {
+            final long gen;
+            final boolean forWaiter;
+            final int wanted;
+            synchronized (this) {
+                if (closed || (waiters.isEmpty() && ready.size() >= capacity)) {
+                    filling = false;
+                    return;
+                }
+                gen = epoch;
+                forWaiter = !waiters.isEmpty();
+                wanted = waiters.size() + capacity - ready.size();
+            }
+
+            if (candidates.isEmpty()) {
+                try {
+                    // une demande attend : le lot est à l’écran, pas d’avance
+                    final List<Recommendation> batch = LlmPriority.call(
+                            forWaiter ? LlmPriority.VISIBLE : LlmPriority.PREFETCH,
+                            () -> service.recommendBatch(wanted, exclusions()));
+                    if (batch != null) {
+                        candidates.addAll(batch);
+                    }
+                } catch (RuntimeException e) {
+                    giveUp(e);
+                    return;
+                }
+            }
+            final Recommendation rec = candidates.poll();
+            if (!usable(rec)) {
+                if (++failures >= MAX_ATTEMPTS) {
+                    giveUp(new IllegalStateException("Aucune recommandation disponible"));
+                    return;
+                }
+                continue;
+            }
+            failures = 0;
+
+            if (forWaiter && complete(new Prepared(rec, null))) {
+                continue;
+            }
+            final String description = describe(rec.title());
+            synchronized (this) {
+                if (closed || gen != epoch) {
+                    continue;
+                }
+            }
+            final Prepared p = new Prepared(rec, description);
+            if (!complete(p)) {
+                synchronized (this) {
+                    ready.add(p);
+                }
+            }
+        }
+    }
+
+    /** Donne {@code p} à la plus ancienne demande en attente ; {@code false} s’il n’y en a pas. */
+    private boolean complete(final Prepared p) {
+        CompletableFuture<Prepared> f;
+        while (true) {
+            synchronized (this) {
+                f = waiters.poll();
+            }
+            if (f == null) {
+                return false;
+            }
+            if (f.complete(p)) {
+                served(p.recommendation().title());
+                return true;
+            }
+        }
+    }
+
+    /** Arrête le remplissage (jusqu’à la prochaine demande) ; les demandes en attente échouent. */
+    private void giveUp(final Throwable error) {
+        final Deque<CompletableFuture<Prepared>> pending;
+        synchronized (this) {
+            filling = false;
+            pending = new ArrayDeque<>(waiters);
+            waiters.clear();
+        }
+        pending.forEach(w -> w.completeExceptionally(error));
+    }
+
+    private synchronized void served(final String title) {
+        lastServed = key(title);
+    }
+
+    /** Proposition affichable : titre non vide, pas en « envie », ni déjà prête ou servie. */
+    private boolean usable(final Recommendation rec) {
+        if (rec == null || rec.title() == null || rec.title().isBlank() || excluded(rec.title())) {
+            return false;
+        }
+        final String k = key(rec.title());
+        synchronized (this) {
+            if (k.equals(lastServed)) {
+                return false;
+            }
+            for (Prepared p : ready) {
+                if (k.equals(key(p.recommendation().title()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /** Titres à ne pas proposer : « envie », file prête et dernier servi. */
+    private Set<String> exclusions() {
+        final Set<String> out = new LinkedHashSet<>();
+        synchronized (this) {
+            if (lastServed != null) {
+                out.add(lastServed);
+            }
+            for (Prepared p : ready) {
+                out.add(p.recommendation().title());
+            }
+        }
+        try {
+            out.addAll(repo.getByStatus("envie"));
+        } catch (RuntimeException e) {
+            // historique illisible : filtrage au retrait seulement
+        }
+        return out;
+    }
+
+    private boolean excluded(final String title) {
+        try {
+            return repo.getByStatus("envie").contains(title);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /** Description d’avance, ou {@code null} (l’appelant la régénérera) si le modèle a échoué. */
+    private String describe(final String title) {
+        try {
+            final String d = service.generateDescription(title);
+            return MovieRecommenderService.isUsableDescription(d) ? d : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String key(final String title) {
+        return title == null ? "" : title.trim().toLowerCase(Locale.ROOT);
+    }
+}
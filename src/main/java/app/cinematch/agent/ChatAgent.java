@@ -1,42 +1,77 @@
 package app.cinematch.agent;
 
+import app.cinematch.api.LlmPriority;
 import app.cinematch.api.OllamaClient;
+import app.cinematch.model.LlmMessage;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 public final class ChatAgent {
 
+    /**
+     * Version du préfixe système ; à incrémenter à chaque modification de {@link #SYSTEM_PREFIX}
+     * (tout changement de ce texte invalide le cache de prompt d’Ollama).
+     */
+    public static final String PROMPT_VERSION = "2";
+
+    /** Préfixe système constant : persona et règles, sans aucune donnée variable. */
+    static final String SYSTEM_PREFIX =
+            "Tu es un expert du cinéma francophone, spécialiste des recommandations personnalisées.\n"
+            + "Tes réponses doivent toujours être en français, avec un ton naturel, amical et professionnel.\n"
+            + "\n"
+            + "Règles :\n"
+            + "- Ne repropose jamais un film déjà vu ou non souhaité.\n"
+            + "- Inspire-toi des échanges précédents pour rester cohérent.\n"
+            + "- Réponds de façon fluide, ≤ 100 mots, sans répétition.\n"
+            + "\n"
+            + "Goûts de l’utilisateur (les nouveaux films sont ajoutés en fin de liste) :\n";
+
     private final OllamaClient ollama;
     private Profile profile;
     private final Memory memory;
     private final ConversationMemory convMemory;
+    private final TasteProfileBuilder taste;
 
     /** Délégué optionnel (ex. LangChain4jAgentBridge::ask). */
     private final Function<String, String> askDelegate;
 
     /** Constructeur historique (sans délégué) */
-    public ChatAgent(final OllamaClient ollama, final Profile profile, final Memory ignored) {
-        this(ollama, profile, ignored, null); // ✅ initialise askDelegate à null
+    public ChatAgent(final OllamaClient ollama, final Profile profile, final Memory memory) {
+        this(ollama, profile, memory, null); // ✅ initialise askDelegate à null
     }
 
     /** Nouveau constructeur avec délégué */
     public ChatAgent(final OllamaClient ollama,
                      final Profile profile,
-                     final Memory ignored,
+                     final Memory memory,
                      final Function<String, String> askDelegate) {
         this.ollama = Objects.requireNonNull(ollama);
         this.profile = Objects.requireNonNull(profile);
-        // Memory interne stateless pour éviter l'exposition externe
-        this.memory = new Memory();
+        // Memory injectée : lit le même stockage (JSON ou H2) que le reste de l'application
+        this.memory = Objects.requireNonNull(memory);
         this.convMemory = new ConversationMemory(6);
+        this.taste = TasteProfileBuilder.fromSystemProperties(memory);
         this.askDelegate = askDelegate; // ✅ assignation du champ final
     }
 
     public void setProfile(final Profile profile) { this.profile = Objects.requireNonNull(profile); }
 
+    /**
+     * Répond à l’utilisateur. Les appels au modèle (y compris ceux du délégué et de ses
+     * outils) passent en priorité {@link LlmPriority#INTERACTIVE}.
+     *
+     * @param userPrompt message de l’utilisateur
+     * @return réponse complète
+     */
     public String ask(final String userPrompt) {
+        return LlmPriority.call(LlmPriority.INTERACTIVE, () -> answer(userPrompt));
+    }
+
+    private String answer(final String userPrompt) {
         // Si un délégué (LangChain4j) est fourni, on lui confie la réponse
         if (askDelegate != null) {
             convMemory.addUserMessage(userPrompt);
@@ -46,36 +81,54 @@ public final class ChatAgent {
         }
 
         // ----- Flux "classique" (OllamaClient maison) -----
+        final List<LlmMessage> messages = messages(userPrompt);
         convMemory.addUserMessage(userPrompt);
+        final String response = ollama.chat(messages);
+        convMemory.addAssistantMessage(response);
+        return response;
+    }
 
-        final List<String> seen = memory.seen();
-        final List<String> wishlist = memory.toWatch();
-        final List<String> disliked = memory.notInterested();
-
-        final String seenStr = seen.isEmpty() ? "aucun film enregistré" : String.join(", ", seen);
-        final String wishStr = wishlist.isEmpty() ? "aucun film enregistré" : String.join(", ", wishlist);
-        final String badStr  = disliked.isEmpty() ? "aucun film enregistré" : String.join(", ", disliked);
-
-        final String ls = System.lineSeparator();
-        final StringBuilder sb = new StringBuilder(512);
-        sb.append("Tu es un expert du cinéma francophone, spécialiste des recommandations personnalisées.").append(ls)
-                .append("Tes réponses doivent toujours être en français, avec un ton naturel, amical et professionnel.").append(ls).append(ls)
-                .append("Voici les informations sur les goûts de l’utilisateur :").append(ls)
-                .append("- Films déjà vus : ").append(seenStr).append(ls)
-                .append("- Films qu’il souhaite voir : ").append(wishStr).append(ls)
-                .append("- Films qu’il n’aime pas : ").append(badStr).append(ls).append(ls)
-                .append("Contexte récent de la conversation :").append(ls)
-                .append(convMemory.toPromptString()).append(ls).append(ls)
-                .append("Rappelle-toi :").append(ls)
-                .append("- Ne repropose jamais un film déjà vu ou non souhaité.").append(ls)
-                .append("- Inspire-toi du contexte précédent pour rester cohérent.").append(ls)
-                .append("- Réponds de façon fluide, ≤ 100 mots, sans répétition.").append(ls);
-
-        final String response = ollama.chat(sb.toString(), userPrompt);
+    /**
+     * Comme {@link #ask(String)}, en transmettant la réponse au fil de sa génération.
+     * Un délégué (LangChain4j) ne sait pas répondre en flux : sa réponse est alors
+     * transmise d’un bloc.
+     *
+     * @param userPrompt message de l’utilisateur
+     * @param onToken    consommateur des fragments, appelé sur le thread appelant
+     * @return réponse complète
+     */
+    public String askStream(final String userPrompt, final Consumer<String> onToken) {
+        if (askDelegate != null) {
+            final String response = ask(userPrompt);
+            if (onToken != null && response != null) {
+                onToken.accept(response);
+            }
+            return response;
+        }
+        final List<LlmMessage> messages = messages(userPrompt);
+        convMemory.addUserMessage(userPrompt);
+        final String response = LlmPriority.call(LlmPriority.INTERACTIVE,
+                () -> ollama.chatStream(messages, onToken));
         convMemory.addAssistantMessage(response);
         return response;
     }
 
-    public Memory getMemory() { return new Memory(); }
+    /**
+     * Conversation envoyée au modèle, ordonnée du plus stable au plus volatil pour que le
+     * cache de prompt d’Ollama serve d’un tour à l’autre : préfixe constant
+     * ({@link #SYSTEM_PREFIX}), bloc de goûts borné et complété par la fin
+     * ({@link TasteProfileBuilder}), puis les échanges
+     * récents en vrais tours "user"/"assistant" et enfin la question.
+     */
+    private List<LlmMessage> messages(final String userPrompt) {
+        final List<LlmMessage> history = convMemory.toMessages();
+        final List<LlmMessage> out = new ArrayList<>(history.size() + 2);
+        out.add(new LlmMessage("system", SYSTEM_PREFIX + taste.block()));
+        out.addAll(history);
+        out.add(new LlmMessage("user", userPrompt));
+        return out;
+    }
+
+    public Memory getMemory() { return memory; }
     public Profile getProfile() { return profile; }
 }
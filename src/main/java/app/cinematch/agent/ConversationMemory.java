@@ -1,18 +1,61 @@
 package app.cinematch.agent;
 
-import java.util.LinkedList;
+import app.cinematch.model.LlmMessage;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Mémoire courte de conversation : conserve les derniers échanges
  * pour permettre à l'IA de répondre de manière contextuelle.
+ *
+ * <p>Tampon circulaire borné deux fois : en nombre de messages et en taille (budget en
+ * tokens, estimé à {@value TasteProfileBuilder#CHARS_PER_TOKEN} caractères par token). Au-delà
+ * du budget, les plus anciens messages sont oubliés ; un message trop long à lui seul
+ * (texte collé) est tronqué à l'entrée. Le texte de {@link #toPromptString()} et la liste de
+ * {@link #toMessages()} sont gardés entre deux changements : un ajout complète le texte par
+ * la fin, un oubli en retire le début. Configuration : {@code -Dcinematch.chat.historyMaxTokens}.
+ * Thread-safe.</p>
  */
 public class ConversationMemory {
 
-    private final LinkedList<Message> history = new LinkedList<>();
-    private final int maxMessages;
+    /** Propriété système : budget de l'historique, en tokens. */
+    public static final String PROP_MAX_TOKENS = "cinematch.chat.historyMaxTokens";
+    /** Budget par défaut, en tokens. */
+    public static final int DEFAULT_MAX_TOKENS = 1_000;
+    /** Budget minimal accepté, en tokens. */
+    public static final int MIN_TOKENS = 32;
+
+    /** Marque ajoutée à un message tronqué. */
+    static final String TRUNCATED = " […]";
+
+    private final Message[] ring;
+    private final int maxChars;
+    private int head;
+    private int size;
 
+    /** Texte rendu des messages présents, une ligne {@code rôle : contenu} par message. */
+    private final StringBuilder rendered;
+    private String prompt;
+    private List<LlmMessage> messages;
+
+    /**
+     * Mémoire bornée à {@code maxMessages} et au budget de {@code -Dcinematch.chat.historyMaxTokens}.
+     *
+     * @param maxMessages nombre maximal de messages gardés
+     */
     public ConversationMemory(int maxMessages) {
-        this.maxMessages = maxMessages;
+        this(maxMessages, Integer.getInteger(PROP_MAX_TOKENS, DEFAULT_MAX_TOKENS));
+    }
+
+    /**
+     * @param maxMessages nombre maximal de messages gardés (au moins 1)
+     * @param maxTokens   budget de l'historique, en tokens (au moins {@link #MIN_TOKENS})
+     */
+    public ConversationMemory(int maxMessages, int maxTokens) {
+        this.ring = new Message[Math.max(1, maxMessages)];
+        this.maxChars = Math.max(MIN_TOKENS, maxTokens) * TasteProfileBuilder.CHARS_PER_TOKEN;
+        this.rendered = new StringBuilder(maxChars);
     }
 
     public void addUserMessage(String content) {
@@ -23,22 +66,91 @@ public class ConversationMemory {
         addMessage("IA", content);
     }
 
-    private void addMessage(String role, String content) {
-        history.add(new Message(role, content));
-        if (history.size() > maxMessages) {
-            history.removeFirst(); // Supprime le plus ancien
+    private synchronized void addMessage(String role, String content) {
+        final Message msg = new Message(role, clip(role, content == null ? "" : content));
+        if (size == ring.length) {
+            evictOldest(); // Supprime le plus ancien
+        }
+        ring[(head + size) % ring.length] = msg;
+        size++;
+        appendLine(rendered, msg);
+        while (rendered.length() > maxChars && size > 1) {
+            evictOldest();
         }
+        prompt = null;
+        messages = null;
     }
 
     /**
      * Retourne l'historique sous forme de texte lisible par le modèle.
      */
-    public String toPromptString() {
-        StringBuilder sb = new StringBuilder();
-        for (Message msg : history) {
-            sb.append(msg.role()).append(" : ").append(msg.content()).append("\n");
+    public synchronized String toPromptString() {
+        if (prompt == null) {
+            prompt = rendered.toString();
+        }
+        return prompt;
+    }
+
+    /**
+     * Retourne l'historique sous forme de tours "user"/"assistant", du plus ancien au plus récent
+     * (liste non modifiable).
+     */
+    public synchronized List<LlmMessage> toMessages() {
+        if (messages == null) {
+            final List<LlmMessage> out = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                final Message msg = ring[(head + i) % ring.length];
+                out.add(new LlmMessage("IA".equals(msg.role()) ? "assistant" : "user", msg.content()));
+            }
+            messages = List.copyOf(out);
         }
-        return sb.toString();
+        return messages;
+    }
+
+    /** @return nombre de messages gardés */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** @return taille estimée de l'historique, en tokens */
+    public synchronized int tokens() {
+        return TasteProfileBuilder.estimateTokens(toPromptString());
+    }
+
+    /** @return budget de l'historique, en tokens */
+    public int maxTokens() {
+        return maxChars / TasteProfileBuilder.CHARS_PER_TOKEN;
+    }
+
+    // -------- internes
+
+    private void evictOldest() {
+        final Message oldest = ring[head];
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        size--;
+        rendered.delete(0, lineLength(oldest));
+    }
+
+    /** Contenu tronqué pour que sa ligne tienne seule dans le budget. */
+    private String clip(String role, String content) {
+        final int room = maxChars - lineLength(new Message(role, ""));
+        if (content.length() <= room) {
+            return content;
+        }
+        int cut = Math.max(0, room - TRUNCATED.length());
+        if (cut > 0 && Character.isHighSurrogate(content.charAt(cut - 1))) {
+            cut--;
+        }
+        return content.substring(0, cut) + TRUNCATED;
+    }
+
+    private static void appendLine(StringBuilder sb, Message msg) {
+        sb.append(msg.role()).append(" : ").append(msg.content()).append("\n");
+    }
+
+    private static int lineLength(Message msg) {
+        return msg.role().length() + 3 + msg.content().length() + 1;
     }
 
     public record Message(String role, String content) {}
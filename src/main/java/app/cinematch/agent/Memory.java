@@ -1,14 +1,15 @@
 package app.cinematch.agent;
 
 import app.cinematch.model.HistoryEntry;
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Représente la mémoire utilisateur persistante pour les recommandations de films.
  *
- * <p>Cette classe enregistre et charge les préférences de l’utilisateur via {@link JsonStorage}.
+ * <p>Cette classe enregistre et charge les préférences de l’utilisateur via un
+ * {@link HistoryRepository} (fichier JSON par défaut, ou base embarquée).
  * Les films sont classés selon trois statuts :
  * <ul>
  *     <li><b>déjà vu</b> — films que l’utilisateur a regardés</li>
@@ -17,7 +18,8 @@ import java.util.stream.Collectors;
  * </ul>
  *
  * <p>La mémoire est considérée comme <i>stateless</i> : elle ne conserve pas d’état en RAM,
- * mais s’appuie sur une couche de stockage persistante (JSON local).
+ * mais s’appuie sur une couche de stockage persistante (JSON local ou base embarquée) qui
+ * répond aux requêtes par statut par index, sans relire tout l’historique.
  *
  * <p>Exemple d’utilisation :
  * <pre>{@code
@@ -27,18 +29,37 @@ import java.util.stream.Collectors;
  * List<String> envies = memory.toWatch();
  * }</pre>
  *
- * @see app.cinematch.util.JsonStorage
+ * @see app.cinematch.util.HistoryRepository
  * @see app.cinematch.model.HistoryEntry
  */
 public class Memory {
 
+    /** Stockage de l’historique. */
+    private final HistoryRepository repo;
+
+    /**
+     * Mémoire adossée au fichier JSON ({@link JsonHistoryRepository}).
+     */
+    public Memory() {
+        this(new JsonHistoryRepository());
+    }
+
+    /**
+     * Mémoire adossée au dépôt fourni.
+     *
+     * @param repo stockage de l’historique
+     */
+    public Memory(final HistoryRepository repo) {
+        this.repo = repo;
+    }
+
     /**
      * Ajoute ou met à jour un film avec le statut {@code "deja_vu"} (déjà vu).
      *
      * @param title le titre du film à marquer comme vu
      */
     public void addSeen(final String title) {
-        JsonStorage.addOrUpdate(title, "deja_vu");
+        repo.addOrUpdate(title, "deja_vu");
     }
 
     /**
@@ -47,7 +68,7 @@ public class Memory {
      * @param title le titre du film que l’utilisateur souhaite voir
      */
     public void addToWatch(final String title) {
-        JsonStorage.addOrUpdate(title, "envie");
+        repo.addOrUpdate(title, "envie");
     }
 
     /**
@@ -56,22 +77,18 @@ public class Memory {
      * @param title le titre du film que l’utilisateur ne souhaite pas voir
      */
     public void addNotInterested(final String title) {
-        JsonStorage.addOrUpdate(title, "pas_interesse");
+        repo.addOrUpdate(title, "pas_interesse");
     }
 
     /**
      * Retourne la liste des titres marqués comme {@code "déjà vus"}.
      *
-     * <p>Les doublons sont supprimés pour garantir une liste unique.</p>
+     * <p>Les titres sont uniques (index par titre) et triés du plus récent au plus ancien.</p>
      *
      * @return la liste des films déjà vus
      */
     public List<String> seen() {
-        return JsonStorage.loadAll().stream()
-                .filter(e -> "deja_vu".equalsIgnoreCase(e.status()))
-                .map(HistoryEntry::title)
-                .distinct()
-                .collect(Collectors.toList());
+        return repo.getByStatus("deja_vu");
     }
 
     /**
@@ -80,11 +97,7 @@ public class Memory {
      * @return la liste des films à voir
      */
     public List<String> toWatch() {
-        return JsonStorage.loadAll().stream()
-                .filter(e -> "envie".equalsIgnoreCase(e.status()))
-                .map(HistoryEntry::title)
-                .distinct()
-                .collect(Collectors.toList());
+        return repo.getByStatus("envie");
     }
 
     /**
@@ -93,11 +106,7 @@ public class Memory {
      * @return la liste des films que l’utilisateur ne souhaite pas voir
      */
     public List<String> notInterested() {
-        return JsonStorage.loadAll().stream()
-                .filter(e -> "pas_interesse".equalsIgnoreCase(e.status()))
-                .map(HistoryEntry::title)
-                .distinct()
-                .collect(Collectors.toList());
+        return repo.getByStatus("pas_interesse");
     }
 
     /**
@@ -106,7 +115,7 @@ public class Memory {
      * @return l’ensemble de l’historique utilisateur
      */
     public List<HistoryEntry> history() {
-        return JsonStorage.loadAll();
+        return repo.loadAll();
     }
 
     /**
@@ -116,8 +125,8 @@ public class Memory {
      */
     @Override
     public String toString() {
-        return "Mémoire : " + seen().size() + " vus, "
-                + toWatch().size() + " envies, "
-                + notInterested().size() + " pas intéressés.";
+        return "Mémoire : " + repo.countByStatus("deja_vu") + " vus, "
+                + repo.countByStatus("envie") + " envies, "
+                + repo.countByStatus("pas_interesse") + " pas intéressés.";
     }
 }
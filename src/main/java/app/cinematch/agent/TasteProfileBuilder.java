@@ -0,0 +1,258 @@
+package app.cinematch.agent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bloc « goûts de l’utilisateur » du prompt de chat, borné par un budget de tokens.
+ *
+ * <p>Une ligne par film ({@code - déjà vu : titre}), du plus ancien au plus récent pour
+ * chaque statut. Si tout l’historique tient dans le budget, il est repris en entier ; sinon
+ * le bloc est compacté aux trois quarts du budget : la moitié pour les films les plus
+ * récents (tous statuts confondus), le reste pour un échantillon régulier des plus anciens,
+ * suivi d’une ligne indiquant combien de films ne sont pas listés.</p>
+ *
+ * <p>Le bloc est gardé tant que l’historique ne change pas. Les films ajoutés depuis le
+ * dernier appel sont écrits à la fin, sans toucher aux lignes déjà envoyées (le début du
+ * prompt reste identique pour le cache d’Ollama) ; il n’est recompacté que lorsqu’une ligne
+ * envoyée disparaît (film retiré ou changé de statut) ou que le budget serait dépassé.</p>
+ *
+ * <p>Estimation : {@value #CHARS_PER_TOKEN} caractères par token. Configuration :
+ * {@code -Dcinematch.taste.maxTokens}. Thread-safe.</p>
+ */
+public final class TasteProfileBuilder {
+
+    /** Propriété système : budget du bloc, en tokens. */
+    public static final String PROP_MAX_TOKENS = "cinematch.taste.maxTokens";
+    /** Budget par défaut, en tokens. */
+    public static final int DEFAULT_MAX_TOKENS = 600;
+    /** Budget minimal accepté, en tokens. */
+    public static final int MIN_TOKENS = 64;
+    /** Caractères par token retenus pour l’estimation. */
+    public static final int CHARS_PER_TOKEN = 4;
+
+    /** Bloc d’un historique vide. */
+    static final String EMPTY = "- aucun film enregistré\n";
+
+    private static final String[] STATUSES = {"déjà vu", "envie", "pas intéressé"};
+
+    private final Memory memory;
+    private final int maxChars;
+
+    private List<List<String>> lastLists;
+    private Set<String> known = Set.of();
+    /** Lignes du bloc, dans l’ordre d’envoi (note de compactage comprise). */
+    private final List<String> lines = new ArrayList<>();
+    /** Note de compactage, ou {@code null} si tout l’historique est listé. */
+    private String note;
+    private int chars;
+    private String block;
+
+    /**
+     * @param memory    historique de l’utilisateur
+     * @param maxTokens budget du bloc, en tokens (au moins {@link #MIN_TOKENS})
+     */
+    public TasteProfileBuilder(final Memory memory, final int maxTokens) {
+        this.memory = Objects.requireNonNull(memory, "memory must not be null");
+        this.maxChars = Math.max(MIN_TOKENS, maxTokens) * CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Construit le bloc selon {@code -Dcinematch.taste.maxTokens}.
+     *
+     * @param memory historique de l’utilisateur
+     * @return le constructeur configuré
+     */
+    public static TasteProfileBuilder fromSystemProperties(final Memory memory) {
+        return new TasteProfileBuilder(memory, Integer.getInteger(PROP_MAX_TOKENS, DEFAULT_MAX_TOKENS));
+    }
+
+    /**
+     * Estimation grossière du nombre de tokens d’un texte.
+     *
+     * @param text texte (peut être {@code null})
+     * @return nombre de tokens estimé
+     */
+    public static int estimateTokens(final String text) {
+        return text == null ? 0 : (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    /** @return budget du bloc, en tokens */
+    public int maxTokens() {
+        return maxChars / CHARS_PER_TOKEN;
+    }
+
+    /**
+     * Bloc à jour, recalculé seulement si l’historique a changé depuis l’appel précédent.
+     *
+     * @return le bloc, lignes terminées par {@code '\n'}
+     */
+    public synchronized String block() {
+        final List<List<String>> lists = List.of(
+                safe(memory.seen()), safe(memory.toWatch()), safe(memory.notInterested()));
+        if (block != null && lists.equals(lastLists)) {
+            return block;
+        }
+        final LinkedHashSet<String> current = new LinkedHashSet<>();
+        for (int s = 0; s < STATUSES.length; s++) {
+            final List<String> titles = lists.get(s);
+            for (int i = titles.size() - 1; i >= 0; i--) {
+                current.add(line(s, titles.get(i)));
+            }
+        }
+        if (block == null || !append(current)) {
+            compact(lists, current);
+        }
+        lastLists = lists;
+        known = current;
+        block = render();
+        return block;
+    }
+
+    // -------- internes
+
+    /** Ajoute en fin de bloc les films apparus ; {@code false} s’il faut recompacter. */
+    private boolean append(final Set<String> current) {
+        for (String l : lines) {
+            if (!l.equals(note) && !current.contains(l)) {
+                return false;
+            }
+        }
+        final List<String> added = new ArrayList<>();
+        int extra = 0;
+        for (String l : current) {
+            if (!known.contains(l)) {
+                added.add(l);
+                extra += l.length() + 1;
+            }
+        }
+        if (chars + extra > maxChars) {
+            return false;
+        }
+        lines.addAll(added);
+        chars += extra;
+        return true;
+    }
+
+    /** Reconstruit le bloc : tout l’historique s’il tient, sinon récents + échantillon. */
+    private void compact(final List<List<String>> lists, final Set<String> current) {
+        lines.clear();
+        note = null;
+        int all = 0;
+        for (String l : current) {
+            all += l.length() + 1;
+        }
+        if (all <= maxChars) {
+            lines.addAll(current);
+            chars = all;
+            return;
+        }
+
+        final int total = current.size();
+        final String noteTemplate = note(total);
+        final int budget = maxChars * 3 / 4 - (noteTemplate.length() + 1);
+        final List<Set<Integer>> chosen = new ArrayList<>();
+        final int[] taken = new int[STATUSES.length];
+        for (int s = 0; s < STATUSES.length; s++) {
+            chosen.add(new HashSet<>());
+        }
+
+        // les plus récents, à tour de rôle entre statuts
+        int used = 0;
+        boolean progress = true;
+        while (progress) {
+            progress = false;
+            for (int s = 0; s < STATUSES.length; s++) {
+                final List<String> titles = lists.get(s);
+                if (taken[s] >= titles.size()) {
+                    continue;
+                }
+                final int cost = line(s, titles.get(taken[s])).length() + 1;
+                if (used + cost > budget / 2) {
+                    continue;
+                }
+                chosen.get(s).add(taken[s]++);
+                used += cost;
+                progress = true;
+            }
+        }
+
+        // échantillon régulier des plus anciens, au prorata de chaque statut
+        int older = 0;
+        for (int s = 0; s < STATUSES.length; s++) {
+            older += lists.get(s).size() - taken[s];
+        }
+        final int sampleBudget = budget - used;
+        for (int s = 0; s < STATUSES.length && older > 0; s++) {
+            final List<String> titles = lists.get(s);
+            final int rest = titles.size() - taken[s];
+            if (rest <= 0) {
+                continue;
+            }
+            final int quota = (int) ((long) sampleBudget * rest / older);
+            final int avg = Math.max(1, averageCost(s, titles, taken[s]));
+            final int k = Math.min(rest, quota / avg);
+            int spent = 0;
+            for (int j = 0; j < k; j++) {
+                final int idx = titles.size() - 1 - (int) ((long) j * rest / k);
+                final int cost = line(s, titles.get(idx)).length() + 1;
+                if (spent + cost > quota) {
+                    break;
+                }
+                chosen.get(s).add(idx);
+                spent += cost;
+            }
+            used += spent;
+        }
+
+        int kept = 0;
+        for (int s = 0; s < STATUSES.length; s++) {
+            final List<Integer> idx = new ArrayList<>(chosen.get(s));
+            idx.sort(Collections.reverseOrder());
+            for (int i : idx) {
+                lines.add(line(s, lists.get(s).get(i)));
+            }
+            kept += idx.size();
+        }
+        note = note(total - kept);
+        lines.add(note);
+        chars = used + note.length() + 1;
+    }
+
+    private static int averageCost(final int status, final List<String> titles, final int from) {
+        final int n = Math.min(titles.size() - from, 50);
+        int sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += line(status, titles.get(from + i * (titles.size() - from) / n)).length() + 1;
+        }
+        return n == 0 ? 0 : sum / n;
+    }
+
+    private String render() {
+        if (lines.isEmpty()) {
+            return EMPTY;
+        }
+        final StringBuilder sb = new StringBuilder(chars + 16);
+        for (String l : lines) {
+            sb.append(l).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String note(final int omitted) {
+        return "- … et " + omitted + " films plus anciens non listés";
+    }
+
+    private static String line(final int status, final String title) {
+        return "- " + STATUSES[status] + " : " + title;
+    }
+
+    private static List<String> safe(final List<String> titles) {
+        return titles == null ? List.of() : titles;
+    }
+}
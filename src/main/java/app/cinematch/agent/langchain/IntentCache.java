@@ -0,0 +1,629 @@
+package app.cinematch.agent.langchain;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des plans d’outils choisis par le LLM, pour rejouer les commandes répétées sans lui.
+ *
+ * <p>Quand le modèle répond à un message par un seul tour d’appels d’outils (par exemple
+ * {@code getListByStatus("envie")} pour « affiche ma liste d’envie »), le plan est mémorisé
+ * sous la forme normalisée du message : minuscules, accents retirés, blancs réduits,
+ * ponctuation finale ignorée, titres remplacés par des emplacements {@code {0}}, {@code {1}}…
+ * Un titre entre guillemets devient toujours un emplacement ; un titre sans guillemets aussi,
+ * s’il est le seul, qu’on le retrouve tel quel dans le message et que le plan ne fait que
+ * lire ({@link #READ_ONLY} : « décris Alien » donne {@code décris {0}}, qui servira pour
+ * « décris Heat »). Un plan qui écrit garde ses titres sans guillemets tels quels : « je veux
+ * voir Alien » n’est rejoué que pour ce message, jamais pour « je veux voir un truc drôle ».
+ * Le même message, ou la même tournure avec d’autres titres, rejoue alors les outils
+ * directement.</p>
+ *
+ * <p>Précautions : seuls les outils de {@link #CACHEABLE} sont rejoués (lecture et action
+ * sur un seul titre ; ni vidage de liste ni action groupée) ; un plan n’est appris que si
+ * chaque titre passé aux outils vient du message (pas de « ajoute-le » résolu par le
+ * contexte) et qu’aucun outil n’a répondu {@code ERROR:} ; un rejeu qui échoue oublie
+ * l’entrée et laisse la main au LLM.</p>
+ *
+ * <p>Les entrées sont liées à une empreinte des outils (noms, descriptions, paramètres) et
+ * du modèle : le fichier optionnel ({@code -Dcinematch.intentCache.file}) est ignoré dès
+ * qu’un outil change de signature. LRU bornée ({@code -Dcinematch.intentCache.max}).
+ * Thread-safe.</p>
+ */
+final class IntentCache {
+
+    /** Propriété système : fichier de persistance (absent = mémoire seule). */
+    static final String PROP_FILE = "cinematch.intentCache.file";
+    /** Propriété système : nombre maximal d’entrées ({@code 0} désactive le cache). */
+    static final String PROP_MAX = "cinematch.intentCache.max";
+    /** Nombre maximal d’entrées par défaut. */
+    static final int DEFAULT_MAX = 256;
+    /** Outils rejouables : lectures et actions sur un seul titre. */
+    static final Set<String> CACHEABLE = Set.of(
+            "getListByStatus", "getListByStatusSorted", "getStats", "pickNextToWatch",
+            "generateDescription", "addToWishlist", "removeFromWishlist", "markAsSeen",
+            "markAsDisliked", "setStatus");
+    /** Outils sans écriture : seuls leurs plans généralisent un titre sans guillemets. */
+    static final Set<String> READ_ONLY = Set.of(
+            "getListByStatus", "getListByStatusSorted", "getStats", "pickNextToWatch",
+            "generateDescription");
+
+    private static final String VERSION = "2";
+    private static final int SHOWN = 10;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Appel d’outil d’un plan ; les valeurs {@code {i}} désignent un emplacement. */
+    record Step(String tool, Map<String, String> args) { }
+
+    /** Contenu du fichier : empreinte des outils et plans par message normalisé. */
+    record Stored(String fingerprint, Map<String, List<Step>> entries) { }
+
+    /** Message normalisé : clé et titres extraits, dans l’ordre des emplacements. */
+    record Key(String key, List<String> slots, int[] origin) { }
+
+    /**
+     * Méthode outil : {@code params} sont les noms du schéma JSON envoyé au LLM (ceux de
+     * {@link ToolSpecifications}), {@code labels} le sens de chaque paramètre
+     * ({@code @P}, sinon le nom Java), utilisé pour repérer les titres et rendre la réponse.
+     */
+    private record Invoker(Object target, Method method, String[] params, String[] labels) {
+        String label(final String param) {
+            for (int i = 0; i < params.length; i++) {
+                if (params[i].equals(param)) {
+                    return labels[i];
+                }
+            }
+            return param;
+        }
+    }
+
+    /** Appels d’outils observés pendant une réponse du LLM. */
+    private static final class Recording {
+        final List<ToolExecutionRequest> requests = new ArrayList<>();
+        int toolRounds;
+        boolean failed;
+    }
+
+    private final Map<String, Invoker> tools = new LinkedHashMap<>();
+    private final String fingerprint;
+    private final int maxEntries;
+    private final Path file;
+    private final Map<String, List<Step>> lru;
+    private final ThreadLocal<Recording> recording = new ThreadLocal<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param toolObjects objets outils donnés à l’assistant, dans le même ordre
+     * @param model       nom du modèle (fait partie de l’empreinte)
+     * @param maxEntries  nombre maximal d’entrées ({@code 0} : rien n’est appris)
+     * @param file        fichier de persistance, ou {@code null} pour la mémoire seule
+     */
+    IntentCache(final List<Object> toolObjects, final String model, final int maxEntries, final Path file) {
+        this.maxEntries = Math.max(0, maxEntries);
+        this.file = file;
+        this.lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, List<Step>> eldest) {
+                return size() > IntentCache.this.maxEntries;
+            }
+        };
+        final List<String> specs = new ArrayList<>();
+        for (Object o : toolObjects) {
+            for (ToolSpecification spec : ToolSpecifications.toolSpecificationsFrom(o)) {
+                specs.add(spec.toString());
+            }
+            for (Method m : o.getClass().getMethods()) {
+                final Tool t = m.getAnnotation(Tool.class);
+                if (t != null) {
+                    final String name = t.name().isEmpty() ? m.getName() : t.name();
+                    tools.putIfAbsent(name, new Invoker(o, m, paramNames(m), paramLabels(m)));
+                }
+            }
+        }
+        specs.sort(null);
+        this.fingerprint = sha256(VERSION + "\n" + model + "\n" + String.join("\n", specs));
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * Cache configuré par {@code -Dcinematch.intentCache.max} et {@code -Dcinematch.intentCache.file}.
+     */
+    static IntentCache fromSystemProperties(final List<Object> toolObjects, final String model) {
+        final String f = System.getProperty(PROP_FILE);
+        return new IntentCache(toolObjects, model, Integer.getInteger(PROP_MAX, DEFAULT_MAX),
+                f == null || f.isBlank() ? null : Path.of(f));
+    }
+
+    /**
+     * Modèle qui signale au cache les appels d’outils demandés pendant {@link #learn}.
+     *
+     * @param delegate modèle réel
+     * @return le modèle instrumenté
+     */
+    ChatLanguageModel recording(final ChatLanguageModel delegate) {
+        return new ChatLanguageModel() {
+            @Override
+            public Response<AiMessage> generate(final List<ChatMessage> messages) {
+                return observe(messages, delegate.generate(messages));
+            }
+
+            @Override
+            public Response<AiMessage> generate(final List<ChatMessage> messages,
+                                                final List<ToolSpecification> toolSpecifications) {
+                return observe(messages, delegate.generate(messages, toolSpecifications));
+            }
+
+            @Override
+            public Response<AiMessage> generate(final List<ChatMessage> messages,
+                                                final ToolSpecification toolSpecification) {
+                return observe(messages, delegate.generate(messages, toolSpecification));
+            }
+        };
+    }
+
+    /**
+     * Rejoue le plan connu pour ce message.
+     *
+     * @param prompt message de l’utilisateur
+     * @return la réponse rendue à partir des résultats des outils, ou {@code null} si aucun
+     *         plan ne correspond (ou si le rejeu a échoué)
+     */
+    String replay(final String prompt) {
+        if (maxEntries == 0 || prompt == null || prompt.isBlank()) {
+            return null;
+        }
+        final Key k = normalize(prompt);
+        List<Step> plan;
+        List<String> slots = k.slots();
+        String entry = k.key();
+        synchronized (lru) {
+            plan = lru.get(entry);
+            if (plan == null && slots.isEmpty()) {
+                // un titre sans guillemets : gabarits à un seul emplacement
+                for (Map.Entry<String, List<Step>> e : lru.entrySet()) {
+                    final String value = matchSingleSlot(e.getKey(), k, prompt);
+                    if (value != null) {
+                        entry = e.getKey();
+                        plan = e.getValue();
+                        slots = List.of(value);
+                        break;
+                    }
+                }
+                if (plan != null) {
+                    lru.get(entry);
+                }
+            }
+        }
+        if (plan == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        final String answer = run(plan, slots);
+        if (answer == null) {
+            forget(entry);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return answer;
+    }
+
+    /**
+     * Fait répondre le LLM et mémorise son plan d’outils s’il est rejouable.
+     *
+     * @param prompt message de l’utilisateur
+     * @param call   appel de l’assistant
+     * @return la réponse de l’assistant
+     */
+    String learn(final String prompt, final Supplier<String> call) {
+        final Recording rec = new Recording();
+        recording.set(rec);
+        final String answer;
+        try {
+            answer = call.get();
+        } finally {
+            recording.remove();
+        }
+        if (maxEntries > 0 && rec.toolRounds == 1 && !rec.failed && prompt != null && !prompt.isBlank()) {
+            store(normalize(prompt), rec.requests);
+        }
+        return answer;
+    }
+
+    /** @return nombre de plans mémorisés */
+    int size() {
+        synchronized (lru) {
+            return lru.size();
+        }
+    }
+
+    /** @return nombre de messages servis sans le LLM */
+    long hits() {
+        return hits.get();
+    }
+
+    /** @return nombre de messages sans plan rejouable */
+    long misses() {
+        return misses.get();
+    }
+
+    /** @return empreinte des outils et du modèle */
+    String fingerprint() {
+        return fingerprint;
+    }
+
+    // -------- normalisation
+
+    /**
+     * Forme normalisée d’un message : minuscules sans accents, blancs réduits, ponctuation
+     * finale retirée, titres entre guillemets remplacés par {@code {0}}, {@code {1}}…
+     */
+    static Key normalize(final String prompt) {
+        final StringBuilder key = new StringBuilder(prompt.length());
+        final int[] origin = new int[prompt.length() + 1];
+        final List<String> slots = new ArrayList<>();
+        for (int i = 0; i < prompt.length(); i++) {
+            final char c = prompt.charAt(i);
+            final int close = closingQuote(prompt, i);
+            if (close > 0) {
+                final String inner = prompt.substring(i + 1, close).trim();
+                final String marker = "{" + slots.size() + "}";
+                slots.add(inner);
+                for (int j = 0; j < marker.length(); j++) {
+                    origin[key.length()] = i;
+                    key.append(marker.charAt(j));
+                }
+                i = close;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (key.length() > 0 && key.charAt(key.length() - 1) != ' ') {
+                    origin[key.length()] = i;
+                    key.append(' ');
+                }
+                continue;
+            }
+            final char f = IntentRouter.fold(c);
+            origin[key.length()] = i;
+            key.append(f == '{' ? '(' : f == '}' ? ')' : f);
+        }
+        int end = key.length();
+        while (end > 0 && (key.charAt(end - 1) == ' ' || ".!?".indexOf(key.charAt(end - 1)) >= 0)) {
+            end--;
+        }
+        key.setLength(end);
+        return new Key(key.toString(), slots, origin);
+    }
+
+    /** Indice du guillemet fermant un titre non vide ouvert en {@code i}, ou {@code -1}. */
+    private static int closingQuote(final String s, final int i) {
+        final char c = s.charAt(i);
+        final char close = c == '«' ? '»' : c == '“' ? '”' : c == '"' ? '"' : 0;
+        if (close == 0) {
+            return -1;
+        }
+        final int j = s.indexOf(close, i + 1);
+        return j > 0 && !s.substring(i + 1, j).isBlank() ? j : -1;
+    }
+
+    /** Titre occupant l’emplacement d’un gabarit {@code préfixe {0} suffixe}, ou {@code null}. */
+    private static String matchSingleSlot(final String template, final Key k, final String prompt) {
+        final int at = template.indexOf("{0}");
+        if (at < 0 || template.indexOf('{', at + 3) >= 0) {
+            return null;
+        }
+        final String prefix = template.substring(0, at);
+        final String suffix = template.substring(at + 3);
+        final String key = k.key();
+        if (key.length() <= prefix.length() + suffix.length()
+                || !key.startsWith(prefix) || !key.endsWith(suffix)) {
+            return null;
+        }
+        final int from = k.origin()[prefix.length()];
+        final int to = k.origin()[key.length() - suffix.length() - 1] + 1;
+        final String value = prompt.substring(from, to).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // -------- apprentissage
+
+    private Response<AiMessage> observe(final List<ChatMessage> messages, final Response<AiMessage> response) {
+        final Recording rec = recording.get();
+        if (rec == null) {
+            return response;
+        }
+        // résultats des outils du tour précédent : les derniers messages envoyés
+        for (int i = messages.size() - 1; i >= 0 && messages.get(i) instanceof ToolExecutionResultMessage; i--) {
+            final String text = ((ToolExecutionResultMessage) messages.get(i)).text();
+            if (text != null && text.startsWith("ERROR")) {
+                rec.failed = true;
+            }
+        }
+        final AiMessage ai = response == null ? null : response.content();
+        if (ai != null && ai.hasToolExecutionRequests()) {
+            rec.toolRounds++;
+            rec.requests.addAll(ai.toolExecutionRequests());
+        }
+        return response;
+    }
+
+    private void store(final Key k, final List<ToolExecutionRequest> requests) {
+        final List<Map<String, String>> argsList = new ArrayList<>();
+        final List<Invoker> invokers = new ArrayList<>();
+        for (ToolExecutionRequest r : requests) {
+            final Invoker inv = tools.get(r.name());
+            if (!CACHEABLE.contains(r.name()) || inv == null) {
+                return;
+            }
+            try {
+                final Map<String, String> args = MAPPER.readValue(
+                        r.arguments() == null || r.arguments().isBlank() ? "{}" : r.arguments(),
+                        new TypeReference<LinkedHashMap<String, String>>() { });
+                argsList.add(args);
+                invokers.add(inv);
+            } catch (IOException e) {
+                return;
+            }
+        }
+
+        // titres : emplacement entre guillemets, sinon un seul titre retrouvé dans le message
+        // (gabarit si le plan ne fait que lire, titre gardé tel quel s’il écrit)
+        boolean readOnly = true;
+        for (ToolExecutionRequest r : requests) {
+            readOnly &= READ_ONLY.contains(r.name());
+        }
+        String key = k.key();
+        String unquoted = null;
+        for (int i = 0; i < argsList.size(); i++) {
+            for (Map.Entry<String, String> a : argsList.get(i).entrySet()) {
+                if (!isTitle(invokers.get(i).label(a.getKey()))) {
+                    continue;
+                }
+                final String v = a.getValue() == null ? "" : a.getValue().trim();
+                final int slot = indexOfIgnoreCase(k.slots(), v);
+                if (slot >= 0) {
+                    a.setValue("{" + slot + "}");
+                } else if (k.slots().isEmpty() && !readOnly && inMessage(key, v)) {
+                    a.setValue(v);
+                } else if (k.slots().isEmpty() && readOnly && (unquoted == null || unquoted.equalsIgnoreCase(v))) {
+                    unquoted = v;
+                    a.setValue("{0}");
+                } else {
+                    return;
+                }
+            }
+        }
+        if (unquoted != null) {
+            key = slotted(key, unquoted);
+            if (key == null) {
+                return;
+            }
+        }
+
+        final List<Step> plan = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            plan.add(new Step(requests.get(i).name(), argsList.get(i)));
+        }
+        synchronized (lru) {
+            lru.put(key, List.copyOf(plan));
+        }
+        save();
+    }
+
+    /** Clé où le titre {@code title} (présent une fois) devient {@code {0}}, ou {@code null}. */
+    private static String slotted(final String key, final String title) {
+        final String t = normalize(title).key();
+        final int at = key.indexOf(t);
+        if (t.isEmpty() || at < 0 || key.indexOf(t, at + 1) >= 0) {
+            return null;
+        }
+        final String rest = key.substring(0, at) + key.substring(at + t.length());
+        // il faut au moins un mot autour du titre (« décris {0} », pas « {0} » seul)
+        return rest.matches("(?s).*\\p{L}{3,}.*") ? key.substring(0, at) + "{0}" + key.substring(at + t.length()) : null;
+    }
+
+    /** Vrai si le titre {@code title} figure dans la clé (et ne vient donc pas du contexte). */
+    private static boolean inMessage(final String key, final String title) {
+        final String t = normalize(title).key();
+        return !t.isEmpty() && key.contains(t);
+    }
+
+    private static boolean isTitle(final String param) {
+        return param.startsWith("title") || param.endsWith("Title");
+    }
+
+    private static int indexOfIgnoreCase(final List<String> values, final String v) {
+        for (int i = 0; i < values.size(); i++) {
+            if (values.get(i).equalsIgnoreCase(v)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void forget(final String key) {
+        synchronized (lru) {
+            lru.remove(key);
+        }
+        save();
+    }
+
+    // -------- rejeu
+
+    /** Exécute le plan ; {@code null} si un outil échoue. */
+    private String run(final List<Step> plan, final List<String> slots) {
+        final StringBuilder out = new StringBuilder();
+        for (Step step : plan) {
+            final Invoker inv = tools.get(step.tool());
+            if (inv == null) {
+                return null;
+            }
+            final Map<String, String> args = new LinkedHashMap<>();
+            final Object[] values = new Object[inv.params().length];
+            for (int i = 0; i < values.length; i++) {
+                final String raw = step.args().get(inv.params()[i]);
+                final String v = fill(raw, slots);
+                if (raw != null && v == null) {
+                    return null;
+                }
+                args.put(inv.labels()[i], v);
+                values[i] = v;
+            }
+            final Object result;
+            try {
+                result = inv.method().invoke(inv.target(), values);
+            } catch (IllegalAccessException | InvocationTargetException | IllegalArgumentException e) {
+                return null;
+            }
+            if (result == null || result instanceof String s && s.startsWith("ERROR")) {
+                return null;
+            }
+            if (out.length() > 0) {
+                out.append('\n');
+            }
+            out.append(render(step.tool(), args, result));
+        }
+        return out.toString();
+    }
+
+    private static String fill(final String raw, final List<String> slots) {
+        if (raw == null || !raw.matches("\\{\\d+}")) {
+            return raw;
+        }
+        final int i = Integer.parseInt(raw.substring(1, raw.length() - 1));
+        return i < slots.size() ? slots.get(i) : null;
+    }
+
+    /** Réponse à l’utilisateur, dans le ton des raccourcis locaux du bridge. */
+    static String render(final String tool, final Map<String, String> args, final Object result) {
+        final String title = args.get("title");
+        return switch (tool) {
+            case "getListByStatus", "getListByStatusSorted" -> {
+                final List<?> list = result instanceof List<?> l ? l : List.of();
+                final String head = "Liste « " + args.getOrDefault("status", "envie") + " »";
+                if (list.isEmpty()) {
+                    yield head + " : vide.";
+                }
+                final StringBuilder sb = new StringBuilder(head).append(" : ");
+                for (int i = 0; i < Math.min(SHOWN, list.size()); i++) {
+                    sb.append(i == 0 ? "" : ", ").append(list.get(i));
+                }
+                if (list.size() > SHOWN) {
+                    sb.append(" (+").append(list.size() - SHOWN).append(')');
+                }
+                yield sb.append('.').toString();
+            }
+            case "getStats" -> String.valueOf(result).replaceFirst("^STATS:\\s*", "Statistiques : ");
+            case "pickNextToWatch" -> {
+                final String r = String.valueOf(result);
+                yield "NEXT:EMPTY".equals(r) ? "Ta liste d’envie est vide."
+                        : "Prochain film à regarder : " + r.replaceFirst("^NEXT:", "").replace(" | ", " — ");
+            }
+            case "addToWishlist" -> "« " + title + " » ajouté à votre wishlist.";
+            case "removeFromWishlist" -> "« " + title + " » retiré de votre wishlist.";
+            case "markAsSeen" -> "« " + title + " » marqué en deja_vu.";
+            case "markAsDisliked" -> "« " + title + " » marqué en pas_interesse.";
+            case "setStatus" -> "« " + title + " » marqué en " + args.get("status") + ".";
+            default -> String.valueOf(result);
+        };
+    }
+
+    // -------- empreinte et fichier
+
+    private static String[] paramNames(final Method m) {
+        final Parameter[] ps = m.getParameters();
+        final String[] names = new String[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            names[i] = ps[i].getName();
+        }
+        return names;
+    }
+
+    private static String[] paramLabels(final Method m) {
+        final Parameter[] ps = m.getParameters();
+        final String[] labels = new String[ps.length];
+        for (int i = 0; i < ps.length; i++) {
+            final P p = ps[i].getAnnotation(P.class);
+            labels[i] = p != null && !p.value().isBlank() ? p.value() : ps[i].getName();
+        }
+        return labels;
+    }
+
+    private static String sha256(final String s) {
+        try {
+            return HexFormat.of().formatHex(
+                    MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(s.hashCode());
+        }
+    }
+
+    private void load() {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            final Stored stored = MAPPER.readValue(file.toFile(), Stored.class);
+            if (!fingerprint.equals(stored.fingerprint())) {
+                System.err.println("[IntentCache] Outils ou modèle modifiés : " + file + " ignoré");
+                return;
+            }
+            if (stored.entries() != null) {
+                synchronized (lru) {
+                    lru.putAll(stored.entries());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[IntentCache] Lecture de " + file + " impossible (" + e.getMessage() + ") : cache vide");
+        }
+    }
+
+    private void save() {
+        if (file == null) {
+            return;
+        }
+        final Stored snapshot;
+        synchronized (lru) {
+            snapshot = new Stored(fingerprint, new LinkedHashMap<>(lru));
+        }
+        synchronized (this) {
+            try {
+                final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+                MAPPER.writeValue(tmp.toFile(), snapshot);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                System.err.println("[IntentCache] Écriture de " + file + " impossible : " + e.getMessage());
+            }
+        }
+    }
+}
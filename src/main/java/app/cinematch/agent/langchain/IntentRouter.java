@@ -0,0 +1,363 @@
+package app.cinematch.agent.langchain;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Routeur d’intentions du chat, en une seule passe sur le message.
+ *
+ * <p>Le message est découpé une fois en mots (minuscules, accents retirés, apostrophes et
+ * tirets comme séparateurs), puis parcouru une fois : à chaque mot, un trie de tournures
+ * ({@code j ai vu}, {@code je n aime pas}, {@code a ma wishlist}…) indique les mots-clés qui
+ * commencent là. Le routeur retient la première occurrence de chaque indice, puis choisit
+ * l’intention avec les mêmes priorités que l’ancienne chaîne d’expressions régulières :
+ * vider une liste, plusieurs actions, ajout en lot, puis action simple (pas intéressé,
+ * déjà vu, ajout, retrait). L’argument (titre, titres, statut) est découpé dans le texte
+ * d’origine grâce aux positions des mots, sans nouvelle analyse.</p>
+ *
+ * <p>Sans état, thread-safe.</p>
+ */
+final class IntentRouter {
+
+    /** Intention reconnue. */
+    enum Intent {
+        /** Vider une liste ; argument : statut, {@code null} s’il n’est pas reconnu. */
+        CLEAR,
+        /** Plusieurs actions dans la même phrase ; argument : le message. */
+        MULTI,
+        /** Ajout de plusieurs titres ; argument : les titres, séparateurs compris. */
+        BULK_ADD,
+        /** « je n’aime pas X » ; argument : le titre. */
+        NOT_INTERESTED,
+        /** « j’ai vu X » ; argument : le titre. */
+        SEEN,
+        /** « ajoute X » ; argument : le titre. */
+        ADD,
+        /** « supprime X (de ma liste) » ; argument : le titre. */
+        REMOVE,
+        /** Rien de reconnu : le modèle décide ; argument : le message. */
+        LLM
+    }
+
+    /**
+     * Intention et son argument.
+     *
+     * @param intent   intention reconnue
+     * @param argument argument brut (guillemets compris), voir {@link Intent}
+     */
+    record Route(Intent intent, String argument) { }
+
+    /** Statuts, par ordre de préférence quand plusieurs sont cités. */
+    private static final String[] STATUSES = {"envie", "deja_vu", "pas_interesse"};
+
+    // catégories de mots-clés (bits)
+    private static final int CLEAR_VERB = 1;
+    private static final int QUANT = 1 << 1;
+    private static final int ADD_VERB = 1 << 2;
+    private static final int ADD_EN = 1 << 3;
+    private static final int REMOVE_VERB = 1 << 4;
+    private static final int JOIN = 1 << 5;
+    private static final int NOT_INTERESTED = 1 << 6;
+    private static final int SEEN = 1 << 7;
+    private static final int ENVIE = 1 << 8;
+    private static final int DEJA_VU = 1 << 9;
+    private static final int PAS_INTERESSE = 1 << 10;
+    private static final int LIST_TAIL = 1 << 11;
+    private static final int FROM_LIST = 1 << 12;
+    private static final int[] STATUS_KINDS = {ENVIE, DEJA_VU, PAS_INTERESSE};
+
+    /** Débuts de mots d’action qui, avec un connecteur, signalent plusieurs actions. */
+    private static final String[] ACTION_STEMS = {"ajout", "marque", "supprim", "retir", "enlev"};
+
+    private static final Node ROOT = new Node();
+
+    static {
+        words(CLEAR_VERB, "supprime", "enleve", "vide", "efface", "clear", "remove", "delete");
+        words(QUANT, "tout", "tous", "toute", "toutes", "all");
+        words(ADD_VERB, "ajoute", "ajouter", "mets", "met");
+        words(ADD_EN, "add");
+        words(REMOVE_VERB, "enleve", "enlever", "supprime", "supprimer", "retire", "retirer");
+        words(JOIN, "et", "puis");
+        words(NOT_INTERESTED, "je ne suis pas interesse par", "je n aime pas", "je naime pas");
+        words(SEEN, "j ai vu", "jai vu", "marque le deja vu", "marquele deja vu",
+                "marque le dejavu", "marquele dejavu");
+        words(ENVIE, "envie", "envies", "wishlist", "wish list");
+        words(DEJA_VU, "deja vu", "deja vus", "deju vu", "dejavu", "seen");
+        words(PAS_INTERESSE, "pas interesse", "pas interesses", "pas interet", "pas interets",
+                "dislike", "not interested");
+
+        final String[] lists = {"wishlist", "wish list", "liste", "liste d envie", "liste denvie"};
+        for (String prep : new String[] {"dans", "a", "to", "into", "in"}) {
+            for (String det : new String[] {"", "ma ", "la ", "my ", "the "}) {
+                for (String list : lists) {
+                    words(LIST_TAIL, prep + " " + det + list);
+                }
+            }
+        }
+        for (String de : new String[] {"de", "d"}) {
+            for (String det : new String[] {"", "ma ", "la ", "the "}) {
+                words(FROM_LIST, de + " " + det + "liste", de + " " + det + "wishlist");
+            }
+        }
+    }
+
+    private IntentRouter() {
+    }
+
+    /**
+     * Classe le message et en extrait l’argument.
+     *
+     * @param message message de l’utilisateur (peut être {@code null})
+     * @return l’intention reconnue, {@link Intent#LLM} à défaut
+     */
+    static Route route(final String message) {
+        final String text = message == null ? "" : message;
+        return new Scan(text).route();
+    }
+
+    /**
+     * Statut cité dans un texte libre ({@code envie}, {@code deja_vu}, {@code pas_interesse}).
+     *
+     * @param text texte (peut être {@code null})
+     * @return le statut, ou {@code null} si aucun n’est cité
+     */
+    static String statusOf(final String text) {
+        return text == null ? null : new Scan(text).status(-1);
+    }
+
+    // -------- trie
+
+    private static final class Node {
+        final Map<String, Node> next = new HashMap<>();
+        int kinds;
+    }
+
+    private static void words(final int kind, final String... phrases) {
+        for (String phrase : phrases) {
+            Node node = ROOT;
+            for (String w : phrase.split(" ")) {
+                node = node.next.computeIfAbsent(w, k -> new Node());
+            }
+            node.kinds |= kind;
+        }
+    }
+
+    private static int kindsOf(final String word) {
+        final Node node = ROOT.next.get(word);
+        return node == null ? 0 : node.kinds;
+    }
+
+    // -------- analyse
+
+    /** Découpage et indices d’un message, remplis en une passe. */
+    private static final class Scan {
+        private final String text;
+        private int[] start = new int[16];
+        private int[] end = new int[16];
+        private String[] words = new String[16];
+        private int n;
+
+        private boolean comma;
+        private boolean join;
+        private boolean actionVerb;
+        /** Indice du quantificateur de « supprime tout … ». */
+        private int clear = -1;
+        /** Indice du dernier mot de la tournure « je n’aime pas » / « j’ai vu ». */
+        private int notInterested = -1;
+        private int seen = -1;
+        private int add = -1;
+        private int addAny = -1;
+        private int remove = -1;
+        /** Premier mot de « de ma liste » après le verbe de retrait. */
+        private int fromList = -1;
+        /** Premier mot de « à ma wishlist » en fin de message. */
+        private int listTail = -1;
+        /** Indice du dernier mot de statut, par statut. */
+        private final int[] lastStatus = {-1, -1, -1};
+
+        Scan(final String text) {
+            this.text = text;
+            tokenize();
+            for (int i = 0; i < n; i++) {
+                final String w = words[i];
+                for (String stem : ACTION_STEMS) {
+                    if (w.contains(stem)) {
+                        actionVerb = true;
+                        break;
+                    }
+                }
+                Node node = ROOT;
+                for (int j = i; j < n && node != null; j++) {
+                    node = node.next.get(words[j]);
+                    if (node != null && node.kinds != 0) {
+                        hit(node.kinds, i, j);
+                    }
+                }
+            }
+        }
+
+        private void tokenize() {
+            final int len = text.length();
+            final char[] folded = new char[len];
+            int s = -1;
+            for (int i = 0; i <= len; i++) {
+                final char c = i < len ? fold(text.charAt(i)) : ' ';
+                if (Character.isLetterOrDigit(c)) {
+                    folded[i] = c;
+                    if (s < 0) {
+                        s = i;
+                    }
+                    continue;
+                }
+                if (s >= 0) {
+                    token(s, i, new String(folded, s, i - s));
+                    s = -1;
+                }
+                if (c == ',' || c == '\n') {
+                    comma = true;
+                } else if (c == ';' || c == '.') {
+                    join = true;
+                }
+            }
+        }
+
+        private void token(final int from, final int to, final String word) {
+            if (n == words.length) {
+                start = Arrays.copyOf(start, n * 2);
+                end = Arrays.copyOf(end, n * 2);
+                words = Arrays.copyOf(words, n * 2);
+            }
+            start[n] = from;
+            end[n] = to;
+            words[n++] = word;
+        }
+
+        /** Tournure de catégories {@code kinds} couvrant les mots {@code i..j}. */
+        private void hit(final int kinds, final int i, final int j) {
+            if ((kinds & CLEAR_VERB) != 0 && clear < 0 && i + 2 < n && (kindsOf(words[i + 1]) & QUANT) != 0) {
+                clear = i + 1;
+            }
+            if ((kinds & JOIN) != 0) {
+                join = true;
+            }
+            if ((kinds & (ADD_VERB | REMOVE_VERB)) != 0) {
+                actionVerb = true;
+            }
+            if ((kinds & ADD_VERB) != 0 && add < 0) {
+                add = i;
+            }
+            if ((kinds & (ADD_VERB | ADD_EN)) != 0 && addAny < 0) {
+                addAny = i;
+            }
+            if ((kinds & REMOVE_VERB) != 0 && remove < 0) {
+                remove = i;
+            }
+            if ((kinds & NOT_INTERESTED) != 0 && notInterested < 0) {
+                notInterested = j;
+            }
+            if ((kinds & SEEN) != 0 && seen < 0) {
+                seen = j;
+            }
+            for (int s = 0; s < STATUS_KINDS.length; s++) {
+                if ((kinds & STATUS_KINDS[s]) != 0) {
+                    lastStatus[s] = i;
+                }
+            }
+            if ((kinds & LIST_TAIL) != 0 && listTail < 0 && j == n - 1 && onlyClosing(end[j])) {
+                listTail = i;
+            }
+            if ((kinds & FROM_LIST) != 0 && fromList < 0 && remove >= 0 && i >= remove + 2) {
+                fromList = i;
+            }
+        }
+
+        Route route() {
+            if (clear >= 0) {
+                return new Route(Intent.CLEAR, status(clear));
+            }
+            if (join && actionVerb) {
+                return new Route(Intent.MULTI, text);
+            }
+            if (addAny >= 0 && comma) {
+                final String titles = text.substring(end[addAny], cut(addAny, listTail)).trim();
+                if (!titles.isEmpty()) {
+                    return new Route(Intent.BULK_ADD, titles);
+                }
+            }
+            String title = argument(notInterested, -1);
+            if (title != null) {
+                return new Route(Intent.NOT_INTERESTED, title);
+            }
+            title = argument(seen, -1);
+            if (title != null) {
+                return new Route(Intent.SEEN, title);
+            }
+            title = argument(add, listTail);
+            if (title != null) {
+                return new Route(Intent.ADD, title);
+            }
+            if (fromList >= 0) {
+                title = argument(remove, fromList);
+                if (title != null) {
+                    return new Route(Intent.REMOVE, title);
+                }
+            }
+            title = argument(remove, -1);
+            // « supprime tout … » vise une liste, pas un titre ; sans mot après le verbe
+            // (« supprime ?! »), il n’y a pas de titre non plus
+            if (title != null && remove + 1 < n && !words[remove + 1].startsWith("tout")) {
+                return new Route(Intent.REMOVE, title);
+            }
+            return new Route(Intent.LLM, text);
+        }
+
+        /** Statut cité après le mot {@code after}, par ordre de préférence. */
+        String status(final int after) {
+            for (int s = 0; s < STATUSES.length; s++) {
+                if (lastStatus[s] > after) {
+                    return STATUSES[s];
+                }
+            }
+            return null;
+        }
+
+        /** Texte après le mot {@code i} (séparé par un blanc) jusqu’au mot {@code stop}. */
+        private String argument(final int i, final int stop) {
+            if (i < 0 || end[i] >= text.length() || !Character.isWhitespace(text.charAt(end[i]))) {
+                return null;
+            }
+            final String arg = text.substring(end[i], cut(i, stop)).trim();
+            return arg.isEmpty() ? null : arg;
+        }
+
+        private int cut(final int i, final int stop) {
+            return stop > i ? start[stop] : text.length();
+        }
+
+        private boolean onlyClosing(final int from) {
+            for (int k = from; k < text.length(); k++) {
+                final char c = text.charAt(k);
+                if (c != '.' && c != '!' && c != '?' && !Character.isWhitespace(c)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** Minuscule sans accent, même longueur que le texte d’origine. */
+    static char fold(final char c) {
+        final char l = Character.toLowerCase(c);
+        return switch (l) {
+            case 'à', 'â', 'ä' -> 'a';
+            case 'é', 'è', 'ê', 'ë' -> 'e';
+            case 'î', 'ï' -> 'i';
+            case 'ô', 'ö' -> 'o';
+            case 'ù', 'û', 'ü' -> 'u';
+            case 'ç' -> 'c';
+            case '’' -> '\'';
+            default -> l;
+        };
+    }
+}
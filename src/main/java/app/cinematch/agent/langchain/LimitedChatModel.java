@@ -0,0 +1,54 @@
+package app.cinematch.agent.langchain;
+
+import app.cinematch.api.OllamaTransport;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Modèle LangChain4j soumis à la limite de requêtes simultanées d’un {@link OllamaTransport}.
+ *
+ * <p>{@code OllamaChatModel} (0.34) garde son propre client HTTP, qu’on ne peut pas remplacer :
+ * chaque appel prend donc une place du transport partagé avant de partir, comme les appels
+ * d’{@link app.cinematch.api.OllamaClient}.</p>
+ */
+final class LimitedChatModel implements ChatLanguageModel {
+
+    private final ChatLanguageModel delegate;
+    private final OllamaTransport transport;
+
+    LimitedChatModel(final ChatLanguageModel delegate, final OllamaTransport transport) {
+        this.delegate = delegate;
+        this.transport = transport;
+    }
+
+    @Override
+    public Response<AiMessage> generate(final List<ChatMessage> messages) {
+        return limited(() -> delegate.generate(messages));
+    }
+
+    @Override
+    public Response<AiMessage> generate(final List<ChatMessage> messages,
+                                        final List<ToolSpecification> toolSpecifications) {
+        return limited(() -> delegate.generate(messages, toolSpecifications));
+    }
+
+    @Override
+    public Response<AiMessage> generate(final List<ChatMessage> messages,
+                                        final ToolSpecification toolSpecification) {
+        return limited(() -> delegate.generate(messages, toolSpecification));
+    }
+
+    private Response<AiMessage> limited(final Supplier<Response<AiMessage>> call) {
+        try (OllamaTransport.Permit permit = transport.acquire()) {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Appel au modèle interrompu", e);
+        }
+    }
+}
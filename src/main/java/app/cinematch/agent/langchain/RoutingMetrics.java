@@ -0,0 +1,209 @@
+package app.cinematch.agent.langchain;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Compteurs du routage de {@link LangChain4jAgentBridge#ask(String)} : combien de messages
+ * passent par chaque branche, en combien de temps, et quels messages finissent chez le LLM.
+ *
+ * <p>Par branche : nombre d’appels, durée cumulée et histogramme des durées (routage et
+ * exécution compris), en classes de puissance de 10 à partir de 10 µs (voir
+ * {@link #bucketUpperMicros()}). Les derniers messages non reconnus par le routeur local
+ * sont gardés en mémoire ({@link #unmatched()}) pour savoir quelles tournures ajouter ; ils
+ * peuvent aussi être ajoutés à un fichier texte, une ligne par message
+ * ({@code -Dcinematch.routing.unmatchedFile}). Les erreurs d’écriture sont signalées une
+ * fois puis ignorées. Thread-safe.</p>
+ */
+public final class RoutingMetrics {
+
+    /** Branche suivie par un message. */
+    public enum Branch {
+        /** Vider une liste. */
+        CLEAR,
+        /** Plusieurs actions, exécutées localement. */
+        MULTI,
+        /** Ajout de plusieurs titres. */
+        BULK,
+        /** Action simple (ajout, retrait, déjà vu, pas intéressé). */
+        DIRECT,
+        /** Plan d’outils rejoué depuis le cache, sans le LLM. */
+        CACHE,
+        /** Aucune règle locale : appel du LLM avec outils. */
+        LLM
+    }
+
+    /** Propriété système : fichier où ajouter les messages non reconnus (absent = mémoire seule). */
+    public static final String PROP_UNMATCHED_FILE = "cinematch.routing.unmatchedFile";
+    /** Propriété système : nombre de messages non reconnus gardés en mémoire. */
+    public static final String PROP_UNMATCHED_MAX = "cinematch.routing.unmatchedMax";
+    /** Nombre de messages non reconnus gardés par défaut. */
+    public static final int DEFAULT_UNMATCHED_MAX = 100;
+    private static final long[] BUCKET_UPPER_MICROS = {
+            10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, Long.MAX_VALUE};
+
+    private static final int BRANCHES = Branch.values().length;
+    private static final int BUCKETS = BUCKET_UPPER_MICROS.length;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BRANCHES);
+    private final AtomicLongArray nanos = new AtomicLongArray(BRANCHES);
+    private final AtomicLongArray histogram = new AtomicLongArray(BRANCHES * BUCKETS);
+    private final ArrayDeque<String> unmatched = new ArrayDeque<>();
+    private final int unmatchedMax;
+    private final Path unmatchedFile;
+    private volatile boolean fileFailed;
+
+    /**
+     * @param unmatchedMax  nombre de messages non reconnus gardés en mémoire (au moins 0)
+     * @param unmatchedFile fichier où les ajouter, ou {@code null} pour la mémoire seule
+     */
+    public RoutingMetrics(final int unmatchedMax, final Path unmatchedFile) {
+        this.unmatchedMax = Math.max(0, unmatchedMax);
+        this.unmatchedFile = unmatchedFile;
+    }
+
+    /** @return bornes supérieures des classes de l’histogramme, en µs ; la dernière est ouverte */
+    public static long[] bucketUpperMicros() {
+        return BUCKET_UPPER_MICROS.clone();
+    }
+
+    /**
+     * Compteurs configurés par {@code -Dcinematch.routing.unmatchedMax} et
+     * {@code -Dcinematch.routing.unmatchedFile}.
+     *
+     * @return de nouveaux compteurs
+     */
+    public static RoutingMetrics fromSystemProperties() {
+        final String file = System.getProperty(PROP_UNMATCHED_FILE);
+        return new RoutingMetrics(Integer.getInteger(PROP_UNMATCHED_MAX, DEFAULT_UNMATCHED_MAX),
+                file == null || file.isBlank() ? null : Path.of(file));
+    }
+
+    /**
+     * Enregistre un message traité.
+     *
+     * @param branch      branche suivie
+     * @param elapsedNano durée du traitement, en ns
+     * @param message     message de l’utilisateur (gardé seulement pour {@link Branch#LLM})
+     */
+    public void record(final Branch branch, final long elapsedNano, final String message) {
+        final int b = branch.ordinal();
+        final long ns = Math.max(0, elapsedNano);
+        counts.incrementAndGet(b);
+        nanos.addAndGet(b, ns);
+        histogram.incrementAndGet(b * BUCKETS + bucket(ns / 1_000));
+        if (branch == Branch.LLM && message != null && !message.isBlank()) {
+            remember(message);
+        }
+    }
+
+    /** @return nombre de messages passés par {@code branch} */
+    public long count(final Branch branch) {
+        return counts.get(branch.ordinal());
+    }
+
+    /** @return nombre total de messages enregistrés */
+    public long total() {
+        long sum = 0;
+        for (int b = 0; b < BRANCHES; b++) {
+            sum += counts.get(b);
+        }
+        return sum;
+    }
+
+    /** @return part des messages confiés au LLM, entre 0 et 1 (0 sans message) */
+    public double llmFallbackRate() {
+        final long total = total();
+        return total == 0 ? 0 : (double) count(Branch.LLM) / total;
+    }
+
+    /** @return durée moyenne d’un message de {@code branch}, en µs (0 sans message) */
+    public long meanMicros(final Branch branch) {
+        final long n = count(branch);
+        return n == 0 ? 0 : nanos.get(branch.ordinal()) / n / 1_000;
+    }
+
+    /**
+     * Histogramme des durées de {@code branch}.
+     *
+     * @param branch branche
+     * @return nombre de messages par classe, alignées sur {@link #bucketUpperMicros()}
+     */
+    public long[] histogram(final Branch branch) {
+        final long[] out = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            out[i] = histogram.get(branch.ordinal() * BUCKETS + i);
+        }
+        return out;
+    }
+
+    /** @return derniers messages confiés au LLM, du plus ancien au plus récent */
+    public List<String> unmatched() {
+        synchronized (unmatched) {
+            return new ArrayList<>(unmatched);
+        }
+    }
+
+    /** @return résumé lisible : nombre, moyenne et histogramme par branche, taux de repli */
+    public String summary() {
+        final StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "Routage : %d messages, %.1f %% vers le LLM%n", total(), 100 * llmFallbackRate()));
+        for (Branch b : Branch.values()) {
+            final long[] h = histogram(b);
+            sb.append(String.format(Locale.ROOT, "- %-6s %6d, moy. %d µs, <=", b, count(b), meanMicros(b)));
+            for (int i = 0; i < BUCKETS; i++) {
+                sb.append(' ').append(label(i)).append(':').append(h[i]);
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    // -------- internes
+
+    private static int bucket(final long micros) {
+        int i = 0;
+        while (micros > BUCKET_UPPER_MICROS[i]) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String label(final int bucket) {
+        final long us = BUCKET_UPPER_MICROS[bucket];
+        if (us == Long.MAX_VALUE) {
+            return "+";
+        }
+        return us >= 1_000_000 ? us / 1_000_000 + "s" : us >= 1_000 ? us / 1_000 + "ms" : us + "µs";
+    }
+
+    private void remember(final String message) {
+        final String line = message.replace('\n', ' ').replace('\r', ' ').trim();
+        synchronized (unmatched) {
+            if (unmatchedMax > 0) {
+                if (unmatched.size() == unmatchedMax) {
+                    unmatched.removeFirst();
+                }
+                unmatched.addLast(line);
+            }
+            if (unmatchedFile != null && !fileFailed) {
+                try {
+                    Files.writeString(unmatchedFile, line + System.lineSeparator(), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                } catch (IOException e) {
+                    fileFailed = true;
+                    System.err.println("[RoutingMetrics] Écriture de " + unmatchedFile
+                            + " impossible : " + e.getMessage());
+                }
+            }
+        }
+    }
+}
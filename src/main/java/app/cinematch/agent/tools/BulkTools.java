@@ -1,46 +1,64 @@
 package app.cinematch.agent.tools;
 
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
+import app.cinematch.util.Mutation;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Locale;
 
 public class BulkTools {
 
+    private final HistoryRepository repo;
+
+    public BulkTools() {
+        this(new JsonHistoryRepository());
+    }
+
+    public BulkTools(HistoryRepository repo) {
+        this.repo = repo;
+    }
+
     @Tool("Ajoute plusieurs films à la wishlist (séparés par virgules ou retours ligne).")
     public String addManyToWishlist(@P("titles") String titles) {
         if (titles == null || titles.isBlank()) return "ADDED_MANY:0";
-        WishlistTools wt = new WishlistTools(); // réutilise sa normalize()
-        int n = 0;
+        WishlistTools wt = new WishlistTools(repo); // réutilise sa normalize()
+        List<Mutation> batch = new ArrayList<>();
         for (String part : titles.split("[,\\n]")) {
-            String res = wt.addToWishlist(part);
-            if (!"ERROR:EMPTY_TITLE".equals(res)) n++;
+            String t = wt.normalize(part);
+            if (!t.isBlank()) batch.add(Mutation.put(t, "envie"));
         }
-        return "ADDED_MANY:" + n;
+        if (!batch.isEmpty()) repo.apply(batch); // une seule écriture pour tout le lot
+        return "ADDED_MANY:" + batch.size();
     }
 
 
     @Tool("Retire plusieurs films de la wishlist (les marque 'pas_interesse').")
     public String removeManyFromWishlist(@P("titles") String titles) {
-        int n = 0;
-        for (String t : split(titles)) {
-            String s = norm(t);
-            if (!s.isBlank()) { JsonStorage.addOrUpdate(s, "pas_interesse"); n++; }
-        }
-        return "REMOVED_MANY:" + n;
+        List<Mutation> batch = putAll(titles, "pas_interesse");
+        if (!batch.isEmpty()) repo.apply(batch);
+        return "REMOVED_MANY:" + batch.size();
     }
 
     @Tool("Applique un statut ('envie','pas_interesse','deja_vu') à plusieurs films.")
     public String setManyStatus(@P("titles") String titles, @P("status") String status) {
         String st = normStatus(status);
-        int n = 0;
+        List<Mutation> batch = putAll(titles, st);
+        if (!batch.isEmpty()) repo.apply(batch);
+        return "STATUS_MANY:" + batch.size() + "->" + st;
+    }
+
+    private static List<Mutation> putAll(String titles, String status) {
+        List<Mutation> batch = new ArrayList<>();
         for (String t : split(titles)) {
             String s = norm(t);
-            if (!s.isBlank()) { JsonStorage.addOrUpdate(s, st); n++; }
+            if (!s.isBlank()) batch.add(Mutation.put(s, status));
         }
-        return "STATUS_MANY:" + n + "->" + st;
+        return batch;
     }
 
     private static String[] split(String s) {
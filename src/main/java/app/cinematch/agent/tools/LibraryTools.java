@@ -1,7 +1,8 @@
 package app.cinematch.agent.tools;
 
 import app.cinematch.MovieRecommenderService;
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 
@@ -10,16 +11,22 @@ import java.util.Locale;
 public class LibraryTools {
 
     private final MovieRecommenderService service;
+    private final HistoryRepository repo;
 
     public LibraryTools(MovieRecommenderService service) {
+        this(service, new JsonHistoryRepository());
+    }
+
+    public LibraryTools(MovieRecommenderService service, HistoryRepository repo) {
         this.service = service;
+        this.repo = repo;
     }
 
     @Tool("Marque un film comme 'deja_vu'.")
     public String markAsSeen(@P("title") String title) {
         String t = norm(title);
         if (t.isBlank()) return "ERROR:EMPTY_TITLE";
-        JsonStorage.addOrUpdate(t, "deja_vu");
+        repo.addOrUpdate(t, "deja_vu");
         return "SEEN:" + t;
     }
 
@@ -27,7 +34,7 @@ public class LibraryTools {
     public String markAsDisliked(@P("title") String title) {
         String t = norm(title);
         if (t.isBlank()) return "ERROR:EMPTY_TITLE";
-        JsonStorage.addOrUpdate(t, "pas_interesse");
+        repo.addOrUpdate(t, "pas_interesse");
         return "DISLIKED:" + t;
     }
 
@@ -36,7 +43,7 @@ public class LibraryTools {
         String t = norm(title);
         if (t.isBlank()) return "ERROR:EMPTY_TITLE";
         String s = normStatus(status);
-        JsonStorage.addOrUpdate(t, s);
+        repo.addOrUpdate(t, s);
         return "STATUS_CHANGED:" + t + "->" + s;
     }
 
@@ -1,6 +1,8 @@
 package app.cinematch.agent.tools;
 
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
+import app.cinematch.util.Mutation;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 
@@ -8,15 +10,25 @@ import java.util.*;
 
 public class MaintenanceTools {
 
+    private final HistoryRepository repo;
+
+    public MaintenanceTools() {
+        this(new JsonHistoryRepository());
+    }
+
+    public MaintenanceTools(HistoryRepository repo) {
+        this.repo = repo;
+    }
+
     @Tool("Supprime visuellement les entrées vides/quotes-only d'une liste en les marquant 'pas_interesse'.")
     public String pruneBlanksInStatus(@P("status") String status) {
         String st = normalizeStatus(status);
         if (st == null) st = "envie";
         int n = 0;
-        for (String t : JsonStorage.getByStatus(st)) {
+        for (String t : repo.getByStatus(st)) {
             String cleaned = norm(t);
             if (cleaned.isBlank()) {
-                JsonStorage.addOrUpdate(cleaned, "pas_interesse");
+                repo.addOrUpdate(cleaned, "pas_interesse");
                 n++;
             }
         }
@@ -27,10 +39,10 @@ public class MaintenanceTools {
     public String renameTitle(@P("oldTitle") String oldTitle, @P("newTitle") String newTitle) {
         String oldT = norm(oldTitle), newT = norm(newTitle);
         if (oldT.isBlank() || newT.isBlank()) return "ERROR:EMPTY_TITLE";
-        String status = findStatusIgnoreCase(oldT);
+        String status = findStatusIgnoreCase(repo, oldT);
         if (status == null) status = "envie";
-        JsonStorage.addOrUpdate(newT, status);
-        JsonStorage.addOrUpdate(oldT, "pas_interesse");
+        repo.addOrUpdate(newT, status);
+        repo.addOrUpdate(oldT, "pas_interesse");
         return "RENAMED:" + oldT + "->" + newT + " (" + status + ")";
     }
 
@@ -38,7 +50,7 @@ public class MaintenanceTools {
     public java.util.List<String> getListByStatusSorted(@P("status") String status, @P("order") String order) {
         String st = normStatus(status);
         List<String> list = new ArrayList<>();
-        for (String t : JsonStorage.getByStatus(st)) {
+        for (String t : repo.getByStatus(st)) {
             String s = norm(t);
             if (!s.isBlank()) list.add(s);
         }
@@ -49,9 +61,9 @@ public class MaintenanceTools {
 
     @Tool("Donne des statistiques simples (compte par statut). Utilise detail='all' par défaut.")
     public String getStats(@P("detail") String detail) {
-        int envie = JsonStorage.getByStatus("envie").size();
-        int nope  = JsonStorage.getByStatus("pas_interesse").size();
-        int seen  = JsonStorage.getByStatus("deja_vu").size();
+        int envie = repo.countByStatus("envie");
+        int nope  = repo.countByStatus("pas_interesse");
+        int seen  = repo.countByStatus("deja_vu");
         int total = envie + nope + seen;
         return "STATS: total=" + total + " | envie=" + envie + " | pas_interesse=" + nope + " | deja_vu=" + seen;
     }
@@ -69,12 +81,12 @@ public class MaintenanceTools {
 
         // HARD : suppression physique
         if (hard) {
-            int n = JsonStorage.removeAllByStatus(s);
+            int n = repo.removeAllByStatus(s);
             return friendlyClearedHard(s, n);
         }
 
         // SOFT : “vider” en déplaçant vers un autre statut
-        java.util.List<String> items = JsonStorage.getByStatus(s);
+        java.util.List<String> items = repo.getByStatus(s);
         if (items == null || items.isEmpty()) {
             return "Aucun film à déplacer depuis « " + labelStatus(s) + " ».";
         }
@@ -85,13 +97,14 @@ public class MaintenanceTools {
             default -> "pas_interesse";
         };
 
-        int n = 0;
+        List<Mutation> batch = new ArrayList<>();
         for (String t : items) {
             if (t != null && !t.isBlank()) {
-                JsonStorage.addOrUpdate(t, target);
-                n++;
+                batch.add(Mutation.put(t, target));
             }
         }
+        if (!batch.isEmpty()) repo.apply(batch); // une seule écriture
+        int n = batch.size();
         return "Déplacé " + n + (n > 1 ? " films" : " film") + " de « "
                 + labelStatus(s) + " » vers « " + labelStatus(target) + " ».";
     }
@@ -165,8 +178,11 @@ public class MaintenanceTools {
         return switch (x) { case "envie","pas_interesse","deja_vu" -> x; default -> "envie"; };
     }
     private static String findStatusIgnoreCase(String title) {
+        return findStatusIgnoreCase(new JsonHistoryRepository(), title);
+    }
+    private static String findStatusIgnoreCase(HistoryRepository repo, String title) {
         for (String st : new String[]{"envie","pas_interesse","deja_vu"}) {
-            for (String t : JsonStorage.getByStatus(st)) {
+            for (String t : repo.getByStatus(st)) {
                 if (t != null && t.equalsIgnoreCase(title)) return st;
             }
         }
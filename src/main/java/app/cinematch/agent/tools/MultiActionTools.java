@@ -1,9 +1,16 @@
 package app.cinematch.agent.tools;
 
-import app.cinematch.util.JsonStorage;
+import app.cinematch.api.LlmPriority;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
+import app.cinematch.util.Mutation;
 import dev.langchain4j.agent.tool.Tool;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -14,15 +21,48 @@ import java.util.regex.Pattern;
  *  - Add(title)          -> ajoute en "envie"
  *  - Remove(title)       -> marque "pas_interesse"
  *  - SetStatus(title,s)  -> s ∈ {envie, deja_vu, pas_interesse}
+ *  - Describe(title)     -> description générée par le LLM
+ *
+ * Exécution : toutes les écritures du plan partent en un seul lot ({@link HistoryRepository#apply}),
+ * pendant que les descriptions sont demandées en parallèle (au plus
+ * {@code -Dcinematch.multi.parallelism}, 4 par défaut). Les descriptions sont rendues dans
+ * l'ordre du plan : « ajoute X, Y puis décris W » dure le temps de l'étape la plus lente.
  *
  * Exemples :
  *   "ajoute Drive à ma liste et supprime Dune de ma liste"
  *   "marque \"Jojo Rabbit\" comme déjà vu et mets Matrix en pas_interesse"
  *   "ajoute Alien, Heat et \"Blade Runner 2049\" à ma wishlist; puis retire Parasite."
+ *   "ajoute Alien, Heat puis décris Drive"
  */
 public final class MultiActionTools {
 
-    // --- Domaine statuts (on garde la compatibilité String avec JsonStorage) ---
+    /** Propriété système : nombre maximal de descriptions demandées en même temps. */
+    public static final String PROP_PARALLELISM = "cinematch.multi.parallelism";
+    /** Descriptions simultanées par défaut. */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private final HistoryRepository repo;
+    private final Function<String, String> describer;
+
+    public MultiActionTools() {
+        this(new JsonHistoryRepository());
+    }
+
+    public MultiActionTools(HistoryRepository repo) {
+        this(repo, null);
+    }
+
+    /**
+     * @param repo      stockage de l'historique
+     * @param describer génère la description d'un titre (appel LLM), ou {@code null} si
+     *                  l'orchestrateur ne doit pas décrire de films
+     */
+    public MultiActionTools(HistoryRepository repo, Function<String, String> describer) {
+        this.repo = repo;
+        this.describer = describer;
+    }
+
+    // --- Domaine statuts (on garde la compatibilité String avec le stockage) ---
     private static final String ENVIE = "envie";
     private static final String DEJA_VU = "deja_vu";
     private static final String PAS_INTERESSE = "pas_interesse";
@@ -34,6 +74,9 @@ public final class MultiActionTools {
     private static final Set<String> REMOVE_VERBS = Set.of(
             "retire", "retirer", "supprime", "supprimer", "enleve", "enlève"
     );
+    private static final Set<String> DESCRIBE_VERBS = Set.of(
+            "décris", "decris", "décrire", "decrire", "describe"
+    );
     private static final Set<String> LIST_HINTS = Set.of("liste", "wishlist", "envie");
     private static final Map<String, String> STATUS_ALIASES = Map.ofEntries(
             Map.entry("envie", ENVIE),
@@ -54,7 +97,7 @@ public final class MultiActionTools {
     // =============== 1) MODELE D’ACTIONS ===============
 
     /** Action abstraite (Java 17). */
-    sealed interface Action permits Add, Remove, SetStatus {}
+    sealed interface Action permits Add, Remove, SetStatus, Describe {}
 
     /** Ajout du film en "envie". */
     record Add(String title) implements Action {}
@@ -65,6 +108,9 @@ public final class MultiActionTools {
     /** Fixe un statut explicite. */
     record SetStatus(String title, String status) implements Action {}
 
+    /** Description générée (lecture seule, appel LLM). */
+    record Describe(String title) implements Action {}
+
     // =============== 2) PARSEUR : Texte -> Plan d’actions ===============
 
     static final class Parser {
@@ -94,7 +140,15 @@ public final class MultiActionTools {
                     }
                 }
 
-                // 2.2 Ajout à la wishlist (ne PAS exiger "liste/wishlist" : "ajoute Alien, Heat" doit marcher)
+                // 2.2 Description ("décris W") : avant l'ajout, "décris" n'écrit rien
+                if (containsAny(segLc, DESCRIBE_VERBS)) {
+                    for (String t : extractTitlesAroundVerb(seg, segLc, DESCRIBE_VERBS, Set.of())) {
+                        plan.add(new Describe(t));
+                    }
+                    continue;
+                }
+
+                // 2.3 Ajout à la wishlist (ne PAS exiger "liste/wishlist" : "ajoute Alien, Heat" doit marcher)
                 if (containsAny(segLc, ADD_VERBS)) {
                     List<String> titles = extractTitlesAroundVerb(seg, segLc, ADD_VERBS,
                             Set.of(" à ", " a ", " dans ", " sur "));
@@ -109,7 +163,7 @@ public final class MultiActionTools {
                 }
 
 
-                // 2.3 Suppression / retrait
+                // 2.4 Suppression / retrait
                 if (containsAny(segLc, REMOVE_VERBS)) {
                     for (String t : extractTitlesAroundVerb(seg, segLc, REMOVE_VERBS,
                             Set.of(" de ", " du ", " de la ", " de ma ", " de mon "))) {
@@ -118,7 +172,7 @@ public final class MultiActionTools {
                     continue;
                 }
 
-                // 2.4 Fallback : guillemets -> ajout
+                // 2.5 Fallback : guillemets -> ajout
                 List<String> quoted = extractQuotedTitles(seg);
                 if (!quoted.isEmpty()) {
                     for (String t : quoted) plan.add(new Add(t));
@@ -232,28 +286,75 @@ public final class MultiActionTools {
     static final class Orchestrator {
 
         static String execute(List<Action> plan) {
+            return execute(plan, new JsonHistoryRepository());
+        }
+
+        static String execute(List<Action> plan, HistoryRepository repo) {
+            return execute(plan, repo, null, DEFAULT_PARALLELISM);
+        }
+
+        /**
+         * Exécute le plan : descriptions lancées d'abord (au plus {@code parallelism} à la fois),
+         * écritures appliquées en un lot pendant ce temps, puis résumé suivi des descriptions
+         * dans l'ordre du plan.
+         */
+        static String execute(List<Action> plan, HistoryRepository repo,
+                              Function<String, String> describer, int parallelism) {
             if (plan == null || plan.isEmpty()) return "Aucune action à effectuer.";
 
+            // étapes LLM indépendantes : lancées avant l'écriture, un appel par titre
+            Map<String, CompletableFuture<String>> descriptions = new LinkedHashMap<>();
+            for (Action a : plan) {
+                if (a instanceof Describe d) descriptions.putIfAbsent(d.title(), null);
+            }
+            ExecutorService pool = null;
+            if (!descriptions.isEmpty() && describer != null) {
+                pool = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, descriptions.size())), r -> {
+                    Thread t = new Thread(r, "multi-action-describe");
+                    t.setDaemon(true);
+                    return t;
+                });
+                // priorité de l'appelant (chat : INTERACTIVE), portée par un ThreadLocal
+                LlmPriority priority = LlmPriority.current();
+                for (String title : descriptions.keySet()) {
+                    descriptions.put(title, CompletableFuture.supplyAsync(
+                            () -> LlmPriority.call(priority, () -> describer.apply(title)), pool));
+                }
+            }
+            try {
+                return summarize(plan, repo, descriptions);
+            } finally {
+                if (pool != null) pool.shutdown();
+            }
+        }
+
+        private static String summarize(List<Action> plan, HistoryRepository repo,
+                                        Map<String, CompletableFuture<String>> descriptions) {
+
             // éviter les doublons (ex: "ajoute A et ajoute A")
             Set<String> added = new LinkedHashSet<>();
             Set<String> removed = new LinkedHashSet<>();
             List<String> statusChanged = new ArrayList<>();
             List<String> errors = new ArrayList<>();
 
+            // le plan entier est appliqué en une seule écriture
+            List<Mutation> batch = new ArrayList<>();
             for (Action a : plan) {
                 try {
                     if (a instanceof Add add) {
-                        JsonStorage.addOrUpdate(add.title(), ENVIE);
+                        batch.add(Mutation.put(add.title(), ENVIE));
                         added.add(add.title());
                     } else if (a instanceof Remove rem) {
-                        JsonStorage.addOrUpdate(rem.title(), PAS_INTERESSE);
+                        batch.add(Mutation.put(rem.title(), PAS_INTERESSE));
                         removed.add(rem.title());
+                    } else if (a instanceof Describe) {
+                        continue; // déjà lancée, rien à écrire
                     } else if (a instanceof SetStatus ss) {
                         String status = normalizeStatus(ss.status());
                         if (status == null) {
                             errors.add(ss.title() + " → statut invalide");
                         } else {
-                            JsonStorage.addOrUpdate(ss.title(), status);
+                            batch.add(Mutation.put(ss.title(), status));
                             statusChanged.add(ss.title() + " → " + status);
                         }
                     }
@@ -261,15 +362,51 @@ public final class MultiActionTools {
                     errors.add(a + " : " + e.getMessage());
                 }
             }
+            if (!batch.isEmpty()) {
+                try {
+                    repo.apply(batch);
+                } catch (Exception e) {
+                    // rien n'a été écrit : on ne revendique aucune modification
+                    added.clear();
+                    removed.clear();
+                    statusChanged.clear();
+                    errors.add("écriture : " + e.getMessage());
+                }
+            }
 
             // Résumé clair
             StringBuilder sb = new StringBuilder();
             if (!added.isEmpty())   sb.append("Ajoutés: ").append(String.join(", ", added)).append(". ");
             if (!removed.isEmpty()) sb.append("Retirés: ").append(String.join(", ", removed)).append(". ");
             if (!statusChanged.isEmpty()) sb.append("Statuts: ").append(String.join(", ", statusChanged)).append(". ");
+            // descriptions : attendues dans l'ordre du plan (la plus lente borne la durée)
+            List<String> described = new ArrayList<>();
+            for (Map.Entry<String, CompletableFuture<String>> e : descriptions.entrySet()) {
+                String title = e.getKey();
+                if (e.getValue() == null) {
+                    errors.add(title + " → description indisponible");
+                    continue;
+                }
+                try {
+                    String d = e.getValue().join();
+                    if (d == null || d.isBlank() || d.startsWith("ERROR")) {
+                        errors.add(title + " → description indisponible");
+                    } else {
+                        described.add("« " + title + " » : " + d.trim());
+                    }
+                } catch (Exception ex) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    errors.add(title + " → description : " + cause.getMessage());
+                }
+            }
+
             if (!errors.isEmpty())  sb.append("Erreurs: ").append(String.join(" | ", errors)).append(". ");
-            if (sb.length() == 0)   sb.append("Aucune action reconnue.");
-            return sb.toString().trim();
+            if (sb.length() == 0 && described.isEmpty()) sb.append("Aucune action reconnue.");
+            String summary = sb.toString().trim();
+            for (String d : described) {
+                summary = summary.isEmpty() ? d : summary + "\n" + d;
+            }
+            return summary;
         }
 
         private static String normalizeStatus(String s) {
@@ -288,7 +425,8 @@ public final class MultiActionTools {
             "Utiliser pour les consignes combinées (mots clés: ajoute/mets/supprime... et/puis/;).")
     public String mixedActions(String instruction) {
         List<Action> plan = Parser.parse(instruction);
-        return Orchestrator.execute(plan);
+        return Orchestrator.execute(plan, repo, describer,
+                Integer.getInteger(PROP_PARALLELISM, DEFAULT_PARALLELISM));
     }
 
     public static boolean shouldForceMulti(String s) {
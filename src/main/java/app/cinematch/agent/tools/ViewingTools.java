@@ -1,7 +1,8 @@
 package app.cinematch.agent.tools;
 
 import app.cinematch.MovieRecommenderService;
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 
@@ -12,16 +13,22 @@ import java.util.concurrent.ThreadLocalRandom;
 public class ViewingTools {
 
     private final MovieRecommenderService service;
+    private final HistoryRepository repo;
 
     public ViewingTools(MovieRecommenderService service) {
+        this(service, new JsonHistoryRepository());
+    }
+
+    public ViewingTools(MovieRecommenderService service, HistoryRepository repo) {
         this.service = service;
+        this.repo = repo;
     }
 
     @Tool("Propose le prochain film à regarder à partir de la wishlist. " +
             "strategy='random' ou 'first'. withDescription='true' pour inclure une courte description.")
     public String pickNextToWatch(@P("strategy") String strategy, @P("withDescription") String withDescription) {
         // copie défensive -> liste mutable
-        List<String> wl = new ArrayList<>(JsonStorage.getByStatus("envie"));
+        List<String> wl = new ArrayList<>(repo.getByStatus("envie"));
 
         wl.removeIf(s -> s == null || s.trim().isEmpty());
         if (wl.isEmpty()) return "NEXT:EMPTY";
@@ -1,20 +1,33 @@
 package app.cinematch.agent.tools;
 
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
+import app.cinematch.util.Mutation;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import java.text.Normalizer;
 import java.util.regex.Pattern;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.stream.Collectors;
 
 /**
  * Outils "liste d'envie" exposés au LLM.
- * Le LLM peut les appeler pour modifier/consulter le stockage JSON.
+ * Le LLM peut les appeler pour modifier/consulter le stockage de l'historique.
  */
 public class WishlistTools {
 
+    private final HistoryRepository repo;
+
+    public WishlistTools() {
+        this(new JsonHistoryRepository());
+    }
+
+    public WishlistTools(HistoryRepository repo) {
+        this.repo = repo;
+    }
+
     // Coupe “... dans/à ma wishlist / liste d’envie / liste”
     private static final Pattern TAIL_BUCKET = Pattern.compile(
             "(?iu)\\s+(?:dans|in|to|into|à|a)\\s*(?:ma|la|the|my)?\\s*(?:wish\\s*list|wishlist|liste(?:\\s*d['’]?envie)?|liste)\\s*$"
@@ -32,15 +45,16 @@ public class WishlistTools {
 
         // Fallback : si l'utilisateur a donné plusieurs titres (virgules / retours ligne)
         if (cleaned.contains(",") || cleaned.contains("\n")) {
-            int n = 0;
+            List<Mutation> batch = new ArrayList<>();
             for (String part : cleaned.split("[,\n]")) {
                 String t = normalize(part);
-                if (!t.isBlank()) { JsonStorage.addOrUpdate(t, "envie"); n++; }
+                if (!t.isBlank()) batch.add(Mutation.put(t, "envie"));
             }
-            return "ADDED_MANY:" + n;
+            if (!batch.isEmpty()) repo.apply(batch);
+            return "ADDED_MANY:" + batch.size();
         }
 
-        JsonStorage.addOrUpdate(cleaned, "envie");
+        repo.addOrUpdate(cleaned, "envie");
         return "ADDED:" + cleaned;
     }
 
@@ -51,7 +65,7 @@ public class WishlistTools {
         if (cleaned.isBlank()) {
             return "ERROR:EMPTY_TITLE";
         }
-        JsonStorage.addOrUpdate(cleaned, "pas_interesse");
+        repo.addOrUpdate(cleaned, "pas_interesse");
         return "REMOVED:" + cleaned;
     }
 
@@ -59,7 +73,7 @@ public class WishlistTools {
     public List<String> getListByStatus(@P("status") String status) {
         String s = normalizeStatus(status);
         if (s == null) s = "envie"; // fallback
-        return JsonStorage.getByStatus(s).stream()
+        return repo.getByStatus(s).stream()
                 .map(this::normalize)
                 .filter(t -> !t.isBlank())
                 .distinct()
@@ -71,7 +85,7 @@ public class WishlistTools {
     public String markAsDisliked(@P("title") String title) {
         String t = normalize(title);
         if (t.isBlank()) return "ERROR:EMPTY_TITLE";
-        JsonStorage.addOrUpdate(t, "pas_interesse");
+        repo.addOrUpdate(t, "pas_interesse");
         return "DISLIKED:" + t;
     }
 
@@ -79,7 +93,7 @@ public class WishlistTools {
     public String markAsSeen(@P("title") String title) {
         String t = normalize(title);
         if (t.isBlank()) return "ERROR:EMPTY_TITLE";
-        JsonStorage.addOrUpdate(t, "deja_vu");
+        repo.addOrUpdate(t, "deja_vu");
         return "SEEN:" + t;
     }
 
@@ -89,12 +103,12 @@ public class WishlistTools {
         String s = normalizeStatus(status);
         if (t.isBlank()) return "ERROR:EMPTY_TITLE";
         if (s == null)   return "ERROR:BAD_STATUS";
-        JsonStorage.addOrUpdate(t, s);
+        repo.addOrUpdate(t, s);
         return "STATUS_CHANGED:" + t + ":" + s;
     }
 
 
-    private String normalize(String s) {
+    String normalize(String s) {
         if (s == null) return "";
 
         // 1) Nettoyage simple
@@ -0,0 +1,54 @@
+package app.cinematch.api;
+
+import java.util.function.Supplier;
+
+/**
+ * Classe de priorité d’une requête au modèle, de la plus urgente à la moins urgente.
+ *
+ * <p>Quand toutes les places d’un {@link OllamaTransport} sont prises, la place rendue va à
+ * la plus ancienne demande de la classe la plus prioritaire. La priorité suit le thread
+ * appelant : {@link #call(LlmPriority, Supplier)} la fixe pour tous les appels au modèle
+ * faits pendant l’action (y compris ceux des outils LangChain4j, exécutés sur le même
+ * thread). Sans priorité fixée, une requête est {@link #VISIBLE}.</p>
+ */
+public enum LlmPriority {
+
+    /** Réponse attendue par l’utilisateur dans le chat. */
+    INTERACTIVE,
+    /** Contenu affiché à l’écran (description, proposition en cours). */
+    VISIBLE,
+    /** Préparation d’avance, que personne n’attend encore. */
+    PREFETCH;
+
+    private static final ThreadLocal<LlmPriority> CURRENT = new ThreadLocal<>();
+
+    /**
+     * @return la priorité du thread appelant, {@link #VISIBLE} par défaut
+     */
+    public static LlmPriority current() {
+        final LlmPriority p = CURRENT.get();
+        return p == null ? VISIBLE : p;
+    }
+
+    /**
+     * Exécute {@code action} avec la priorité {@code priority}, puis rétablit la précédente.
+     *
+     * @param priority priorité des appels au modèle faits pendant l’action
+     * @param action   action à exécuter
+     * @param <T>      type du résultat
+     * @return le résultat de l’action
+     */
+    public static <T> T call(final LlmPriority priority, final Supplier<T> action) {
+        final LlmPriority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -3,14 +3,32 @@ package app.cinematch.api;
 import app.cinematch.model.LlmMessage;
 import app.cinematch.model.LlmRequest;
 import app.cinematch.model.LlmResponse;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.channels.ClosedByInterruptException;
 import java.nio.charset.StandardCharsets;
-import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Client HTTP permettant de communiquer avec une instance locale ou distante
@@ -22,34 +40,116 @@ import java.time.Duration;
  * <p>Exemple d’utilisation :
  * <pre>{@code
  * OllamaClient client = new OllamaClient("http://localhost:11434", "mistral");
+ * client.warmUp(); // précharge le modèle sans bloquer
  * String reponse = client.chat("Tu es un assistant.", "Bonjour !");
+ * client.chatStream("Tu es un assistant.", "Bonjour !", token -> System.out.print(token));
+ * CompletableFuture<String> f = client.chatAsync("Tu es un assistant.", "Bonjour !");
+ * f.cancel(true); // interrompt l’échange HTTP
  * }</pre>
  */
 public class OllamaClient {
 
+    /** Propriété système : durée de maintien du modèle en mémoire ({@code keep_alive} d’Ollama). */
+    public static final String PROP_KEEP_ALIVE = "cinematch.ollama.keepAlive";
+    /** Propriété système : taille du contexte ({@code options.num_ctx}) ; absente = valeur du modèle. */
+    public static final String PROP_NUM_CTX = "cinematch.ollama.numCtx";
+    /** Maintien par défaut : une pause de lecture ne décharge pas le modèle. */
+    public static final String DEFAULT_KEEP_ALIVE = "30m";
+
     /** URL de base du serveur Ollama, sans le slash final. */
     private final String baseUrl;
 
     /** Nom du modèle à utiliser pour la génération de texte. */
     private final String model;
 
-    /** Client HTTP réutilisable pour l’envoi des requêtes. */
-    private final HttpClient http = HttpClient.newHttpClient();
+    /** Transport partagé : délais et limite de requêtes simultanées. */
+    private final OllamaTransport transport;
+
+    /** Client HTTP réutilisable pour l’envoi des requêtes (celui du transport). */
+    private final HttpClient http;
+
+    /** {@code keep_alive} envoyé avec chaque requête ({@code null} = valeur du serveur). */
+    private final String keepAlive;
+
+    /** {@code options} de génération envoyées avec chaque requête ({@code null} = aucune). */
+    private final Map<String, Object> options;
 
     /** Mapper JSON utilisé pour la (dé)sérialisation. */
     private final ObjectMapper mapper = new ObjectMapper();
 
     /**
-     * Crée un nouveau client Ollama configuré pour un modèle et une URL donnés.
+     * Crée un nouveau client Ollama configuré pour un modèle et une URL donnés,
+     * sur le transport commun ({@link OllamaTransport#shared()}).
      *
      * @param baseUrl l’adresse de l’API Ollama (ex : {@code http://localhost:11434})
      * @param model le nom du modèle à interroger (ex : {@code mistral}, {@code llama3})
      */
     public OllamaClient(String baseUrl, String model) {
+        this(baseUrl, model, OllamaTransport.shared());
+    }
+
+    /**
+     * Crée un client Ollama sur un transport donné ; {@code keep_alive} et {@code options}
+     * selon {@code -Dcinematch.ollama.keepAlive} et {@code -Dcinematch.ollama.numCtx}.
+     *
+     * @param baseUrl   l’adresse de l’API Ollama (ex : {@code http://localhost:11434})
+     * @param model     le nom du modèle à interroger (ex : {@code mistral}, {@code llama3})
+     * @param transport transport HTTP partagé
+     */
+    public OllamaClient(String baseUrl, String model, OllamaTransport transport) {
+        this(baseUrl, model, transport,
+                System.getProperty(PROP_KEEP_ALIVE, DEFAULT_KEEP_ALIVE), optionsFromSystemProperties());
+    }
+
+    /**
+     * Crée un client Ollama entièrement configuré.
+     *
+     * @param baseUrl   l’adresse de l’API Ollama (ex : {@code http://localhost:11434})
+     * @param model     le nom du modèle à interroger (ex : {@code mistral}, {@code llama3})
+     * @param transport transport HTTP partagé
+     * @param keepAlive durée de maintien du modèle en mémoire (ex : {@code "30m"}), ou
+     *                  {@code null} / vide pour la valeur du serveur
+     * @param options   options de génération envoyées à chaque requête, ou {@code null}
+     */
+    public OllamaClient(String baseUrl, String model, OllamaTransport transport,
+                        String keepAlive, Map<String, Object> options) {
         this.baseUrl = baseUrl.endsWith("/")
                 ? baseUrl.substring(0, baseUrl.length() - 1)
                 : baseUrl;
         this.model = model;
+        this.transport = transport;
+        this.http = transport.http();
+        this.keepAlive = keepAlive == null || keepAlive.isBlank() ? null : keepAlive.trim();
+        this.options = options == null || options.isEmpty() ? null : Map.copyOf(options);
+    }
+
+    /**
+     * @return le nom du modèle interrogé
+     */
+    public String model() {
+        return model;
+    }
+
+    /**
+     * Précharge le modèle en mémoire, sans rien générer (requête sans message).
+     *
+     * <p>À lancer au démarrage : le premier vrai appel ne paie plus le chargement du modèle
+     * (souvent plusieurs dizaines de secondes). La requête porte les mêmes {@code keep_alive}
+     * et {@code options} que les autres : des options différentes (ex. {@code num_ctx})
+     * forceraient Ollama à recharger le modèle au premier appel.</p>
+     *
+     * @return futur à {@code true} si Ollama a chargé le modèle ; il n’échoue jamais
+     */
+    public CompletableFuture<Boolean> warmUp() {
+        final HttpRequest request;
+        try {
+            request = post(new LlmRequest(model, List.of(), false, keepAlive, options));
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return limited(() -> http.sendAsync(request, HttpResponse.BodyHandlers.discarding()),
+                res -> res.statusCode() == 200 ? "" : "[Erreur Ollama] HTTP " + res.statusCode())
+                .thenApply(r -> !r.startsWith("[Erreur Ollama]"));
     }
 
     /**
@@ -64,25 +164,347 @@ public class OllamaClient {
      * @return le texte généré par le modèle, ou une chaîne d’erreur si un problème survient
      */
     public String chat(String system, String user) {
+        return chat(turns(system, user));
+    }
+
+    /**
+     * Variante multi-tours de {@link #chat(String, String)} : la conversation est transmise
+     * telle quelle (message "system" puis tours "user"/"assistant").
+     *
+     * <p>Ollama garde en cache le préfixe du dernier prompt évalué : des messages dont le
+     * début ne change pas d’un appel à l’autre ne sont pas réévalués. Une requête identique
+     * à une autre encore en cours n’est pas renvoyée : elle attend la même réponse
+     * (voir {@link OllamaTransport#deduplicate}).</p>
+     *
+     * @param messages la conversation, dans l’ordre
+     * @return le texte généré par le modèle, ou une chaîne d’erreur si un problème survient
+     */
+    public String chat(List<LlmMessage> messages) {
+        final String json;
+        try {
+            json = body(messages, false);
+        } catch (IOException e) {
+            return "[Erreur Ollama] " + e.getMessage();
+        }
+        final CompletableFuture<String> shared = transport.deduplicate(baseUrl + json,
+                () -> CompletableFuture.completedFuture(send(json)));
         try {
-            var req = new LlmRequest(model, java.util.List.of(
-                    new LlmMessage("system", system),
-                    new LlmMessage("user", user)
-            ));
-            String json = mapper.writeValueAsString(req);
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(baseUrl + "/api/chat"))
-                    .header("Content-Type", "application/json")
-                    .timeout(Duration.ofSeconds(60))
-                    .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
-                    .build();
-
-            HttpResponse<String> res = http.send(request, HttpResponse.BodyHandlers.ofString());
+            return shared.get();
+        } catch (InterruptedException e) {
+            shared.cancel(true);
+            Thread.currentThread().interrupt();
+            return "[Erreur Ollama] interrompu";
+        } catch (ExecutionException | CancellationException e) {
+            return "[Erreur Ollama] " + rootCause(e).getMessage();
+        }
+    }
+
+    /**
+     * Variante en flux de {@link #chat(String, String)} : chaque fragment de texte est
+     * transmis à {@code onToken} dès sa réception.
+     *
+     * <p>La requête est envoyée avec {@code stream=true} ; Ollama répond alors en NDJSON
+     * (un objet JSON par ligne, {@code message.content} = fragment, {@code done=true} sur
+     * la dernière ligne). Le délai du transport ne porte que sur l’arrivée du début de la
+     * réponse, pas sur sa durée totale. Si le thread appelant est interrompu (ex.
+     * {@code SwingWorker.cancel(true)}), entre deux lignes comme pendant une lecture
+     * bloquante, la lecture s’arrête et le texte déjà reçu est renvoyé ; le drapeau
+     * d’interruption reste alors levé, ce qui permet à l’appelant de reconnaître une réponse
+     * tronquée ({@code Thread.currentThread().isInterrupted()}).</p>
+     *
+     * @param system  le message de configuration du comportement du modèle (rôle system)
+     * @param user    le message utilisateur auquel le modèle doit répondre
+     * @param onToken consommateur des fragments, appelé sur le thread appelant (peut être {@code null})
+     * @return le texte complet, {@code "[vide]"} si aucun fragment, ou une chaîne d’erreur
+     */
+    public String chatStream(String system, String user, Consumer<String> onToken) {
+        return chatStream(turns(system, user), onToken);
+    }
+
+    /**
+     * Variante multi-tours de {@link #chatStream(String, String, Consumer)}.
+     *
+     * @param messages la conversation, dans l’ordre
+     * @param onToken  consommateur des fragments, appelé sur le thread appelant (peut être {@code null})
+     * @return le texte complet, {@code "[vide]"} si aucun fragment, ou une chaîne d’erreur
+     */
+    public String chatStream(List<LlmMessage> messages, Consumer<String> onToken) {
+        final StringBuilder full = new StringBuilder();
+        try (OllamaTransport.Permit permit = transport.acquire()) {
+            HttpRequest request = buildRequest(messages, true);
+            HttpResponse<InputStream> res = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(res.body(), StandardCharsets.UTF_8))) {
+                String line;
+                while (!Thread.currentThread().isInterrupted() && (line = in.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode chunk = mapper.readTree(line);
+                    if (chunk.hasNonNull("error")) {
+                        throw new IOException(chunk.get("error").asText());
+                    }
+                    String token = chunk.path("message").path("content").asText("");
+                    if (!token.isEmpty()) {
+                        full.append(token);
+                        if (onToken != null) {
+                            onToken.accept(token);
+                        }
+                    }
+                    if (chunk.path("done").asBoolean(false)) {
+                        break;
+                    }
+                }
+            }
+            return full.length() > 0 ? full.toString() : "[vide]";
+        } catch (Exception e) {
+            if (interrupted(e)) {
+                // drapeau relevé pour l’appelant ; texte déjà reçu gardé (readLine bloquant)
+                Thread.currentThread().interrupt();
+                if (full.length() > 0) {
+                    return full.toString();
+                }
+            }
+            return "[Erreur Ollama] " + e.getMessage();
+        }
+    }
+
+    /** Vrai si {@code e} provient de l’interruption du thread appelant. */
+    private static boolean interrupted(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof InterruptedException || t instanceof InterruptedIOException
+                    || t instanceof ClosedByInterruptException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Variante non bloquante de {@link #chat(String, String)}, sur {@link HttpClient#sendAsync}.
+     *
+     * <p>Aucun thread n’est occupé pendant la génération. Annuler le futur renvoyé
+     * ({@code cancel(true)}) interrompt l’échange HTTP : Ollama voit la connexion fermée
+     * et arrête de générer. Comme pour {@link #chat(List)}, une requête identique en cours
+     * est partagée ; l’échange n’est alors interrompu que si tous ses appelants annulent.</p>
+     *
+     * @param system le message de configuration du comportement du modèle (rôle system)
+     * @param user   le message utilisateur auquel le modèle doit répondre
+     * @return futur du texte généré ({@code "[vide]"} ou chaîne d’erreur comme {@link #chat}) ;
+     *         il n’échoue que s’il est annulé
+     */
+    public CompletableFuture<String> chatAsync(String system, String user) {
+        final String json;
+        try {
+            json = body(turns(system, user), false);
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture("[Erreur Ollama] " + e.getMessage());
+        }
+        return transport.deduplicate(baseUrl + json, () -> limited(
+                () -> http.sendAsync(post(json), HttpResponse.BodyHandlers.ofString()), res -> {
+                    try {
+                        LlmResponse resp = mapper.readValue(res.body(), LlmResponse.class);
+                        return resp.message() != null ? resp.message().content() : "[vide]";
+                    } catch (IOException e) {
+                        return "[Erreur Ollama] " + e.getMessage();
+                    }
+                }));
+    }
+
+    /**
+     * Variante non bloquante de {@link #chatStream(String, String, Consumer)} : les lignes
+     * NDJSON sont traitées par les threads du {@link HttpClient} à leur arrivée.
+     *
+     * <p>Annuler le futur renvoyé interrompt l’échange HTTP ; plus aucun fragment n’est
+     * alors transmis.</p>
+     *
+     * @param system  le message de configuration du comportement du modèle (rôle system)
+     * @param user    le message utilisateur auquel le modèle doit répondre
+     * @param onToken consommateur des fragments, appelé hors EDT (peut être {@code null})
+     * @return futur du texte complet (ou chaîne d’erreur) ; il n’échoue que s’il est annulé
+     */
+    public CompletableFuture<String> chatStreamAsync(String system, String user, Consumer<String> onToken) {
+        final HttpRequest request;
+        try {
+            request = buildRequest(turns(system, user), true);
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture("[Erreur Ollama] " + e.getMessage());
+        }
+        final NdjsonSubscriber lines = new NdjsonSubscriber(mapper, onToken);
+        final CompletableFuture<String> result = limited(() -> http.sendAsync(request,
+                HttpResponse.BodyHandlers.fromLineSubscriber(lines, NdjsonSubscriber::result, "\n")),
+                HttpResponse::body);
+        result.whenComplete((r, e) -> lines.stop());
+        return result;
+    }
+
+    /**
+     * Lance l’échange dès qu’une place du transport est libre et le convertit en futur de
+     * texte ; la place est rendue à la fin de l’échange (corps lu). L’annulation du futur
+     * renvoyé est propagée explicitement : à l’attente de place, ou à l’échange (la
+     * propagation aux futurs dérivés n’est pas garantie par la spécification de
+     * {@link HttpClient#sendAsync}).
+     */
+    private <T> CompletableFuture<String> limited(Supplier<CompletableFuture<HttpResponse<T>>> send,
+                                                  Function<HttpResponse<T>, String> body) {
+        final CompletableFuture<OllamaTransport.Permit> permit = transport.acquireAsync();
+        final AtomicReference<CompletableFuture<HttpResponse<T>>> exchange = new AtomicReference<>();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        final CompletableFuture<String> result = permit
+                .thenCompose(p -> {
+                    final CompletableFuture<HttpResponse<T>> x;
+                    try {
+                        x = send.get();
+                    } catch (RuntimeException e) {
+                        p.close();
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    x.whenComplete((r, e) -> p.close());
+                    exchange.set(x);
+                    if (cancelled.get()) {
+                        x.cancel(true);
+                    }
+                    return x;
+                })
+                .handle((res, err) ->
+                        err == null ? body.apply(res) : "[Erreur Ollama] " + rootCause(err).getMessage());
+        result.whenComplete((r, e) -> {
+            if (e instanceof CancellationException) {
+                cancelled.set(true);
+                permit.cancel(false);
+                final CompletableFuture<HttpResponse<T>> x = exchange.get();
+                if (x != null) {
+                    x.cancel(true);
+                }
+            }
+        });
+        return result;
+    }
+
+    /** Options de génération selon les propriétés système ({@code null} si aucune). */
+    private static Map<String, Object> optionsFromSystemProperties() {
+        final Integer numCtx = Integer.getInteger(PROP_NUM_CTX);
+        return numCtx == null ? null : Map.of("num_ctx", numCtx);
+    }
+
+    private static Throwable rootCause(Throwable err) {
+        Throwable t = err;
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * Lecteur des lignes NDJSON d’une réponse en flux : accumule le texte, transmet chaque
+     * fragment et retient la première erreur ({@code {"error": ...}} ou JSON illisible).
+     */
+    private static final class NdjsonSubscriber implements Flow.Subscriber<String> {
+        private final ObjectMapper mapper;
+        private final Consumer<String> onToken;
+        private final StringBuilder full = new StringBuilder();
+        private volatile boolean stopped;
+        private boolean done;
+        private String error;
+
+        NdjsonSubscriber(ObjectMapper mapper, Consumer<String> onToken) {
+            this.mapper = mapper;
+            this.onToken = onToken;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (done || stopped || error != null || line.isBlank()) {
+                return;
+            }
+            try {
+                JsonNode chunk = mapper.readTree(line);
+                if (chunk.hasNonNull("error")) {
+                    error = chunk.get("error").asText();
+                    return;
+                }
+                String token = chunk.path("message").path("content").asText("");
+                if (!token.isEmpty()) {
+                    full.append(token);
+                    if (onToken != null) {
+                        onToken.accept(token);
+                    }
+                }
+                done = chunk.path("done").asBoolean(false);
+            } catch (IOException e) {
+                error = e.getMessage();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            // l’échec de l’échange est remonté par le futur de sendAsync
+        }
+
+        @Override
+        public void onComplete() {
+            // le texte est lu par result()
+        }
+
+        /** Plus aucun fragment ne sera transmis (futur terminé ou annulé). */
+        void stop() {
+            stopped = true;
+        }
+
+        String result() {
+            if (error != null) {
+                return "[Erreur Ollama] " + error;
+            }
+            return full.length() > 0 ? full.toString() : "[vide]";
+        }
+    }
+
+    /** Conversation à un tour : un message "system" et un message "user". */
+    private static List<LlmMessage> turns(String system, String user) {
+        return List.of(new LlmMessage("system", system), new LlmMessage("user", user));
+    }
+
+    /** Requête {@code POST /api/chat} portant {@code messages}. */
+    private HttpRequest buildRequest(List<LlmMessage> messages, boolean stream) throws IOException {
+        return post(body(messages, stream));
+    }
+
+    /** Corps JSON d’une requête portant {@code messages}. */
+    private String body(List<LlmMessage> messages, boolean stream) throws IOException {
+        return mapper.writeValueAsString(new LlmRequest(model, messages, stream, keepAlive, options));
+    }
+
+    /** Échange bloquant non diffusé : texte de la réponse ou chaîne d’erreur. */
+    private String send(String json) {
+        try (OllamaTransport.Permit permit = transport.acquire()) {
+            HttpResponse<String> res = http.send(post(json), HttpResponse.BodyHandlers.ofString());
             LlmResponse resp = mapper.readValue(res.body(), LlmResponse.class);
             return resp.message() != null ? resp.message().content() : "[vide]";
         } catch (Exception e) {
             return "[Erreur Ollama] " + e.getMessage();
         }
     }
+
+    /** Requête {@code POST /api/chat} portant {@code req} en JSON. */
+    private HttpRequest post(LlmRequest req) throws IOException {
+        return post(mapper.writeValueAsString(req));
+    }
+
+    /** Requête {@code POST /api/chat} portant le corps JSON {@code json}. */
+    private HttpRequest post(String json) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/chat"))
+                .header("Content-Type", "application/json")
+                .timeout(transport.requestTimeout())
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+    }
 }
@@ -0,0 +1,427 @@
+package app.cinematch.api;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Transport HTTP partagé par tous les accès à un même serveur Ollama.
+ *
+ * <p>Un seul {@link HttpClient} (donc un seul pool de connexions gardées ouvertes), un
+ * exécuteur borné de threads démons pour les échanges asynchrones, des délais communs et
+ * une limite de requêtes simultanées : au-delà de {@code maxConcurrent}, une requête attend
+ * qu’une autre se termine (Ollama les mettrait de toute façon en file).</p>
+ *
+ * <p>Ordonnancement : une place rendue va à la plus ancienne demande de la classe la plus
+ * prioritaire ({@link LlmPriority}, celle du thread appelant par défaut) ; les
+ * {@code reservedInteractive} dernières places ne servent qu’au chat, pour qu’une rafale de
+ * descriptions ou de préchargements ne le fasse jamais attendre la fin d’une génération.
+ * Une demande en attente s’annule en annulant son futur. Les requêtes identiques en cours
+ * peuvent partager un seul échange ({@link #deduplicate}).</p>
+ *
+ * <p>Le client force HTTP/1.1 : Ollama sert du HTTP en clair, sans HTTP/2 (h2c) ; la
+ * tentative de mise à niveau serait un aller-retour perdu à chaque nouvelle connexion.
+ * La durée de maintien des connexions inactives et la taille du pool se règlent par les
+ * propriétés du JDK ({@link #PROP_KEEPALIVE}, {@link #PROP_POOL_SIZE}), lues à la première
+ * création d’un {@link HttpClient} : voir {@link #applyPoolDefaults()}.</p>
+ *
+ * <p>Configuration : {@code -Dcinematch.ollama.connectTimeoutMs}, {@code .requestTimeoutSec},
+ * {@code .maxConcurrent}, {@code .reservedInteractive}, {@code .threads}. Thread-safe.</p>
+ */
+public final class OllamaTransport {
+
+    /** Propriété système : délai d’établissement d’une connexion, en millisecondes. */
+    public static final String PROP_CONNECT_TIMEOUT_MS = "cinematch.ollama.connectTimeoutMs";
+    /** Propriété système : délai d’arrivée du début d’une réponse, en secondes. */
+    public static final String PROP_REQUEST_TIMEOUT_SEC = "cinematch.ollama.requestTimeoutSec";
+    /** Propriété système : nombre maximal de requêtes simultanées vers Ollama. */
+    public static final String PROP_MAX_CONCURRENT = "cinematch.ollama.maxConcurrent";
+    /** Propriété système : places réservées au chat (priorité {@link LlmPriority#INTERACTIVE}). */
+    public static final String PROP_RESERVED_INTERACTIVE = "cinematch.ollama.reservedInteractive";
+    /** Propriété système : nombre de threads de l’exécuteur HTTP. */
+    public static final String PROP_THREADS = "cinematch.ollama.threads";
+    /** Propriété du JDK : durée de maintien d’une connexion inactive, en secondes. */
+    public static final String PROP_KEEPALIVE = "jdk.httpclient.keepalive.timeout";
+    /** Propriété du JDK : nombre maximal de connexions inactives gardées. */
+    public static final String PROP_POOL_SIZE = "jdk.httpclient.connectionPoolSize";
+
+    /** Délai de connexion par défaut. */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    /** Délai de réponse par défaut (un modèle froid peut mettre longtemps à se charger). */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    /** Requêtes simultanées par défaut (valeur par défaut de {@code OLLAMA_NUM_PARALLEL}). */
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+    /** Places réservées au chat par défaut. */
+    public static final int DEFAULT_RESERVED_INTERACTIVE = 1;
+    /** Threads de l’exécuteur HTTP par défaut. */
+    public static final int DEFAULT_THREADS = 4;
+    /** Maintien des connexions inactives par défaut, en secondes. */
+    public static final int DEFAULT_KEEPALIVE_SEC = 300;
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+    private static volatile OllamaTransport shared;
+
+    /** Droit d’envoyer une requête ; à fermer une fois la réponse lue (idempotent). */
+    public final class Permit implements AutoCloseable {
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final LlmPriority priority;
+
+        private Permit(final LlmPriority priority) {
+            this.priority = priority;
+        }
+
+        /** @return classe de la requête qui occupe la place */
+        public LlmPriority priority() {
+            return priority;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(priority);
+            }
+        }
+    }
+
+    /** Échange partagé par des requêtes identiques ({@link #deduplicate}). */
+    private static final class InFlight {
+        final CompletableFuture<String> result = new CompletableFuture<>();
+        CompletableFuture<String> upstream;
+        int subscribers;
+        boolean abandoned;
+    }
+
+    private final HttpClient http;
+    private final ExecutorService executor;
+    private final Duration requestTimeout;
+    private final int maxConcurrent;
+    private final int backgroundLimit;
+
+    private final Object lock = new Object();
+    private final Map<LlmPriority, Deque<CompletableFuture<Permit>>> waiting = new EnumMap<>(LlmPriority.class);
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+    private int available;
+    private int backgroundInUse;
+
+    /**
+     * Transport sans place réservée au chat.
+     *
+     * @param connectTimeout délai d’établissement d’une connexion
+     * @param requestTimeout délai d’arrivée du début d’une réponse
+     * @param maxConcurrent  requêtes simultanées au plus (au moins 1)
+     * @param threads        threads de l’exécuteur HTTP (au moins 1)
+     */
+    public OllamaTransport(final Duration connectTimeout, final Duration requestTimeout,
+                           final int maxConcurrent, final int threads) {
+        this(connectTimeout, requestTimeout, maxConcurrent, 0, threads);
+    }
+
+    /**
+     * @param connectTimeout      délai d’établissement d’une connexion
+     * @param requestTimeout      délai d’arrivée du début d’une réponse
+     * @param maxConcurrent       requêtes simultanées au plus (au moins 1)
+     * @param reservedInteractive places réservées au chat (au plus {@code maxConcurrent - 1})
+     * @param threads             threads de l’exécuteur HTTP (au moins 1)
+     */
+    public OllamaTransport(final Duration connectTimeout, final Duration requestTimeout,
+                           final int maxConcurrent, final int reservedInteractive, final int threads) {
+        this.requestTimeout = requestTimeout;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.backgroundLimit = this.maxConcurrent
+                - Math.max(0, Math.min(reservedInteractive, this.maxConcurrent - 1));
+        this.available = this.maxConcurrent;
+        for (LlmPriority p : LlmPriority.values()) {
+            waiting.put(p, new ArrayDeque<>());
+        }
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            final Thread t = new Thread(r, "ollama-http-" + THREAD_IDS.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(executor)
+                .build();
+    }
+
+    /**
+     * Construit un transport selon {@code -Dcinematch.ollama.*}.
+     *
+     * @return le transport configuré
+     */
+    public static OllamaTransport fromSystemProperties() {
+        return new OllamaTransport(
+                Duration.ofMillis(Long.getLong(PROP_CONNECT_TIMEOUT_MS, DEFAULT_CONNECT_TIMEOUT.toMillis())),
+                Duration.ofSeconds(Long.getLong(PROP_REQUEST_TIMEOUT_SEC, DEFAULT_REQUEST_TIMEOUT.toSeconds())),
+                Integer.getInteger(PROP_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT),
+                Integer.getInteger(PROP_RESERVED_INTERACTIVE, DEFAULT_RESERVED_INTERACTIVE),
+                Integer.getInteger(PROP_THREADS, DEFAULT_THREADS));
+    }
+
+    /**
+     * Transport commun de l’application (créé au premier appel, selon les propriétés système).
+     *
+     * @return le transport partagé
+     */
+    public static OllamaTransport shared() {
+        OllamaTransport t = shared;
+        if (t == null) {
+            synchronized (OllamaTransport.class) {
+                t = shared;
+                if (t == null) {
+                    t = fromSystemProperties();
+                    shared = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Fixe les réglages du pool de connexions du JDK s’ils ne sont pas déjà définis :
+     * maintien {@link #DEFAULT_KEEPALIVE_SEC} s, pool de {@code maxConcurrent} connexions.
+     * Sans effet après la première création d’un {@link HttpClient} dans la JVM.
+     */
+    public static void applyPoolDefaults() {
+        if (System.getProperty(PROP_KEEPALIVE) == null) {
+            System.setProperty(PROP_KEEPALIVE, String.valueOf(DEFAULT_KEEPALIVE_SEC));
+        }
+        if (System.getProperty(PROP_POOL_SIZE) == null) {
+            System.setProperty(PROP_POOL_SIZE,
+                    String.valueOf(Integer.getInteger(PROP_MAX_CONCURRENT, DEFAULT_MAX_CONCURRENT)));
+        }
+    }
+
+    /** @return le client HTTP partagé */
+    public HttpClient http() {
+        return http;
+    }
+
+    /** @return délai d’arrivée du début d’une réponse */
+    public Duration requestTimeout() {
+        return requestTimeout;
+    }
+
+    /** @return nombre maximal de requêtes simultanées */
+    public int maxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /** @return nombre de requêtes pouvant partir immédiatement */
+    public int availablePermits() {
+        synchronized (lock) {
+            return available;
+        }
+    }
+
+    /**
+     * Attend une place (bloquant), à la priorité du thread appelant.
+     *
+     * @return le droit d’envoyer, à fermer après lecture de la réponse
+     * @throws InterruptedException si le thread est interrompu pendant l’attente
+     */
+    public Permit acquire() throws InterruptedException {
+        return acquire(LlmPriority.current());
+    }
+
+    /**
+     * Attend une place (bloquant).
+     *
+     * @param priority classe de la requête
+     * @return le droit d’envoyer, à fermer après lecture de la réponse
+     * @throws InterruptedException si le thread est interrompu pendant l’attente
+     */
+    public Permit acquire(final LlmPriority priority) throws InterruptedException {
+        final CompletableFuture<Permit> f = acquireAsync(priority);
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            if (!f.cancel(false)) {
+                // place obtenue entre-temps : on la rend
+                f.join().close();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Demande une place sans bloquer, à la priorité du thread appelant.
+     *
+     * @return futur complété dès qu’une place est libre
+     */
+    public CompletableFuture<Permit> acquireAsync() {
+        return acquireAsync(LlmPriority.current());
+    }
+
+    /**
+     * Demande une place sans bloquer. Annuler le futur renonce à la place.
+     *
+     * @param priority classe de la requête
+     * @return futur complété dès qu’une place est libre
+     */
+    public CompletableFuture<Permit> acquireAsync(final LlmPriority priority) {
+        synchronized (lock) {
+            if (admissible(priority)) {
+                take(priority);
+                return CompletableFuture.completedFuture(new Permit(priority));
+            }
+            final CompletableFuture<Permit> f = new CompletableFuture<>();
+            waiting.get(priority).add(f);
+            return f;
+        }
+    }
+
+    /**
+     * Partage un échange entre requêtes identiques en cours : seule la première
+     * ({@code start}) part ; les suivantes reçoivent son résultat. Chaque appelant reçoit
+     * son propre futur : l’annuler ne retire que lui, et l’échange n’est annulé que lorsque
+     * plus personne ne l’attend.
+     *
+     * @param key   identité de la requête (ex. URL et corps JSON)
+     * @param start lance l’échange ; appelé au plus une fois par échange partagé, sur le
+     *              thread appelant (un échange bloquant peut donc rendre un futur déjà complété)
+     * @return futur du résultat propre à l’appelant
+     */
+    public CompletableFuture<String> deduplicate(final String key,
+                                                 final Supplier<CompletableFuture<String>> start) {
+        final InFlight shared;
+        final boolean leader;
+        synchronized (lock) {
+            final InFlight existing = inFlight.get(key);
+            leader = existing == null;
+            shared = leader ? new InFlight() : existing;
+            if (leader) {
+                inFlight.put(key, shared);
+            }
+            shared.subscribers++;
+        }
+        final CompletableFuture<String> view = new CompletableFuture<>();
+        shared.result.whenComplete((r, e) -> {
+            if (e == null) {
+                view.complete(r);
+            } else {
+                view.completeExceptionally(e);
+            }
+        });
+        view.whenComplete((r, e) -> {
+            if (view.isCancelled()) {
+                unsubscribe(key, shared);
+            }
+        });
+        if (leader) {
+            CompletableFuture<String> up;
+            try {
+                up = start.get();
+            } catch (RuntimeException e) {
+                up = CompletableFuture.failedFuture(e);
+            }
+            final boolean abandoned;
+            synchronized (lock) {
+                shared.upstream = up;
+                abandoned = shared.abandoned;
+            }
+            if (abandoned) {
+                up.cancel(true);
+            }
+            up.whenComplete((r, e) -> {
+                synchronized (lock) {
+                    inFlight.remove(key, shared);
+                }
+                if (e == null) {
+                    shared.result.complete(r);
+                } else {
+                    shared.result.completeExceptionally(e);
+                }
+            });
+        }
+        return view;
+    }
+
+    /** @return nombre d’échanges partagés en cours */
+    public int inFlightCount() {
+        synchronized (lock) {
+            return inFlight.size();
+        }
+    }
+
+    /** Un appelant renonce ; l’échange est annulé s’il était le dernier. */
+    private void unsubscribe(final String key, final InFlight shared) {
+        final CompletableFuture<String> up;
+        synchronized (lock) {
+            if (--shared.subscribers > 0 || shared.result.isDone()) {
+                return;
+            }
+            inFlight.remove(key, shared);
+            shared.abandoned = true;
+            up = shared.upstream;
+        }
+        shared.result.cancel(false);
+        if (up != null) {
+            up.cancel(true);
+        }
+    }
+
+    /** Une requête de cette classe peut-elle partir maintenant ? (sous {@code lock}) */
+    private boolean admissible(final LlmPriority priority) {
+        return available > 0 && (priority == LlmPriority.INTERACTIVE || backgroundInUse < backgroundLimit);
+    }
+
+    private void take(final LlmPriority priority) {
+        available--;
+        if (priority != LlmPriority.INTERACTIVE) {
+            backgroundInUse++;
+        }
+    }
+
+    private void giveBack(final LlmPriority priority) {
+        available++;
+        if (priority != LlmPriority.INTERACTIVE) {
+            backgroundInUse--;
+        }
+    }
+
+    /** Rend une place puis la passe à la demande en attente la plus prioritaire. */
+    private void release(final LlmPriority priority) {
+        synchronized (lock) {
+            giveBack(priority);
+        }
+        while (true) {
+            CompletableFuture<Permit> next = null;
+            LlmPriority nextPriority = null;
+            synchronized (lock) {
+                for (LlmPriority p : LlmPriority.values()) {
+                    final Deque<CompletableFuture<Permit>> queue = waiting.get(p);
+                    if (!queue.isEmpty() && admissible(p)) {
+                        next = queue.poll();
+                        nextPriority = p;
+                        take(p);
+                        break;
+                    }
+                }
+            }
+            if (next == null) {
+                return;
+            }
+            if (next.complete(new Permit(nextPriority))) {
+                return;
+            }
+            synchronized (lock) {
+                giveBack(nextPriority);
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package app.cinematch.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * Représente une entrée d’historique pour un film dans la mémoire de l’utilisateur.
  *
@@ -15,6 +17,10 @@ package app.cinematch.model;
  * <p>Cette classe est un {@link java.lang.Record}, ce qui la rend immuable et adaptée
  * à la sérialisation JSON ou au stockage persistant via {@code JsonStorage}.</p>
  *
+ * <p>Le format JSON reste à trois chaînes ; {@link #statusValue()} et {@link #epochNanos()}
+ * en donnent la forme primitive ({@link Status}, {@code long}) utilisée par les index
+ * mémoire pour filtrer et trier sans comparer de chaînes.</p>
+ *
  * <p>Exemple d’utilisation :
  * <pre>{@code
  * HistoryEntry entry = new HistoryEntry("Inception", "deja_vu", "2025-10-24T09:30:00");
@@ -25,4 +31,21 @@ package app.cinematch.model;
  * @param status       le statut du film (déjà vu, envie, pas intéressé, etc.)
  * @param dateTimeIso  la date et l’heure au format ISO 8601
  */
-public record HistoryEntry(String title, String status, String dateTimeIso) { }
+public record HistoryEntry(String title, String status, String dateTimeIso) {
+
+    /**
+     * @return le statut connu correspondant (casse ignorée), ou {@code null} si statut libre
+     */
+    @JsonIgnore
+    public Status statusValue() {
+        return Status.fromCode(status);
+    }
+
+    /**
+     * @return la date en nanosecondes depuis l’epoch, ou {@link Timestamps#NONE}
+     */
+    @JsonIgnore
+    public long epochNanos() {
+        return Timestamps.toEpochNanos(dateTimeIso);
+    }
+}
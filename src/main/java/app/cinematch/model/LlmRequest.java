@@ -1,7 +1,12 @@
 package app.cinematch.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Représente une requête envoyée à un modèle de langage (LLM) comme Ollama.
@@ -11,8 +16,14 @@ import java.util.List;
  *   <li><b>model</b> — le nom du modèle utilisé (ex. : {@code "mistral"}, {@code "llama3"})</li>
  *   <li><b>messages</b> — la liste des messages constituant le contexte de la conversation</li>
  *   <li><b>stream</b> — indique si la réponse doit être envoyée en flux continu (streaming)</li>
+ *   <li><b>keep_alive</b> — durée pendant laquelle Ollama garde le modèle chargé après la
+ *   requête (ex. {@code "30m"}, {@code "-1"} = indéfiniment) ; absent = valeur du serveur</li>
+ *   <li><b>options</b> — paramètres de génération (ex. {@code num_ctx}, {@code temperature}) ;
+ *   absent = valeurs du modèle</li>
  * </ul>
  *
+ * <p>Les champs absents ({@code null}) ne sont pas sérialisés.</p>
+ *
  * <p>L’annotation {@link JsonIgnoreProperties} avec {@code ignoreUnknown = true}
  * permet d’ignorer les champs non reconnus lors de la désérialisation JSON,
  * rendant cette classe plus tolérante aux changements d’API.</p>
@@ -31,22 +42,45 @@ import java.util.List;
  *
  * @param model    le nom du modèle LLM à interroger
  * @param messages la liste des messages constituant le contexte de la requête
- * @param stream   {@code true} si la réponse doit être transmise en streaming, {@code false} sinon
+ * @param stream    {@code true} si la réponse doit être transmise en streaming, {@code false} sinon
+ * @param keepAlive durée de maintien du modèle en mémoire, ou {@code null}
+ * @param options   paramètres de génération, ou {@code null}
  */
 @JsonIgnoreProperties(ignoreUnknown = true)
-public record LlmRequest(String model, List<LlmMessage> messages, boolean stream) {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LlmRequest(String model, List<LlmMessage> messages, boolean stream,
+                         @JsonProperty("keep_alive") String keepAlive,
+                         Map<String, Object> options) {
 
     /**
      * Constructeur canonique avec copie défensive pour garantir l’immuabilité.
      *
-     * @param model    le nom du modèle à utiliser
-     * @param messages la liste des messages d’entrée (copiée de manière immuable)
-     * @param stream   indicateur d’utilisation du mode streaming
+     * @param model     le nom du modèle à utiliser
+     * @param messages  la liste des messages d’entrée (copiée de manière immuable)
+     * @param stream    indicateur d’utilisation du mode streaming
+     * @param keepAlive durée de maintien du modèle en mémoire, ou {@code null}
+     * @param options   paramètres de génération (copiés), ou {@code null}
      */
-    public LlmRequest(String model, List<LlmMessage> messages, boolean stream) {
+    public LlmRequest(String model, List<LlmMessage> messages, boolean stream,
+                      String keepAlive, Map<String, Object> options) {
         this.model = model;
         this.messages = List.copyOf(messages != null ? messages : List.of());
         this.stream = stream;
+        this.keepAlive = keepAlive;
+        this.options = options == null || options.isEmpty()
+                ? null
+                : Collections.unmodifiableMap(new LinkedHashMap<>(options));
+    }
+
+    /**
+     * Constructeur sans {@code keep_alive} ni {@code options} (valeurs du serveur).
+     *
+     * @param model    le nom du modèle à utiliser
+     * @param messages la liste des messages d’entrée
+     * @param stream   indicateur d’utilisation du mode streaming
+     */
+    public LlmRequest(String model, List<LlmMessage> messages, boolean stream) {
+        this(model, messages, stream, null, null);
     }
 
     /**
@@ -0,0 +1,68 @@
+package app.cinematch.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+
+/**
+ * Statuts connus d’un film dans l’historique.
+ *
+ * <p>Le code ({@link #code()}) est la valeur historique stockée dans le JSON
+ * ({@code "envie"}, {@code "deja_vu"}, {@code "pas_interesse"}) : les adaptateurs Jackson
+ * ({@link JsonValue} / {@link JsonCreator}) gardent donc le format inchangé. La lecture est
+ * insensible à la casse ; un code inconnu donne {@code null} (les statuts libres restent
+ * acceptés sous forme de chaîne dans {@link HistoryEntry}).</p>
+ *
+ * <p>L’index mémoire de l’historique range les statuts connus par {@link #ordinal()}.</p>
+ */
+public enum Status {
+
+    /** Film à voir (liste d’envie). */
+    ENVIE("envie"),
+    /** Film déjà vu. */
+    DEJA_VU("deja_vu"),
+    /** Film qui n’intéresse pas l’utilisateur. */
+    PAS_INTERESSE("pas_interesse");
+
+    private static final Status[] VALUES = values();
+
+    private final String code;
+
+    Status(final String code) {
+        this.code = code;
+    }
+
+    /**
+     * @return code stocké (ex. {@code "deja_vu"})
+     */
+    @JsonValue
+    public String code() {
+        return code;
+    }
+
+    /**
+     * Retrouve un statut à partir de son code, sans tenir compte de la casse.
+     *
+     * @param code code (ex. {@code "ENVIE"}), éventuellement {@code null}
+     * @return le statut, ou {@code null} si le code est absent ou inconnu
+     */
+    @JsonCreator
+    public static Status fromCode(final String code) {
+        if (code == null) {
+            return null;
+        }
+        for (Status s : VALUES) {
+            if (s.code.equalsIgnoreCase(code)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return nombre de statuts connus (taille d’un tableau indexé par {@link #ordinal()})
+     */
+    public static int count() {
+        return VALUES.length;
+    }
+}
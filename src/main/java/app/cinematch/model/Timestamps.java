@@ -0,0 +1,81 @@
+package app.cinematch.model;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Conversion entre les dates ISO de {@link HistoryEntry#dateTimeIso()} et un {@code long}
+ * (nanosecondes depuis l’epoch, heure locale lue comme UTC).
+ *
+ * <p>L’ordre des valeurs produites est l’ordre chronologique, qui est aussi l’ordre des
+ * chaînes ISO : les index d’historique trient donc par comparaison de {@code long}.
+ * Formats acceptés : {@code LocalDateTime} ISO (forme de {@code LocalDateTime.toString()}),
+ * date-heure avec décalage (l’heure écrite est gardée, ex. {@code ...T10:00:00Z}) ou date
+ * seule (minuit). Une date absente, illisible ou hors plage (années 1677 à 2262) donne
+ * {@link #NONE}, qui se trie après toutes les autres en ordre décroissant.</p>
+ */
+public final class Timestamps {
+
+    /** Date absente ou illisible. */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private Timestamps() {
+        // Classe utilitaire : pas d’instanciation.
+    }
+
+    /**
+     * @param iso date ISO, éventuellement {@code null}
+     * @return nanosecondes depuis l’epoch, ou {@link #NONE}
+     */
+    public static long toEpochNanos(final String iso) {
+        if (iso == null) {
+            return NONE;
+        }
+        final LocalDateTime t = parse(iso);
+        if (t == null) {
+            return NONE;
+        }
+        try {
+            final long nanos = Math.addExact(
+                    Math.multiplyExact(t.toEpochSecond(ZoneOffset.UTC), NANOS_PER_SECOND), t.getNano());
+            return nanos == NONE ? NONE : nanos;
+        } catch (ArithmeticException e) {
+            return NONE;
+        }
+    }
+
+    /**
+     * @param epochNanos nanosecondes depuis l’epoch, ou {@link #NONE}
+     * @return date ISO ({@code LocalDateTime.toString()}), ou {@code null} pour {@link #NONE}
+     */
+    public static String toIso(final long epochNanos) {
+        if (epochNanos == NONE) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND), ZoneOffset.UTC).toString();
+    }
+
+    private static LocalDateTime parse(final String iso) {
+        try {
+            return LocalDateTime.parse(iso);
+        } catch (DateTimeException ignored) {
+            // autres formes ci-dessous
+        }
+        try {
+            return OffsetDateTime.parse(iso).toLocalDateTime();
+        } catch (DateTimeException ignored) {
+            // idem
+        }
+        try {
+            return LocalDate.parse(iso).atStartOfDay();
+        } catch (DateTimeException ignored) {
+            return null;
+        }
+    }
+}
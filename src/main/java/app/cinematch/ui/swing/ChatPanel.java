@@ -7,13 +7,17 @@ import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
  * Interface de discussion moderne avec l’IA (ChatAgent).
  * Style inspiré des chats modernes : bulles, transition fluide, chargement animé.
+ * La réponse de l’IA s’affiche au fil de sa génération (fragments publiés par le
+ * {@link SwingWorker}), puis est remplacée par le texte complet.
  */
 public final class ChatPanel extends JPanel {
 
@@ -29,7 +33,8 @@ public final class ChatPanel extends JPanel {
     private static final double HELP_DEFAULT = HELP_MIN; // par défaut = "A-" au max (rendu préféré)
 
     private final Consumer<String> navigator;
-    private final Function<String, String> askFn;
+    /** (message, consommateur de fragments) -> réponse complète. */
+    private final BiFunction<String, Consumer<String>, String> askFn;
 
     private final JTextPane conversationPane = new JTextPane();
     private final JScrollPane scrollPane = new JScrollPane(conversationPane);
@@ -48,16 +53,32 @@ public final class ChatPanel extends JPanel {
 
     public ChatPanel(final Function<String, String> askFunction,
                      final Consumer<String> navigationCallback) {
-        this.askFn = Objects.requireNonNull(askFunction);
+        this(streamingOf(Objects.requireNonNull(askFunction)), navigationCallback);
+    }
+
+    /**
+     * @param streamFunction     (message, consommateur de fragments) -> réponse complète ;
+     *                           le consommateur est appelé hors EDT
+     * @param navigationCallback navigation entre écrans
+     */
+    public ChatPanel(final BiFunction<String, Consumer<String>, String> streamFunction,
+                     final Consumer<String> navigationCallback) {
+        this.askFn = Objects.requireNonNull(streamFunction);
         this.navigator = Objects.requireNonNull(navigationCallback);
         buildUi();
     }
 
     public ChatPanel(final ChatAgent agent, final Consumer<String> navigationCallback) {
-        this(Objects.requireNonNull(agent)::ask,
+        this(Objects.requireNonNull(agent)::askStream,
                 Objects.requireNonNull(navigationCallback));
     }
 
+    /** Fonction sans flux : la réponse complète est publiée d’un bloc. */
+    private static BiFunction<String, Consumer<String>, String> streamingOf(
+            final Function<String, String> askFunction) {
+        return (text, onToken) -> askFunction.apply(text);
+    }
+
     /** Construction complète de l'interface. */
     private void buildUi() {
         setLayout(new BorderLayout(10, 10));
@@ -166,18 +187,29 @@ public final class ChatPanel extends JPanel {
         thinkingLabel.setVisible(true);
         loadingBar.setVisible(true);
 
-        new SwingWorker<String, Void>() {
+        // Conversation avant la bulle de l’IA, réécrite à chaque lot de fragments
+        final String base = conversationPane.getText();
+
+        new SwingWorker<String, String>() {
+            private final StringBuilder partial = new StringBuilder();
+
             @Override
             protected String doInBackground() {
-                return askFn.apply(text);
+                return askFn.apply(text, token -> publish(token));
+            }
+
+            @Override
+            protected void process(final List<String> tokens) {
+                tokens.forEach(partial::append);
+                showMessage(base, "IA", partial.toString(), false);
             }
 
             @Override
             protected void done() {
                 try {
-                    appendMessage("IA", get(), false);
+                    showMessage(base, "IA", get(), false);
                 } catch (Exception ex) {
-                    appendMessage("Erreur", ex.getMessage(), false);
+                    showMessage(base, "Erreur", ex.getMessage(), false);
                 } finally {
                     sendButton.setEnabled(true);
                     thinkingLabel.setVisible(false);
@@ -189,11 +221,15 @@ public final class ChatPanel extends JPanel {
 
     /** Affiche un message dans la zone HTML. */
     private void appendMessage(String author, String message, boolean user) {
+        showMessage(conversationPane.getText(), author, message, user);
+    }
+
+    /** Affiche la conversation {@code current} suivie d’un message. */
+    private void showMessage(String current, String author, String message, boolean user) {
         String color = user ? "#ff80d0" : "#a0a0ff";
         String bubbleColor = user
                 ? "rgba(255, 64, 160, 0.15)"
                 : "rgba(80, 80, 120, 0.2)";
-        String current = conversationPane.getText();
 
         // Insère la bulle HTML
         String htmlMessage = String.format(
@@ -1,7 +1,8 @@
 package app.cinematch.ui.swing;
 
 import app.cinematch.model.HistoryEntry;
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.BorderLayout;
@@ -14,7 +15,7 @@ import java.util.List;
  * avec l’agent conversationnel ou le système de recommandation.
  *
  * <p>Ce panneau présente une table listant les films enregistrés dans la mémoire
- * persistante (via {@link JsonStorage}), triés par date décroissante.
+ * persistante (via {@link HistoryRepository}), triés par date décroissante.
  * Il offre également un bouton pour rafraîchir les données et un bouton
  * pour revenir à l’écran d’accueil.</p>
  *
@@ -37,7 +38,7 @@ import java.util.List;
  * }</pre>
  *
  * @see app.cinematch.model.HistoryEntry
- * @see app.cinematch.util.JsonStorage
+ * @see app.cinematch.util.HistoryRepository
  * @see app.cinematch.ui.swing.MainFrame
  */
 public class HistoryPanel extends JPanel {
@@ -51,6 +52,9 @@ public class HistoryPanel extends JPanel {
     /** Bouton permettant de revenir au menu principal. */
     private final JButton backBtn = new JButton("⬅ Retour au menu");
 
+    /** Stockage de l’historique affiché. */
+    private final HistoryRepository repo;
+
     /**
      * Crée un nouveau panneau d’historique lié au service de recommandation.
      *
@@ -58,6 +62,19 @@ public class HistoryPanel extends JPanel {
      * @param parent  la fenêtre principale dans laquelle afficher ce panneau
      */
     public HistoryPanel(final app.cinematch.MovieRecommenderService service, final MainFrame parent) {
+        this(service, parent, new JsonHistoryRepository());
+    }
+
+    /**
+     * Crée un panneau d’historique sur un stockage donné.
+     *
+     * @param service le service de recommandation utilisé (actuellement non utilisé directement)
+     * @param parent  la fenêtre principale dans laquelle afficher ce panneau
+     * @param repo    stockage de l’historique
+     */
+    public HistoryPanel(final app.cinematch.MovieRecommenderService service, final MainFrame parent,
+                        final HistoryRepository repo) {
+        this.repo = repo;
         setLayout(new BorderLayout(10, 10));
 
         // --- Barre du haut ---
@@ -88,13 +105,13 @@ public class HistoryPanel extends JPanel {
 
     /**
      * Recharge la table d’historique en récupérant toutes les entrées
-     * stockées dans {@link JsonStorage}, puis les trie par date décroissante.
+     * stockées dans le {@link HistoryRepository}, puis les trie par date décroissante.
      *
      * <p>Chaque entrée est ensuite ajoutée dans un {@link DefaultTableModel}
      * pour mise à jour de la {@link JTable} principale.</p>
      */
     private void loadHistory() {
-        List<HistoryEntry> all = JsonStorage.loadAll();
+        List<HistoryEntry> all = repo.loadAll();
         all.sort(Comparator.comparing(HistoryEntry::dateTimeIso).reversed());
 
         DefaultTableModel model = new DefaultTableModel(new Object[]{"Titre", "Statut", "Date"}, 0);
@@ -2,6 +2,8 @@ package app.cinematch.ui.swing;
 
 import app.cinematch.MovieRecommenderService;
 import app.cinematch.agent.ChatAgent;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 
 import javax.swing.*;
 import java.awt.*;
@@ -27,7 +29,7 @@ import java.awt.*;
  * <p>Exemple d’utilisation :
  * <pre>{@code
  * MovieRecommenderService service = new MovieRecommenderService();
- * ChatAgent agent = new ChatAgent(ollamaClient, Profile.defaultCinemaExpert(), null);
+ * ChatAgent agent = new ChatAgent(ollamaClient, Profile.defaultCinemaExpert(), new Memory());
  * MainFrame frame = new MainFrame(service, agent);
  * frame.setVisible(true);
  * }</pre>
@@ -61,6 +63,18 @@ public class MainFrame extends JFrame {
      * @param agent   l’agent de conversation IA (peut être {@code null})
      */
     public MainFrame(final MovieRecommenderService service, final ChatAgent agent) {
+        this(service, agent, new JsonHistoryRepository());
+    }
+
+    /**
+     * Construit la fenêtre principale sur un stockage d’historique donné.
+     *
+     * @param service le service de recommandation injecté et partagé
+     * @param agent   l’agent de conversation IA (peut être {@code null})
+     * @param repo    stockage de l’historique partagé par les panneaux
+     */
+    public MainFrame(final MovieRecommenderService service, final ChatAgent agent,
+                     final HistoryRepository repo) {
         super("CineMatch 🎬 Deluxe");
         this.service = service;
 
@@ -71,8 +85,8 @@ public class MainFrame extends JFrame {
         // Écrans principaux
         HomePanel home = new HomePanel(this);
         SimilarMoviePanel t1 = new SimilarMoviePanel(service, this::showCard);
-        SwipeRecommenderPanel t2 = new SwipeRecommenderPanel(service, this::showCard);
-        WishlistPanel t3 = new WishlistPanel(service, this::showCard);
+        SwipeRecommenderPanel t2 = new SwipeRecommenderPanel(service, this::showCard, repo);
+        WishlistPanel t3 = new WishlistPanel(service, this::showCard, repo);
 
         // agent peut être null → fallback fonctionnel
         ChatPanel chat = (agent != null)
@@ -83,7 +97,7 @@ public class MainFrame extends JFrame {
         );
 
         // Historique
-        HistoryPanel hist = new HistoryPanel(service, this);
+        HistoryPanel hist = new HistoryPanel(service, this, repo);
 
         // Ajouter les vues
         container.add(home, "home");
@@ -11,6 +11,7 @@ import java.awt.Graphics2D;
 import java.awt.GridLayout;
 import java.awt.GraphicsEnvironment;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 import javax.swing.JButton;
 import javax.swing.JEditorPane;
@@ -20,6 +21,7 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
@@ -57,7 +59,8 @@ public final class SimilarMoviePanel extends JPanel {
     private final JLabel reason = new JLabel("—", SwingConstants.CENTER);
     private final JLabel platform = new JLabel("—", SwingConstants.CENTER);
     private final JEditorPane descPane = new JEditorPane("text/html", "");
-    private transient SwingWorker<String, Void> descWorker;
+    private transient CompletableFuture<String> descTask;
+    private transient StreamedText descStream;
     private final JButton addWishlist = new JButton("Ajouter à ma liste");
     private final JButton descBtn = new JButton("Régénérer description");
     private final JButton backBtn = new JButton("Retour");
@@ -136,7 +139,7 @@ public final class SimilarMoviePanel extends JPanel {
         // --- Actions ---
         propose.addActionListener(e -> onPropose());
         addWishlist.addActionListener(e -> onAdd());
-        descBtn.addActionListener(e -> startDescriptionForCurrent());
+        descBtn.addActionListener(e -> startDescriptionForCurrent(true));
     }
 
     public SimilarMoviePanel(final MovieRecommenderService service,
@@ -146,9 +149,7 @@ public final class SimilarMoviePanel extends JPanel {
 
     @Override
     public void removeNotify() {
-        if (descWorker != null && !descWorker.isDone()) {
-            descWorker.cancel(true);
-        }
+        cancelDescription();
         super.removeNotify();
     }
 
@@ -159,9 +160,7 @@ public final class SimilarMoviePanel extends JPanel {
             return;
         }
         setBusy(true);
-        if (descWorker != null && !descWorker.isDone()) {
-            descWorker.cancel(true);
-        }
+        cancelDescription();
         setDescHtml("<i>Recherche d’un film similaire…</i>");
         title.setText("...");
         reason.setText("...");
@@ -201,7 +200,7 @@ public final class SimilarMoviePanel extends JPanel {
                     reason.setText("<html><div style='text-align:center; width: 500px;'>"
                             + current.reason() + "</div></html>");
                     platform.setText(current.platform());
-                    startDescriptionForCurrent();
+                    startDescriptionForCurrent(false);
                 } catch (Exception ex) {
                     title.setText("Erreur: " + ex.getMessage());
                     setDescHtml("<i>Description indisponible.</i>");
@@ -212,35 +211,40 @@ public final class SimilarMoviePanel extends JPanel {
         }.execute();
     }
 
-    private void startDescriptionForCurrent() {
+    /**
+     * Lance la description du film courant ; {@code regenerate} ignore la description en
+     * cache (bouton « Régénérer »), sinon elle est resservie à l’affichage initial.
+     */
+    private void startDescriptionForCurrent(final boolean regenerate) {
         if (current == null) return;
         final String titleAtStart = current.title();
         setDescHtml("<i>Génération de la description…</i>");
-        if (descWorker != null && !descWorker.isDone()) {
-            descWorker.cancel(true);
-        }
-        descWorker = new SwingWorker<>() {
-            @Override
-            protected String doInBackground() {
-                return service.generateDescription(titleAtStart);
+        cancelDescription();
+        final StreamedText partial = new StreamedText(txt -> {
+            if (current != null && current.title().equals(titleAtStart)) {
+                setDescHtml(htmlCenterBig(htmlEscape(txt)));
             }
+        });
+        final CompletableFuture<String> task = regenerate
+                ? service.regenerateDescriptionAsync(titleAtStart, partial)
+                : service.generateDescriptionAsync(titleAtStart, partial);
+        descTask = task;
+        descStream = partial;
+        task.whenComplete((txt, err) -> SwingUtilities.invokeLater(() -> {
+            partial.close();
+            if (task.isCancelled() || current == null || !current.title().equals(titleAtStart)) return;
+            setDescHtml(err == null ? htmlCenterBig(htmlEscape(txt)) : "<i>Description indisponible.</i>");
+        }));
+    }
 
-            @Override
-            protected void done() {
-                if (current == null || !current.title().equals(titleAtStart)) return;
-                try {
-                    if (!isCancelled()) {
-                        final String txt = get();
-                        setDescHtml(htmlCenterBig(htmlEscape(txt)));
-                    }
-                } catch (Exception ex) {
-                    if (!isCancelled()) {
-                        setDescHtml("<i>Description indisponible.</i>");
-                    }
-                }
-            }
-        };
-        descWorker.execute();
+    /** Annule la description en cours : l’échange HTTP est interrompu, Ollama cesse de générer. */
+    private void cancelDescription() {
+        if (descStream != null) {
+            descStream.close();
+        }
+        if (descTask != null && !descTask.isDone()) {
+            descTask.cancel(true);
+        }
     }
 
     private void onAdd() {
@@ -0,0 +1,56 @@
+package app.cinematch.ui.swing;
+
+import javax.swing.SwingUtilities;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Texte reçu par fragments hors EDT (ex. {@code OllamaClient.chatStreamAsync}) et
+ * affiché sur l’EDT.
+ *
+ * <p>Les fragments arrivés entre deux rafraîchissements sont regroupés : un seul
+ * {@link SwingUtilities#invokeLater(Runnable)} est en attente à la fois, comme
+ * {@code SwingWorker.publish}. Après {@link #close()}, plus rien n’est affiché.</p>
+ */
+final class StreamedText implements Consumer<String> {
+
+    private final StringBuilder text = new StringBuilder();
+    /** Affichage du texte reçu jusqu’ici (appelé sur l’EDT). */
+    private final Consumer<String> render;
+    private boolean pending;
+    private boolean closed;
+
+    StreamedText(final Consumer<String> render) {
+        this.render = Objects.requireNonNull(render);
+    }
+
+    /** Ajoute un fragment (tout thread) et planifie un rafraîchissement. */
+    @Override
+    public synchronized void accept(final String token) {
+        if (closed) {
+            return;
+        }
+        text.append(token);
+        if (!pending) {
+            pending = true;
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /** Ignore les fragments suivants et tout rafraîchissement encore en attente. */
+    synchronized void close() {
+        closed = true;
+    }
+
+    private void flush() {
+        final String snapshot;
+        synchronized (this) {
+            pending = false;
+            if (closed) {
+                return;
+            }
+            snapshot = text.toString();
+        }
+        render.accept(snapshot);
+    }
+}
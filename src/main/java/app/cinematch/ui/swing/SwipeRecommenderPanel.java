@@ -1,8 +1,10 @@
 package app.cinematch.ui.swing;
 
 import app.cinematch.MovieRecommenderService;
+import app.cinematch.RecommendationPrefetcher;
 import app.cinematch.model.Recommendation;
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
@@ -12,6 +14,8 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridLayout;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Consumer;
 import javax.swing.JButton;
 import javax.swing.JEditorPane;
@@ -19,7 +23,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.SwingConstants;
-import javax.swing.SwingWorker;
+import javax.swing.SwingUtilities;
 import javax.swing.border.CompoundBorder;
 import javax.swing.border.EmptyBorder;
 import javax.swing.border.LineBorder;
@@ -31,12 +35,15 @@ import javax.swing.border.LineBorder;
  *
  * <p>Fonctionnalités :</p>
  * <ul>
- *   <li>Proposition aléatoire d’un film via {@link MovieRecommenderService#recommendRandom()}</li>
+ *   <li>Propositions aléatoires par lots via {@link MovieRecommenderService#recommendBatch},
+ *       préparées d’avance (description comprise) par un {@link RecommendationPrefetcher}</li>
  *   <li>Marquage « envie », « pas intéressé » ou « déjà vu »</li>
- *   <li>Génération asynchrone d’une description via {@link SwingWorker}</li>
+ *   <li>Génération non bloquante d’une description via
+ *       {@link MovieRecommenderService#generateDescriptionAsync}, affichée au fil de l’eau</li>
  * </ul>
  *
- * <p>Conçu pour ne pas bloquer l’EDT, avec annulation des workers si nécessaire.</p>
+ * <p>Conçu pour ne pas bloquer l’EDT. Une description devenue inutile (nouvelle proposition)
+ * est annulée : l’échange HTTP est interrompu et le modèle cesse de générer.</p>
  */
 public final class SwipeRecommenderPanel extends JPanel {
 
@@ -44,11 +51,17 @@ public final class SwipeRecommenderPanel extends JPanel {
     private final MovieRecommenderService service;
     /** Callback de navigation (ex. {@code "home"}). */
     private final Consumer<String> navigator;
+    /** Recommandations préparées d’avance (sans titre déjà en « envie »). */
+    private final RecommendationPrefetcher prefetcher;
+    /** Proposition attendue (une réponse plus ancienne est ignorée). */
+    private CompletableFuture<RecommendationPrefetcher.Prepared> pendingNext;
 
     /** Zone HTML affichant la description. */
     private final JEditorPane descPane = new JEditorPane("text/html", "");
-    /** Worker asynchrone pour la génération de description. */
-    private SwingWorker<String, Void> descWorker;
+    /** Génération de description en cours (futur annulable). */
+    private CompletableFuture<String> descTask;
+    /** Texte partiel de la description en cours. */
+    private StreamedText descStream;
 
     /** Titre recommandé. */
     private final JLabel title = new JLabel("—", SwingConstants.CENTER);
@@ -85,8 +98,39 @@ public final class SwipeRecommenderPanel extends JPanel {
      */
     public SwipeRecommenderPanel(final MovieRecommenderService service,
                                  final Consumer<String> navigator) {
+        this(service, navigator, new JsonHistoryRepository());
+    }
+
+    /**
+     * Construit le panneau sur un stockage donné.
+     *
+     * @param service   service de recommandation (non {@code null})
+     * @param navigator callback de navigation (non {@code null})
+     * @param repo      stockage de l’historique (non {@code null})
+     * @throws NullPointerException si un argument est {@code null}
+     */
+    public SwipeRecommenderPanel(final MovieRecommenderService service,
+                                 final Consumer<String> navigator,
+                                 final HistoryRepository repo) {
+        this(service, navigator, RecommendationPrefetcher.fromSystemProperties(
+                Objects.requireNonNull(service, "service must not be null"),
+                Objects.requireNonNull(repo, "repo must not be null")));
+    }
+
+    /**
+     * Construit le panneau sur une file de préchargement donnée.
+     *
+     * @param service    service de recommandation (non {@code null})
+     * @param navigator  callback de navigation (non {@code null})
+     * @param prefetcher file de recommandations préparées (non {@code null})
+     * @throws NullPointerException si un argument est {@code null}
+     */
+    public SwipeRecommenderPanel(final MovieRecommenderService service,
+                                 final Consumer<String> navigator,
+                                 final RecommendationPrefetcher prefetcher) {
         this.service = Objects.requireNonNull(service, "service must not be null");
         this.navigator = Objects.requireNonNull(navigator, "navigator must not be null");
+        this.prefetcher = Objects.requireNonNull(prefetcher, "prefetcher must not be null");
 
         setLayout(new BorderLayout(10, 10));
         setOpaque(false);
@@ -158,44 +202,52 @@ public final class SwipeRecommenderPanel extends JPanel {
         proposeNext();
     }
 
-    /** Propose la prochaine recommandation et lance la génération de description. */
+    /**
+     * Propose la prochaine recommandation : immédiate si le préchargement en a une prête,
+     * sinon attendue en fond (la description est alors générée au fil de l’eau).
+     */
     private void proposeNext() {
+        cancelDescription();
+        final CompletableFuture<RecommendationPrefetcher.Prepared> next = prefetcher.next();
+        pendingNext = next;
+        if (next.isDone()) {
+            next.whenComplete((p, err) -> showNext(next, p, err));
+            return;
+        }
         title.setText("...");
         reason.setText("...");
         platform.setText("L'ia travaille...");
         setBusy(true);
-        if (descWorker != null && !descWorker.isDone()) {
-            descWorker.cancel(true);
-        }
         setDescHtml("<i>Génération de la proposition…</i>");
-        new SwingWorker<Recommendation, Void>() {
-            @Override
-            protected Recommendation doInBackground() {
-                Recommendation rec;
-                int guard = 0;
-                do {
-                    rec = service.recommendRandom();
-                    guard++;
-                } while (JsonStorage.getByStatus("envie").contains(rec.title()) && guard < 6);
-                return rec;
-            }
+        next.whenComplete((p, err) -> SwingUtilities.invokeLater(() -> showNext(next, p, err)));
+    }
 
-            @Override
-            protected void done() {
-                try {
-                    current = get();
-                    title.setText(current.title());
-                    reason.setText(current.reason());
-                    platform.setText(current.platform());
-                    startDescriptionForCurrent();
-                } catch (final Exception ex) {
-                    title.setText("Erreur: " + ex.getMessage());
-                    setDescHtml("<i>Description indisponible.</i>");
-                } finally {
-                    setBusy(false);
-                }
+    /** Affiche une proposition (EDT) ; ignorée si une autre a été demandée depuis. */
+    private void showNext(final CompletableFuture<RecommendationPrefetcher.Prepared> next,
+                          final RecommendationPrefetcher.Prepared p, final Throwable err) {
+        if (next != pendingNext || next.isCancelled()) {
+            return;
+        }
+        try {
+            if (err != null) {
+                final Throwable cause = err instanceof CompletionException && err.getCause() != null
+                        ? err.getCause() : err;
+                title.setText("Erreur: " + cause.getMessage());
+                setDescHtml("<i>Description indisponible.</i>");
+                return;
             }
-        }.execute();
+            current = p.recommendation();
+            title.setText(current.title());
+            reason.setText(current.reason());
+            platform.setText(current.platform());
+            if (p.description() != null) {
+                setDescHtml(htmlCenterBig(htmlEscape(p.description())));
+            } else {
+                startDescriptionForCurrent();
+            }
+        } finally {
+            setBusy(false);
+        }
     }
 
     /** Lance la génération asynchrone de la description pour la reco courante. */
@@ -205,33 +257,34 @@ public final class SwipeRecommenderPanel extends JPanel {
         }
         final String titleAtStart = current.title();
         setDescHtml("<i>Génération de la description…</i>");
-        if (descWorker != null && !descWorker.isDone()) {
-            descWorker.cancel(true);
-        }
-        descWorker = new SwingWorker<String, Void>() {
-            @Override
-            protected String doInBackground() {
-                return service.generateDescription(titleAtStart);
+        cancelDescription();
+        final StreamedText partial = new StreamedText(txt -> {
+            if (current != null && current.title().equals(titleAtStart)) {
+                setDescHtml(htmlCenterBig(htmlEscape(txt)));
             }
-
-            @Override
-            protected void done() {
-                if (current == null || !current.title().equals(titleAtStart)) {
-                    return;
-                }
-                try {
-                    if (!isCancelled()) {
-                        final String txt = get();
-                        setDescHtml(htmlCenterBig(htmlEscape(txt)));
-                    }
-                } catch (final Exception ex) {
-                    if (!isCancelled()) {
-                        setDescHtml("<i>Description indisponible.</i>");
-                    }
-                }
+        });
+        final CompletableFuture<String> task = service.generateDescriptionAsync(titleAtStart, partial);
+        descTask = task;
+        descStream = partial;
+        task.whenComplete((txt, err) -> SwingUtilities.invokeLater(() -> {
+            partial.close();
+            if (task.isCancelled() || current == null || !current.title().equals(titleAtStart)) {
+                return;
             }
-        };
-        descWorker.execute();
+            setDescHtml(err == null
+                    ? htmlCenterBig(htmlEscape(txt))
+                    : "<i>Description indisponible.</i>");
+        }));
+    }
+
+    /** Annule la description en cours (interrompt la génération côté Ollama). */
+    private void cancelDescription() {
+        if (descStream != null) {
+            descStream.close();
+        }
+        if (descTask != null && !descTask.isDone()) {
+            descTask.cancel(true);
+        }
     }
 
     /** Marque « envie » puis passe directement à la suivante. */
@@ -240,6 +293,7 @@ public final class SwipeRecommenderPanel extends JPanel {
             return;
         }
         service.mark(current.title(), "envie");
+        prefetcher.historyChanged();
         proposeNext();
     }
 
@@ -249,6 +303,7 @@ public final class SwipeRecommenderPanel extends JPanel {
             return;
         }
         service.mark(current.title(), "pas_interesse");
+        prefetcher.historyChanged();
         proposeNext();
     }
 
@@ -258,6 +313,7 @@ public final class SwipeRecommenderPanel extends JPanel {
             return;
         }
         service.mark(current.title(), "deja_vu");
+        prefetcher.historyChanged();
         proposeNext();
     }
 
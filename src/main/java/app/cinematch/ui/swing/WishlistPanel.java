@@ -1,7 +1,8 @@
 package app.cinematch.ui.swing;
 
 import app.cinematch.MovieRecommenderService;
-import app.cinematch.util.JsonStorage;
+import app.cinematch.util.HistoryRepository;
+import app.cinematch.util.JsonHistoryRepository;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
@@ -52,6 +53,8 @@ public final class WishlistPanel extends JPanel {
     private final MovieRecommenderService service;
     /** Callback de navigation (ex. {@code "home"}). */
     private final Consumer<String> navigator;
+    /** Stockage de l’historique (listes par statut). */
+    private final HistoryRepository repo;
 
     /** Modèle de données de la liste des titres. */
     private final DefaultListModel<String> model = new DefaultListModel<>();
@@ -110,8 +113,23 @@ public final class WishlistPanel extends JPanel {
      */
     public WishlistPanel(final MovieRecommenderService service,
                          final Consumer<String> navigator) {
+        this(service, navigator, new JsonHistoryRepository());
+    }
+
+    /**
+     * Construit le panneau « Ma liste » sur un stockage donné.
+     *
+     * @param service   service de recommandation (non {@code null})
+     * @param navigator callback de navigation (non {@code null})
+     * @param repo      stockage de l’historique (non {@code null})
+     * @throws NullPointerException si un argument est {@code null}
+     */
+    public WishlistPanel(final MovieRecommenderService service,
+                         final Consumer<String> navigator,
+                         final HistoryRepository repo) {
         this.service = Objects.requireNonNull(service, "service must not be null");
         this.navigator = Objects.requireNonNull(navigator, "navigator must not be null");
+        this.repo = Objects.requireNonNull(repo, "repo must not be null");
 
         setLayout(new BorderLayout(0, 0));
         setOpaque(false);
@@ -226,7 +244,7 @@ public final class WishlistPanel extends JPanel {
         final String previouslySelected = list.getSelectedValue();
 
         model.clear();
-        final List<String> items = JsonStorage.getByStatus(status);
+        final List<String> items = repo.getByStatus(status);
         for (String t : items) {
             String cleaned = stripQuotes(t).trim();
             if (!cleaned.isEmpty()) {                 // <-- évite la case vide
@@ -276,7 +294,7 @@ public final class WishlistPanel extends JPanel {
 
     /**
      * Lance la génération asynchrone de la description pour l’élément sélectionné.
-     * Actualise l’UI en mode occupé le temps de l’opération.
+     * Le texte s’affiche au fil de sa génération ; l’UI reste en mode occupé jusqu’à la fin.
      */
     private void generateForSelection() {
         final String t = list.getSelectedValue();
@@ -284,10 +302,17 @@ public final class WishlistPanel extends JPanel {
             return;
         }
         setBusy(true);
-        new SwingWorker<String, Void>() {
+        new SwingWorker<String, String>() {
+            private final StringBuilder partial = new StringBuilder();
+
             @Override
             protected String doInBackground() {
-                return service.generateDescription(t);
+                return service.generateDescriptionStream(t, token -> publish(token));
+            }
+            @Override
+            protected void process(final List<String> tokens) {
+                tokens.forEach(partial::append);
+                setDescHtml(escape(partial.toString()).replace("\n", "<br/>"));
             }
             @Override
             protected void done() {
@@ -313,7 +338,7 @@ public final class WishlistPanel extends JPanel {
         if (t == null) {
             return;
         }
-        JsonStorage.addOrUpdate(t, "pas_interesse");
+        repo.addOrUpdate(t, "pas_interesse");
         loadByStatus(currentStatus);
         setDescHtml("<i>Retiré de la liste.</i>");
     }
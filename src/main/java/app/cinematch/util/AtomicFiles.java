@@ -0,0 +1,126 @@
+package app.cinematch.util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Écriture atomique et durable d’un fichier de stockage.
+ *
+ * <p>Protocole de {@link #write(File, Body)} :</p>
+ * <ol>
+ *   <li>écriture dans {@code <fichier>.tmp} (même répertoire), puis {@link FileChannel#force(boolean)} ;</li>
+ *   <li>la version courante est copiée dans {@code <fichier>.bak} (une copie plutôt qu’un lien
+ *       physique : une édition externe « sur place » de la cible ne doit pas altérer la sauvegarde) ;</li>
+ *   <li>renommage {@code ATOMIC_MOVE} du temporaire sur la cible, puis synchronisation du répertoire.</li>
+ * </ol>
+ *
+ * <p>Un arrêt brutal à n’importe quelle étape laisse donc soit l’ancienne version, soit la
+ * nouvelle, complète ; jamais un fichier tronqué. Le {@code .bak} garde la version précédente
+ * pour la reprise d’un fichier illisible (voir {@link JsonStorage}).</p>
+ */
+final class AtomicFiles {
+
+    /** Suffixe du fichier temporaire. */
+    static final String TMP_SUFFIX = ".tmp";
+    /** Suffixe de la sauvegarde tournante. */
+    static final String BAK_SUFFIX = ".bak";
+
+    /** Contenu à écrire ; le flux peut être fermé par l’appelant (fermeture ignorée). */
+    @FunctionalInterface
+    interface Body {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    /**
+     * @param file fichier de stockage
+     * @return le fichier {@code .bak} associé
+     */
+    static File backupOf(final File file) {
+        return new File(file.getPath() + BAK_SUFFIX);
+    }
+
+    /**
+     * Remplace atomiquement {@code file} par le contenu produit par {@code body}.
+     *
+     * @throws IOException si l’écriture échoue (la cible reste alors inchangée)
+     */
+    static void write(final File file, final Body body) throws IOException {
+        final Path target = file.toPath().toAbsolutePath();
+        if (Files.isDirectory(target)) {
+            throw new IOException("La cible est un répertoire : " + target);
+        }
+        final Path parent = target.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            final OutputStream buffered = new BufferedOutputStream(new FilterOutputStream(Channels.newOutputStream(ch)) {
+                @Override
+                public void write(final byte[] b, final int off, final int len) throws IOException {
+                    this.out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush(); // le canal reste ouvert jusqu’au force()
+                }
+            });
+            body.writeTo(buffered);
+            buffered.flush();
+            ch.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        rotateBackup(target);
+        try {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(parent);
+    }
+
+    /** La version courante devient le {@code .bak} (l’ancien {@code .bak} est remplacé). */
+    private static void rotateBackup(final Path target) {
+        if (!Files.isRegularFile(target)) {
+            return;
+        }
+        final Path bak = target.resolveSibling(target.getFileName() + BAK_SUFFIX);
+        try {
+            Files.copy(target, bak, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            // Sauvegarde best-effort : ne bloque pas l’écriture principale
+            JsonStorage.logErr("[JsonStorage] Sauvegarde %s impossible : %s%n", bak, e.getMessage());
+        }
+    }
+
+    /** Rend le renommage durable ; sans effet sur les systèmes qui refusent d’ouvrir un répertoire. */
+    private static void syncDirectory(final Path dir) {
+        if (dir == null) {
+            return;
+        }
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException e) {
+            // ex. Windows : non supporté
+        }
+    }
+}
@@ -0,0 +1,414 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import app.cinematch.model.Timestamps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Instantané binaire compact de l’historique, lu via {@link MappedByteBuffer}.
+ *
+ * <p>Format (gros-boutiste) :</p>
+ * <pre>
+ * en-tête   : magic "CMHB" (int), version (short), nombre d’entrées n (int)
+ * statuts   : nombre s (octet non signé), puis s × (longueur short + UTF-8)
+ * chaînes   : nombre m (int), taille des données (int), m + 1 offsets (int), données UTF-8
+ * entrées   : n × [hash du titre en minuscules (int), réf. titre (int), code statut (octet),
+ *                  nature de la date (octet), date (long)]
+ * </pre>
+ *
+ * <p>Les statuts sont internés dans une petite table et référencés par un octet
+ * ({@value #NULL_STATUS} = statut absent). Les dates ISO ({@code LocalDateTime.toString()})
+ * sont stockées en nanosecondes depuis l’epoch (UTC) ; une date non canonique est gardée
+ * telle quelle dans la table de chaînes, afin de relire exactement ce qui a été écrit.</p>
+ *
+ * <p>Le chargement copie les sections mappées dans quelques tableaux primitifs (un seul
+ * {@code byte[]} pour tous les titres) puis abandonne le mappage : sous Windows, un fichier
+ * encore mappé ne pourrait pas être remplacé par le renommage atomique. Les titres ne sont
+ * décodés qu’à la demande ; compter un statut ne décode aucune chaîne.</p>
+ */
+final class BinarySnapshot implements HistoryIndex {
+
+    /** Extension des fichiers d’instantané. */
+    static final String EXTENSION = ".bin";
+
+    private static final int MAGIC = 0x434D4842; // "CMHB"
+    private static final short VERSION = 1;
+    private static final int NULL_STATUS = 0xFF;
+    private static final int MAX_STATUSES = NULL_STATUS;
+    private static final int NO_REF = -1;
+
+    private static final byte TIME_NONE = 0;
+    private static final byte TIME_EPOCH_NANOS = 1;
+    private static final byte TIME_STRING = 2;
+
+    /** Entrée retenue par une requête, avec sa clé de tri ({@link Timestamps#NONE} si absente). */
+    private record Hit(int index, long time) { }
+
+    /** Même ordre que {@link HistoryStore} : date décroissante, absentes en dernier, puis insertion. */
+    private static final Comparator<Hit> BY_DATE_DESC = (a, b) -> a.time() != b.time()
+            ? Long.compare(b.time(), a.time())
+            : Integer.compare(a.index(), b.index());
+
+    /** Taille d’une entrée : hash (4) + titre (4) + statut (1) + nature (1) + date (8). */
+    private static final int RECORD_BYTES = 18;
+
+    private final String[] statuses;
+    private final int[] stringOffsets;
+    private final byte[] stringData;
+    private final int[] titleHash;
+    private final int[] titleRef;
+    private final byte[] statusCode;
+    private final byte[] timeKind;
+    private final long[] time;
+
+    private BinarySnapshot(final String[] statuses, final int[] stringOffsets, final byte[] stringData,
+                           final int[] titleHash, final int[] titleRef, final byte[] statusCode,
+                           final byte[] timeKind, final long[] time) {
+        this.statuses = statuses;
+        this.stringOffsets = stringOffsets;
+        this.stringData = stringData;
+        this.titleHash = titleHash;
+        this.titleRef = titleRef;
+        this.statusCode = statusCode;
+        this.timeKind = timeKind;
+        this.time = time;
+    }
+
+    /**
+     * Fichier d’instantané associé à un fichier JSON ({@code storage.json} → {@code storage.bin}).
+     *
+     * @param jsonFile fichier de stockage JSON
+     * @return fichier {@code .bin} voisin
+     */
+    static File fileFor(final File jsonFile) {
+        final String path = jsonFile.getPath();
+        final String base = path.toLowerCase(Locale.ROOT).endsWith(".json")
+                ? path.substring(0, path.length() - ".json".length())
+                : path;
+        return new File(base + EXTENSION);
+    }
+
+    /**
+     * @param file fichier
+     * @return {@code true} si le fichier porte l’extension d’instantané
+     */
+    static boolean isSnapshotFile(final File file) {
+        return file.getName().endsWith(EXTENSION);
+    }
+
+    // -------- écriture
+
+    /**
+     * Écrit un instantané. En cas de doublon de titre (casse ignorée), la dernière
+     * occurrence l’emporte et passe en fin d’ordre, comme dans {@link HistoryStore}.
+     *
+     * @param out     flux de sortie (non fermé)
+     * @param entries entrées, dans l’ordre d’insertion
+     * @throws IOException en cas d’erreur d’écriture ou si plus de 255 statuts distincts
+     */
+    static void write(final OutputStream out, final List<HistoryEntry> entries) throws IOException {
+        final List<HistoryEntry> unique = unique(entries);
+
+        final Map<String, Integer> statusCodes = new LinkedHashMap<>();
+        final List<byte[]> strings = new ArrayList<>();
+        final int n = unique.size();
+        final int[] refs = new int[n];
+        final int[] codes = new int[n];
+        final byte[] kinds = new byte[n];
+        final long[] times = new long[n];
+
+        for (int i = 0; i < n; i++) {
+            final HistoryEntry e = unique.get(i);
+            refs[i] = addString(strings, e.title());
+            if (e.status() == null) {
+                codes[i] = NULL_STATUS;
+            } else {
+                final Integer code = statusCodes.computeIfAbsent(e.status(), s -> statusCodes.size());
+                if (code >= MAX_STATUSES) {
+                    throw new IOException("Trop de statuts distincts pour l’instantané binaire (max "
+                            + MAX_STATUSES + ")");
+                }
+                codes[i] = code;
+            }
+            final String iso = e.dateTimeIso();
+            final Long nanos = iso == null ? null : epochNanos(iso);
+            if (iso == null) {
+                kinds[i] = TIME_NONE;
+            } else if (nanos != null) {
+                kinds[i] = TIME_EPOCH_NANOS;
+                times[i] = nanos;
+            } else {
+                kinds[i] = TIME_STRING;
+                times[i] = addString(strings, iso);
+            }
+        }
+
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + n * (RECORD_BYTES + 16));
+        final DataOutputStream d = new DataOutputStream(buffer);
+        d.writeInt(MAGIC);
+        d.writeShort(VERSION);
+        d.writeInt(n);
+
+        d.writeByte(statusCodes.size());
+        for (String s : statusCodes.keySet()) {
+            final byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            if (b.length > 0xFFFF) {
+                throw new IOException("Statut trop long pour l’instantané binaire");
+            }
+            d.writeShort(b.length);
+            d.write(b);
+        }
+
+        int dataLen = 0;
+        for (byte[] b : strings) {
+            dataLen += b.length;
+        }
+        d.writeInt(strings.size());
+        d.writeInt(dataLen);
+        int offset = 0;
+        for (byte[] b : strings) {
+            d.writeInt(offset);
+            offset += b.length;
+        }
+        d.writeInt(offset);
+        for (byte[] b : strings) {
+            d.write(b);
+        }
+
+        for (int i = 0; i < n; i++) {
+            final String title = unique.get(i).title();
+            d.writeInt(title == null ? 0 : key(title).hashCode());
+            d.writeInt(refs[i]);
+            d.writeByte(codes[i]);
+            d.writeByte(kinds[i]);
+            d.writeLong(times[i]);
+        }
+        d.flush();
+        buffer.writeTo(out);
+    }
+
+    private static List<HistoryEntry> unique(final List<HistoryEntry> entries) {
+        final Map<String, HistoryEntry> byTitle = new LinkedHashMap<>();
+        for (HistoryEntry e : entries) {
+            final String k = e.title() == null ? "" : key(e.title());
+            byTitle.remove(k);
+            byTitle.put(k, e);
+        }
+        return new ArrayList<>(byTitle.values());
+    }
+
+    private static int addString(final List<byte[]> strings, final String s) {
+        if (s == null) {
+            return NO_REF;
+        }
+        strings.add(s.getBytes(StandardCharsets.UTF_8));
+        return strings.size() - 1;
+    }
+
+    /**
+     * @return nanosecondes depuis l’epoch (UTC), ou {@code null} si la date n’est pas une
+     *         {@code LocalDateTime} canonique (relue à l’identique) ou hors plage
+     */
+    private static Long epochNanos(final String iso) {
+        final long nanos = Timestamps.toEpochNanos(iso);
+        return nanos != Timestamps.NONE && iso.equals(Timestamps.toIso(nanos)) ? nanos : null;
+    }
+
+    // -------- lecture
+
+    /**
+     * Charge un instantané par mappage mémoire.
+     *
+     * @param file fichier d’instantané
+     * @return l’instantané
+     * @throws IOException si le fichier est illisible, tronqué ou incohérent
+     */
+    static BinarySnapshot read(final File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return decode(buf, file);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Instantané tronqué ou corrompu : " + file, e);
+        }
+    }
+
+    private static BinarySnapshot decode(final MappedByteBuffer buf, final File file) throws IOException {
+        if (buf.getInt() != MAGIC || buf.getShort() != VERSION) {
+            throw new IOException("Format d’instantané inconnu : " + file);
+        }
+        final int n = buf.getInt();
+        if (n < 0 || n > buf.remaining() / RECORD_BYTES) {
+            throw new IOException("Nombre d’entrées incohérent : " + file);
+        }
+
+        final String[] statuses = new String[Byte.toUnsignedInt(buf.get())];
+        for (int i = 0; i < statuses.length; i++) {
+            final byte[] b = new byte[Short.toUnsignedInt(buf.getShort())];
+            buf.get(b);
+            statuses[i] = new String(b, StandardCharsets.UTF_8).intern();
+        }
+
+        final int m = buf.getInt();
+        final int dataLen = buf.getInt();
+        if (m < 0 || dataLen < 0 || m >= buf.remaining() / Integer.BYTES || dataLen > buf.remaining()) {
+            throw new IOException("Table de chaînes incohérente : " + file);
+        }
+        final int[] offsets = new int[m + 1];
+        buf.asIntBuffer().get(offsets);
+        buf.position(buf.position() + offsets.length * Integer.BYTES);
+        final byte[] data = new byte[dataLen];
+        buf.get(data);
+        for (int i = 0; i < m; i++) {
+            if (offsets[i] < 0 || offsets[i] > offsets[i + 1] || offsets[i + 1] > dataLen) {
+                throw new IOException("Table de chaînes incohérente : " + file);
+            }
+        }
+
+        final int[] hashes = new int[n];
+        final int[] refs = new int[n];
+        final byte[] codes = new byte[n];
+        final byte[] kinds = new byte[n];
+        final long[] times = new long[n];
+        for (int i = 0; i < n; i++) {
+            hashes[i] = buf.getInt();
+            refs[i] = buf.getInt();
+            codes[i] = buf.get();
+            kinds[i] = buf.get();
+            times[i] = buf.getLong();
+            final int code = Byte.toUnsignedInt(codes[i]);
+            final boolean badRef = refs[i] < NO_REF || refs[i] >= m;
+            final boolean badStatus = code != NULL_STATUS && code >= statuses.length;
+            final boolean badTime = kinds[i] > TIME_STRING || kinds[i] < TIME_NONE
+                    || (kinds[i] == TIME_STRING && (times[i] < 0 || times[i] >= m));
+            if (badRef || badStatus || badTime) {
+                throw new IOException("Entrée " + i + " incohérente : " + file);
+            }
+        }
+        return new BinarySnapshot(statuses, offsets, data, hashes, refs, codes, kinds, times);
+    }
+
+    // -------- requêtes
+
+    @Override
+    public int size() {
+        return titleRef.length;
+    }
+
+    @Override
+    public List<HistoryEntry> entries() {
+        final List<HistoryEntry> out = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            out.add(entry(i));
+        }
+        return out;
+    }
+
+    @Override
+    public HistoryEntry get(final String title) {
+        if (title == null) {
+            return null;
+        }
+        final int h = key(title).hashCode();
+        for (int i = 0; i < size(); i++) {
+            if (titleHash[i] == h) {
+                final String t = string(titleRef[i]);
+                if (t != null && t.equalsIgnoreCase(title)) {
+                    return entry(i);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public int countByStatus(final String status) {
+        final boolean[] match = matchingCodes(status);
+        int count = 0;
+        for (byte c : statusCode) {
+            if (match[Byte.toUnsignedInt(c)]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public List<String> titlesByStatus(final String status) {
+        final boolean[] match = matchingCodes(status);
+        final List<Hit> hits = new ArrayList<>();
+        for (int i = 0; i < size(); i++) {
+            if (match[Byte.toUnsignedInt(statusCode[i])]) {
+                hits.add(new Hit(i, sortKey(i)));
+            }
+        }
+        hits.sort(BY_DATE_DESC);
+        final List<String> out = new ArrayList<>(hits.size());
+        for (Hit h : hits) {
+            out.add(string(titleRef[h.index()]));
+        }
+        return out;
+    }
+
+    // -------- internes
+
+    private HistoryEntry entry(final int i) {
+        final int code = Byte.toUnsignedInt(statusCode[i]);
+        return new HistoryEntry(string(titleRef[i]), code == NULL_STATUS ? null : statuses[code], date(i));
+    }
+
+    private String date(final int i) {
+        return switch (timeKind[i]) {
+            case TIME_EPOCH_NANOS -> Timestamps.toIso(time[i]);
+            case TIME_STRING -> string((int) time[i]);
+            default -> null;
+        };
+    }
+
+    private String string(final int ref) {
+        if (ref == NO_REF) {
+            return null;
+        }
+        final int from = stringOffsets[ref];
+        return new String(stringData, from, stringOffsets[ref + 1] - from, StandardCharsets.UTF_8);
+    }
+
+    /** Codes de statut (indice 255 = statut absent) correspondant à un statut, casse ignorée. */
+    private boolean[] matchingCodes(final String status) {
+        final boolean[] match = new boolean[NULL_STATUS + 1];
+        final String k = status == null ? "" : key(status);
+        for (int c = 0; c < statuses.length; c++) {
+            match[c] = key(statuses[c]).equals(k);
+        }
+        match[NULL_STATUS] = k.isEmpty();
+        return match;
+    }
+
+    /** Clé de tri d’une entrée : la date non canonique n’est convertie qu’ici, une fois. */
+    private long sortKey(final int i) {
+        return switch (timeKind[i]) {
+            case TIME_EPOCH_NANOS -> time[i];
+            case TIME_STRING -> Timestamps.toEpochNanos(string((int) time[i]));
+            default -> Timestamps.NONE;
+        };
+    }
+
+    private static String key(final String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,237 @@
+package app.cinematch.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache des descriptions générées par le LLM.
+ *
+ * <p>Clé = version du prompt + nom du modèle + titre normalisé (voir {@link #key}) : changer
+ * de modèle ou de prompt invalide naturellement les anciennes réponses. Niveau mémoire :
+ * LRU bornée ({@link LinkedHashMap} en ordre d’accès). Niveau disque optionnel : un fichier
+ * JSON, relu au démarrage et réécrit atomiquement (voir {@link AtomicFiles}) à chaque ajout.
+ * Une entrée plus vieille que la durée de vie est ignorée puis oubliée, en mémoire comme
+ * sur disque.</p>
+ *
+ * <p>Les compteurs {@link #hits()} / {@link #misses()} mesurent l’efficacité du cache.
+ * Les erreurs d’E/S sont journalisées et le cache continue en mémoire seule.
+ * Thread-safe.</p>
+ */
+public final class DescriptionCache {
+
+    /** Propriété système : fichier du niveau disque (absent = mémoire seule). */
+    public static final String PROP_FILE = "cinematch.cache.descriptions.file";
+    /** Propriété système : nombre maximal d’entrées. */
+    public static final String PROP_MAX = "cinematch.cache.descriptions.max";
+    /** Propriété système : durée de vie d’une entrée, en heures. */
+    public static final String PROP_TTL_HOURS = "cinematch.cache.descriptions.ttlHours";
+    /** Nombre maximal d’entrées par défaut. */
+    public static final int DEFAULT_MAX = 256;
+    /** Durée de vie par défaut (7 jours). */
+    public static final long DEFAULT_TTL_HOURS = 24L * 7;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /** Entrée persistée : texte et date de création (ms depuis l’epoch). */
+    record Entry(String text, long createdAt) { }
+
+    private final Map<String, Entry> lru;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final File file;
+    private final LongSupplier clock;
+    private final Object writeLock = new Object();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxEntries nombre maximal d’entrées (au moins 1)
+     * @param ttl        durée de vie d’une entrée
+     * @param file       fichier du niveau disque, ou {@code null} pour la mémoire seule
+     */
+    public DescriptionCache(final int maxEntries, final Duration ttl, final File file) {
+        this(maxEntries, ttl, file, System::currentTimeMillis);
+    }
+
+    DescriptionCache(final int maxEntries, final Duration ttl, final File file, final LongSupplier clock) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = ttl.toMillis();
+        this.file = file;
+        this.clock = clock;
+        this.lru = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > DescriptionCache.this.maxEntries;
+            }
+        };
+        if (file != null) {
+            load();
+        }
+    }
+
+    /**
+     * Construit le cache selon {@code -Dcinematch.cache.descriptions.*}.
+     *
+     * @return le cache configuré
+     */
+    public static DescriptionCache fromSystemProperties() {
+        final String path = System.getProperty(PROP_FILE);
+        return new DescriptionCache(
+                Integer.getInteger(PROP_MAX, DEFAULT_MAX),
+                Duration.ofHours(Long.getLong(PROP_TTL_HOURS, DEFAULT_TTL_HOURS)),
+                path == null || path.isBlank() ? null : new File(path));
+    }
+
+    /**
+     * Clé de cache d’une description.
+     *
+     * @param model         nom du modèle
+     * @param promptVersion version du prompt
+     * @param title         titre (normalisé : Unicode NFKC, minuscules, espaces réduits)
+     * @return la clé
+     */
+    public static String key(final String model, final String promptVersion, final String title) {
+        final String t = title == null ? "" : Normalizer.normalize(title, Normalizer.Form.NFKC)
+                .toLowerCase(Locale.ROOT).trim().replaceAll("\\s+", " ");
+        return promptVersion + '|' + model + '|' + t;
+    }
+
+    /**
+     * @param key clé (voir {@link #key})
+     * @return le texte en cache, ou {@code null} (absent ou expiré)
+     */
+    public String get(final String key) {
+        final Entry e;
+        synchronized (lru) {
+            e = lru.get(key);
+            if (e != null && expired(e)) {
+                lru.remove(key);
+            }
+        }
+        if (e == null || expired(e)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return e.text();
+    }
+
+    /**
+     * Ajoute (ou remplace) une entrée ; le niveau disque est réécrit.
+     *
+     * @param key  clé (voir {@link #key})
+     * @param text texte à garder (ignoré si {@code null} ou vide)
+     */
+    public void put(final String key, final String text) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        synchronized (lru) {
+            lru.put(key, new Entry(text, clock.getAsLong()));
+        }
+        if (file != null) {
+            save();
+        }
+    }
+
+    /**
+     * Retire une entrée ; le niveau disque est réécrit si elle était présente.
+     *
+     * @param key clé (voir {@link #key})
+     */
+    public void remove(final String key) {
+        final Entry removed;
+        synchronized (lru) {
+            removed = lru.remove(key);
+        }
+        if (removed != null && file != null) {
+            save();
+        }
+    }
+
+    /** Vide le cache (et le niveau disque) ; les compteurs sont conservés. */
+    public void clear() {
+        synchronized (lru) {
+            lru.clear();
+        }
+        if (file != null) {
+            save();
+        }
+    }
+
+    /** @return nombre d’entrées en mémoire */
+    public int size() {
+        synchronized (lru) {
+            return lru.size();
+        }
+    }
+
+    /** @return nombre de lectures servies par le cache */
+    public long hits() {
+        return hits.get();
+    }
+
+    /** @return nombre de lectures absentes ou expirées */
+    public long misses() {
+        return misses.get();
+    }
+
+    // -------- internes
+
+    private boolean expired(final Entry e) {
+        return clock.getAsLong() - e.createdAt() > ttlMillis;
+    }
+
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            final Map<String, Entry> stored = MAPPER.readValue(file, new TypeReference<Map<String, Entry>>() { });
+            final List<Map.Entry<String, Entry>> fresh = new ArrayList<>();
+            for (Map.Entry<String, Entry> e : stored.entrySet()) {
+                if (e.getValue() != null && e.getValue().text() != null && !expired(e.getValue())) {
+                    fresh.add(e);
+                }
+            }
+            // les plus récentes en dernier : ce sont elles que la LRU garde
+            fresh.sort(Comparator.comparingLong(e -> e.getValue().createdAt()));
+            synchronized (lru) {
+                for (Map.Entry<String, Entry> e : fresh) {
+                    lru.put(e.getKey(), e.getValue());
+                }
+            }
+        } catch (IOException e) {
+            JsonStorage.logErr("[DescriptionCache] Lecture de %s impossible (%s) : cache vide%n",
+                    file.getAbsolutePath(), e.getMessage());
+        }
+    }
+
+    private void save() {
+        synchronized (writeLock) {
+            final Map<String, Entry> snapshot;
+            synchronized (lru) {
+                snapshot = new LinkedHashMap<>(lru);
+            }
+            try {
+                AtomicFiles.write(file, out -> MAPPER.writeValue(out, snapshot));
+            } catch (IOException e) {
+                JsonStorage.logErr("[DescriptionCache] Écriture de %s impossible : %s%n",
+                        file.getAbsolutePath(), e.getMessage());
+            }
+        }
+    }
+}
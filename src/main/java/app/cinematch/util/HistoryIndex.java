@@ -0,0 +1,39 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+
+import java.util.List;
+
+/**
+ * Vue en lecture seule d’un historique chargé en mémoire, commune à l’index
+ * mutable ({@link HistoryStore}) et à l’instantané binaire ({@link BinarySnapshot}).
+ *
+ * <p>Titres et statuts sont insensibles à la casse ; les titres d’un statut sont
+ * triés par date décroissante (dates absentes en dernier), puis par ordre d’insertion.</p>
+ */
+interface HistoryIndex {
+
+    /** @return copie mutable des entrées, dans l’ordre d’insertion */
+    List<HistoryEntry> entries();
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return nouvelle liste de titres, par date décroissante
+     */
+    List<String> titlesByStatus(String status);
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées du statut
+     */
+    int countByStatus(String status);
+
+    /**
+     * @param title titre (insensible à la casse)
+     * @return l’entrée correspondante, ou {@code null}
+     */
+    HistoryEntry get(String title);
+
+    /** @return nombre total d’entrées */
+    int size();
+}
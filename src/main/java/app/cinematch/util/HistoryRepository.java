@@ -0,0 +1,126 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Point d’extension du stockage de l’historique (titres + statuts).
+ *
+ * <p>Les consommateurs ({@code Memory}, outils LLM, panneaux Swing) reçoivent une
+ * implémentation par injection ; leurs constructeurs sans argument utilisent
+ * {@link JsonHistoryRepository} (fichier JSON via {@link JsonStorage}).</p>
+ *
+ * <p>Implémentations fournies :</p>
+ * <ul>
+ *   <li>{@link JsonHistoryRepository} — fichier {@code storage.json} (défaut) ;</li>
+ *   <li>{@link JdbcHistoryRepository} — base H2 embarquée (fichier local), index sur
+ *       {@code (statut, date)} et sur le titre en minuscules.</li>
+ * </ul>
+ *
+ * <p>Sémantique commune : titres et statuts insensibles à la casse, une seule entrée
+ * par titre, listes par statut triées par date décroissante. Les implémentations sont
+ * tolérantes : une erreur d’E/S est journalisée et donne un résultat vide.</p>
+ */
+public interface HistoryRepository {
+
+    /** Propriété système choisissant le backend ({@code json} par défaut, ou {@code h2}). */
+    String PROP_BACKEND = "cinematch.storage.backend";
+    /** Propriété système : chemin de la base H2 (sans extension). */
+    String PROP_DB_PATH = "cinematch.storage.db";
+    /** Chemin par défaut de la base H2 (sans extension). */
+    String DEFAULT_DB_PATH = "src/main/resources/storage";
+
+    /**
+     * Ajoute ou met à jour l’entrée d’un titre avec un statut, horodatée maintenant.
+     *
+     * @param title  titre du film
+     * @param status statut (ex. "envie", "deja_vu", "pas_interesse")
+     */
+    void addOrUpdate(String title, String status);
+
+    /**
+     * Applique un lot de mutations (voir {@link JsonStorage#apply(List)}).
+     *
+     * @param mutations mutations à appliquer, dans l’ordre
+     * @return nombre d’entrées affectées
+     */
+    int apply(List<Mutation> mutations);
+
+    /** @return toutes les entrées (copie mutable) */
+    List<HistoryEntry> loadAll();
+
+    /**
+     * @param title titre (insensible à la casse)
+     * @return l’entrée, ou {@code null}
+     */
+    HistoryEntry find(String title);
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return titres du statut, par date décroissante
+     */
+    List<String> getByStatus(String status);
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées du statut
+     */
+    int countByStatus(String status);
+
+    /**
+     * Remplace tout l’historique.
+     *
+     * @param all nouvelles entrées
+     */
+    void saveAll(List<HistoryEntry> all);
+
+    /**
+     * @param title titre (insensible à la casse)
+     * @return {@code true} si une entrée a été supprimée
+     */
+    boolean remove(String title);
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées supprimées
+     */
+    int removeAllByStatus(String status);
+
+    /** Écrit l’état éventuellement en attente ; sans effet par défaut. */
+    default void flush() {
+    }
+
+    /**
+     * Construit le backend choisi par {@code -Dcinematch.storage.backend}.
+     *
+     * <p>Avec {@code h2}, la base {@code -Dcinematch.storage.db} (défaut
+     * {@value #DEFAULT_DB_PATH}) est ouverte ; si elle est vide, l’historique JSON
+     * existant y est importé une fois. Si la base ne peut pas être ouverte, le
+     * fichier JSON est utilisé.</p>
+     *
+     * @return le dépôt configuré
+     */
+    static HistoryRepository fromSystemProperties() {
+        final String backend = System.getProperty(PROP_BACKEND, "json");
+        if (!"h2".equalsIgnoreCase(backend)) {
+            return new JsonHistoryRepository();
+        }
+        final File db = new File(System.getProperty(PROP_DB_PATH, DEFAULT_DB_PATH));
+        try {
+            final JdbcHistoryRepository repo = JdbcHistoryRepository.openFile(db);
+            if (repo.size() == 0) {
+                final List<HistoryEntry> legacy = JsonStorage.loadAll();
+                if (!legacy.isEmpty()) {
+                    repo.saveAll(legacy);
+                }
+            }
+            return repo;
+        } catch (IllegalStateException e) {
+            JsonStorage.logErr("[JsonStorage] Base %s indisponible (%s), repli sur JSON%n",
+                    db.getAbsolutePath(), e.getMessage());
+            return new JsonHistoryRepository();
+        }
+    }
+}
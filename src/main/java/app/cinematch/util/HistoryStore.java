@@ -0,0 +1,230 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import app.cinematch.model.Status;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * Index mémoire résident des entrées d’historique, utilisé par {@link JsonStorage}
+ * (et par {@link StorageJournal} en mode journalisé).
+ *
+ * <p>Deux index sont maintenus à chaque mutation :</p>
+ * <ul>
+ *   <li>titre en minuscules → entrée (table de hachage, ordre d’insertion conservé) ;</li>
+ *   <li>statut → ensemble trié par date décroissante ; les statuts connus ({@link Status})
+ *       sont rangés par ordinal ({@link EnumMap}), les statuts libres par code en minuscules.</li>
+ * </ul>
+ *
+ * <p>Une requête par statut ne parcourt donc que les titres du statut demandé, déjà triés.
+ * La date de chaque entrée est convertie une fois en {@code long} (voir
+ * {@link app.cinematch.model.Timestamps}) : le tri ne compare que des primitifs. Les dates
+ * absentes ou illisibles passent en dernier. À date égale, l’ordre d’insertion est conservé
+ * (comme le tri stable d’origine). La classe n’est pas thread-safe : l’appelant synchronise.</p>
+ */
+final class HistoryStore implements HistoryIndex {
+
+    /**
+     * Entrée indexée avec sa date en nanosecondes ({@code Timestamps.NONE} si absente)
+     * et son numéro d’insertion (départage des dates égales).
+     */
+    private record Node(HistoryEntry entry, long time, long seq) { }
+
+    /** Date décroissante ({@code NONE} = {@code Long.MIN_VALUE} en dernier), puis ordre d’insertion. */
+    private static final Comparator<Node> BY_DATE_DESC = (a, b) -> a.time() != b.time()
+            ? Long.compare(b.time(), a.time())
+            : Long.compare(a.seq(), b.seq());
+
+    private final Map<String, Node> byTitle = new LinkedHashMap<>();
+    private final Map<Status, NavigableSet<Node>> byKnownStatus = new EnumMap<>(Status.class);
+    private final Map<String, NavigableSet<Node>> byOtherStatus = new HashMap<>();
+    private long nextSeq;
+
+    /** Crée un index vide. */
+    HistoryStore() {
+    }
+
+    /**
+     * Crée un index à partir d’une liste ; en cas de doublon de titre, la dernière
+     * occurrence l’emporte.
+     *
+     * @param entries entrées initiales (ordre conservé)
+     */
+    HistoryStore(final List<HistoryEntry> entries) {
+        for (HistoryEntry e : entries) {
+            put(e);
+        }
+    }
+
+    /**
+     * Ajoute ou remplace l’entrée du même titre (insensible à la casse) ;
+     * l’entrée mise à jour passe en fin d’ordre d’insertion.
+     *
+     * @param entry entrée à indexer
+     */
+    void put(final HistoryEntry entry) {
+        final String k = key(entry.title());
+        unlink(byTitle.remove(k));
+        final Node n = new Node(entry, entry.epochNanos(), nextSeq++);
+        byTitle.put(k, n);
+        final Status known = entry.statusValue();
+        (known != null
+                ? byKnownStatus.computeIfAbsent(known, s -> new TreeSet<>(BY_DATE_DESC))
+                : byOtherStatus.computeIfAbsent(key(entry.status()), s -> new TreeSet<>(BY_DATE_DESC)))
+                .add(n);
+    }
+
+    /**
+     * Supprime l’entrée d’un titre.
+     *
+     * @param title titre (insensible à la casse)
+     * @return {@code true} si une entrée a été supprimée
+     */
+    boolean remove(final String title) {
+        final Node n = byTitle.remove(key(title));
+        unlink(n);
+        return n != null;
+    }
+
+    /**
+     * Supprime toutes les entrées d’un statut.
+     *
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées supprimées
+     */
+    int removeAllByStatus(final String status) {
+        final Status known = Status.fromCode(status);
+        final NavigableSet<Node> set = known != null
+                ? byKnownStatus.remove(known)
+                : byOtherStatus.remove(key(status));
+        if (set == null) {
+            return 0;
+        }
+        for (Node n : set) {
+            byTitle.remove(key(n.entry().title()));
+        }
+        return set.size();
+    }
+
+    /**
+     * Applique une mutation de lot.
+     *
+     * @param m           mutation
+     * @param dateTimeIso horodatage utilisé pour un {@link Mutation.Put}
+     * @return nombre d’entrées affectées
+     */
+    int apply(final Mutation m, final String dateTimeIso) {
+        if (m instanceof Mutation.Put p) {
+            put(new HistoryEntry(p.title(), p.status(), dateTimeIso));
+            return 1;
+        }
+        if (m instanceof Mutation.Remove r) {
+            return remove(r.title()) ? 1 : 0;
+        }
+        if (m instanceof Mutation.RemoveStatus rs) {
+            return removeAllByStatus(rs.status());
+        }
+        return 0;
+    }
+
+    /** Vide l’index. */
+    void clear() {
+        byTitle.clear();
+        byKnownStatus.clear();
+        byOtherStatus.clear();
+    }
+
+    /** @return copie mutable des entrées, dans l’ordre d’insertion */
+    @Override
+    public List<HistoryEntry> entries() {
+        final List<HistoryEntry> out = new ArrayList<>(byTitle.size());
+        for (Node n : byTitle.values()) {
+            out.add(n.entry());
+        }
+        return out;
+    }
+
+    /**
+     * Titres d’un statut, triés par date décroissante.
+     *
+     * @param status statut (insensible à la casse)
+     * @return nouvelle liste de titres (éventuellement vide)
+     */
+    @Override
+    public List<String> titlesByStatus(final String status) {
+        final NavigableSet<Node> set = statusSet(status);
+        if (set == null) {
+            return new ArrayList<>();
+        }
+        final List<String> out = new ArrayList<>(set.size());
+        for (Node n : set) {
+            out.add(n.entry().title());
+        }
+        return out;
+    }
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées du statut
+     */
+    @Override
+    public int countByStatus(final String status) {
+        final NavigableSet<Node> set = statusSet(status);
+        return set == null ? 0 : set.size();
+    }
+
+    /**
+     * @param title titre (insensible à la casse)
+     * @return l’entrée correspondante, ou {@code null}
+     */
+    @Override
+    public HistoryEntry get(final String title) {
+        final Node n = byTitle.get(key(title));
+        return n == null ? null : n.entry();
+    }
+
+    /** @return nombre total d’entrées */
+    @Override
+    public int size() {
+        return byTitle.size();
+    }
+
+    // -------- internes
+
+    private void unlink(final Node n) {
+        if (n == null) {
+            return;
+        }
+        final Status known = n.entry().statusValue();
+        final NavigableSet<Node> set = statusSet(n.entry().status());
+        if (set != null) {
+            set.remove(n);
+            if (set.isEmpty()) {
+                if (known != null) {
+                    byKnownStatus.remove(known);
+                } else {
+                    byOtherStatus.remove(key(n.entry().status()));
+                }
+            }
+        }
+    }
+
+    /** Ensemble trié d’un statut (connu : accès par ordinal ; libre : par code), ou {@code null}. */
+    private NavigableSet<Node> statusSet(final String status) {
+        final Status known = Status.fromCode(status);
+        return known != null ? byKnownStatus.get(known) : byOtherStatus.get(key(status));
+    }
+
+    private static String key(final String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,302 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Dépôt d’historique en base embarquée H2 (fichier local, aucun réseau).
+ *
+ * <p>Table {@code history} : clé primaire = titre en minuscules, index sur
+ * {@code (statut en minuscules, date décroissante, ordre d’insertion)}. Une liste par
+ * statut ou une recherche par titre est donc une lecture d’index, pas un parcours
+ * complet de l’historique.</p>
+ *
+ * <p>Même sémantique que {@link HistoryStore} : une mise à jour repasse en fin d’ordre
+ * d’insertion ({@code seq}), à date égale l’ordre d’insertion départage. Les erreurs SQL
+ * sont journalisées et donnent un résultat vide (comme {@link JsonStorage}).</p>
+ */
+public final class JdbcHistoryRepository implements HistoryRepository, AutoCloseable {
+
+    private static final String SCHEMA = """
+            CREATE TABLE IF NOT EXISTS history (
+                title_key     VARCHAR PRIMARY KEY,
+                title         VARCHAR,
+                status        VARCHAR,
+                status_key    VARCHAR NOT NULL,
+                date_time_iso VARCHAR,
+                seq           BIGINT NOT NULL
+            )""";
+    private static final String INDEX =
+            "CREATE INDEX IF NOT EXISTS history_status_date ON history (status_key, date_time_iso DESC, seq)";
+
+    private static final String SQL_MERGE = "MERGE INTO history "
+            + "(title_key, title, status, status_key, date_time_iso, seq) KEY (title_key) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SQL_BY_STATUS = "SELECT title FROM history WHERE status_key = ? "
+            + "ORDER BY date_time_iso DESC NULLS LAST, seq";
+    private static final String SQL_COUNT_STATUS = "SELECT COUNT(*) FROM history WHERE status_key = ?";
+    private static final String SQL_FIND =
+            "SELECT title, status, date_time_iso FROM history WHERE title_key = ?";
+    private static final String SQL_ALL = "SELECT title, status, date_time_iso FROM history ORDER BY seq";
+    private static final String SQL_DELETE_TITLE = "DELETE FROM history WHERE title_key = ?";
+    private static final String SQL_DELETE_STATUS = "DELETE FROM history WHERE status_key = ?";
+
+    private final Connection conn;
+    private long nextSeq;
+
+    /**
+     * Ouvre (et crée si besoin) la base indiquée.
+     *
+     * @param jdbcUrl URL JDBC (ex. {@code jdbc:h2:file:/chemin/storage})
+     * @throws IllegalStateException si la base ne peut pas être ouverte
+     */
+    public JdbcHistoryRepository(final String jdbcUrl) {
+        try {
+            this.conn = DriverManager.getConnection(jdbcUrl);
+            try (Statement st = conn.createStatement()) {
+                st.execute(SCHEMA);
+                st.execute(INDEX);
+                try (ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(seq), 0) FROM history")) {
+                    rs.next();
+                    nextSeq = rs.getLong(1) + 1;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Ouverture de " + jdbcUrl + " impossible : " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ouvre une base H2 fichier.
+     *
+     * @param db chemin de la base, sans l’extension {@code .mv.db}
+     * @return le dépôt
+     * @throws IllegalStateException si la base ne peut pas être ouverte (ex. déjà verrouillée)
+     */
+    public static JdbcHistoryRepository openFile(final File db) {
+        return new JdbcHistoryRepository("jdbc:h2:file:" + db.getAbsolutePath());
+    }
+
+    @Override
+    public synchronized void addOrUpdate(final String title, final String status) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_MERGE)) {
+            bindPut(ps, title, status, LocalDateTime.now().toString());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            logErr("addOrUpdate", e);
+        }
+    }
+
+    @Override
+    public synchronized int apply(final List<Mutation> mutations) {
+        final List<Mutation> effective = JsonStorage.effective(mutations);
+        if (effective.isEmpty()) {
+            return 0;
+        }
+        final List<String> stamps = JsonStorage.batchStamps(effective.size());
+        return inTransaction("apply", () -> {
+            int changed = 0;
+            try (PreparedStatement put = conn.prepareStatement(SQL_MERGE);
+                 PreparedStatement delTitle = conn.prepareStatement(SQL_DELETE_TITLE);
+                 PreparedStatement delStatus = conn.prepareStatement(SQL_DELETE_STATUS)) {
+                for (int i = 0; i < effective.size(); i++) {
+                    final Mutation m = effective.get(i);
+                    if (m instanceof Mutation.Put p) {
+                        bindPut(put, p.title(), p.status(), stamps.get(i));
+                        changed += put.executeUpdate() > 0 ? 1 : 0;
+                    } else if (m instanceof Mutation.Remove r) {
+                        delTitle.setString(1, key(r.title()));
+                        changed += delTitle.executeUpdate();
+                    } else if (m instanceof Mutation.RemoveStatus rs) {
+                        delStatus.setString(1, key(rs.status()));
+                        changed += delStatus.executeUpdate();
+                    }
+                }
+            }
+            return changed;
+        }, 0);
+    }
+
+    @Override
+    public synchronized List<HistoryEntry> loadAll() {
+        final List<HistoryEntry> out = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_ALL);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                out.add(new HistoryEntry(rs.getString(1), rs.getString(2), rs.getString(3)));
+            }
+        } catch (SQLException e) {
+            logErr("loadAll", e);
+            return new ArrayList<>();
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized HistoryEntry find(final String title) {
+        if (title == null || title.isBlank()) {
+            return null;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND)) {
+            ps.setString(1, key(title));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? new HistoryEntry(rs.getString(1), rs.getString(2), rs.getString(3)) : null;
+            }
+        } catch (SQLException e) {
+            logErr("find", e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized List<String> getByStatus(final String status) {
+        final List<String> out = new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_BY_STATUS)) {
+            ps.setString(1, key(status));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            logErr("getByStatus", e);
+            return new ArrayList<>();
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized int countByStatus(final String status) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_COUNT_STATUS)) {
+            ps.setString(1, key(status));
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            logErr("countByStatus", e);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void saveAll(final List<HistoryEntry> all) {
+        inTransaction("saveAll", () -> {
+            try (Statement st = conn.createStatement();
+                 PreparedStatement put = conn.prepareStatement(SQL_MERGE)) {
+                st.executeUpdate("DELETE FROM history");
+                for (HistoryEntry e : all) {
+                    bindPut(put, e.title(), e.status(), e.dateTimeIso());
+                    put.addBatch();
+                }
+                put.executeBatch();
+            }
+            return 0;
+        }, 0);
+    }
+
+    @Override
+    public synchronized boolean remove(final String title) {
+        if (title == null || title.isBlank()) {
+            return false;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(SQL_DELETE_TITLE)) {
+            ps.setString(1, key(title));
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            logErr("remove", e);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized int removeAllByStatus(final String status) {
+        if (status == null || status.isBlank()) {
+            return 0;
+        }
+        try (PreparedStatement ps = conn.prepareStatement(SQL_DELETE_STATUS)) {
+            ps.setString(1, key(status));
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            logErr("removeAllByStatus", e);
+            return 0;
+        }
+    }
+
+    /**
+     * @return nombre total d’entrées (0 en cas d’erreur)
+     */
+    public synchronized int size() {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM history")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            logErr("size", e);
+            return 0;
+        }
+    }
+
+    /** Ferme la connexion (la base H2 est alors fermée). */
+    @Override
+    public synchronized void close() {
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            logErr("close", e);
+        }
+    }
+
+    // -------- internes
+
+    /** Corps transactionnel pouvant lever une {@link SQLException}. */
+    @FunctionalInterface
+    private interface SqlWork {
+        int run() throws SQLException;
+    }
+
+    private int inTransaction(final String op, final SqlWork work, final int onError) {
+        try {
+            conn.setAutoCommit(false);
+            try {
+                final int r = work.run();
+                conn.commit();
+                return r;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logErr(op, e);
+            return onError;
+        }
+    }
+
+    private void bindPut(final PreparedStatement ps, final String title, final String status,
+                         final String dateTimeIso) throws SQLException {
+        ps.setString(1, key(title));
+        ps.setString(2, title);
+        ps.setString(3, status);
+        ps.setString(4, key(status));
+        ps.setString(5, dateTimeIso);
+        ps.setLong(6, nextSeq++);
+    }
+
+    private static String key(final String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static void logErr(final String op, final SQLException e) {
+        JsonStorage.logErr("[JdbcHistoryRepository] Erreur SQL (%s) : %s%n", op, e.getMessage());
+    }
+}
@@ -0,0 +1,62 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+
+import java.util.List;
+
+/**
+ * Dépôt d’historique adossé au fichier JSON : délègue à {@link JsonStorage}
+ * (index résident, modes journalisé / flux / écriture différée compris).
+ */
+public final class JsonHistoryRepository implements HistoryRepository {
+
+    @Override
+    public void addOrUpdate(final String title, final String status) {
+        JsonStorage.addOrUpdate(title, status);
+    }
+
+    @Override
+    public int apply(final List<Mutation> mutations) {
+        return JsonStorage.apply(mutations);
+    }
+
+    @Override
+    public List<HistoryEntry> loadAll() {
+        return JsonStorage.loadAll();
+    }
+
+    @Override
+    public HistoryEntry find(final String title) {
+        return JsonStorage.find(title);
+    }
+
+    @Override
+    public List<String> getByStatus(final String status) {
+        return JsonStorage.getByStatus(status);
+    }
+
+    @Override
+    public int countByStatus(final String status) {
+        return JsonStorage.countByStatus(status);
+    }
+
+    @Override
+    public void saveAll(final List<HistoryEntry> all) {
+        JsonStorage.saveAll(all);
+    }
+
+    @Override
+    public boolean remove(final String title) {
+        return JsonStorage.remove(title);
+    }
+
+    @Override
+    public int removeAllByStatus(final String status) {
+        return JsonStorage.removeAllByStatus(status);
+    }
+
+    @Override
+    public void flush() {
+        JsonStorage.flush();
+    }
+}
@@ -6,9 +6,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.LocalDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Utilitaire de persistance locale pour les entrées d’historique.
@@ -21,6 +28,45 @@ import java.util.stream.Collectors;
  *
  * <p>Les méthodes sont synchronisées (accès concurrents sûrs). En cas d’erreur d’E/S,
  * le comportement reste tolérant et journalise (sauf mode silencieux).</p>
+ *
+ * <p>Les lectures sont servies par un index résident ({@link HistoryStore}) : le fichier
+ * n’est relu que si sa taille ou sa date de modification change, et chaque mutation
+ * est écrite immédiatement sur disque (write-through).</p>
+ *
+ * <p>Mode journalisé : avec {@code -Dcinematch.storage.journal=true}, les mutations
+ * sont ajoutées en fin de {@code storage.json.journal} au lieu de réécrire tout le
+ * fichier, puis compactées en arrière-plan (voir {@link StorageJournal}). Le seuil de
+ * compaction se règle via {@code -Dcinematch.storage.journal.compactEvery=N}.</p>
+ *
+ * <p>Mode flux : avec {@code -Dcinematch.storage.mode=streaming}, aucun index n’est gardé
+ * en mémoire ; chaque requête filtre le fichier pendant le parsing et chaque mutation le
+ * réécrit en flux (voir {@link StreamingHistory}). Adapté aux historiques importés très
+ * volumineux. Dans tous les modes, le fichier est écrit en JSON compact.</p>
+ *
+ * <p>Écritures sûres : le fichier est toujours remplacé atomiquement (temporaire forcé sur
+ * disque puis renommé, voir {@link AtomicFiles}) et la version précédente est conservée dans
+ * {@code storage.json.bak}. Si le fichier est illisible (tronqué, corrompu), le {@code .bak}
+ * est relu à la place : l’écriture suivante ne peut donc plus effacer tout l’historique.</p>
+ *
+ * <p>Écriture différée : avec {@code -Dcinematch.storage.writeBehind=true} (mode index
+ * uniquement), une mutation ne met à jour que l’index résident et marque l’état « sale » ;
+ * un thread d’arrière-plan l’écrit une seule fois après {@code writeBehind.delayMs} ms
+ * (250 par défaut), ou dès {@code writeBehind.maxPending} mutations (64 par défaut).
+ * {@link #flush()} force l’écriture ; un hook d’arrêt l’appelle à la sortie de la JVM.</p>
+ *
+ * <p>Format binaire : avec {@code -Dcinematch.storage.format=binary} (mode index), l’historique
+ * est stocké dans un instantané compact {@code storage.bin} voisin (voir {@link BinarySnapshot}),
+ * relu par mappage mémoire sans parsing JSON. Les lectures sont servies directement par
+ * l’instantané ; la première mutation le convertit en index modifiable. Au premier lancement,
+ * un {@code storage.json} existant est converti une fois. {@link #exportJson(File)} produit
+ * toujours un export JSON lisible.</p>
+ *
+ * <p>Plusieurs processus : chaque mutation (modes index et flux) est faite sous un verrou
+ * {@link java.nio.channels.FileChannel#lock() FileChannel.lock} posé sur {@code storage.json.lock}
+ * (voir {@link StorageLock}) ; l’index est relu sous ce verrou si le fichier a changé (empreinte
+ * taille / date, ou compteur de génération du fichier de verrou). En écriture différée, le flush
+ * prend le verrou et rejoue les mutations en attente sur la version écrite par l’autre processus.
+ * Le mode journalisé reste mono-processus.</p>
  */
 public final class JsonStorage {
 
@@ -32,6 +78,54 @@ public final class JsonStorage {
      * Propriété système pour désactiver l’affichage des erreurs sur stderr.
      */
     private static final String PROP_SILENT = "cinematch.storage.silent";
+    /**
+     * Propriété système activant le mode journalisé (ajouts en fin de journal).
+     */
+    private static final String PROP_JOURNAL = "cinematch.storage.journal";
+    /**
+     * Propriété système : nombre d’enregistrements avant compaction du journal.
+     */
+    private static final String PROP_COMPACT_EVERY = "cinematch.storage.journal.compactEvery";
+    /**
+     * Propriété système choisissant le mode de lecture ({@code streaming} pour le mode flux).
+     */
+    private static final String PROP_MODE = "cinematch.storage.mode";
+    /**
+     * Valeur de {@link #PROP_MODE} activant le mode flux.
+     */
+    private static final String MODE_STREAMING = "streaming";
+    /**
+     * Propriété système choisissant le format du fichier en mode index ({@code binary} ou JSON).
+     */
+    private static final String PROP_FORMAT = "cinematch.storage.format";
+    /**
+     * Valeur de {@link #PROP_FORMAT} activant l’instantané binaire.
+     */
+    private static final String FORMAT_BINARY = "binary";
+    /**
+     * Propriété système activant l’écriture différée (mode index).
+     */
+    private static final String PROP_WRITE_BEHIND = "cinematch.storage.writeBehind";
+    /**
+     * Propriété système : délai (ms) entre la première mutation non écrite et l’écriture.
+     */
+    private static final String PROP_WB_DELAY = "cinematch.storage.writeBehind.delayMs";
+    /**
+     * Propriété système : nombre de mutations déclenchant une écriture immédiate.
+     */
+    private static final String PROP_WB_MAX_PENDING = "cinematch.storage.writeBehind.maxPending";
+    /**
+     * Délai d’écriture différée par défaut (ms).
+     */
+    private static final int DEFAULT_WB_DELAY_MS = 250;
+    /**
+     * Nombre de mutations en attente par défaut avant écriture immédiate.
+     */
+    private static final int DEFAULT_WB_MAX_PENDING = 64;
+    /**
+     * Seuil de compaction par défaut.
+     */
+    private static final int DEFAULT_COMPACT_EVERY = 512;
     /**
      * Chemin par défaut.
      */
@@ -42,6 +136,50 @@ public final class JsonStorage {
      */
     private static final ObjectMapper MAPPER = new ObjectMapper();
 
+    /**
+     * Moteur journalisé courant (mode journal uniquement), ouvert à la première utilisation.
+     */
+    private static StorageJournal journal;
+
+    /**
+     * Index résident (mode fichier), avec le fichier et l’empreinte qu’il reflète.
+     * En format binaire, {@code snapshot} sert les lectures tant qu’aucune mutation n’a eu lieu
+     * (un seul des deux est non nul).
+     */
+    private static HistoryStore cache;
+    private static BinarySnapshot snapshot;
+    private static File cacheFile;
+    private static FileStamp cacheStamp;
+    /**
+     * Génération du fichier reflétée par l’index (voir {@link StorageLock}), ou
+     * {@link StorageLock#UNKNOWN} si l’index a été chargé hors verrou.
+     */
+    private static long cacheGeneration = StorageLock.UNKNOWN;
+    /**
+     * Verrou inter-processus détenu par la mutation en cours (sous verrou de classe), sinon {@code null}.
+     */
+    private static StorageLock held;
+
+    /**
+     * Écriture différée : état non encore écrit, mutations en attente, écriture planifiée.
+     */
+    private static boolean dirty;
+    private static int pendingMutations;
+    /**
+     * Mutations non écrites, rejouées sur le fichier si un autre processus l’a modifié
+     * entre-temps ; {@code pendingReplace} : un {@link #saveAll(List)} en attente remplace tout.
+     */
+    private static final List<PendingOp> pendingOps = new ArrayList<>();
+    private static boolean pendingReplace;
+    /** Nombre de {@link #saveAll(List)} différés (détecte un remplacement pendant un flush). */
+    private static long replaceCount;
+    private static boolean flushScheduled;
+    private static ScheduledExecutorService flusher;
+    /**
+     * Sérialise les écritures différées (pris avant le verrou de classe, jamais après).
+     */
+    private static final Object FLUSH_LOCK = new Object();
+
     private JsonStorage() {
         // Classe utilitaire : pas d’instanciation.
     }
@@ -52,44 +190,163 @@ public final class JsonStorage {
      * @param title  titre du film
      * @param status statut (ex. "envie", "deja_vu", "pas_interesse")
      */
-    public static synchronized void addOrUpdate(final String title, final String status) {
-        final List<HistoryEntry> all = loadAll();
-        all.removeIf(e -> e.title().equalsIgnoreCase(title));
-        all.add(new HistoryEntry(title, status, LocalDateTime.now().toString()));
-        saveAll(all);
+    public static void addOrUpdate(final String title, final String status) {
+        locked(() -> {
+            addOrUpdateLocked(title, status);
+            return null;
+        });
+    }
+
+    private static void addOrUpdateLocked(final String title, final String status) {
+        final HistoryEntry entry = new HistoryEntry(title, status, LocalDateTime.now().toString());
+        final StorageJournal j = journal();
+        if (j != null) {
+            try {
+                j.put(entry);
+            } catch (IOException e) {
+                logJournalError(j, e);
+            }
+            return;
+        }
+        if (streaming()) {
+            try {
+                StreamingHistory.rewrite(storageFile(),
+                        e -> !sameTitle(e, title), List.of(entry));
+                written();
+            } catch (IOException e) {
+                logWriteError(e);
+            }
+            return;
+        }
+        final HistoryStore s = store();
+        s.put(entry);
+        persist(s, List.of(new PendingOp(Mutation.put(title, status), entry.dateTimeIso())));
     }
 
     /**
-     * Lit toutes les entrées depuis le fichier JSON.
+     * Applique un lot de mutations avec une seule lecture (index résident) et une
+     * seule écriture (ou un seul ajout au journal en mode journalisé).
+     *
+     * <p>Les suppressions dont le titre / statut est vide sont ignorées, comme pour
+     * {@link #remove(String)} et {@link #removeAllByStatus(String)}. Les ajouts d’un même
+     * lot reçoivent des horodatages strictement croissants, afin de conserver l’ordre
+     * « plus récent d’abord » des appels unitaires successifs.</p>
+     *
+     * @param mutations mutations à appliquer, dans l’ordre
+     * @return nombre d’entrées affectées
+     */
+    public static int apply(final List<Mutation> mutations) {
+        return locked(() -> applyLocked(mutations));
+    }
+
+    private static int applyLocked(final List<Mutation> mutations) {
+        final List<Mutation> effective = effective(mutations);
+        if (effective.isEmpty()) {
+            return 0;
+        }
+        final List<String> stamps = batchStamps(effective.size());
+
+        final StorageJournal j = journal();
+        if (j != null) {
+            try {
+                return j.apply(effective, stamps);
+            } catch (IOException e) {
+                logJournalError(j, e);
+                return 0;
+            }
+        }
+        if (streaming()) {
+            try {
+                final int changed = StreamingHistory.apply(storageFile(), effective, stamps);
+                written();
+                return changed;
+            } catch (IOException e) {
+                logWriteError(e);
+                return 0;
+            }
+        }
+        final HistoryStore s = store();
+        final List<PendingOp> ops = new ArrayList<>(effective.size());
+        int changed = 0;
+        for (int i = 0; i < effective.size(); i++) {
+            changed += s.apply(effective.get(i), stamps.get(i));
+            ops.add(new PendingOp(effective.get(i), stamps.get(i)));
+        }
+        if (changed > 0) {
+            persist(s, ops);
+        }
+        return changed;
+    }
+
+    /**
+     * Retourne toutes les entrées (copie mutable de l’index résident).
+     * Le fichier n’est relu que s’il a changé sur disque (taille / date de modification).
      *
      * @return liste d’entrées, ou liste vide si absent/illisible
      */
     public static synchronized List<HistoryEntry> loadAll() {
-        final File file = storageFile();
-        if (!file.exists()) {
-            return new ArrayList<>();
+        final StorageJournal j = journal();
+        if (j != null) {
+            return j.entries();
         }
-        try {
-            return MAPPER.readValue(file, new TypeReference<List<HistoryEntry>>() {
-            });
-        } catch (IOException e) {
-            // Tolérance : retourne liste vide si JSON corrompu (tests inclus)
-            return new ArrayList<>();
+        if (streaming()) {
+            return StreamingHistory.readAll(storageFile());
         }
+        return index().entries();
+    }
+
+    /**
+     * Recherche une entrée par titre (insensible à la casse).
+     * En mode flux, le titre est filtré pendant le parsing.
+     *
+     * @param title titre du film
+     * @return l’entrée, ou {@code null} si absente
+     */
+    public static synchronized HistoryEntry find(final String title) {
+        if (title == null || title.isBlank()) return null;
+        final StorageJournal j = journal();
+        if (j != null) {
+            return j.get(title);
+        }
+        if (streaming()) {
+            return StreamingHistory.find(storageFile(), title);
+        }
+        return index().get(title);
     }
 
     /**
      * Retourne les titres correspondant à un statut, triés par date décroissante.
+     * Servi directement par l’index par statut (aucun parsing).
      *
      * @param status statut (ex. "envie")
      * @return liste de titres
      */
     public static synchronized List<String> getByStatus(final String status) {
-        return loadAll().stream()
-                .filter(e -> e.status().equalsIgnoreCase(status))
-                .sorted(Comparator.comparing(HistoryEntry::dateTimeIso).reversed())
-                .map(HistoryEntry::title)
-                .collect(Collectors.toList());
+        final StorageJournal j = journal();
+        if (j != null) {
+            return j.titlesByStatus(status);
+        }
+        if (streaming()) {
+            return StreamingHistory.titlesByStatus(storageFile(), status);
+        }
+        return index().titlesByStatus(status);
+    }
+
+    /**
+     * Compte les entrées d’un statut sans construire de liste.
+     *
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées
+     */
+    public static synchronized int countByStatus(final String status) {
+        final StorageJournal j = journal();
+        if (j != null) {
+            return j.countByStatus(status);
+        }
+        if (streaming()) {
+            return StreamingHistory.countByStatus(storageFile(), status);
+        }
+        return index().countByStatus(status);
     }
 
     /**
@@ -98,22 +355,122 @@ public final class JsonStorage {
      *
      * @param all liste à sauvegarder
      */
-    public static synchronized void saveAll(final List<HistoryEntry> all) {
-        final File file = storageFile();
-        final File parentDir = file.getParentFile();
-        if (parentDir != null && !parentDir.exists()) {
-            final boolean created = parentDir.mkdirs();
-            if (!created && !parentDir.exists()) {
-                logErr("[JsonStorage] Échec de création du répertoire : %s%n",
-                        parentDir.getAbsolutePath());
+    public static void saveAll(final List<HistoryEntry> all) {
+        locked(() -> {
+            saveAllLocked(all);
+            return null;
+        });
+    }
+
+    private static void saveAllLocked(final List<HistoryEntry> all) {
+        final StorageJournal j = journal();
+        if (j != null) {
+            try {
+                j.replaceAll(all);
+            } catch (IOException e) {
+                logJournalError(j, e);
+            }
+            return;
+        }
+        if (streaming()) {
+            try {
+                StreamingHistory.writeAll(storageFile(), all);
+                written();
+            } catch (IOException e) {
+                logWriteError(e);
             }
+            return;
+        }
+        if (writeBehind()) {
+            store(); // écrit d’abord un éventuel état sale d’un autre fichier
+            cache = new HistoryStore(all);
+            snapshot = null;
+            pendingOps.clear();
+            pendingReplace = true; // remplace aussi les écritures d’autres processus
+            replaceCount++;
+            markDirty();
+            return;
         }
+        if (writeThrough(all)) {
+            cache = new HistoryStore(all);
+            snapshot = null;
+        }
+    }
 
+    /**
+     * Écrit immédiatement l’état en attente (écriture différée), sans effet sinon.
+     *
+     * <p>L’état est copié sous verrou puis écrit hors verrou : les lectures et mutations
+     * concurrentes (ex. clics de l’interface) ne sont pas bloquées par l’E/S disque.
+     * En cas d’échec, l’état reste marqué comme non écrit.</p>
+     */
+    public static void flush() {
+        synchronized (FLUSH_LOCK) {
+            final File file;
+            synchronized (JsonStorage.class) {
+                if (!dirty || cache == null) {
+                    return;
+                }
+                file = cacheFile;
+            }
+            try (StorageLock lock = StorageLock.acquire(file)) {
+                final List<HistoryEntry> pending;
+                final int flushedOps;
+                final long replaces;
+                synchronized (JsonStorage.class) {
+                    if (!dirty || cache == null || !file.equals(cacheFile)) {
+                        return;
+                    }
+                    if (!pendingReplace && changedSinceLoad(file, lock.generation(), FileStamp.of(file))) {
+                        mergeExternalChanges(file);
+                    }
+                    pending = cache.entries();
+                    flushedOps = pendingOps.size();
+                    replaces = replaceCount;
+                    dirty = false;
+                    pendingMutations = 0;
+                }
+                try {
+                    writeFile(file, pending);
+                    final long gen = lock.bumpGeneration();
+                    synchronized (JsonStorage.class) {
+                        if (replaces == replaceCount) {
+                            // sinon un saveAll a déjà remplacé les mutations écrites
+                            pendingOps.subList(0, Math.min(flushedOps, pendingOps.size())).clear();
+                            pendingReplace = false;
+                        }
+                        if (file.equals(cacheFile)) {
+                            cacheStamp = FileStamp.of(file);
+                            cacheGeneration = gen;
+                        }
+                    }
+                } catch (IOException e) {
+                    synchronized (JsonStorage.class) {
+                        dirty = true;
+                    }
+                    logErr("[JsonStorage] Erreur lors de l’écriture du fichier %s : %s%n",
+                            file.getAbsolutePath(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Exporte l’historique courant en JSON indenté (quel que soit le format de stockage).
+     * Le fichier produit peut être relu tel quel comme fichier de stockage JSON.
+     *
+     * @param target fichier de destination (remplacé atomiquement)
+     * @return {@code true} si l’export a réussi
+     */
+    public static synchronized boolean exportJson(final File target) {
+        final List<HistoryEntry> all = loadAll();
         try {
-            MAPPER.writerWithDefaultPrettyPrinter().writeValue(file, all);
+            AtomicFiles.write(target, out -> MAPPER.writerWithDefaultPrettyPrinter().writeValue(out, all));
+            return true;
         } catch (IOException e) {
-            logErr("[JsonStorage] Erreur lors de l’écriture du fichier %s : %s%n",
-                    file.getAbsolutePath(), e.getMessage());
+            logErr("[JsonStorage] Export JSON vers %s impossible : %s%n",
+                    target.getAbsolutePath(), e.getMessage());
+            return false;
         }
     }
 
@@ -127,38 +484,499 @@ public final class JsonStorage {
         return new File(p);
     }
 
+    /** Mutation en attente d’écriture, avec l’horodatage qu’elle a reçu. */
+    private record PendingOp(Mutation mutation, String dateTimeIso) { }
+
+    /**
+     * Exécute une mutation sous le verrou inter-processus du fichier (voir {@link StorageLock}),
+     * puis sous le verrou de classe. Ordre des verrous : fichier, puis classe — jamais l’inverse.
+     *
+     * <p>Sans verrou de fichier : mode journalisé (mono-processus) et écriture différée
+     * (seule la mémoire change ; {@link #flush()} prend le verrou au moment d’écrire).</p>
+     */
+    private static <T> T locked(final Supplier<T> body) {
+        final StorageLock lock;
+        if (Boolean.getBoolean(PROP_JOURNAL) || (writeBehind() && !streaming())) {
+            lock = null;
+        } else {
+            lock = StorageLock.acquire(streaming() ? storageFile() : dataFile());
+        }
+        try {
+            synchronized (JsonStorage.class) {
+                held = lock;
+                try {
+                    return body.get();
+                } finally {
+                    held = null;
+                }
+            }
+        } finally {
+            if (lock != null) {
+                lock.close();
+            }
+        }
+    }
+
+    /**
+     * Signale aux autres processus qu’une mutation vient d’être écrite.
+     */
+    private static void written() {
+        if (held != null) {
+            cacheGeneration = held.bumpGeneration();
+        }
+    }
+
+    /**
+     * @return {@code true} si le fichier a changé depuis le chargement de l’index : empreinte
+     *         (taille / date) différente — y compris après une édition externe — ou génération
+     *         différente quand elle est connue des deux côtés (écriture d’un autre processus
+     *         CineMatch dans la même résolution de date de modification)
+     */
+    private static boolean changedSinceLoad(final File file, final long generation, final FileStamp now) {
+        if (!file.equals(cacheFile) || now == null || !now.equals(cacheStamp)) {
+            return true;
+        }
+        return generation != StorageLock.UNKNOWN && cacheGeneration != StorageLock.UNKNOWN
+                && generation != cacheGeneration;
+    }
+
+    /**
+     * Écriture différée : un autre processus a écrit le fichier depuis le chargement.
+     * L’index repart du fichier et les mutations en attente y sont rejouées.
+     */
+    private static void mergeExternalChanges(final File file) {
+        final HistoryIndex loaded = load(file);
+        final HistoryStore merged = loaded instanceof HistoryStore hs ? hs : new HistoryStore(loaded.entries());
+        for (PendingOp op : pendingOps) {
+            merged.apply(op.mutation(), op.dateTimeIso());
+        }
+        cache = merged;
+        snapshot = null;
+    }
+
+    /**
+     * Fichier lu / écrit en mode index : l’instantané binaire voisin en format binaire,
+     * sinon le fichier JSON.
+     */
+    private static File dataFile() {
+        final File json = storageFile();
+        return binary() ? BinarySnapshot.fileFor(json) : json;
+    }
+
+    /**
+     * @return {@code true} si le format binaire est choisi
+     */
+    private static boolean binary() {
+        return FORMAT_BINARY.equalsIgnoreCase(System.getProperty(PROP_FORMAT));
+    }
+
+    /**
+     * Filtre un lot : mutations nulles et suppressions sans titre / statut écartées.
+     *
+     * @return nouvelle liste (vide si {@code mutations} est nul)
+     */
+    static List<Mutation> effective(final List<Mutation> mutations) {
+        final List<Mutation> out = new ArrayList<>(mutations == null ? 0 : mutations.size());
+        if (mutations != null) {
+            for (Mutation m : mutations) {
+                if (m != null && !isBlankRemoval(m)) {
+                    out.add(m);
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Horodatages d’un lot : à partir de maintenant, strictement croissants (pas de 1 µs).
+     */
+    static List<String> batchStamps(final int n) {
+        final List<String> stamps = new ArrayList<>(n);
+        LocalDateTime t = LocalDateTime.now();
+        for (int i = 0; i < n; i++) {
+            stamps.add(t.toString());
+            t = t.plusNanos(1_000L);
+        }
+        return stamps;
+    }
+
+    private static boolean isBlankRemoval(final Mutation m) {
+        if (m instanceof Mutation.Remove r) {
+            return r.title() == null || r.title().isBlank();
+        }
+        if (m instanceof Mutation.RemoveStatus rs) {
+            return rs.status() == null || rs.status().isBlank();
+        }
+        return false;
+    }
+
+    /**
+     * Retourne l’index servant les lectures : l’index résident, ou l’instantané binaire
+     * tant qu’aucune mutation n’a eu lieu.
+     */
+    private static HistoryIndex index() {
+        refresh();
+        return cache != null ? cache : snapshot;
+    }
+
+    /**
+     * Retourne l’index résident modifiable (l’instantané binaire éventuel y est converti).
+     */
+    private static HistoryStore store() {
+        refresh();
+        if (cache == null) {
+            cache = new HistoryStore(snapshot.entries());
+            snapshot = null;
+        }
+        return cache;
+    }
+
+    /**
+     * Recharge l’état depuis le disque seulement au premier accès, si le chemin change
+     * ou si le fichier a été modifié (taille / date).
+     */
+    private static void refresh() {
+        final File file = dataFile();
+        if (cache != null && dirty) {
+            if (file.equals(cacheFile)) {
+                return; // état non encore écrit : il fait foi, pas de relecture
+            }
+            // le chemin a changé : l’ancien fichier reçoit son état avant de basculer
+            final List<HistoryEntry> pending = cache.entries();
+            try {
+                writeFile(cacheFile, pending);
+            } catch (IOException e) {
+                logErr("[JsonStorage] Erreur lors de l’écriture du fichier %s : %s%n",
+                        cacheFile.getAbsolutePath(), e.getMessage());
+            }
+            dirty = false;
+            pendingMutations = 0;
+            pendingOps.clear();
+            pendingReplace = false;
+        }
+        final FileStamp now = FileStamp.of(file);
+        final long generation = held == null ? StorageLock.UNKNOWN : held.generation();
+        if ((cache == null && snapshot == null) || changedSinceLoad(file, generation, now)) {
+            final HistoryIndex loaded = load(file);
+            cache = loaded instanceof HistoryStore hs ? hs : null;
+            snapshot = loaded instanceof BinarySnapshot bs ? bs : null;
+            cacheFile = file;
+            cacheStamp = now;
+            cacheGeneration = generation;
+        } else if (held != null) {
+            cacheGeneration = generation; // index chargé hors verrou : l’empreinte a confirmé
+        }
+    }
+
+    /**
+     * Lit un fichier de stockage selon son format (instantané binaire ou JSON).
+     */
+    private static HistoryIndex load(final File file) {
+        return BinarySnapshot.isSnapshotFile(file) ? readSnapshot(file) : new HistoryStore(readFile(file));
+    }
+
+    /**
+     * Charge l’instantané binaire (ou sa sauvegarde {@code .bak} s’il est illisible).
+     * S’il n’existe pas encore, l’historique JSON existant est converti une fois.
+     *
+     * @return l’instantané, ou un index (éventuellement vide) si la conversion échoue
+     */
+    private static HistoryIndex readSnapshot(final File file) {
+        if (file.isFile()) {
+            try {
+                return BinarySnapshot.read(file);
+            } catch (IOException e) {
+                final File bak = AtomicFiles.backupOf(file);
+                if (bak.isFile()) {
+                    try {
+                        final BinarySnapshot recovered = BinarySnapshot.read(bak);
+                        logErr("[JsonStorage] Fichier illisible %s, restauré depuis %s%n",
+                                file.getAbsolutePath(), bak.getName());
+                        return recovered;
+                    } catch (IOException ignored) {
+                        // sauvegarde illisible aussi : on retombe sur l’index vide
+                    }
+                }
+                logErr("[JsonStorage] Instantané illisible %s : %s%n", file.getAbsolutePath(), e.getMessage());
+                return new HistoryStore();
+            }
+        }
+        final List<HistoryEntry> legacy = readFile(storageFile());
+        if (!legacy.isEmpty()) {
+            try {
+                AtomicFiles.write(file, out -> BinarySnapshot.write(out, legacy));
+                return BinarySnapshot.read(file);
+            } catch (IOException e) {
+                logErr("[JsonStorage] Conversion binaire de %s impossible : %s%n",
+                        storageFile().getAbsolutePath(), e.getMessage());
+            }
+        }
+        return new HistoryStore(legacy);
+    }
+
+    /**
+     * Lit le fichier JSON complet ; s’il est illisible, tente la sauvegarde {@code .bak}.
+     *
+     * @return entrées lues, ou liste vide si absent/illisible (sauvegarde comprise)
+     */
+    static List<HistoryEntry> readFile(final File file) {
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        try {
+            return MAPPER.readValue(file, new TypeReference<List<HistoryEntry>>() {
+            });
+        } catch (IOException e) {
+            final File bak = AtomicFiles.backupOf(file);
+            if (bak.isFile()) {
+                try {
+                    final List<HistoryEntry> recovered = MAPPER.readValue(bak,
+                            new TypeReference<List<HistoryEntry>>() {
+                            });
+                    logErr("[JsonStorage] Fichier illisible %s, restauré depuis %s%n",
+                            file.getAbsolutePath(), bak.getName());
+                    return recovered;
+                } catch (IOException ignored) {
+                    // sauvegarde illisible aussi : on retombe sur la liste vide
+                }
+            }
+            // Tolérance : retourne liste vide si JSON corrompu (tests inclus)
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Écrit la liste sur disque (atomiquement) puis mémorise l’empreinte du fichier écrit.
+     * En cas d’échec, l’index est invalidé : la prochaine lecture repart du disque.
+     *
+     * @return {@code true} si l’écriture a réussi
+     */
+    private static boolean writeThrough(final List<HistoryEntry> all) {
+        final File file = dataFile();
+        try {
+            writeFile(file, all);
+            cacheFile = file;
+            cacheStamp = FileStamp.of(file);
+            written();
+            return true;
+        } catch (IOException e) {
+            cache = null;
+            snapshot = null;
+            logWriteError(e);
+            return false;
+        }
+    }
+
+    /**
+     * Remplace atomiquement un fichier de stockage, en binaire pour un instantané
+     * {@code .bin}, sinon en JSON compact.
+     */
+    private static void writeFile(final File file, final List<HistoryEntry> all) throws IOException {
+        if (BinarySnapshot.isSnapshotFile(file)) {
+            AtomicFiles.write(file, out -> BinarySnapshot.write(out, all));
+        } else {
+            AtomicFiles.write(file, out -> MAPPER.writeValue(out, all));
+        }
+    }
+
+    /**
+     * Rend une mutation durable : immédiatement, ou en différé si l’écriture différée est active
+     * (les mutations sont alors gardées pour être rejouées si un autre processus écrit entre-temps).
+     */
+    private static void persist(final HistoryStore s, final List<PendingOp> ops) {
+        if (writeBehind()) {
+            pendingOps.addAll(ops);
+            markDirty();
+            return;
+        }
+        writeThrough(s.entries());
+    }
+
+    /**
+     * Marque l’index comme non écrit et planifie l’écriture d’arrière-plan.
+     */
+    private static void markDirty() {
+        dirty = true;
+        pendingMutations++;
+        final ScheduledExecutorService ex = flusher();
+        if (pendingMutations >= Integer.getInteger(PROP_WB_MAX_PENDING, DEFAULT_WB_MAX_PENDING)) {
+            ex.execute(JsonStorage::backgroundFlush);
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            ex.schedule(JsonStorage::backgroundFlush,
+                    Integer.getInteger(PROP_WB_DELAY, DEFAULT_WB_DELAY_MS), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static void backgroundFlush() {
+        synchronized (JsonStorage.class) {
+            flushScheduled = false;
+        }
+        flush();
+    }
+
+    /**
+     * Crée à la demande le thread d’écriture différée et le hook d’arrêt associé.
+     */
+    private static ScheduledExecutorService flusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread t = new Thread(r, "cinematch-storage-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            Runtime.getRuntime().addShutdownHook(
+                    new Thread(JsonStorage::flush, "cinematch-storage-shutdown"));
+        }
+        return flusher;
+    }
+
+    /**
+     * @return {@code true} si l’écriture différée est active
+     */
+    private static boolean writeBehind() {
+        return Boolean.getBoolean(PROP_WRITE_BEHIND);
+    }
+
+    private static void logWriteError(final IOException e) {
+        logErr("[JsonStorage] Erreur lors de l’écriture du fichier %s : %s%n",
+                (streaming() ? storageFile() : dataFile()).getAbsolutePath(), e.getMessage());
+    }
+
+    /**
+     * @return {@code true} si le mode flux est actif
+     */
+    private static boolean streaming() {
+        return MODE_STREAMING.equalsIgnoreCase(System.getProperty(PROP_MODE));
+    }
+
+    private static boolean sameTitle(final HistoryEntry e, final String title) {
+        return e.title() == null ? title == null : e.title().equalsIgnoreCase(title);
+    }
+
+    /**
+     * Empreinte légère d’un fichier (existence, taille, date de modification).
+     */
+    private record FileStamp(boolean exists, long size, long modifiedNanos) {
+
+        private static final FileStamp MISSING = new FileStamp(false, -1L, -1L);
+
+        /** @return l’empreinte, ou {@code null} si les attributs sont illisibles */
+        static FileStamp of(final File file) {
+            final Path path = file.toPath();
+            if (!Files.exists(path)) {
+                return MISSING;
+            }
+            try {
+                final BasicFileAttributes a = Files.readAttributes(path, BasicFileAttributes.class);
+                return new FileStamp(true, a.size(), a.lastModifiedTime().to(TimeUnit.NANOSECONDS));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Retourne le moteur journalisé si le mode est actif (ré-ouvert si le chemin change),
+     * sinon {@code null}. Le snapshot et le journal sont rejoués une seule fois.
+     */
+    private static StorageJournal journal() {
+        if (!Boolean.getBoolean(PROP_JOURNAL)) {
+            return null;
+        }
+        final File file = storageFile();
+        if (journal == null || !journal.snapshotFile().equals(file)) {
+            if (journal != null) {
+                journal.close();
+            }
+            journal = StorageJournal.open(file,
+                    Integer.getInteger(PROP_COMPACT_EVERY, DEFAULT_COMPACT_EVERY));
+        }
+        return journal;
+    }
+
+    private static void logJournalError(final StorageJournal j, final IOException e) {
+        logErr("[JsonStorage] Erreur d’écriture du journal de %s : %s%n",
+                j.snapshotFile().getAbsolutePath(), e.getMessage());
+    }
+
     /**
      * Log sur stderr sauf si le mode silencieux est activé.
      */
-    private static void logErr(final String fmt, final Object... args) {
+    static void logErr(final String fmt, final Object... args) {
         if (!Boolean.getBoolean(PROP_SILENT)) {
             System.err.printf(fmt, args);
         }
     }
 
     //  suppression par titre (case-insensitive)
-    public static synchronized boolean remove(final String title) {
+    public static boolean remove(final String title) {
         if (title == null || title.isBlank()) return false;
-        final List<HistoryEntry> all = loadAll();
-        final int before = all.size();
-        all.removeIf(e -> e.title().equalsIgnoreCase(title));
-        if (all.size() != before) {
-            saveAll(all);
+        return locked(() -> removeLocked(title));
+    }
+
+    private static boolean removeLocked(final String title) {
+        final StorageJournal j = journal();
+        if (j != null) {
+            try {
+                return j.remove(title);
+            } catch (IOException e) {
+                logJournalError(j, e);
+                return false;
+            }
+        }
+        if (streaming()) {
+            try {
+                final boolean removed = StreamingHistory.rewrite(storageFile(),
+                        e -> !sameTitle(e, title), List.of()) > 0;
+                written();
+                return removed;
+            } catch (IOException e) {
+                logWriteError(e);
+                return false;
+            }
+        }
+        final HistoryStore s = store();
+        if (s.remove(title)) {
+            persist(s, List.of(new PendingOp(Mutation.remove(title), null)));
             return true;
         }
         return false;
     }
 
     // suppression de toutes les entrées d’un statut
-    public static synchronized int removeAllByStatus(final String status) {
+    public static int removeAllByStatus(final String status) {
         if (status == null || status.isBlank()) return 0;
-        final List<HistoryEntry> all = loadAll();
-        final int before = all.size();
-        all.removeIf(e -> e.status().equalsIgnoreCase(status));
-        if (all.size() != before) {
-            saveAll(all);
+        return locked(() -> removeAllByStatusLocked(status));
+    }
+
+    private static int removeAllByStatusLocked(final String status) {
+        final StorageJournal j = journal();
+        if (j != null) {
+            try {
+                return j.removeAllByStatus(status);
+            } catch (IOException e) {
+                logJournalError(j, e);
+                return 0;
+            }
+        }
+        if (streaming()) {
+            try {
+                final int removed = StreamingHistory.rewrite(storageFile(),
+                        e -> e.status() == null || !e.status().equalsIgnoreCase(status), List.of());
+                written();
+                return removed;
+            } catch (IOException e) {
+                logWriteError(e);
+                return 0;
+            }
+        }
+        final HistoryStore s = store();
+        final int removed = s.removeAllByStatus(status);
+        if (removed > 0) {
+            persist(s, List.of(new PendingOp(Mutation.removeStatus(status), null)));
         }
-        return before - all.size();
+        return removed;
     }
 
 }
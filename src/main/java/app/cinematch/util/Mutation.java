@@ -0,0 +1,66 @@
+package app.cinematch.util;
+
+/**
+ * Mutation élémentaire de l’historique, appliquée en lot via {@link JsonStorage#apply(java.util.List)}.
+ *
+ * <p>Un lot de N mutations coûte une seule lecture (index résident) et une seule écriture,
+ * au lieu de N réécritures complètes du fichier.</p>
+ *
+ * <p>Exemple :
+ * <pre>{@code
+ * JsonStorage.apply(List.of(
+ *     Mutation.put("Alien", "envie"),
+ *     Mutation.remove("Dune"),
+ *     Mutation.removeStatus("pas_interesse")
+ * ));
+ * }</pre>
+ */
+public sealed interface Mutation permits Mutation.Put, Mutation.Remove, Mutation.RemoveStatus {
+
+    /**
+     * Ajoute ou met à jour un titre avec un statut (équivalent de {@code addOrUpdate}).
+     *
+     * @param title  titre du film
+     * @param status statut à appliquer
+     */
+    record Put(String title, String status) implements Mutation { }
+
+    /**
+     * Supprime physiquement un titre (équivalent de {@code remove}).
+     *
+     * @param title titre du film (insensible à la casse)
+     */
+    record Remove(String title) implements Mutation { }
+
+    /**
+     * Supprime toutes les entrées d’un statut (équivalent de {@code removeAllByStatus}).
+     *
+     * @param status statut ciblé (insensible à la casse)
+     */
+    record RemoveStatus(String status) implements Mutation { }
+
+    /**
+     * @param title  titre du film
+     * @param status statut à appliquer
+     * @return mutation d’ajout / mise à jour
+     */
+    static Mutation put(final String title, final String status) {
+        return new Put(title, status);
+    }
+
+    /**
+     * @param title titre à supprimer
+     * @return mutation de suppression
+     */
+    static Mutation remove(final String title) {
+        return new Remove(title);
+    }
+
+    /**
+     * @param status statut à vider
+     * @return mutation de suppression par statut
+     */
+    static Mutation removeStatus(final String status) {
+        return new RemoveStatus(status);
+    }
+}
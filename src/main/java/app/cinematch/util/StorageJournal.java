@@ -0,0 +1,366 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Moteur de stockage « journalisé » utilisé par {@link JsonStorage} lorsque
+ * {@code -Dcinematch.storage.journal=true}.
+ *
+ * <p>Le fichier {@code storage.json} devient un <i>snapshot</i> ; chaque mutation est
+ * ajoutée en fin de {@code storage.json.journal} sous la forme d’un petit enregistrement
+ * JSON (une ligne). L’état complet est rejoué une seule fois à l’ouverture puis conservé
+ * en mémoire : une mutation coûte donc un simple ajout en fin de fichier.</p>
+ *
+ * <p>Quand le journal dépasse un seuil, il est compacté en arrière-plan : le journal
+ * courant est renommé en {@code .journal.old}, le snapshot est réécrit hors verrou, puis
+ * l’ancien journal est supprimé. Rejouer {@code .old} sur un snapshot déjà à jour est
+ * idempotent, ce qui rend la compaction sûre en cas d’arrêt brutal.</p>
+ */
+final class StorageJournal {
+
+    /** Suffixe du journal courant. */
+    static final String JOURNAL_SUFFIX = ".journal";
+    /** Suffixe du journal en cours de compaction. */
+    static final String ROTATED_SUFFIX = ".journal.old";
+
+    private static final String OP_PUT = "put";
+    private static final String OP_DEL = "del";
+    private static final String OP_CLEAR = "clear";
+
+    /** Mapper JSON compact (une ligne par enregistrement). */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final File snapshotFile;
+    private final Path journalPath;
+    private final Path rotatedPath;
+    private final int compactThreshold;
+
+    /** État résident indexé (titre et statut). */
+    private final HistoryStore store = new HistoryStore();
+
+    /** Nombre d’enregistrements dans le journal courant. */
+    private int pending;
+    /** Vrai pendant une compaction (une seule à la fois). */
+    private boolean compacting;
+    /** Incrémenté à chaque remplacement complet : invalide une compaction en vol. */
+    private volatile long generation;
+    /** Sérialise les écritures du snapshot (compaction vs remplacement complet). */
+    private final Object snapshotLock = new Object();
+
+    /** Thread unique (démon) dédié à la compaction. */
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "cinematch-journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /**
+     * Enregistrement du journal.
+     *
+     * @param op          opération ({@code put}, {@code del} ou {@code clear})
+     * @param title       titre concerné ({@code put}/{@code del})
+     * @param status      statut ({@code put}/{@code clear})
+     * @param dateTimeIso horodatage ({@code put})
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record JournalRecord(String op, String title, String status, String dateTimeIso) { }
+
+    private StorageJournal(final File snapshotFile, final int compactThreshold) {
+        this.snapshotFile = snapshotFile;
+        this.journalPath = new File(snapshotFile.getPath() + JOURNAL_SUFFIX).toPath();
+        this.rotatedPath = new File(snapshotFile.getPath() + ROTATED_SUFFIX).toPath();
+        this.compactThreshold = Math.max(1, compactThreshold);
+    }
+
+    /**
+     * Ouvre le moteur et rejoue snapshot + journaux (une seule fois).
+     *
+     * @param snapshotFile     fichier snapshot ({@code storage.json})
+     * @param compactThreshold nombre d’enregistrements déclenchant une compaction
+     * @return moteur prêt à l’emploi
+     */
+    static StorageJournal open(final File snapshotFile, final int compactThreshold) {
+        final StorageJournal j = new StorageJournal(snapshotFile, compactThreshold);
+        j.replay();
+        return j;
+    }
+
+    /** @return fichier snapshot associé */
+    File snapshotFile() {
+        return snapshotFile;
+    }
+
+    /** @return copie des entrées courantes (ordre d’insertion) */
+    synchronized List<HistoryEntry> entries() {
+        return store.entries();
+    }
+
+    /**
+     * @param title titre (insensible à la casse)
+     * @return l’entrée correspondante, ou {@code null}
+     */
+    synchronized HistoryEntry get(final String title) {
+        return store.get(title);
+    }
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return titres du statut, par date décroissante
+     */
+    synchronized List<String> titlesByStatus(final String status) {
+        return store.titlesByStatus(status);
+    }
+
+    /**
+     * @param status statut (insensible à la casse)
+     * @return nombre d’entrées du statut
+     */
+    synchronized int countByStatus(final String status) {
+        return store.countByStatus(status);
+    }
+
+    /**
+     * Ajoute ou remplace l’entrée du même titre (insensible à la casse).
+     *
+     * @param entry entrée à enregistrer
+     * @throws IOException si l’ajout au journal échoue
+     */
+    synchronized void put(final HistoryEntry entry) throws IOException {
+        append(new JournalRecord(OP_PUT, entry.title(), entry.status(), entry.dateTimeIso()));
+        store.put(entry);
+    }
+
+    /**
+     * Supprime l’entrée du titre donné.
+     *
+     * @param title titre à supprimer
+     * @return {@code true} si une entrée a été supprimée
+     * @throws IOException si l’ajout au journal échoue
+     */
+    synchronized boolean remove(final String title) throws IOException {
+        if (store.get(title) == null) {
+            return false;
+        }
+        append(new JournalRecord(OP_DEL, title, null, null));
+        store.remove(title);
+        return true;
+    }
+
+    /**
+     * Supprime toutes les entrées d’un statut.
+     *
+     * @param status statut ciblé (insensible à la casse)
+     * @return nombre d’entrées supprimées
+     * @throws IOException si l’ajout au journal échoue
+     */
+    synchronized int removeAllByStatus(final String status) throws IOException {
+        if (store.countByStatus(status) == 0) {
+            return 0;
+        }
+        append(new JournalRecord(OP_CLEAR, null, status, null));
+        return store.removeAllByStatus(status);
+    }
+
+    /**
+     * Applique un lot : tous les enregistrements sont ajoutés au journal en une seule
+     * écriture, puis appliqués à l’index.
+     *
+     * @param mutations mutations (déjà filtrées des entrées vides)
+     * @param stamps    horodatage de chaque mutation (même taille que {@code mutations})
+     * @return nombre d’entrées affectées
+     * @throws IOException si l’ajout au journal échoue
+     */
+    synchronized int apply(final List<Mutation> mutations, final List<String> stamps) throws IOException {
+        final StringBuilder lines = new StringBuilder(mutations.size() * 96);
+        for (int i = 0; i < mutations.size(); i++) {
+            lines.append(MAPPER.writeValueAsString(toRecord(mutations.get(i), stamps.get(i)))).append('\n');
+        }
+        appendLines(lines.toString(), mutations.size());
+        int changed = 0;
+        for (int i = 0; i < mutations.size(); i++) {
+            changed += store.apply(mutations.get(i), stamps.get(i));
+        }
+        return changed;
+    }
+
+    /**
+     * Remplace tout l’état : réécrit le snapshot et vide le journal (synchrone).
+     *
+     * @param all nouvelles entrées
+     * @throws IOException si l’écriture échoue
+     */
+    synchronized void replaceAll(final List<HistoryEntry> all) throws IOException {
+        generation++;
+        store.clear();
+        for (HistoryEntry e : all) {
+            store.put(e);
+        }
+        synchronized (snapshotLock) {
+            writeSnapshot(store.entries());
+        }
+        Files.deleteIfExists(journalPath);
+        Files.deleteIfExists(rotatedPath);
+        pending = 0;
+    }
+
+    /** Arrête le thread de compaction (les données sont déjà sur disque). */
+    void close() {
+        compactor.shutdown();
+    }
+
+    // -------- internes
+
+    private void append(final JournalRecord rec) throws IOException {
+        appendLines(MAPPER.writeValueAsString(rec) + "\n", 1);
+    }
+
+    private void appendLines(final String lines, final int count) throws IOException {
+        final Path parent = journalPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.write(journalPath, lines.getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        pending += count;
+        if (pending >= compactThreshold && !compacting) {
+            compacting = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    /**
+     * Compaction : rotation du journal sous verrou, écriture du snapshot hors verrou.
+     */
+    void compact() {
+        final List<HistoryEntry> copy;
+        final long gen;
+        synchronized (this) {
+            try {
+                if (Files.exists(rotatedPath)) {
+                    // Compaction précédente interrompue : on la termine d’abord.
+                    synchronized (snapshotLock) {
+                        writeSnapshot(store.entries());
+                    }
+                    Files.deleteIfExists(rotatedPath);
+                }
+                if (Files.exists(journalPath)) {
+                    Files.move(journalPath, rotatedPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                pending = 0;
+                gen = generation;
+                copy = store.entries();
+            } catch (IOException e) {
+                compacting = false;
+                JsonStorage.logErr("[JsonStorage] Échec de rotation du journal %s : %s%n",
+                        journalPath, e.getMessage());
+                return;
+            }
+        }
+        try {
+            synchronized (snapshotLock) {
+                if (gen != generation) {
+                    return; // un remplacement complet a déjà réécrit le snapshot
+                }
+                writeSnapshot(copy);
+            }
+            Files.deleteIfExists(rotatedPath);
+        } catch (IOException e) {
+            JsonStorage.logErr("[JsonStorage] Échec de compaction du journal %s : %s%n",
+                    journalPath, e.getMessage());
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    private void writeSnapshot(final List<HistoryEntry> all) throws IOException {
+        AtomicFiles.write(snapshotFile, out -> MAPPER.writeValue(out, all));
+    }
+
+    private void replay() {
+        for (HistoryEntry e : JsonStorage.readFile(snapshotFile)) {
+            store.put(e);
+        }
+        replayJournal(rotatedPath);
+        pending = replayJournal(journalPath);
+    }
+
+    /** Rejoue un journal ; une dernière ligne tronquée (crash) est ignorée. */
+    private int replayJournal(final Path path) {
+        if (!Files.isRegularFile(path)) {
+            return 0;
+        }
+        int n = 0;
+        try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                final JournalRecord rec;
+                try {
+                    rec = MAPPER.readValue(line, JournalRecord.class);
+                } catch (IOException e) {
+                    continue;
+                }
+                applyRecord(rec);
+                n++;
+            }
+        } catch (IOException e) {
+            JsonStorage.logErr("[JsonStorage] Journal illisible %s : %s%n", path, e.getMessage());
+        }
+        return n;
+    }
+
+    private static JournalRecord toRecord(final Mutation m, final String stamp) {
+        if (m instanceof Mutation.Put p) {
+            return new JournalRecord(OP_PUT, p.title(), p.status(), stamp);
+        }
+        if (m instanceof Mutation.Remove r) {
+            return new JournalRecord(OP_DEL, r.title(), null, null);
+        }
+        final Mutation.RemoveStatus rs = (Mutation.RemoveStatus) m;
+        return new JournalRecord(OP_CLEAR, null, rs.status(), null);
+    }
+
+    private void applyRecord(final JournalRecord rec) {
+        if (rec.op() == null) {
+            return;
+        }
+        switch (rec.op()) {
+            case OP_PUT -> {
+                if (rec.title() != null) {
+                    store.put(new HistoryEntry(rec.title(), rec.status(), rec.dateTimeIso()));
+                }
+            }
+            case OP_DEL -> {
+                if (rec.title() != null) {
+                    store.remove(rec.title());
+                }
+            }
+            case OP_CLEAR -> {
+                if (rec.status() != null) {
+                    store.removeAllByStatus(rec.status());
+                }
+            }
+            default -> {
+                // opération inconnue : ignorée (compatibilité ascendante)
+            }
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package app.cinematch.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verrou inter-processus d’un fichier de stockage, posé sur le fichier voisin
+ * {@code <fichier>.lock} via {@link FileChannel#lock()}.
+ *
+ * <p>Le verrou est d’abord pris dans la JVM (un {@link ReentrantLock} par chemin : la JVM
+ * refuse deux {@link FileLock} sur le même fichier), puis au niveau du système. Il est
+ * réentrant pour un même thread ; seul le premier niveau ouvre et verrouille le fichier.</p>
+ *
+ * <p>Le fichier de verrou porte aussi un compteur de génération (8 octets), incrémenté par
+ * chaque écrivain : un processus le compare à la génération qu’il a chargée pour savoir,
+ * sans relire le stockage, si un autre processus l’a modifié. Si le fichier de verrou ne
+ * peut pas être créé (ex. répertoire en lecture seule), seul le verrou JVM est pris et la
+ * génération est inconnue ({@link #UNKNOWN}).</p>
+ */
+final class StorageLock implements AutoCloseable {
+
+    /** Suffixe du fichier de verrou. */
+    static final String LOCK_SUFFIX = ".lock";
+    /** Génération inconnue (verrou système indisponible). */
+    static final long UNKNOWN = -1L;
+
+    /** Verrou JVM et canal ouvert par chemin de stockage. */
+    private static final Map<Path, Holder> HOLDERS = new ConcurrentHashMap<>();
+
+    private static final class Holder {
+        final ReentrantLock jvm = new ReentrantLock();
+        FileChannel channel;
+        FileLock lock;
+    }
+
+    private final Holder holder;
+
+    private StorageLock(final Holder holder) {
+        this.holder = holder;
+    }
+
+    /**
+     * Prend le verrou du fichier de stockage (bloquant).
+     *
+     * @param dataFile fichier de stockage protégé
+     * @return le verrou, à fermer (try-with-resources)
+     */
+    static StorageLock acquire(final File dataFile) {
+        final Path target = dataFile.toPath().toAbsolutePath().normalize();
+        final Holder h = HOLDERS.computeIfAbsent(target, p -> new Holder());
+        h.jvm.lock();
+        if (h.jvm.getHoldCount() == 1) {
+            try {
+                final Path parent = target.getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                h.channel = FileChannel.open(target.resolveSibling(target.getFileName() + LOCK_SUFFIX),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                h.lock = h.channel.lock();
+            } catch (IOException e) {
+                closeChannel(h);
+                JsonStorage.logErr("[JsonStorage] Verrou de %s indisponible (%s) : accès non protégé "
+                        + "entre processus%n", target, e.getMessage());
+            }
+        }
+        return new StorageLock(h);
+    }
+
+    /**
+     * @return génération courante du stockage, ou {@link #UNKNOWN}
+     */
+    long generation() {
+        if (holder.lock == null) {
+            return UNKNOWN;
+        }
+        try {
+            final ByteBuffer buf = ByteBuffer.allocate(Long.BYTES);
+            while (buf.hasRemaining() && holder.channel.read(buf, buf.position()) > 0) {
+                // lecture des 8 octets
+            }
+            return buf.hasRemaining() ? 0L : buf.getLong(0);
+        } catch (IOException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Signale une écriture du stockage aux autres processus.
+     *
+     * @return nouvelle génération, ou {@link #UNKNOWN}
+     */
+    long bumpGeneration() {
+        final long current = generation();
+        if (current == UNKNOWN) {
+            return UNKNOWN;
+        }
+        final long next = current + 1;
+        try {
+            final ByteBuffer buf = ByteBuffer.allocate(Long.BYTES).putLong(0, next);
+            while (buf.hasRemaining()) {
+                holder.channel.write(buf, buf.position());
+            }
+            return next;
+        } catch (IOException e) {
+            return UNKNOWN;
+        }
+    }
+
+    /** Relâche le verrou (le verrou système au dernier niveau seulement). */
+    @Override
+    public void close() {
+        try {
+            if (holder.jvm.getHoldCount() == 1) {
+                closeChannel(holder);
+            }
+        } finally {
+            holder.jvm.unlock();
+        }
+    }
+
+    private static void closeChannel(final Holder h) {
+        try {
+            if (h.lock != null) {
+                h.lock.release();
+            }
+        } catch (IOException ignored) {
+            // la fermeture du canal libère aussi le verrou
+        }
+        try {
+            if (h.channel != null) {
+                h.channel.close();
+            }
+        } catch (IOException ignored) {
+            // rien à faire
+        }
+        h.lock = null;
+        h.channel = null;
+    }
+}
@@ -0,0 +1,344 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import app.cinematch.model.Timestamps;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Lecture / écriture en flux ({@link JsonParser} / {@link JsonGenerator}) du fichier
+ * d’historique, utilisée par {@link JsonStorage} avec {@code -Dcinematch.storage.mode=streaming}.
+ *
+ * <p>Les entrées sont filtrées pendant le parsing : une requête par statut ou par titre
+ * ne matérialise jamais la liste complète (mémoire proportionnelle au résultat, constante
+ * pour un comptage). Les mutations réécrivent le fichier entrée par entrée vers un fichier
+ * temporaire, puis le remplacent atomiquement ({@link AtomicFiles}). La sortie est compacte
+ * (sans indentation).</p>
+ *
+ * <p>Les titres sont supposés uniques dans le fichier (c’est le cas de tout fichier écrit
+ * par {@link JsonStorage}) ; aucun dédoublonnage n’est fait pendant le flux.</p>
+ */
+final class StreamingHistory {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+
+    private static final String F_TITLE = "title";
+    private static final String F_STATUS = "status";
+    private static final String F_DATE = "dateTimeIso";
+
+    /**
+     * Entrée retenue avec sa date en nanosecondes ({@link Timestamps#NONE} si absente) et sa
+     * position (départage des dates égales, comme {@link HistoryStore}).
+     */
+    private record Hit(String title, long time, long seq) { }
+
+    /** Date décroissante (dates absentes en dernier), puis ordre du fichier. */
+    private static final Comparator<Hit> BY_DATE_DESC = (a, b) -> a.time() != b.time()
+            ? Long.compare(b.time(), a.time())
+            : Long.compare(a.seq(), b.seq());
+
+    /** Premier événement d’un lot touchant un titre du fichier : remplacement ou suppression. */
+    private record Touch(int index, boolean removal) { }
+
+    private StreamingHistory() {
+    }
+
+    /**
+     * Lit toutes les entrées (seule opération qui matérialise la liste complète).
+     *
+     * @return entrées, ou liste vide si absent/illisible
+     */
+    static List<HistoryEntry> readAll(final File file) {
+        return query(file, f -> {
+            final List<HistoryEntry> out = new ArrayList<>();
+            scan(f, out::add);
+            return out;
+        }, new ArrayList<>());
+    }
+
+    /**
+     * Titres d’un statut, triés par date décroissante, filtrés pendant le parsing.
+     *
+     * @param status statut (insensible à la casse)
+     * @return titres, ou liste vide si absent/illisible
+     */
+    static List<String> titlesByStatus(final File file, final String status) {
+        final List<Hit> hits = query(file, f -> {
+            final List<Hit> out = new ArrayList<>();
+            final long[] seq = {0L};
+            scan(f, e -> {
+                if (sameKey(e.status(), status)) {
+                    out.add(new Hit(e.title(), e.epochNanos(), seq[0]++));
+                }
+            });
+            return out;
+        }, new ArrayList<>());
+        hits.sort(BY_DATE_DESC);
+        final List<String> out = new ArrayList<>(hits.size());
+        for (Hit h : hits) {
+            out.add(h.title());
+        }
+        return out;
+    }
+
+    /**
+     * Compte les entrées d’un statut en mémoire constante.
+     *
+     * @return nombre d’entrées, 0 si absent/illisible
+     */
+    static int countByStatus(final File file, final String status) {
+        return query(file, f -> {
+            final int[] n = {0};
+            scan(f, e -> {
+                if (sameKey(e.status(), status)) {
+                    n[0]++;
+                }
+            });
+            return n[0];
+        }, 0);
+    }
+
+    /**
+     * Recherche un titre pendant le parsing.
+     *
+     * @return l’entrée (la dernière en cas de doublon), ou {@code null}
+     */
+    static HistoryEntry find(final File file, final String title) {
+        return query(file, f -> {
+            final HistoryEntry[] found = {null};
+            scan(f, e -> {
+                if (sameKey(e.title(), title)) {
+                    found[0] = e;
+                }
+            });
+            return found[0];
+        }, null);
+    }
+
+    /**
+     * Écrit la liste complète en JSON compact (écriture atomique, voir {@link AtomicFiles}).
+     */
+    static void writeAll(final File file, final List<HistoryEntry> all) throws IOException {
+        AtomicFiles.write(file, out -> {
+            try (JsonGenerator g = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                g.writeStartArray();
+                for (HistoryEntry e : all) {
+                    write(g, e);
+                }
+                g.writeEndArray();
+            }
+        });
+    }
+
+    /**
+     * Réécrit le fichier en flux : conserve les entrées acceptées par {@code keep},
+     * puis ajoute {@code append} en fin. Un fichier illisible est remplacé par sa
+     * sauvegarde {@code .bak} comme source (ou traité comme vide si elle l’est aussi).
+     *
+     * @return nombre d’entrées de la source écartées
+     */
+    static int rewrite(final File file, final Predicate<HistoryEntry> keep,
+                       final List<HistoryEntry> append) throws IOException {
+        try {
+            return copy(file, file, keep, append);
+        } catch (JsonProcessingException corrupt) {
+            try {
+                return copy(AtomicFiles.backupOf(file), file, keep, append);
+            } catch (JsonProcessingException backupCorrupt) {
+                return copy(null, file, keep, append);
+            }
+        }
+    }
+
+    /**
+     * Applique un lot en une seule passe de réécriture. Seules les mutations du lot sont
+     * gardées en mémoire (index {@link HistoryStore} des ajouts + premiers événements par titre / statut).
+     *
+     * @param stamps horodatage de chaque mutation (même taille que {@code mutations})
+     * @return nombre d’entrées affectées (mêmes règles que {@link HistoryStore#apply})
+     */
+    static int apply(final File file, final List<Mutation> mutations,
+                     final List<String> stamps) throws IOException {
+        final HistoryStore overlay = new HistoryStore();
+        final Map<String, Touch> titles = new HashMap<>();
+        final Map<String, Integer> cleared = new HashMap<>();
+        int changed = 0;
+        for (int i = 0; i < mutations.size(); i++) {
+            final Mutation m = mutations.get(i);
+            changed += overlay.apply(m, stamps.get(i));
+            if (m instanceof Mutation.Put p) {
+                titles.putIfAbsent(key(p.title()), new Touch(i, false));
+            } else if (m instanceof Mutation.Remove r) {
+                titles.putIfAbsent(key(r.title()), new Touch(i, true));
+            } else if (m instanceof Mutation.RemoveStatus rs) {
+                cleared.putIfAbsent(key(rs.status()), i);
+            }
+        }
+
+        final int[] removedFromFile = {0};
+        rewrite(file, e -> {
+            final Touch t = titles.get(key(e.title()));
+            final Integer c = cleared.get(key(e.status()));
+            if (t == null && c == null) {
+                return true;
+            }
+            // compté si d’abord supprimé (par titre ou statut), pas s’il est d’abord remplacé
+            final boolean clearedFirst = c != null && (t == null || c < t.index());
+            if (clearedFirst || t.removal()) {
+                removedFromFile[0]++;
+            }
+            return false;
+        }, overlay.entries());
+        return changed + removedFromFile[0];
+    }
+
+    // -------- internes
+
+    /**
+     * Parcourt le tableau JSON et émet chaque entrée ; les champs inconnus sont ignorés.
+     * Fichier absent ou vide : aucune entrée.
+     *
+     * @throws IOException si le fichier est illisible ou n’est pas un tableau d’objets
+     */
+    private static void scan(final File file, final Consumer<HistoryEntry> sink) throws IOException {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        try (JsonParser p = FACTORY.createParser(file)) {
+            final JsonToken first = p.nextToken();
+            if (first == null) {
+                return;
+            }
+            if (first != JsonToken.START_ARRAY) {
+                throw new JsonParseException(p, "Tableau JSON attendu");
+            }
+            JsonToken t;
+            while ((t = p.nextToken()) == JsonToken.START_OBJECT) {
+                sink.accept(readEntry(p));
+            }
+            if (t != JsonToken.END_ARRAY) {
+                throw new JsonParseException(p, "Objet JSON attendu");
+            }
+        }
+    }
+
+    private static HistoryEntry readEntry(final JsonParser p) throws IOException {
+        String title = null;
+        String status = null;
+        String date = null;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            final String name = p.currentName();
+            final JsonToken v = p.nextToken();
+            if (v.isScalarValue()) {
+                final String text = v == JsonToken.VALUE_NULL ? null : p.getText();
+                switch (name) {
+                    case F_TITLE -> title = text;
+                    case F_STATUS -> status = text;
+                    case F_DATE -> date = text;
+                    default -> { }
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new HistoryEntry(title, status, date);
+    }
+
+    private static int copy(final File source, final File target, final Predicate<HistoryEntry> keep,
+                            final List<HistoryEntry> append) throws IOException {
+        final int[] dropped = {0};
+        try {
+            AtomicFiles.write(target, out -> {
+                try (JsonGenerator g = FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+                    g.writeStartArray();
+                    scan(source, e -> {
+                        if (keep.test(e)) {
+                            writeUnchecked(g, e);
+                        } else {
+                            dropped[0]++;
+                        }
+                    });
+                    for (HistoryEntry e : append) {
+                        write(g, e);
+                    }
+                    g.writeEndArray();
+                }
+            });
+        } catch (UncheckedWrite w) {
+            throw w.io;
+        }
+        return dropped[0];
+    }
+
+    private static void write(final JsonGenerator g, final HistoryEntry e) throws IOException {
+        g.writeStartObject();
+        g.writeStringField(F_TITLE, e.title());
+        g.writeStringField(F_STATUS, e.status());
+        g.writeStringField(F_DATE, e.dateTimeIso());
+        g.writeEndObject();
+    }
+
+    private static void writeUnchecked(final JsonGenerator g, final HistoryEntry e) {
+        try {
+            write(g, e);
+        } catch (IOException ex) {
+            throw new UncheckedWrite(ex);
+        }
+    }
+
+    /** Transporte une erreur d’écriture hors du {@link Consumer} de parcours. */
+    private static final class UncheckedWrite extends RuntimeException {
+        private final IOException io;
+
+        UncheckedWrite(final IOException io) {
+            super(io);
+            this.io = io;
+        }
+    }
+
+    /** Requête sur le fichier ; s’il est illisible, sur sa sauvegarde {@code .bak}. */
+    private static <T> T query(final File file, final Query<T> q, final T empty) {
+        try {
+            return q.run(file);
+        } catch (IOException e) {
+            final File bak = AtomicFiles.backupOf(file);
+            if (bak.isFile()) {
+                try {
+                    return q.run(bak);
+                } catch (IOException ignored) {
+                    // sauvegarde illisible aussi
+                }
+            }
+            return empty;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Query<T> {
+        T run(File file) throws IOException;
+    }
+
+    private static boolean sameKey(final String a, final String b) {
+        return key(a).equals(key(b));
+    }
+
+    private static String key(final String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
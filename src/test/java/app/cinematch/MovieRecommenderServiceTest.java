@@ -8,6 +8,7 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Set;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
@@ -24,7 +25,7 @@ public class MovieRecommenderServiceTest {
      * - N'appelle jamais le réseau
      * - Défile les réponses simulées dans RESPONSES
      */
-    private static final class FakeOllamaClient extends OllamaClient {
+    private static class FakeOllamaClient extends OllamaClient {
         static final Deque<String> RESPONSES = new ArrayDeque<>();
 
         FakeOllamaClient() {
@@ -178,6 +179,63 @@ public class MovieRecommenderServiceTest {
                 .contains(result.platform()));
     }
 
+    @Test
+    void givenJsonArray_whenRecommendBatch_thenFiltersExcludedAndDuplicatesAndCaps() {
+        // GIVEN : un tableau de 5 propositions, dont un titre exclu et un doublon (casse différente).
+        FakeOllamaClient.RESPONSES.add("""
+        Voici mes idées :
+        [
+          {"title":"Heat","pitch":"Polar","platform":"Netflix"},
+          {"title":"Alien","pitch":"Huis clos","year":"1979"},
+          {"title":"heat ","pitch":"Doublon"},
+          {"title":"Drive","pitch":"Néon","platform":"MUBI"},
+          {"title":"Fargo","pitch":"Neige"}
+        ]
+        """);
+        final MovieRecommenderService service = newService();
+
+        // WHEN : on demande 2 propositions en excluant "ALIEN".
+        final java.util.List<Recommendation> batch = service.recommendBatch(2, Set.of("ALIEN"));
+
+        // THEN : un seul appel, exclusions et doublons filtrés localement, taille bornée.
+        assertEquals(java.util.List.of("Heat", "Drive"), batch.stream().map(Recommendation::title).toList());
+        assertEquals("Netflix", batch.get(0).platform());
+        assertTrue(FakeOllamaClient.RESPONSES.isEmpty());
+    }
+
+    @Test
+    void givenSingleObject_whenRecommendBatch_thenFallsBackToSingleParse() {
+        // GIVEN : le modèle ignore la consigne et renvoie un seul objet.
+        FakeOllamaClient.RESPONSES.add("{\"title\":\"Alien\",\"pitch\":\"Huis clos\",\"year\":\"1979\"}");
+        final MovieRecommenderService service = newService();
+
+        // WHEN
+        final java.util.List<Recommendation> batch = service.recommendBatch(3, null);
+
+        // THEN : une proposition, mêmes fallbacks que recommendRandom().
+        assertEquals(1, batch.size());
+        assertEquals("Alien", batch.get(0).title());
+        assertEquals("Huis clos — année suggérée : 1979", batch.get(0).reason());
+    }
+
+    @Test
+    void givenLikedTitleInAnswer_whenRecommendBatchFromLike_thenExcludedAndSuffixAdded() {
+        // GIVEN : le modèle repropose le film aimé parmi ses idées.
+        FakeOllamaClient.RESPONSES.add("""
+        [{"title":"Interstellar","pitch":"Le même"},
+         {"title":"Contact","pitch":"Signal venu des étoiles","platform":"Max"}]
+        """);
+        final MovieRecommenderService service = newService();
+
+        // WHEN
+        final java.util.List<Recommendation> batch = service.recommendBatchFromLike("Interstellar", 5, Set.of());
+
+        // THEN : le film aimé est écarté, le pitch fait le lien avec lui.
+        assertEquals(1, batch.size());
+        assertEquals("Contact", batch.get(0).title());
+        assertTrue(batch.get(0).reason().endsWith("Inspiré de Interstellar"));
+    }
+
     @Test
     void givenMovieTitle_whenGenerateDescription_thenReturnsOllamaResponse() {
         // GIVEN : l’IA renvoie une courte description.
@@ -191,6 +249,84 @@ public class MovieRecommenderServiceTest {
         assertEquals("Une description immersive.", description);
     }
 
+    @Test
+    void givenSameTitleTwice_whenGenerateDescription_thenModelCalledOnceAndCacheHit() {
+        // GIVEN : une seule réponse disponible côté IA.
+        FakeOllamaClient.RESPONSES.add("Une description immersive.");
+        final MovieRecommenderService service = newService();
+
+        // WHEN : on redemande la description avec une casse/des espaces différents.
+        final String first = service.generateDescription("Parasite");
+        final String second = service.generateDescription("  PARASITE ");
+
+        // THEN : la seconde vient du cache (la file de réponses est déjà vide).
+        assertEquals("Une description immersive.", first);
+        assertEquals(first, second);
+        assertEquals(1, service.descriptionCache().hits());
+        assertEquals(1, service.descriptionCache().misses());
+    }
+
+    @Test
+    void givenCachedDescription_whenRegenerate_thenModelCalledAndCacheReplaced() {
+        // GIVEN : une description déjà en cache.
+        FakeOllamaClient.RESPONSES.add("Première description.");
+        FakeOllamaClient.RESPONSES.add("Nouvelle description.");
+        final MovieRecommenderService service = newService();
+        service.generateDescription("Parasite");
+
+        // WHEN : on demande explicitement une nouvelle description.
+        final String regenerated = service.regenerateDescription("Parasite");
+
+        // THEN : l’IA est réinterrogée et la nouvelle version remplace l’ancienne.
+        assertEquals("Nouvelle description.", regenerated);
+        assertEquals("Nouvelle description.", service.generateDescription("Parasite"));
+    }
+
+    @Test
+    void givenInterruptedStream_whenGenerateDescriptionStream_thenPartialTextNotCached() {
+        // GIVEN : un flux coupé par l’interruption du thread appelant, puis une vraie réponse.
+        FakeOllamaClient.RESPONSES.add("Description complète.");
+        final OllamaClient interrupted = new FakeOllamaClient() {
+            @Override
+            public String chatStream(final String system, final String user, final Consumer<String> onToken) {
+                Thread.currentThread().interrupt();
+                return "Début tronqu";
+            }
+        };
+        final MovieRecommenderService service =
+                new MovieRecommenderService(interrupted, JsonStorageMock::addOrUpdate);
+
+        // WHEN
+        final String partial;
+        try {
+            partial = service.generateDescriptionStream("Parasite", null);
+        } finally {
+            Thread.interrupted();
+        }
+
+        // THEN : le texte partiel est rendu mais pas gardé ; la demande suivante interroge l’IA.
+        assertEquals("Début tronqu", partial);
+        assertEquals(0, service.descriptionCache().size());
+        assertEquals("Description complète.", service.generateDescription("Parasite"));
+    }
+
+    @Test
+    void givenErrorResponse_whenGenerateDescription_thenNotCached() {
+        // GIVEN : une erreur du client, puis une vraie réponse.
+        FakeOllamaClient.RESPONSES.add("[Erreur Ollama] timeout");
+        FakeOllamaClient.RESPONSES.add("Enfin une description.");
+        final MovieRecommenderService service = newService();
+
+        // WHEN
+        final String first = service.generateDescription("Alien");
+        final String second = service.generateDescription("Alien");
+
+        // THEN : l’erreur n’a pas été gardée, le second appel interroge l’IA.
+        assertEquals("[Erreur Ollama] timeout", first);
+        assertEquals("Enfin une description.", second);
+        assertEquals(0, service.descriptionCache().hits());
+    }
+
     @Test
     void givenTitleAndStatus_whenMark_thenDelegatesToJsonStorage() {
         // GIVEN : service avec un sink mock (JsonStorageMock).
@@ -0,0 +1,178 @@
+package app.cinematch;
+
+import app.cinematch.model.Recommendation;
+import app.cinematch.util.HistoryRepository;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests de RecommendationPrefetcher.
+ * Exécuteur synchrone : le remplissage a lieu pendant l'appel à next(), sans attente.
+ */
+final class RecommendationPrefetcherTest {
+
+    private MovieRecommenderService service;
+    private HistoryRepository repo;
+    private RecommendationPrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        service = mock(MovieRecommenderService.class);
+        repo = mock(HistoryRepository.class);
+        when(repo.getByStatus("envie")).thenReturn(List.of());
+        when(service.generateDescription(anyString())).thenAnswer(inv -> "Desc " + inv.getArgument(0));
+        prefetcher = new RecommendationPrefetcher(service, repo, 2, Runnable::run);
+    }
+
+    private static Recommendation rec(final String title) {
+        return new Recommendation(title, "raison", "Netflix", null);
+    }
+
+    @Test
+    @DisplayName("File vide : un seul lot sert la demande et remplit la file")
+    void coldStart_oneBatchServesAndFills() throws Exception {
+        // GIVEN un lot de trois propositions
+        when(service.recommendBatch(anyInt(), any())).thenReturn(List.of(rec("A"), rec("B"), rec("C")));
+
+        // WHEN on demande la première
+        final RecommendationPrefetcher.Prepared first = prefetcher.next().get();
+
+        // THEN A servie sans description ; B et C prêtes avec la leur ; un seul appel, pour 3 places
+        assertEquals("A", first.recommendation().title());
+        assertNull(first.description());
+        assertEquals(2, prefetcher.readyCount());
+        verify(service, times(1)).recommendBatch(eq(3), any());
+        verify(service, never()).generateDescription("A");
+    }
+
+    @Test
+    @DisplayName("File pleine : la suivante est immédiate et déjà décrite")
+    void warm_nextIsImmediateWithDescription() throws Exception {
+        // GIVEN une file remplie
+        when(service.recommendBatch(anyInt(), any()))
+                .thenReturn(List.of(rec("A"), rec("B"), rec("C")), List.of(rec("D")));
+        prefetcher.next().get();
+
+        // WHEN on demande la suivante
+        final CompletableFuture<RecommendationPrefetcher.Prepared> next = prefetcher.next();
+
+        // THEN futur déjà complété, description comprise, et la file est complétée
+        assertTrue(next.isDone());
+        assertEquals("B", next.get().recommendation().title());
+        assertEquals("Desc B", next.get().description());
+        assertEquals(2, prefetcher.readyCount());
+    }
+
+    @Test
+    @DisplayName("Exclusions transmises au service : « envie », file prête et dernier servi")
+    void batch_receivesExclusions() throws Exception {
+        // GIVEN W en envie, A servie, B et C prêtes
+        when(repo.getByStatus("envie")).thenReturn(List.of("W"));
+        when(service.recommendBatch(anyInt(), any()))
+                .thenReturn(List.of(rec("A"), rec("B"), rec("C")), List.of(rec("D")));
+        prefetcher.next().get();
+
+        // WHEN on consomme B (une place se libère)
+        prefetcher.next().get();
+
+        // THEN le lot suivant exclut le dernier servi, la file et la wishlist
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<Set<String>> excl = ArgumentCaptor.forClass(Set.class);
+        verify(service, times(2)).recommendBatch(anyInt(), excl.capture());
+        assertTrue(excl.getValue().containsAll(Set.of("b", "C", "W")));
+    }
+
+    @Test
+    @DisplayName("Historique modifié : un titre passé en « envie » n'est jamais servi")
+    void historyChanged_dropsWishlistedTitles() throws Exception {
+        // GIVEN B et C prêtes
+        when(service.recommendBatch(anyInt(), any()))
+                .thenReturn(List.of(rec("A"), rec("B"), rec("C")), List.of(rec("D"), rec("E")));
+        prefetcher.next().get();
+
+        // WHEN B passe en « envie »
+        when(repo.getByStatus("envie")).thenReturn(List.of("B"));
+        prefetcher.historyChanged();
+
+        // THEN la suivante est C, pas B
+        assertEquals("C", prefetcher.next().get().recommendation().title());
+    }
+
+    @Test
+    @DisplayName("Doublons ignorés pendant le remplissage")
+    void fill_skipsDuplicates() throws Exception {
+        // GIVEN B proposé deux fois dans le même lot
+        when(service.recommendBatch(anyInt(), any())).thenReturn(List.of(rec("B"), rec("B"), rec("C"), rec("D")));
+
+        // WHEN on consomme trois recommandations
+        final String t1 = prefetcher.next().get().recommendation().title();
+        final String t2 = prefetcher.next().get().recommendation().title();
+        final String t3 = prefetcher.next().get().recommendation().title();
+
+        // THEN aucun doublon de B
+        assertEquals(List.of("B", "C", "D"), List.of(t1, t2, t3));
+    }
+
+    @Test
+    @DisplayName("Service en erreur : la demande échoue avec l'exception d'origine")
+    void serviceThrows_failsWaiter() {
+        // GIVEN un service qui jette
+        when(service.recommendBatch(anyInt(), any())).thenThrow(new RuntimeException("Boom"));
+
+        // WHEN / THEN
+        final ExecutionException ex = assertThrows(ExecutionException.class, () -> prefetcher.next().get());
+        assertEquals("Boom", ex.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Lots vides : abandon après MAX_ATTEMPTS, sans boucler")
+    void emptyBatches_giveUpAfterMaxAttempts() {
+        // GIVEN un service qui ne renvoie rien
+        when(service.recommendBatch(anyInt(), any())).thenReturn(List.of());
+
+        // WHEN on demande une recommandation
+        final CompletableFuture<RecommendationPrefetcher.Prepared> f = prefetcher.next();
+
+        // THEN échec, après exactement MAX_ATTEMPTS appels
+        assertTrue(f.isCompletedExceptionally());
+        verify(service, times(RecommendationPrefetcher.MAX_ATTEMPTS)).recommendBatch(anyInt(), any());
+    }
+
+    @Test
+    @DisplayName("Description en erreur : laissée à null pour être régénérée")
+    void errorDescription_isNotKept() throws Exception {
+        // GIVEN le modèle échoue sur les descriptions
+        when(service.recommendBatch(anyInt(), any())).thenReturn(List.of(rec("A"), rec("B"), rec("C")));
+        when(service.generateDescription(anyString())).thenReturn("[Erreur Ollama] timeout");
+        prefetcher.next().get();
+
+        // WHEN / THEN
+        assertNull(prefetcher.next().get().description());
+    }
+
+    @Test
+    @DisplayName("clear() vide la file ; close() refuse les demandes suivantes")
+    void clearAndClose() throws Exception {
+        // GIVEN une file remplie
+        when(service.recommendBatch(anyInt(), any())).thenReturn(List.of(rec("A"), rec("B"), rec("C")));
+        prefetcher.next().get();
+
+        // WHEN / THEN
+        prefetcher.clear();
+        assertEquals(0, prefetcher.readyCount());
+        prefetcher.close();
+        assertTrue(prefetcher.next().isCompletedExceptionally());
+    }
+}
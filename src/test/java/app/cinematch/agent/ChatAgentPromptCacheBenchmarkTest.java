@@ -0,0 +1,193 @@
+package app.cinematch.agent;
+
+import app.cinematch.api.OllamaClient;
+import app.cinematch.model.LlmMessage;
+import app.cinematch.model.LlmRequest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedConstruction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mesure de la réutilisation du cache de prompt d’Ollama par ChatAgent : une conversation où
+ * un film est « swipé » entre chaque tour, envoyée avec l’ancienne mise en page (listes
+ * complètes et historique dans le message système, reconstruit à chaque tour) puis avec la
+ * nouvelle (préfixe constant, bloc de goûts complété par la fin, historique en tours).
+ *
+ * <p>Le premier test, sans serveur, compare le nombre de caractères de chaque requête qui
+ * suivent son début commun avec la précédente (ce qu’Ollama doit réévaluer). Le second
+ * interroge un vrai Ollama et compare {@code prompt_eval_count} / {@code prompt_eval_duration}
+ * (tokens réellement évalués, hors cache) ; il est sauté sans
+ * {@code -Dcinematch.bench.ollama=http://localhost:11434} (modèle : {@code -Dcinematch.bench.model}).</p>
+ */
+final class ChatAgentPromptCacheBenchmarkTest {
+
+    private static final int LIBRARY = 300;
+    private static final int TURNS = 6;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    @DisplayName("Caractères à réévaluer par tour : nouvelle mise en page au moins 5 fois moins")
+    void sharedPrefix_newLayoutBeatsLegacy() throws Exception {
+        // GIVEN les requêtes des deux mises en page pour la même conversation
+        final List<String> legacy = serialize(legacyConversation());
+        final List<String> current = serialize(agentConversation());
+
+        // WHEN on mesure ce qui diffère du début de la requête précédente
+        final long legacyFresh = meanFreshChars(legacy);
+        final long currentFresh = meanFreshChars(current);
+
+        // THEN
+        System.out.printf("Caractères hors préfixe commun / tour : ancien %d, nouveau %d%n",
+                legacyFresh, currentFresh);
+        assertTrue(currentFresh * 5 < legacyFresh, currentFresh + " vs " + legacyFresh);
+    }
+
+    @Test
+    @DisplayName("Benchmark Ollama : moins de tokens évalués par tour avec le préfixe stable")
+    void ollama_promptEvalPerTurn() throws Exception {
+        final String url = System.getProperty("cinematch.bench.ollama");
+        assumeTrue(url != null && !url.isBlank(), "Benchmark sauté : -Dcinematch.bench.ollama absent.");
+        final String model = System.getProperty("cinematch.bench.model", "qwen2.5:7b-instruct");
+        final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        // GIVEN / WHEN les deux conversations rejouées tour par tour (cache vidé entre les deux)
+        final long[] legacy = replay(http, url, model, legacyConversation());
+        final long[] current = replay(http, url, model, agentConversation());
+
+        // THEN les tours suivant le premier évaluent moins de tokens
+        System.out.printf("Tokens évalués / tour (hors 1er) : ancien %d, nouveau %d%n", legacy[0], current[0]);
+        System.out.printf("Durée d'évaluation / tour (hors 1er) : ancien %d ms, nouveau %d ms%n",
+                legacy[1] / 1_000_000, current[1] / 1_000_000);
+        assertTrue(current[0] < legacy[0]);
+    }
+
+    // ---------- Conversations ----------
+
+    /** Titres vus, du plus récent au plus ancien comme {@link Memory#seen()}, après {@code swipes} ajouts. */
+    private static List<String> seenAfter(final int swipes) {
+        final List<String> out = new ArrayList<>();
+        for (int i = LIBRARY + swipes - 1; i >= 0; i--) {
+            out.add("Film numéro " + i);
+        }
+        return out;
+    }
+
+    /** Requêtes construites par ChatAgent, un film vu de plus avant chaque tour. */
+    private static List<List<LlmMessage>> agentConversation() {
+        final OllamaClient ollama = mock(OllamaClient.class);
+        when(ollama.chat(anyList())).thenAnswer(inv -> "Réponse au tour " + ((List<?>) inv.getArgument(0)).size());
+        final int[] turn = {0};
+        try (MockedConstruction<Memory> construction = mockConstruction(Memory.class,
+                (mem, ctx) -> when(mem.seen()).thenAnswer(inv -> seenAfter(turn[0])))) {
+            final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), new Memory());
+            for (turn[0] = 0; turn[0] < TURNS; turn[0]++) {
+                agent.ask("Question " + turn[0] + " : un film dans la même veine ?");
+            }
+        }
+        @SuppressWarnings("unchecked")
+        final ArgumentCaptor<List<LlmMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ollama, atLeastOnce()).chat(captor.capture());
+        return captor.getAllValues();
+    }
+
+    /** Requêtes de l’ancienne mise en page : tout dans le message système, reconstruit à chaque tour. */
+    private static List<List<LlmMessage>> legacyConversation() {
+        final ConversationMemory history = new ConversationMemory(6);
+        final List<List<LlmMessage>> out = new ArrayList<>();
+        for (int turn = 0; turn < TURNS; turn++) {
+            final String question = "Question " + turn + " : un film dans la même veine ?";
+            history.addUserMessage(question);
+            final String system = "Tu es un expert du cinéma francophone, spécialiste des recommandations personnalisées.\n"
+                    + "Tes réponses doivent toujours être en français, avec un ton naturel, amical et professionnel.\n\n"
+                    + "Voici les informations sur les goûts de l’utilisateur :\n"
+                    + "- Films déjà vus : " + String.join(", ", seenAfter(turn)) + "\n"
+                    + "- Films qu’il souhaite voir : aucun film enregistré\n"
+                    + "- Films qu’il n’aime pas : aucun film enregistré\n\n"
+                    + "Contexte récent de la conversation :\n" + history.toPromptString() + "\n\n"
+                    + "Rappelle-toi :\n"
+                    + "- Ne repropose jamais un film déjà vu ou non souhaité.\n"
+                    + "- Inspire-toi du contexte précédent pour rester cohérent.\n"
+                    + "- Réponds de façon fluide, ≤ 100 mots, sans répétition.\n";
+            out.add(List.of(new LlmMessage("system", system), new LlmMessage("user", question)));
+            history.addAssistantMessage("Réponse au tour " + (turn + 2));
+        }
+        return out;
+    }
+
+    // ---------- Mesures ----------
+
+    private static List<String> serialize(final List<List<LlmMessage>> conversation) throws Exception {
+        final List<String> out = new ArrayList<>();
+        for (List<LlmMessage> messages : conversation) {
+            out.add(MAPPER.writeValueAsString(messages));
+        }
+        return out;
+    }
+
+    /** Nombre moyen de caractères de chaque requête après le début commun avec la précédente. */
+    private static long meanFreshChars(final List<String> requests) {
+        long sum = 0;
+        for (int i = 1; i < requests.size(); i++) {
+            final String prev = requests.get(i - 1);
+            final String cur = requests.get(i);
+            int n = 0;
+            while (n < prev.length() && n < cur.length() && prev.charAt(n) == cur.charAt(n)) {
+                n++;
+            }
+            sum += cur.length() - n;
+        }
+        return sum / (requests.size() - 1);
+    }
+
+    /**
+     * Rejoue la conversation ; rend la moyenne, hors premier tour, de {@code prompt_eval_count}
+     * et de {@code prompt_eval_duration} (ns).
+     */
+    private static long[] replay(final HttpClient http, final String url, final String model,
+                                 final List<List<LlmMessage>> conversation) throws Exception {
+        post(http, url, model, List.of(new LlmMessage("user", "Bonjour")));
+        long count = 0;
+        long duration = 0;
+        for (int i = 0; i < conversation.size(); i++) {
+            final JsonNode res = post(http, url, model, conversation.get(i));
+            if (i > 0) {
+                count += res.path("prompt_eval_count").asLong();
+                duration += res.path("prompt_eval_duration").asLong();
+            }
+        }
+        final int n = conversation.size() - 1;
+        return new long[] {count / n, duration / n};
+    }
+
+    private static JsonNode post(final HttpClient http, final String url, final String model,
+                                 final List<LlmMessage> messages) throws Exception {
+        final String json = MAPPER.writeValueAsString(new LlmRequest(model, messages, false));
+        final HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(url + "/api/chat"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofMinutes(5))
+                .POST(HttpRequest.BodyPublishers.ofString(json, StandardCharsets.UTF_8))
+                .build();
+        return MAPPER.readTree(http.send(req, HttpResponse.BodyHandlers.ofString()).body());
+    }
+}
@@ -1,6 +1,8 @@
 package app.cinematch.agent;
 
 import app.cinematch.api.OllamaClient;
+import app.cinematch.model.LlmMessage;
+import app.cinematch.util.HistoryRepository;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -10,9 +12,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.MockedConstruction;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockConstruction;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -23,12 +29,11 @@ import static org.mockito.Mockito.when;
 final class ChatAgentTest {
 
     @Test
-    @DisplayName("ask() – listes vides -> texte 'aucun film enregistré'")
+    @DisplayName("ask() – listes vides -> 'aucun film enregistré' après le préfixe constant")
     void ask_returnsResponse_withEmptyLists_usesAucunFilm() {
         // Given: OllamaClient mock + Memory construit avec listes vides
         final OllamaClient ollama = mock(OllamaClient.class);
         final Profile initialProfile = mock(Profile.class);
-        final Memory ignored = new Memory();
 
         try (MockedConstruction<Memory> construction = mockConstruction(
                 Memory.class,
@@ -38,28 +43,27 @@ final class ChatAgentTest {
                     when(mockMem.notInterested()).thenReturn(Collections.emptyList());
                 })) {
 
-            final ChatAgent agent = new ChatAgent(ollama, initialProfile, ignored);
+            final ChatAgent agent = new ChatAgent(ollama, initialProfile, new Memory());
             final String userPrompt = "Des idées de films récents ?";
 
             // When: on appelle ask()
-            when(ollama.chat(org.mockito.Mockito.anyString(), org.mockito.Mockito.eq(userPrompt)))
-                    .thenReturn("Réponse IA");
+            when(ollama.chat(anyList())).thenReturn("Réponse IA");
             final String result = agent.ask(userPrompt);
 
-            // Then: le message système contient 3× 'aucun film enregistré'
-            final ArgumentCaptor<String> systemCaptor = ArgumentCaptor.forClass(String.class);
-            verify(ollama).chat(systemCaptor.capture(), org.mockito.Mockito.eq(userPrompt));
-            final String systemMsg = systemCaptor.getValue();
+            // Then: préfixe constant + une seule mention 'aucun film enregistré', question en dernier tour
+            final List<LlmMessage> sent = sentMessages(ollama);
+            final String systemMsg = sent.get(0).content();
 
-            final String marker = "aucun film enregistré";
-            final int count = countOccurrences(systemMsg, marker);
-            assertEquals(3, count, "Le message système doit contenir 3 fois 'aucun film enregistré'.");
+            assertEquals("system", sent.get(0).role());
+            assertTrue(systemMsg.startsWith(ChatAgent.SYSTEM_PREFIX));
+            assertEquals(1, countOccurrences(systemMsg, "aucun film enregistré"));
+            assertEquals(new LlmMessage("user", userPrompt), sent.get(sent.size() - 1));
             assertEquals("Réponse IA", result);
         }
     }
 
     @Test
-    @DisplayName("ask() – listes non vides -> jointure avec ', '")
+    @DisplayName("ask() – listes non vides -> une ligne par film, du plus ancien au plus récent")
     void ask_returnsResponse_withNonEmptyLists_joinsProperly() {
         // Given: OllamaClient mock + Memory construit avec données
         final OllamaClient ollama = mock(OllamaClient.class);
@@ -81,33 +85,213 @@ final class ChatAgentTest {
             final String userPrompt = "Propose-moi 3 films.";
 
             // When
-            when(ollama.chat(org.mockito.Mockito.anyString(), org.mockito.Mockito.eq(userPrompt)))
-                    .thenReturn("Réponse OK");
+            when(ollama.chat(anyList())).thenReturn("Réponse OK");
             agent.ask(userPrompt);
 
+            // Then: Memory donne le plus récent d'abord, le bloc l'inverse
+            final String systemMsg = sentMessages(ollama).get(0).content();
+
+            assertContains(systemMsg, "- déjà vu : La Haine\n- déjà vu : Le Fabuleux Destin d'Amélie Poulain\n");
+            assertContains(systemMsg, "- envie : Intouchables\n");
+            assertContains(systemMsg, "- pas intéressé : Les Tuche\n- pas intéressé : Sharknado\n");
+        }
+    }
+
+    @Test
+    @DisplayName("askStream() – flux classique : même prompt système, fragments transmis")
+    void askStream_usesChatStream_withSameSystemPrompt() {
+        // Given: OllamaClient mock qui émet deux fragments
+        final OllamaClient ollama = mock(OllamaClient.class);
+        final List<String> tokens = new java.util.ArrayList<>();
+
+        try (MockedConstruction<Memory> construction = mockConstruction(
+                Memory.class,
+                (mockMem, ctx) -> {
+                    when(mockMem.seen()).thenReturn(Collections.emptyList());
+                    when(mockMem.toWatch()).thenReturn(Collections.singletonList("Intouchables"));
+                    when(mockMem.notInterested()).thenReturn(Collections.emptyList());
+                })) {
+
+            final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), new Memory());
+            when(ollama.chatStream(anyList(), org.mockito.Mockito.any())).thenAnswer(inv -> {
+                        final java.util.function.Consumer<String> onToken = inv.getArgument(1);
+                        onToken.accept("Bon");
+                        onToken.accept("jour");
+                        return "Bonjour";
+                    });
+
+            // When
+            final String result = agent.askStream("Salut", tokens::add);
+
+            // Then
+            @SuppressWarnings("unchecked")
+            final ArgumentCaptor<List<LlmMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(ollama).chatStream(captor.capture(), org.mockito.Mockito.any());
+            assertContains(captor.getValue().get(0).content(), "Intouchables");
+            assertEquals(new LlmMessage("user", "Salut"), captor.getValue().get(1));
+            assertEquals(List.of("Bon", "jour"), tokens);
+            assertEquals("Bonjour", result);
+        }
+    }
+
+    @Test
+    @DisplayName("ask() – tours suivants : préfixe identique, historique en vrais tours user/assistant")
+    void ask_secondTurn_keepsPrefixAndSendsHistoryAsTurns() {
+        // Given
+        final OllamaClient ollama = mock(OllamaClient.class);
+        when(ollama.chat(anyList())).thenReturn("R1", "R2");
+
+        try (MockedConstruction<Memory> construction = mockConstruction(
+                Memory.class,
+                (mockMem, ctx) -> when(mockMem.seen()).thenReturn(List.of("La Haine")))) {
+
+            final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), new Memory());
+
+            // When
+            agent.ask("Q1");
+            agent.ask("Q2");
+
+            // Then
+            @SuppressWarnings("unchecked")
+            final ArgumentCaptor<List<LlmMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(ollama, times(2)).chat(captor.capture());
+            final List<LlmMessage> first = captor.getAllValues().get(0);
+            final List<LlmMessage> second = captor.getAllValues().get(1);
+
+            assertEquals(first.get(0), second.get(0));
+            assertEquals(List.of(
+                    first.get(0),
+                    new LlmMessage("user", "Q1"),
+                    new LlmMessage("assistant", "R1"),
+                    new LlmMessage("user", "Q2")), second);
+        }
+    }
+
+    @Test
+    @DisplayName("ask() – nouveau film : ajouté en fin de bloc, l'ancien texte reste un préfixe")
+    void ask_newTitle_isAppendedSoPreviousSystemIsPrefix() {
+        // Given: un film vu, puis un second (Memory : plus récent d'abord)
+        final OllamaClient ollama = mock(OllamaClient.class);
+        when(ollama.chat(anyList())).thenReturn("R");
+        final List<List<String>> seen = List.of(List.of("A", "B"), List.of("C", "A", "B"));
+        final int[] turn = {0};
+
+        try (MockedConstruction<Memory> construction = mockConstruction(
+                Memory.class,
+                (mockMem, ctx) -> when(mockMem.seen()).thenAnswer(inv -> seen.get(turn[0])))) {
+
+            final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), new Memory());
+
+            // When
+            agent.ask("Q1");
+            turn[0] = 1;
+            agent.ask("Q2");
+
             // Then
-            final ArgumentCaptor<String> systemCaptor = ArgumentCaptor.forClass(String.class);
-            verify(ollama).chat(systemCaptor.capture(), org.mockito.Mockito.eq(userPrompt));
-            final String systemMsg = systemCaptor.getValue();
+            @SuppressWarnings("unchecked")
+            final ArgumentCaptor<List<LlmMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(ollama, times(2)).chat(captor.capture());
+            final String before = captor.getAllValues().get(0).get(0).content();
+            final String after = captor.getAllValues().get(1).get(0).content();
 
-            assertContains(systemMsg, "Le Fabuleux Destin d'Amélie Poulain, La Haine");
-            assertContains(systemMsg, "Intouchables");
-            assertContains(systemMsg, "Sharknado, Les Tuche");
+            assertEquals(before + "- déjà vu : C\n", after);
         }
     }
 
     @Test
-    @DisplayName("getMemory() – renvoie une nouvelle instance (pas de fuite d'état)")
-    void getMemory_returnsNewInstanceEachTime() {
+    @DisplayName("ask() – film changé de statut : bloc reconstruit, sans ligne périmée")
+    void ask_statusChange_rebuildsBlock() {
+        // Given: A en envie, puis A vu
+        final OllamaClient ollama = mock(OllamaClient.class);
+        when(ollama.chat(anyList())).thenReturn("R");
+        final int[] turn = {0};
+
+        try (MockedConstruction<Memory> construction = mockConstruction(
+                Memory.class,
+                (mockMem, ctx) -> {
+                    when(mockMem.toWatch()).thenAnswer(inv -> turn[0] == 0 ? List.of("A") : List.of());
+                    when(mockMem.seen()).thenAnswer(inv -> turn[0] == 0 ? List.of() : List.of("A"));
+                })) {
+
+            final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), new Memory());
+
+            // When
+            agent.ask("Q1");
+            turn[0] = 1;
+            agent.ask("Q2");
+
+            // Then
+            @SuppressWarnings("unchecked")
+            final ArgumentCaptor<List<LlmMessage>> captor = ArgumentCaptor.forClass(List.class);
+            verify(ollama, times(2)).chat(captor.capture());
+            assertEquals(ChatAgent.SYSTEM_PREFIX + "- déjà vu : A\n",
+                    captor.getAllValues().get(1).get(0).content());
+        }
+    }
+
+    @Test
+    @DisplayName("ask() – Memory injectée : le bloc de goûts vient de son dépôt")
+    void ask_usesInjectedMemoryRepository() {
+        // Given: un dépôt bouchonné (ex. H2) derrière la Memory fournie
+        final OllamaClient ollama = mock(OllamaClient.class);
+        when(ollama.chat(anyList())).thenReturn("R");
+        final HistoryRepository repo = mock(HistoryRepository.class);
+        when(repo.getByStatus("deja_vu")).thenReturn(List.of("Le Samouraï"));
+        when(repo.getByStatus("envie")).thenReturn(List.of("Heat"));
+        when(repo.getByStatus("pas_interesse")).thenReturn(List.of());
+        final Memory memory = new Memory(repo);
+
+        final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), memory);
+
+        // When
+        agent.ask("Une idée ?");
+
+        // Then: le prompt système est construit à partir de ce dépôt
+        final String systemMsg = sentMessages(ollama).get(0).content();
+        assertContains(systemMsg, "- déjà vu : Le Samouraï\n");
+        assertContains(systemMsg, "- envie : Heat\n");
+        verify(repo, org.mockito.Mockito.atLeastOnce()).getByStatus("deja_vu");
+        assertSame(memory, agent.getMemory());
+    }
+
+    @Test
+    @DisplayName("askStream() – avec délégué : réponse transmise d’un bloc")
+    void askStream_withDelegate_emitsWholeAnswerOnce() {
+        // Given
+        final OllamaClient ollama = mock(OllamaClient.class);
+        final ChatAgent agent = new ChatAgent(ollama, mock(Profile.class), new Memory(), q -> "Réponse " + q);
+        final List<String> tokens = new java.util.ArrayList<>();
+
+        // When
+        final String result = agent.askStream("A", tokens::add);
+
+        // Then
+        assertEquals("Réponse A", result);
+        assertEquals(List.of("Réponse A"), tokens);
+        org.mockito.Mockito.verifyNoInteractions(ollama);
+    }
+
+    @Test
+    @DisplayName("getMemory() – renvoie la Memory injectée")
+    void getMemory_returnsInjectedInstance() {
         // Given
-        final ChatAgent agent = new ChatAgent(mock(OllamaClient.class), mock(Profile.class), new Memory());
+        final Memory memory = new Memory(mock(HistoryRepository.class));
+        final ChatAgent agent = new ChatAgent(mock(OllamaClient.class), mock(Profile.class), memory);
 
         // When
         final Memory m1 = agent.getMemory();
         final Memory m2 = agent.getMemory();
 
         // Then
-        assertNotSame(m1, m2, "getMemory() doit renvoyer une nouvelle instance à chaque appel.");
+        assertSame(memory, m1, "getMemory() doit renvoyer la Memory fournie au constructeur.");
+        assertSame(m1, m2);
+    }
+
+    @Test
+    @DisplayName("constructeur – Memory null refusée")
+    void constructor_nullMemory_throws() {
+        assertThrows(NullPointerException.class,
+                () -> new ChatAgent(mock(OllamaClient.class), mock(Profile.class), null));
     }
 
     @Test
@@ -127,6 +311,13 @@ final class ChatAgentTest {
 
     // ---------- Helpers ----------
 
+    @SuppressWarnings("unchecked")
+    private static List<LlmMessage> sentMessages(final OllamaClient ollama) {
+        final ArgumentCaptor<List<LlmMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ollama).chat(captor.capture());
+        return captor.getValue();
+    }
+
     private static int countOccurrences(final String haystack, final String needle) {
         int from = 0;
         int count = 0;
@@ -0,0 +1,76 @@
+package app.cinematch.agent;
+
+import app.cinematch.model.LlmMessage;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de ConversationMemory (GIVEN / WHEN / THEN).
+ */
+final class ConversationMemoryTest {
+
+    @Test
+    @DisplayName("Nombre de messages borné : le plus ancien est oublié, ordre conservé")
+    void maxMessages_dropsOldest() {
+        // GIVEN
+        final ConversationMemory mem = new ConversationMemory(3, 1_000);
+
+        // WHEN
+        mem.addUserMessage("q1");
+        mem.addAssistantMessage("r1");
+        mem.addUserMessage("q2");
+        mem.addAssistantMessage("r2");
+
+        // THEN
+        assertEquals(3, mem.size());
+        assertEquals("IA : r1\nUtilisateur : q2\nIA : r2\n", mem.toPromptString());
+        assertEquals(List.of(new LlmMessage("assistant", "r1"), new LlmMessage("user", "q2"),
+                new LlmMessage("assistant", "r2")), mem.toMessages());
+    }
+
+    @Test
+    @DisplayName("Texte collé de 20 000 caractères : tronqué, puis oublié au profit des tours suivants")
+    void hugePaste_staysWithinBudget() {
+        // GIVEN un budget de 100 tokens (400 caractères)
+        final ConversationMemory mem = new ConversationMemory(6, 100);
+
+        // WHEN
+        mem.addUserMessage("x".repeat(20_000));
+
+        // THEN tronqué à l'entrée
+        assertTrue(mem.toPromptString().length() <= 400);
+        assertTrue(mem.toPromptString().endsWith(ConversationMemory.TRUNCATED + "\n"));
+        assertTrue(mem.tokens() <= mem.maxTokens());
+
+        // WHEN la conversation continue
+        mem.addAssistantMessage("Je ne peux pas tout lire.");
+
+        // THEN le texte collé cède la place, le budget reste tenu
+        assertEquals("IA : Je ne peux pas tout lire.\n", mem.toPromptString());
+        assertEquals(1, mem.size());
+    }
+
+    @Test
+    @DisplayName("Rendu gardé entre deux ajouts, recalculé après un changement")
+    void rendering_isCachedUntilNextChange() {
+        // GIVEN
+        final ConversationMemory mem = new ConversationMemory(6, 1_000);
+        mem.addUserMessage("Un polar ?");
+
+        // WHEN
+        final String first = mem.toPromptString();
+        final List<LlmMessage> firstMessages = mem.toMessages();
+
+        // THEN même instance tant que rien ne change
+        assertSame(first, mem.toPromptString());
+        assertSame(firstMessages, mem.toMessages());
+
+        // WHEN / THEN un ajout complète le texte par la fin
+        mem.addAssistantMessage("Heat.");
+        assertEquals(first + "IA : Heat.\n", mem.toPromptString());
+        assertThrows(UnsupportedOperationException.class, () -> mem.toMessages().add(null));
+    }
+}
@@ -1,6 +1,7 @@
 package app.cinematch.agent;
 
 import app.cinematch.model.HistoryEntry;
+import app.cinematch.util.HistoryRepository;
 import app.cinematch.util.JsonStorage;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
@@ -10,6 +11,7 @@ import org.mockito.MockedStatic;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -73,15 +75,11 @@ final class MemoryTest {
     }
 
     @Test
-    @DisplayName("seen() filtre les entrées avec status = 'deja_vu'")
+    @DisplayName("seen() délègue à l’index par statut 'deja_vu'")
     void seen_returnsOnlyEntriesWithStatusDejaVu() {
-        // Given
-        final HistoryEntry e1 = mockEntry("Film A", "deja_vu");
-        final HistoryEntry e2 = mockEntry("Film B", "envie");
-        final List<HistoryEntry> data = List.of(e1, e2);
-
+        // Given: l’index par statut ne renvoie que les titres 'deja_vu'
         try (MockedStatic<JsonStorage> mocked = mockStatic(JsonStorage.class)) {
-            mocked.when(JsonStorage::loadAll).thenReturn(data);
+            mocked.when(() -> JsonStorage.getByStatus("deja_vu")).thenReturn(List.of("Film A"));
             final Memory memory = new Memory();
 
             // When
@@ -93,15 +91,11 @@ final class MemoryTest {
     }
 
     @Test
-    @DisplayName("toWatch() filtre les entrées avec status = 'envie'")
+    @DisplayName("toWatch() délègue à l’index par statut 'envie'")
     void toWatch_returnsOnlyEntriesWithStatusEnvie() {
-        // Given
-        final HistoryEntry e1 = mockEntry("Film X", "envie");
-        final HistoryEntry e2 = mockEntry("Film Y", "pas_interesse");
-        final List<HistoryEntry> data = List.of(e1, e2);
-
+        // Given: l’index par statut ne renvoie que les titres 'envie'
         try (MockedStatic<JsonStorage> mocked = mockStatic(JsonStorage.class)) {
-            mocked.when(JsonStorage::loadAll).thenReturn(data);
+            mocked.when(() -> JsonStorage.getByStatus("envie")).thenReturn(List.of("Film X"));
             final Memory memory = new Memory();
 
             // When
@@ -113,15 +107,11 @@ final class MemoryTest {
     }
 
     @Test
-    @DisplayName("notInterested() filtre les entrées avec status = 'pas_interesse'")
+    @DisplayName("notInterested() délègue à l’index par statut 'pas_interesse'")
     void notInterested_returnsOnlyEntriesWithStatusPasInteresse() {
-        // Given
-        final HistoryEntry e1 = mockEntry("Film Z", "pas_interesse");
-        final HistoryEntry e2 = mockEntry("Film T", "deja_vu");
-        final List<HistoryEntry> data = List.of(e1, e2);
-
+        // Given: l’index par statut ne renvoie que les titres 'pas_interesse'
         try (MockedStatic<JsonStorage> mocked = mockStatic(JsonStorage.class)) {
-            mocked.when(JsonStorage::loadAll).thenReturn(data);
+            mocked.when(() -> JsonStorage.getByStatus("pas_interesse")).thenReturn(List.of("Film Z"));
             final Memory memory = new Memory();
 
             // When
@@ -156,15 +146,11 @@ final class MemoryTest {
     @Test
     @DisplayName("toString() affiche le résumé du nombre d’entrées par catégorie")
     void toString_returnsSummaryWithCounts() {
-        // Given
-        final List<HistoryEntry> data = List.of(
-                mockEntry("Film A", "deja_vu"),
-                mockEntry("Film B", "envie"),
-                mockEntry("Film C", "pas_interesse")
-        );
-
+        // Given: un film par statut dans l’index
         try (MockedStatic<JsonStorage> mocked = mockStatic(JsonStorage.class)) {
-            mocked.when(JsonStorage::loadAll).thenReturn(data);
+            mocked.when(() -> JsonStorage.countByStatus("deja_vu")).thenReturn(1);
+            mocked.when(() -> JsonStorage.countByStatus("envie")).thenReturn(1);
+            mocked.when(() -> JsonStorage.countByStatus("pas_interesse")).thenReturn(1);
             final Memory memory = new Memory();
 
             // When
@@ -174,4 +160,24 @@ final class MemoryTest {
             assertEquals("Mémoire : 1 vus, 1 envies, 1 pas intéressés.", result);
         }
     }
+
+    @Test
+    @DisplayName("Dépôt injecté : écritures et lectures passent par lui, pas par JsonStorage")
+    void injectedRepository_isUsedInsteadOfJsonStorage() {
+        // Given
+        final HistoryRepository repo = mock(HistoryRepository.class);
+        when(repo.getByStatus("envie")).thenReturn(List.of("Alien"));
+        try (MockedStatic<JsonStorage> mocked = mockStatic(JsonStorage.class)) {
+            final Memory memory = new Memory(repo);
+
+            // When
+            memory.addSeen("Heat");
+            final List<String> toWatch = memory.toWatch();
+
+            // Then
+            verify(repo).addOrUpdate("Heat", "deja_vu");
+            assertEquals(List.of("Alien"), toWatch);
+            mocked.verifyNoInteractions();
+        }
+    }
 }
@@ -0,0 +1,146 @@
+package app.cinematch.agent;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de TasteProfileBuilder (Memory simulée, listes du plus récent au plus ancien).
+ */
+final class TasteProfileBuilderTest {
+
+    private Memory memory;
+    private List<String> seen;
+
+    @BeforeEach
+    void setUp() {
+        memory = mock(Memory.class);
+        seen = new ArrayList<>();
+        when(memory.seen()).thenAnswer(inv -> List.copyOf(seen));
+        when(memory.toWatch()).thenReturn(List.of());
+        when(memory.notInterested()).thenReturn(List.of());
+    }
+
+    /** Ajoute {@code n} films vus, le plus récent en tête comme {@link Memory#seen()}. */
+    private void addSeen(final int from, final int n) {
+        for (int i = from; i < from + n; i++) {
+            seen.add(0, "Film " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Historique vide : 'aucun film enregistré'")
+    void empty_history() {
+        assertEquals(TasteProfileBuilder.EMPTY, new TasteProfileBuilder(memory, 600).block());
+    }
+
+    @Test
+    @DisplayName("Petit historique : tout est listé, du plus ancien au plus récent")
+    void smallHistory_listsEverything() {
+        // GIVEN
+        addSeen(0, 2);
+        when(memory.toWatch()).thenReturn(List.of("W2", "W1"));
+
+        // WHEN
+        final String block = new TasteProfileBuilder(memory, 600).block();
+
+        // THEN
+        assertEquals("- déjà vu : Film 0\n- déjà vu : Film 1\n- envie : W1\n- envie : W2\n", block);
+    }
+
+    @Test
+    @DisplayName("Gros historique : bloc dans le budget, films récents gardés, note du nombre omis")
+    void largeHistory_isBoundedAndKeepsRecent() {
+        // GIVEN 5000 films vus et quelques rejets
+        addSeen(0, 5000);
+        when(memory.notInterested()).thenReturn(List.of("Nanar récent", "Nanar ancien"));
+
+        // WHEN
+        final TasteProfileBuilder builder = new TasteProfileBuilder(memory, 300);
+        final String block = builder.block();
+
+        // THEN
+        assertTrue(TasteProfileBuilder.estimateTokens(block) <= 300, block.length() + " caractères");
+        assertTrue(block.contains("- déjà vu : Film 4999\n"));
+        assertTrue(block.contains("- pas intéressé : Nanar récent\n"));
+        assertTrue(block.matches("(?s).*- … et \\d+ films plus anciens non listés\n.*"));
+        assertTrue(block.contains("- déjà vu : Film 0\n"), "échantillon : le plus ancien est gardé");
+    }
+
+    @Test
+    @DisplayName("Historique inchangé : même bloc, sans recalcul")
+    void unchangedHistory_returnsCachedBlock() {
+        // GIVEN
+        addSeen(0, 1000);
+        final TasteProfileBuilder builder = new TasteProfileBuilder(memory, 300);
+
+        // WHEN / THEN
+        assertSame(builder.block(), builder.block());
+    }
+
+    @Test
+    @DisplayName("Nouveau film : ajouté en fin, le bloc précédent reste un préfixe")
+    void newTitle_isAppended() {
+        // GIVEN un bloc compacté
+        addSeen(0, 1000);
+        final TasteProfileBuilder builder = new TasteProfileBuilder(memory, 300);
+        final String before = builder.block();
+
+        // WHEN un film de plus
+        addSeen(1000, 1);
+        final String after = builder.block();
+
+        // THEN
+        assertEquals(before + "- déjà vu : Film 1000\n", after);
+    }
+
+    @Test
+    @DisplayName("Ajouts au-delà du budget : recompactage, toujours dans le budget")
+    void appendsBeyondBudget_recompact() {
+        // GIVEN
+        addSeen(0, 1000);
+        final TasteProfileBuilder builder = new TasteProfileBuilder(memory, 300);
+        final String first = builder.block();
+
+        // WHEN on ajoute un film à la fois jusqu'à dépasser le budget
+        String block = first;
+        for (int i = 1000; i < 1100; i++) {
+            addSeen(i, 1);
+            block = builder.block();
+            assertTrue(TasteProfileBuilder.estimateTokens(block) <= 300);
+        }
+
+        // THEN le bloc a été reconstruit et contient le dernier film
+        assertFalse(block.startsWith(first));
+        assertTrue(block.contains("- déjà vu : Film 1099\n"));
+    }
+
+    @Test
+    @DisplayName("Film retiré : bloc reconstruit sans lui")
+    void removedTitle_rebuilds() {
+        // GIVEN
+        addSeen(0, 3);
+        final TasteProfileBuilder builder = new TasteProfileBuilder(memory, 300);
+        builder.block();
+
+        // WHEN
+        seen.remove("Film 1");
+
+        // THEN
+        assertEquals("- déjà vu : Film 0\n- déjà vu : Film 2\n", builder.block());
+    }
+
+    @Test
+    @DisplayName("Budget trop petit ramené au minimum ; estimation ~4 caractères par token")
+    void minBudget_andEstimate() {
+        assertEquals(TasteProfileBuilder.MIN_TOKENS, new TasteProfileBuilder(memory, 1).maxTokens());
+        assertEquals(0, TasteProfileBuilder.estimateTokens(null));
+        assertEquals(2, TasteProfileBuilder.estimateTokens("12345"));
+    }
+}
@@ -0,0 +1,264 @@
+package app.cinematch.agent.langchain;
+
+import app.cinematch.MovieRecommenderService;
+import app.cinematch.agent.Profile;
+import app.cinematch.agent.langchain.RoutingMetrics.Branch;
+import app.cinematch.agent.tools.LibraryTools;
+import app.cinematch.agent.tools.MaintenanceTools;
+import app.cinematch.agent.tools.WishlistTools;
+import app.cinematch.util.HistoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.agent.tool.ToolSpecification;
+import dev.langchain4j.agent.tool.ToolSpecifications;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.output.Response;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests d’IntentCache, seul et branché sur LangChain4jAgentBridge avec un faux modèle
+ * (GIVEN / WHEN / THEN).
+ */
+final class IntentCacheTest {
+
+    /** Faux LLM : demande l’outil programmé, puis répond en texte une fois les résultats reçus. */
+    private static class ScriptedModel implements ChatLanguageModel {
+        final Deque<ToolExecutionRequest> script = new ArrayDeque<>();
+        int calls;
+        List<ChatMessage> last = List.of();
+
+        /** Programme un appel de {@code tool}, valeurs dans l’ordre des paramètres de la méthode. */
+        void next(final Class<?> tools, final String tool, final String... values) {
+            script.add(ToolExecutionRequest.builder().id("1").name(tool).arguments(args(tools, tool, values)).build());
+        }
+
+        @Override
+        public Response<AiMessage> generate(final List<ChatMessage> messages) {
+            return generate(messages, List.of());
+        }
+
+        @Override
+        public Response<AiMessage> generate(final List<ChatMessage> messages, final List<ToolSpecification> specs) {
+            calls++;
+            last = List.copyOf(messages);
+            if (script.isEmpty()
+                    || !messages.isEmpty() && messages.get(messages.size() - 1) instanceof ToolExecutionResultMessage) {
+                return Response.from(AiMessage.from("Réponse du modèle"));
+            }
+            return Response.from(AiMessage.from(script.poll()));
+        }
+    }
+
+    /** Arguments JSON sous les noms du schéma envoyé au LLM (ceux de ToolSpecifications). */
+    private static String args(final Class<?> tools, final String tool, final String... values) {
+        final ToolSpecification spec = ToolSpecifications.toolSpecificationsFrom(tools).stream()
+                .filter(s -> s.name().equals(tool)).findFirst().orElseThrow();
+        final Map<String, String> json = new LinkedHashMap<>();
+        final Iterator<String> names = spec.parameters().properties().keySet().iterator();
+        for (String v : values) {
+            json.put(names.next(), v);
+        }
+        try {
+            return new ObjectMapper().writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HistoryRepository repo;
+    private MovieRecommenderService service;
+    private ScriptedModel model;
+    private LangChain4jAgentBridge bridge;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(HistoryRepository.class);
+        when(repo.getByStatus("envie")).thenReturn(List.of("Alien", "Heat"));
+        service = mock(MovieRecommenderService.class);
+        when(service.generateDescription(anyString())).thenAnswer(inv -> "Description de " + inv.getArgument(0));
+        model = new ScriptedModel();
+        bridge = new LangChain4jAgentBridge("m", Profile.defaultCinemaExpert(), service, repo, model);
+    }
+
+    @Test
+    @DisplayName("Normalisation : casse, accents, blancs, ponctuation finale ; titres entre guillemets -> {i}")
+    void normalize_foldsAndSlotsQuotedTitles() {
+        // WHEN
+        final IntentCache.Key k = IntentCache.normalize("  Décris   «Le Cercle rouge» et “Heat” !! ");
+
+        // THEN
+        assertEquals("decris {0} et {1}", k.key());
+        assertEquals(List.of("Le Cercle rouge", "Heat"), k.slots());
+        assertEquals("affiche ma liste d'envie", IntentCache.normalize("Affiche ma liste d’envie ?").key());
+    }
+
+    @Test
+    @DisplayName("Commande répétée : le plan appris est rejoué sans appeler le modèle")
+    void repeatedCommand_isReplayedWithoutModel() {
+        // GIVEN un premier passage par le LLM
+        model.next(WishlistTools.class, "getListByStatus", "envie");
+        assertEquals("Réponse du modèle", bridge.ask("Affiche ma liste d’envie"));
+        final int calls = model.calls;
+
+        // WHEN la même demande, autrement ponctuée
+        final String out = bridge.ask("affiche ma liste d'envie !");
+
+        // THEN
+        assertEquals(calls, model.calls);
+        assertEquals("Liste « envie » : Alien, Heat.", out);
+        assertEquals(1, bridge.metrics().count(Branch.CACHE));
+        assertEquals(1, bridge.metrics().count(Branch.LLM));
+    }
+
+    @Test
+    @DisplayName("Titre sans guillemets : même tournure, autre titre -> rejoué avec le nouveau titre")
+    void unquotedTitle_becomesSlot() {
+        // GIVEN
+        model.next(LibraryTools.class, "generateDescription", "Alien");
+        bridge.ask("Décris Alien");
+        final int calls = model.calls;
+
+        // WHEN
+        final String out = bridge.ask("décris Le Cercle rouge");
+
+        // THEN
+        assertEquals(calls, model.calls);
+        assertEquals("Description de Le Cercle rouge", out);
+    }
+
+    @Test
+    @DisplayName("Outil qui écrit, titre sans guillemets : rejoué pour le même message seulement")
+    void unquotedTitle_withWriteTool_isNotGeneralized() {
+        // GIVEN « je veux voir Alien » résolu par le modèle en addToWishlist("Alien")
+        model.next(WishlistTools.class, "addToWishlist", "Alien");
+        bridge.ask("je veux voir Alien");
+        final int calls = model.calls;
+
+        // WHEN la même tournure avec du texte libre, puis le même message
+        bridge.ask("je veux voir un truc drôle ce soir");
+        final int afterFreeText = model.calls;
+        final String again = bridge.ask("Je veux voir Alien !");
+
+        // THEN le texte libre passe par le modèle, rien n’est écrit pour lui ; le message exact est rejoué
+        assertTrue(afterFreeText > calls);
+        verify(repo, never()).addOrUpdate(eq("un truc drôle ce soir"), anyString());
+        assertEquals(afterFreeText, model.calls);
+        assertEquals("« Alien » ajouté à votre wishlist.", again);
+        verify(repo, times(2)).addOrUpdate("Alien", "envie");
+    }
+
+    @Test
+    @DisplayName("Rejeu : la demande et la réponse rejouées restent dans la mémoire de l’assistant")
+    void replayedTurn_isAddedToAssistantMemory() {
+        // GIVEN un plan appris puis rejoué
+        model.next(LibraryTools.class, "generateDescription", "Alien");
+        bridge.ask("Décris Alien");
+        bridge.ask("décris Heat");
+
+        // WHEN une relance qui dépend du tour précédent
+        bridge.ask("et son réalisateur ?");
+
+        // THEN le modèle voit le tour rejoué
+        final String sent = model.last.toString();
+        assertTrue(sent.contains("décris Heat"), sent);
+        assertTrue(sent.contains("Description de Heat"), sent);
+    }
+
+    @Test
+    @DisplayName("Titre venu du contexte (absent du message) : rien n’est appris")
+    void titleFromContext_isNotLearned() {
+        // GIVEN « ajoute-le » résolu par le modèle en Alien
+        model.next(WishlistTools.class, "addToWishlist", "Alien");
+        bridge.ask("ajoute-le");
+
+        // WHEN
+        model.next(WishlistTools.class, "addToWishlist", "Heat");
+        bridge.ask("ajoute-le");
+
+        // THEN le modèle a été consulté deux fois
+        assertEquals(4, model.calls);
+        verify(repo).addOrUpdate("Alien", "envie");
+        verify(repo).addOrUpdate("Heat", "envie");
+    }
+
+    @Test
+    @DisplayName("Outil non rejouable (vidage de liste) ou réponse ERROR : rien n’est appris")
+    void destructiveOrFailedPlan_isNotLearned() {
+        // GIVEN
+        model.next(MaintenanceTools.class, "clearStatus", "envie", "hard");
+        bridge.ask("fais le ménage dans mes envies");
+        model.next(LibraryTools.class, "generateDescription", "");
+        bridge.ask("décris-moi ce qu’il y a");
+
+        // WHEN
+        model.next(MaintenanceTools.class, "clearStatus", "envie", "hard");
+        bridge.ask("fais le ménage dans mes envies");
+
+        // THEN
+        assertEquals(6, model.calls);
+        assertEquals(0, bridge.metrics().count(Branch.CACHE));
+    }
+
+    @Test
+    @DisplayName("Fichier : rechargé avec la même empreinte, ignoré si les outils changent")
+    void persistedPlans_areBoundToToolFingerprint(@TempDir final Path dir) throws Exception {
+        // GIVEN un plan appris et écrit sur disque
+        final Path file = dir.resolve("intents.json");
+        final List<Object> tools = List.of(new WishlistTools(repo));
+        final IntentCache first = new IntentCache(tools, "m", 10, file);
+        final ChatLanguageModel recorder = first.recording(new ScriptedModel() {
+            {
+                next(WishlistTools.class, "getListByStatus", "envie");
+            }
+        });
+        first.learn("Montre mes envies", () -> {
+            recorder.generate(List.of(), List.of());
+            return "ok";
+        });
+        assertEquals(1, first.size());
+
+        // WHEN / THEN même outils, même modèle : rechargé et rejouable
+        final IntentCache reloaded = new IntentCache(tools, "m", 10, file);
+        assertEquals(1, reloaded.size());
+        assertEquals("Liste « envie » : Alien, Heat.", reloaded.replay("montre mes envies"));
+
+        // WHEN / THEN autre modèle (ou autres outils) : empreinte différente, fichier ignoré
+        final IntentCache other = new IntentCache(tools, "autre-modele", 10, file);
+        assertNotEquals(first.fingerprint(), other.fingerprint());
+        assertEquals(0, other.size());
+        assertEquals(first.fingerprint(),
+                new ObjectMapper().readValue(file.toFile(), IntentCache.Stored.class).fingerprint());
+    }
+
+    @Test
+    @DisplayName("Rendu : liste tronquée à 10 (+N), prochain film, statistiques")
+    void render_formats() {
+        final List<String> many = List.of("A", "B", "C", "D", "E", "F", "G", "H", "I", "J", "K", "L");
+        assertEquals("Liste « deja_vu » : A, B, C, D, E, F, G, H, I, J (+2).",
+                IntentCache.render("getListByStatus", Map.of("status", "deja_vu"), many));
+        assertEquals("Ta liste d’envie est vide.", IntentCache.render("pickNextToWatch", Map.of(), "NEXT:EMPTY"));
+        assertEquals("Prochain film à regarder : Heat — Braquage.",
+                IntentCache.render("pickNextToWatch", Map.of(), "NEXT:Heat | Braquage."));
+        assertEquals("Statistiques : total=3 | envie=2",
+                IntentCache.render("getStats", Map.of(), "STATS: total=3 | envie=2"));
+    }
+}
@@ -0,0 +1,174 @@
+package app.cinematch.agent.langchain;
+
+import app.cinematch.agent.tools.MultiActionTools;
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmark JMH du routage des commandes du chat : {@link IntentRouter} contre l’ancienne
+ * chaîne d’expressions régulières de {@link LangChain4jAgentBridge} (recopiée ci-dessous),
+ * sur le corpus de {@link IntentRouterTest}. Temps moyen pour router tout le corpus.
+ *
+ * <p>Hors suite de tests ; à lancer à la main :</p>
+ * <pre>
+ * mvn -q test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath app.cinematch.agent.langchain.IntentRouterBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntentRouterBenchmark {
+
+    private final String[] corpus = new String[IntentRouterTest.CORPUS.length];
+
+    public IntentRouterBenchmark() {
+        for (int i = 0; i < corpus.length; i++) {
+            corpus[i] = IntentRouterTest.CORPUS[i][0];
+        }
+    }
+
+    @Benchmark
+    public void intentRouter(final Blackhole bh) {
+        for (String msg : corpus) {
+            bh.consume(IntentRouter.route(msg.trim()));
+        }
+    }
+
+    @Benchmark
+    public void legacyRegexChain(final Blackhole bh) {
+        for (String msg : corpus) {
+            bh.consume(Legacy.route(msg.trim()));
+        }
+    }
+
+    public static void main(final String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(IntentRouterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    /** Ancienne chaîne de LangChain4jAgentBridge.ask, sans les appels aux outils. */
+    static final class Legacy {
+
+        private static final Pattern VERB_PREFIX =
+                Pattern.compile("(?iu)^.*?(ajoute|ajouter|mets|met|add)\\s*");
+        private static final Pattern LIST_TAIL =
+                Pattern.compile("(?iu)\\s*(?:dans|à|a|to|into|in)\\s*(?:ma|la|my|the)?\\s*"
+                        + "(?:wish\\s*list|wishlist|liste\\s*d['’]?envie|liste)\\s*[.!?\\s]*$");
+        private static final Pattern P_NOT_INTERESTED =
+                Pattern.compile("(?iu)\\b(je\\s+ne\\s+suis\\s+pas\\s+int[eé]ress[eé]\\s+par|je\\s+n['’]?aime\\s+pas)\\s+(.+)$");
+        private static final Pattern P_SEEN =
+                Pattern.compile("(?iu)\\b(j['’]?ai\\s+vu|marque[- ]?le\\s+d[eé]j[aà][- ]?vu)\\s+(.+)$");
+        private static final Pattern P_ADD_SINGLE =
+                Pattern.compile("(?iu)\\b(ajoute|ajouter|mets|met)\\s+(.+?)(?:\\s+(?:a|à)\\s+(?:ma\\s+)?(?:liste|wishlist))?$");
+        private static final Pattern P_REMOVE_SINGLE =
+                Pattern.compile("(?iu)\\b(enl[eè]ve|enlever|supprime|supprimer|retire|retirer)\\s+(.+?)\\s+(?:de|d['’]e?)\\s+(?:ma|la|the)?\\s*(?:liste(?:\\s*d'envie)?|wishlist)\\b");
+        private static final Pattern P_REMOVE_SOLO =
+                Pattern.compile("(?iu)\\b(enl[eè]ve|enlever|supprime|supprimer|retire|retirer)\\s+(.+)$");
+        private static final Pattern P_CLEAR_ENVIE =
+                Pattern.compile("(?iu)\\b(supprime|enl[eè]ve|vide|efface)\\s+(tout|tous|toutes).*(wishlist|liste\\s*d'envie|envie)\\b");
+        private static final Pattern P_CLEAR_NOPE =
+                Pattern.compile("(?iu)\\b(supprime|enl[eè]ve|vide|efface)\\s+(tout|tous|toutes).*?(?:pas[ _]*int[eé]ress[ée]s?|pas_?interesse)\\b");
+        private static final Pattern P_CLEAR_SEEN =
+                Pattern.compile("(?iu)\\b(supprime|enl[eè]ve|vide|efface)\\s+(tout|tous|toutes).*?(?:d[eé]j[aà][ _]*vu|deja_?vu)\\b");
+        private static final Pattern CLEAR_ALL = Pattern.compile(
+                "(?iu)\\b(supprime|enl[eè]ve|vide|efface|clear|remove|delete)\\s+(tout|tous|toutes|all)"
+                        + "(?:\\s+(?:dans|de|du|des|la|le))?\\s+(.*)$");
+
+        private Legacy() {
+        }
+
+        static String route(final String msg) {
+            final Matcher clr = CLEAR_ALL.matcher(msg);
+            if (clr.find()) {
+                return "CLEAR:" + mapStatusFromTail(clr.group(3));
+            }
+            if (P_CLEAR_ENVIE.matcher(msg).find()) {
+                return "CLEAR:envie";
+            }
+            if (P_CLEAR_NOPE.matcher(msg).find()) {
+                return "CLEAR:pas_interesse";
+            }
+            if (P_CLEAR_SEEN.matcher(msg).find()) {
+                return "CLEAR:deja_vu";
+            }
+            if (looksLikeMulti(msg) || MultiActionTools.shouldForceMulti(msg)) {
+                return "MULTI";
+            }
+            final String low = msg.toLowerCase(Locale.ROOT);
+            final boolean hasAddVerb = low.contains("ajoute") || low.contains("ajouter")
+                    || low.contains("mets") || low.contains("met") || low.contains("add");
+            if (hasAddVerb && (low.contains(",") || low.contains("\n"))) {
+                String titles = VERB_PREFIX.matcher(msg).replaceFirst("");
+                titles = LIST_TAIL.matcher(titles).replaceFirst("").trim();
+                titles = LIST_TAIL.matcher(titles).replaceFirst("").trim();
+                if (!titles.isEmpty()) {
+                    return "BULK_ADD:" + titles;
+                }
+            }
+            final Pattern[] direct = {P_NOT_INTERESTED, P_SEEN, P_ADD_SINGLE, P_REMOVE_SINGLE, P_REMOVE_SOLO};
+            for (Pattern p : direct) {
+                final Matcher m = p.matcher(msg);
+                if (m.find() && !m.group(2).isBlank()) {
+                    return p.pattern() + ":" + m.group(2);
+                }
+            }
+            return "LLM";
+        }
+
+        private static String mapStatusFromTail(final String tailRaw) {
+            final String t = Normalizer.normalize(tailRaw, Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}+", "")
+                    .toLowerCase(Locale.ROOT)
+                    .replace('’', '\'')
+                    .replace("_", " ")
+                    .replace("-", " ")
+                    .trim();
+            if (t.matches(".*\\b(envie|wishlist|wish\\s*list)\\b.*")) {
+                return "envie";
+            }
+            if (t.matches(".*\\bdej[au]\\s*vu\\b.*|.*\\bseen\\b.*")) {
+                return "deja_vu";
+            }
+            if (t.matches(".*\\bpas\\s*(?:interesse|interesses?|interet)s?\\b.*"
+                    + "|.*\\bdislike\\b.*|.*\\bnot\\s*interested\\b.*")) {
+                return "pas_interesse";
+            }
+            return null;
+        }
+
+        private static boolean looksLikeMulti(final String s) {
+            final String lc = s.toLowerCase(Locale.ROOT);
+            final boolean hasConnector = lc.contains(" et ") || lc.contains(" puis ")
+                    || lc.contains(";") || lc.contains(".");
+            int verbHits = 0;
+            final String[] verbs = {"ajoute", "ajouter", "mets", "met", "enlève", "enlever",
+                    "supprime", "supprimer", "retire", "retirer", "marque", "marquer"};
+            for (String v : verbs) {
+                if (lc.contains(v + " ")) {
+                    verbHits++;
+                }
+            }
+            return hasConnector && verbHits >= 2;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package app.cinematch.agent.langchain;
+
+import app.cinematch.agent.langchain.IntentRouter.Intent;
+import app.cinematch.agent.langchain.IntentRouter.Route;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests d’IntentRouter sur un corpus de commandes réelles (GIVEN / WHEN / THEN).
+ * Le même corpus sert au benchmark {@link IntentRouterBenchmark}.
+ */
+final class IntentRouterTest {
+
+    /** Commande, intention attendue, argument attendu ({@code null} : non vérifié). */
+    static final String[][] CORPUS = {
+            {"Ajoute Alien, Heat, Drive à ma wishlist", "BULK_ADD", "Alien, Heat, Drive"},
+            {"Mets \"Alien\",\n«Heat», Drive dans la liste d'envie", "BULK_ADD", "\"Alien\",\n«Heat», Drive"},
+            {"Add Alien, Heat to wishlist", "BULK_ADD", "Alien, Heat"},
+            {"ajoute Le Parrain, Les Affranchis, Casino", "BULK_ADD", "Le Parrain, Les Affranchis, Casino"},
+            {"ajoute Le Parrain, Les Affranchis et Casino", "MULTI", null},
+            {"Ajoute Alien", "ADD", "Alien"},
+            {"ajoute Alien à ma wishlist", "ADD", "Alien"},
+            {"Mets « La Haine » dans ma liste d’envie !", "ADD", "« La Haine »"},
+            {"Je ne suis pas intéressé par Matrix", "NOT_INTERESTED", "Matrix"},
+            {"je n'aime pas Titanic", "NOT_INTERESTED", "Titanic"},
+            {"Je n’aime pas « Avatar »", "NOT_INTERESTED", "« Avatar »"},
+            {"J’ai vu Drive", "SEEN", "Drive"},
+            {"jai vu Le Cercle rouge", "SEEN", "Le Cercle rouge"},
+            {"Marque-le déjà-vu Heat", "SEEN", "Heat"},
+            {"Supprime Dune de ma liste", "REMOVE", "Dune"},
+            {"retire Interstellar de la wishlist", "REMOVE", "Interstellar"},
+            {"Enlève Tenet d'ma liste", "REMOVE", "Tenet"},
+            {"Supprime Dune", "REMOVE", "Dune"},
+            {"supprime ?!", "LLM", null},
+            {"retire !", "LLM", null},
+            {"un deux trois quatre cinq six sept huit neuf dix onze douze treize quatorze quinze supprime ?", "LLM", null},
+            {"supprime tout dans pas intéressés", "CLEAR", "pas_interesse"},
+            {"Vide toutes les envies", "CLEAR", "envie"},
+            {"efface tous les films déjà vus", "CLEAR", "deja_vu"},
+            {"delete all seen movies", "CLEAR", "deja_vu"},
+            {"efface tous les films dans demain", "CLEAR", null},
+            {"supprime tout Dune", "CLEAR", null},
+            {"ajoute Alien et supprime Dune", "MULTI", null},
+            {"Ajoute Heat puis marque Drive comme déjà vu", "MULTI", null},
+            {"Mets Alien dans ma liste; retire Dune.", "MULTI", null},
+            {"ajoute Alien, Heat puis décris Drive", "MULTI", null},
+            {"Bonjour l'agent", "LLM", null},
+            {"Quel film me conseilles-tu ce soir ?", "LLM", null},
+            {"Propose-moi un thriller coréen des années 2000", "LLM", null},
+            {"C’est quoi le meilleur film de Kubrick ?", "LLM", null},
+    };
+
+    @Test
+    @DisplayName("Corpus : intention et argument attendus pour chaque commande")
+    void corpus_routesAsExpected() {
+        // GIVEN le corpus
+        final List<Executable> checks = new ArrayList<>();
+        for (String[] c : CORPUS) {
+            checks.add(() -> {
+                // WHEN
+                final Route r = IntentRouter.route(c[0]);
+
+                // THEN
+                assertEquals(Intent.valueOf(c[1]), r.intent(), c[0]);
+                if (c[2] != null) {
+                    assertEquals(c[2], r.argument(), c[0]);
+                }
+            });
+        }
+        assertAll(checks);
+    }
+
+    @Test
+    @DisplayName("Statut inconnu après 'supprime tout' : CLEAR sans statut")
+    void clearWithUnknownStatus_hasNullArgument() {
+        assertEquals(new Route(Intent.CLEAR, null), IntentRouter.route("vide tout dans demain"));
+    }
+
+    @Test
+    @DisplayName("Titres vides ou verbe collé : pas d’action simple")
+    void emptyOrGluedArgument_fallsBackToLlm() {
+        assertEquals(Intent.LLM, IntentRouter.route("Ajoute   à ma wishlist").intent());
+        assertEquals(Intent.LLM, IntentRouter.route("j'ai vu:").intent());
+        assertEquals(Intent.LLM, IntentRouter.route(null).intent());
+        assertEquals(Intent.LLM, IntentRouter.route("").intent());
+    }
+
+    @Test
+    @DisplayName("statusOf : envie / déjà vu / pas intéressé (FR/EN, accents, tirets)")
+    void statusOf_variants() {
+        assertEquals("envie", IntentRouter.statusOf("dans la wishlist"));
+        assertEquals("envie", IntentRouter.statusOf("ma liste d’envie"));
+        assertEquals("deja_vu", IntentRouter.statusOf("déjà-vu"));
+        assertEquals("deja_vu", IntentRouter.statusOf("deja_vu"));
+        assertEquals("pas_interesse", IntentRouter.statusOf("not interested"));
+        assertEquals("pas_interesse", IntentRouter.statusOf("users who DISLIKE these movies"));
+        assertEquals("pas_interesse", IntentRouter.statusOf("vider les films pas interesses"));
+        assertNull(IntentRouter.statusOf("demain"));
+        assertNull(IntentRouter.statusOf(null));
+    }
+
+    @Test
+    @DisplayName("Plusieurs statuts cités : envie d’abord, puis déjà vu")
+    void statusOf_priority() {
+        assertEquals("envie", IntentRouter.statusOf("pas intéressé ou envie"));
+        assertEquals("deja_vu", IntentRouter.statusOf("pas intéressé, déjà vu"));
+    }
+
+    @Test
+    @DisplayName("Message long : une seule passe, routé comme le court")
+    void longMessage_isRouted() {
+        // GIVEN 2000 titres en lot
+        final StringBuilder sb = new StringBuilder("Ajoute ");
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i == 0 ? "" : ", ").append("Film ").append(i);
+        }
+        sb.append(" à ma wishlist");
+
+        // WHEN
+        final Route r = IntentRouter.route(sb.toString());
+
+        // THEN
+        assertEquals(Intent.BULK_ADD, r.intent());
+        assertTrue(r.argument().startsWith("Film 0, Film 1,") && r.argument().endsWith("Film 1999"));
+    }
+}
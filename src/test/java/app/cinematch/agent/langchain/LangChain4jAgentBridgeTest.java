@@ -19,7 +19,8 @@ import static org.mockito.Mockito.*;
 /**
  * Tests LangChain4jAgentBridge en style GIVEN / WHEN / THEN
  * On vérifie le pré-parseur client (add en lot), le clear-all tolérant,
- * les actions simples (dislike/seen/add/remove) et les helpers privés.
+ * les actions simples (dislike/seen/add/remove) et unquote ; le routage
+ * lui-même est couvert par IntentRouterTest.
  */
 class LangChain4jAgentBridgeTest {
 
@@ -32,13 +33,6 @@ class LangChain4jAgentBridgeTest {
         f.set(target, value);
     }
 
-    /** Appel d’une méthode privée (instance). */
-    private static Object callPrivate(Object target, String name, Class<?>[] types, Object... args) throws Exception {
-        Method m = target.getClass().getDeclaredMethod(name, types);
-        m.setAccessible(true);
-        return m.invoke(target, args);
-    }
-
     /** Appel d’une méthode privée statique. */
     private static Object callPrivateStatic(Class<?> cls, String name, Class<?>[] types, Object... args) throws Exception {
         Method m = cls.getDeclaredMethod(name, types);
@@ -96,51 +90,62 @@ class LangChain4jAgentBridgeTest {
     }
 
     /* ====================================================================== */
-    /* tryClientSideBulkAdd(...) — pas de séparateurs -> null                 */
+    /* ask(...) — pas de séparateurs -> ajout simple, pas d’ajout en lot     */
     /* ====================================================================== */
     @Test
-    @DisplayName("tryClientSideBulkAdd: pas de virgule/\\n -> null")
-    void givenNoCommaNorNewline_whenTryClientSideBulkAdd_thenNull() throws Exception {
+    @DisplayName("ask: pas de virgule/\\n -> addToWishlist, pas d’ajout en lot")
+    void givenNoCommaNorNewline_whenAsk_thenSingleAdd() throws Exception {
         // GIVEN                                                                     // GIVEN
         MovieRecommenderService svc = mock(MovieRecommenderService.class);
         LangChain4jAgentBridge bridge = new LangChain4jAgentBridge(
                 "http://localhost:11434", "llama3.1:8b-instruct",
                 Profile.defaultCinemaExpert(), svc);
+        BulkTools bulkMock = mock(BulkTools.class);
+        WishlistTools wl = mock(WishlistTools.class);
+        setPrivateField(bridge, "bulkTools", bulkMock);
+        setPrivateField(bridge, "wishlistTools", wl);
 
         // WHEN                                                                       // WHEN
-        Object res = callPrivate(bridge, "tryClientSideBulkAdd",
-                new Class[]{String.class}, "Ajoute Alien à ma wishlist");
+        bridge.ask("Ajoute Alien à ma wishlist");
 
         // THEN                                                                       // THEN
-        assertNull(res);
+        verifyNoInteractions(bulkMock);
+        verify(wl).addToWishlist("Alien");
     }
 
     /* ====================================================================== */
-    /* tryClientSideBulkAdd(...) — titres vides -> null                       */
+    /* ask(...) — titres vides -> pas d’ajout, le LLM répond                 */
     /* ====================================================================== */
     @Test
-    @DisplayName("tryClientSideBulkAdd: 'Ajoute   à ma wishlist' -> null (vide)")
-    void givenNoTitles_whenTryClientSideBulkAdd_thenNull() throws Exception {
+    @DisplayName("ask: 'Ajoute   à ma wishlist' -> aucun ajout (vide), assistant.chat")
+    void givenNoTitles_whenAsk_thenAssistant() throws Exception {
         // GIVEN                                                                     // GIVEN
         MovieRecommenderService svc = mock(MovieRecommenderService.class);
         LangChain4jAgentBridge bridge = new LangChain4jAgentBridge(
                 "http://localhost:11434", "llama3.1:8b-instruct",
                 Profile.defaultCinemaExpert(), svc);
+        BulkTools bulkMock = mock(BulkTools.class);
+        WishlistTools wl = mock(WishlistTools.class);
+        CineAssistant assistantMock = mock(CineAssistant.class);
+        setPrivateField(bridge, "bulkTools", bulkMock);
+        setPrivateField(bridge, "wishlistTools", wl);
+        setPrivateField(bridge, "assistant", assistantMock);
+        when(assistantMock.chat(anyString())).thenReturn("LLM");
 
         // WHEN                                                                       // WHEN
-        Object res = callPrivate(bridge, "tryClientSideBulkAdd",
-                new Class[]{String.class}, "Ajoute   à ma wishlist");
+        String out = bridge.ask("Ajoute   à ma wishlist");
 
         // THEN                                                                       // THEN
-        assertNull(res);
+        verifyNoInteractions(bulkMock, wl);
+        assertEquals("LLM", out);
     }
 
     /* ====================================================================== */
     /* tryClientSideBulkAdd(...) — anglais                                     */
     /* ====================================================================== */
     @Test
-    @DisplayName("tryClientSideBulkAdd: 'Add A, B to wishlist' -> appel + '(2).'")
-    void givenEnglishAdd_whenTryClientSideBulkAdd_thenOk() throws Exception {
+    @DisplayName("ask: 'Add A, B to wishlist' -> appel + '(2).'")
+    void givenEnglishAdd_whenAsk_thenBulkOk() throws Exception {
         // GIVEN                                                                     // GIVEN
         MovieRecommenderService svc = mock(MovieRecommenderService.class);
         LangChain4jAgentBridge bridge = new LangChain4jAgentBridge(
@@ -151,8 +156,7 @@ class LangChain4jAgentBridgeTest {
         setPrivateField(bridge, "bulkTools", spyBulk);
 
         // WHEN                                                                       // WHEN
-        String out = (String) callPrivate(bridge, "tryClientSideBulkAdd",
-                new Class[]{String.class}, "Add Alien, Heat to wishlist");
+        String out = bridge.ask("Add Alien, Heat to wishlist");
 
         // THEN                                                                       // THEN
         verify(spyBulk, times(1)).addManyToWishlist("Alien, Heat");
@@ -309,7 +313,7 @@ class LangChain4jAgentBridgeTest {
     }
 
     /* ====================================================================== */
-    /* Helpers privés : unquote, looksLikeMulti, extractTitlesForBulk, map…   */
+    /* Helper privé : unquote                                                  */
     /* ====================================================================== */
     @Test
     @DisplayName("unquote: retire guillemets FR/EN et trim")
@@ -319,36 +323,8 @@ class LangChain4jAgentBridgeTest {
                         new Class[]{String.class}, " «Heat» "));
     }
 
-    @Test
-    @DisplayName("looksLikeMulti: 'ajoute A et supprime B' -> true ; 'ajoute A' -> false")
-    void looksLikeMulti_ok() throws Exception {
-        assertTrue((Boolean) callPrivateStatic(LangChain4jAgentBridge.class, "looksLikeMulti",
-                new Class[]{String.class}, "ajoute Alien et supprime Dune"));
-        assertFalse((Boolean) callPrivateStatic(LangChain4jAgentBridge.class, "looksLikeMulti",
-                new Class[]{String.class}, "ajoute Alien"));
-    }
 
-    @Test
-    @DisplayName("extractTitlesForBulk: enlève verbe et queue '... à ma wishlist'")
-    void extractTitlesForBulk_ok() throws Exception {
-        assertEquals("Alien, Heat",
-                callPrivateStatic(LangChain4jAgentBridge.class, "extractTitlesForBulk",
-                        new Class[]{String.class}, "Ajoute Alien, Heat à ma wishlist"));
-    }
 
-    @Test
-    @DisplayName("mapStatusFromTail: envie / déjà vu / pas intéressé (FR/EN, accents)")
-    void mapStatusFromTail_ok() throws Exception {
-        assertEquals("envie",
-                callPrivateStatic(LangChain4jAgentBridge.class, "mapStatusFromTail",
-                        new Class[]{String.class}, "dans la wishlist"));
-        assertEquals("deja_vu",
-                callPrivateStatic(LangChain4jAgentBridge.class, "mapStatusFromTail",
-                        new Class[]{String.class}, "déjà-vu"));
-        assertEquals("pas_interesse",
-                callPrivateStatic(LangChain4jAgentBridge.class, "mapStatusFromTail",
-                        new Class[]{String.class}, "not interested"));
-    }
 
     @Test
     @DisplayName("ask: aucun pattern -> appel assistant.chat(...) (mocké)")
@@ -378,7 +354,7 @@ class LangChain4jAgentBridgeTest {
     /* tryClientSideBulkAdd — branche 'Ajout effectué : ...'                   */
     /* ====================================================================== */
     @Test
-    @DisplayName("tryClientSideBulkAdd: tool ne renvoie pas ADDED_MANY -> 'Ajout effectué : ...'")
+    @DisplayName("ask: tool ne renvoie pas ADDED_MANY -> 'Ajout effectué : ...'")
     void givenToolReturnsOtherToken_whenBulkAdd_thenAjoutEffectue() throws Exception {
         // GIVEN                                                                  // GIVEN
         MovieRecommenderService svc = mock(MovieRecommenderService.class);
@@ -391,8 +367,7 @@ class LangChain4jAgentBridgeTest {
         when(bulkMock.addManyToWishlist("Alien, Heat")).thenReturn("OK"); // <- pas ADDED_MANY
 
         // WHEN                                                                   // WHEN
-        String out = (String) callPrivate(bridge, "tryClientSideBulkAdd",
-                new Class[]{String.class}, "Ajoute Alien, Heat à ma wishlist");
+        String out = bridge.ask("Ajoute Alien, Heat à ma wishlist");
 
         // THEN                                                                   // THEN
         verify(bulkMock).addManyToWishlist("Alien, Heat");
@@ -400,38 +375,27 @@ class LangChain4jAgentBridgeTest {
     }
 
     /* ====================================================================== */
-    /* tryDirectSingleAction — cas ignoré 'supprime tout ...'                  */
+    /* ask(...) — 'supprime tout ...' n’est pas un retrait de titre           */
     /* ====================================================================== */
     @Test
-    @DisplayName("tryDirectSingleAction: 'supprime tout Dune' -> ignoré (null)")
-    void givenRemoveSoloStartingWithTout_whenDirect_thenNull() throws Exception {
+    @DisplayName("ask: 'supprime tout Dune' -> pas de removeFromWishlist, statut non reconnu")
+    void givenRemoveSoloStartingWithTout_whenAsk_thenNoRemove() throws Exception {
         // GIVEN                                                                  // GIVEN
         MovieRecommenderService svc = mock(MovieRecommenderService.class);
         LangChain4jAgentBridge bridge = new LangChain4jAgentBridge(
                 "http://localhost:11434", "llama3.1:8b-instruct",
                 Profile.defaultCinemaExpert(), svc);
+        WishlistTools wl = mock(WishlistTools.class);
+        setPrivateField(bridge, "wishlistTools", wl);
 
-        // WHEN: on appelle la méthode privée directement                          // WHEN
-        Object res = callPrivate(bridge, "tryDirectSingleAction",
-                new Class[]{String.class}, "supprime tout Dune");
+        // WHEN                                                                    // WHEN
+        String out = bridge.ask("supprime tout Dune");
 
-        // THEN: pas d’action, renvoie null                                        // THEN
-        assertNull(res);
+        // THEN: pas d’action sur un titre                                         // THEN
+        verifyNoInteractions(wl);
+        assertTrue(out.toLowerCase(Locale.ROOT).contains("statut non reconnu"));
     }
 
-    /* ====================================================================== */
-    /* mapStatusFromTail — variantes supplémentaires                           */
-    /* ====================================================================== */
-    @Test
-    @DisplayName("mapStatusFromTail: 'dislike' et 'pas interesses' -> pas_interesse")
-    void mapStatusFromTail_moreVariants() throws Exception {
-        assertEquals("pas_interesse",
-                callPrivateStatic(LangChain4jAgentBridge.class, "mapStatusFromTail",
-                        new Class[]{String.class}, "users who DISLIKE these movies"));
-        assertEquals("pas_interesse",
-                callPrivateStatic(LangChain4jAgentBridge.class, "mapStatusFromTail",
-                        new Class[]{String.class}, "vider les films pas interesses"));
-    }
 
     /* ====================================================================== */
     /* unquote — branche null -> ""                                            */
@@ -0,0 +1,128 @@
+package app.cinematch.agent.langchain;
+
+import app.cinematch.MovieRecommenderService;
+import app.cinematch.agent.Profile;
+import app.cinematch.agent.langchain.RoutingMetrics.Branch;
+import app.cinematch.agent.tools.WishlistTools;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests de RoutingMetrics et de son alimentation par LangChain4jAgentBridge (GIVEN / WHEN / THEN).
+ */
+final class RoutingMetricsTest {
+
+    @Test
+    @DisplayName("record : compte, moyenne et classe d’histogramme par branche")
+    void record_countsAndBuckets() {
+        // GIVEN
+        final RoutingMetrics m = new RoutingMetrics(10, null);
+
+        // WHEN 2 actions locales en ~50 µs, 1 appel LLM en ~2 s
+        m.record(Branch.DIRECT, 40_000, "ajoute Alien");
+        m.record(Branch.DIRECT, 60_000, "ajoute Heat");
+        m.record(Branch.LLM, 2_000_000_000L, "Un film pour ce soir ?");
+
+        // THEN
+        assertEquals(2, m.count(Branch.DIRECT));
+        assertEquals(1, m.count(Branch.LLM));
+        assertEquals(3, m.total());
+        assertEquals(50, m.meanMicros(Branch.DIRECT));
+        assertEquals(1.0 / 3, m.llmFallbackRate(), 1e-9);
+        assertArrayEquals(new long[] {0, 2, 0, 0, 0, 0, 0, 0}, m.histogram(Branch.DIRECT));
+        assertArrayEquals(new long[] {0, 0, 0, 0, 0, 0, 1, 0}, m.histogram(Branch.LLM));
+        assertEquals(Long.MAX_VALUE, RoutingMetrics.bucketUpperMicros()[7]);
+    }
+
+    @Test
+    @DisplayName("unmatched : seuls les messages LLM, bornés, du plus ancien au plus récent")
+    void unmatched_isBoundedAndLlmOnly() {
+        // GIVEN
+        final RoutingMetrics m = new RoutingMetrics(2, null);
+
+        // WHEN
+        m.record(Branch.BULK, 1, "ajoute A, B");
+        m.record(Branch.LLM, 1, "q1");
+        m.record(Branch.LLM, 1, "q2\nsuite");
+        m.record(Branch.LLM, 1, "q3");
+
+        // THEN
+        assertEquals(List.of("q2 suite", "q3"), m.unmatched());
+    }
+
+    @Test
+    @DisplayName("unmatched : ajout au fichier configuré, une ligne par message")
+    void unmatched_appendsToFile(@TempDir final Path dir) throws Exception {
+        // GIVEN
+        final Path file = dir.resolve("unmatched.txt");
+        final RoutingMetrics m = new RoutingMetrics(0, file);
+
+        // WHEN
+        m.record(Branch.LLM, 1, "Un polar nordique ?");
+        m.record(Branch.LLM, 1, "Et en VO ?");
+
+        // THEN mémoire désactivée, fichier complété
+        assertTrue(m.unmatched().isEmpty());
+        assertEquals(List.of("Un polar nordique ?", "Et en VO ?"), Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("summary : une ligne par branche et taux de repli")
+    void summary_listsBranches() {
+        // GIVEN
+        final RoutingMetrics m = new RoutingMetrics(10, null);
+        m.record(Branch.CLEAR, 5_000, null);
+
+        // WHEN
+        final String s = m.summary();
+
+        // THEN
+        assertTrue(s.startsWith("Routage : 1 messages, 0.0 % vers le LLM"), s);
+        for (Branch b : Branch.values()) {
+            assertTrue(s.contains("- " + b.name()), s);
+        }
+    }
+
+    @Test
+    @DisplayName("Bridge : chaque ask est compté dans sa branche, les messages LLM sont journalisés")
+    void bridge_recordsEachBranch() throws Exception {
+        // GIVEN un bridge aux outils et assistant simulés
+        final LangChain4jAgentBridge bridge = new LangChain4jAgentBridge(
+                "http://localhost:11434", "llama3.1:8b-instruct",
+                Profile.defaultCinemaExpert(), mock(MovieRecommenderService.class));
+        final CineAssistant assistant = mock(CineAssistant.class);
+        when(assistant.chat(anyString())).thenReturn("OK");
+        set(bridge, "assistant", assistant);
+        set(bridge, "wishlistTools", mock(WishlistTools.class));
+
+        // WHEN
+        bridge.ask("Ajoute Alien");
+        bridge.ask("J’ai vu Drive");
+        bridge.ask("Un film comme Heat ?");
+        bridge.ask("supprime tout dans demain");
+
+        // THEN
+        final RoutingMetrics m = bridge.metrics();
+        assertEquals(2, m.count(Branch.DIRECT));
+        assertEquals(1, m.count(Branch.CLEAR));
+        assertEquals(1, m.count(Branch.LLM));
+        assertEquals(List.of("Un film comme Heat ?"), m.unmatched());
+    }
+
+    private static void set(final Object target, final String name, final Object value) throws Exception {
+        final Field f = target.getClass().getDeclaredField(name);
+        f.setAccessible(true);
+        f.set(target, value);
+    }
+}
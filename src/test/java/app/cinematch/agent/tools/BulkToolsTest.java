@@ -1,12 +1,14 @@
 package app.cinematch.agent.tools;
 
 import app.cinematch.util.JsonStorage;
+import app.cinematch.util.Mutation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
 import java.lang.reflect.Method;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -36,9 +38,11 @@ class BulkToolsTest {
             String res = tools.addManyToWishlist("Alien, Heat\nDrive");
 
             // THEN: chaque titre est marqué 'envie' et le résumé indique 3 ajouts
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Drive", "envie"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "envie"),
+                    Mutation.put("Heat", "envie"),
+                    Mutation.put("Drive", "envie")
+            )));
             js.verifyNoMoreInteractions();
             assertEquals("ADDED_MANY:3", res);
         }
@@ -56,10 +60,12 @@ class BulkToolsTest {
             String res = tools.addManyToWishlist(titles);
 
             // THEN: guillemets retirés, espaces réduits, 4 ajouts
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Drive", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("The Driver", "envie"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "envie"),
+                    Mutation.put("Heat", "envie"),
+                    Mutation.put("Drive", "envie"),
+                    Mutation.put("The Driver", "envie")
+            )));
             js.verifyNoMoreInteractions();
             assertEquals("ADDED_MANY:4", res);
         }
@@ -111,8 +117,10 @@ class BulkToolsTest {
             String res = tools.removeManyFromWishlist(titles);
 
             // THEN: seuls titres non vides marqués 'pas_interesse'
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "pas_interesse"));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "pas_interesse"),
+                    Mutation.put("Heat", "pas_interesse")
+            )));
             js.verifyNoMoreInteractions();
             assertEquals("REMOVED_MANY:2", res);
         }
@@ -147,8 +155,10 @@ class BulkToolsTest {
             String res = tools.setManyStatus("Alien,Heat", "deja_vu");
 
             // THEN: chaque titre mis à jour & résumé correct
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "deja_vu"));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "deja_vu"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "deja_vu"),
+                    Mutation.put("Heat", "deja_vu")
+            )));
             js.verifyNoMoreInteractions();
             assertEquals("STATUS_MANY:2->deja_vu", res);
         }
@@ -165,7 +175,7 @@ class BulkToolsTest {
             String res = tools.setManyStatus("Alien", "  PAS_INTERESSE ");
 
             // THEN: normalisé et résumé
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Alien", "pas_interesse"))));
             js.verifyNoMoreInteractions();
             assertEquals("STATUS_MANY:1->pas_interesse", res);
         }
@@ -182,8 +192,10 @@ class BulkToolsTest {
             String res = tools.setManyStatus("Alien,Heat", "???");
 
             // THEN: repli sur 'envie' et résumé
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "envie"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "envie"),
+                    Mutation.put("Heat", "envie")
+            )));
             js.verifyNoMoreInteractions();
             assertEquals("STATUS_MANY:2->envie", res);
         }
@@ -200,7 +212,7 @@ class BulkToolsTest {
             String res = tools.setManyStatus("Alien", null);
 
             // THEN: défaut 'envie'
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "envie"));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Alien", "envie"))));
             js.verifyNoMoreInteractions();
             assertEquals("STATUS_MANY:1->envie", res);
         }
@@ -233,7 +245,7 @@ class BulkToolsTest {
             String res = tools.setManyStatus("Heat", "DEJA_VU");
 
             // THEN: normalisé en 'deja_vu'
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "deja_vu"));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Heat", "deja_vu"))));
             js.verifyNoMoreInteractions();
             assertEquals("STATUS_MANY:1->deja_vu", res);
         }
@@ -1,6 +1,7 @@
 package app.cinematch.agent.tools;
 
 import app.cinematch.util.JsonStorage;
+import app.cinematch.util.Mutation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
@@ -91,9 +92,9 @@ class MaintenanceToolsTest {
     void whenGetStats_thenCountsReturned() {
         try (MockedStatic<JsonStorage> js = Mockito.mockStatic(JsonStorage.class)) {
             // GIVEN: 1 envie, 2 pas_interesse, 0 deja_vu
-            js.when(() -> JsonStorage.getByStatus("envie")).thenReturn(List.of("A"));
-            js.when(() -> JsonStorage.getByStatus("pas_interesse")).thenReturn(List.of("B","C"));
-            js.when(() -> JsonStorage.getByStatus("deja_vu")).thenReturn(List.of());
+            js.when(() -> JsonStorage.countByStatus("envie")).thenReturn(1);
+            js.when(() -> JsonStorage.countByStatus("pas_interesse")).thenReturn(2);
+            js.when(() -> JsonStorage.countByStatus("deja_vu")).thenReturn(0);
 
             MaintenanceTools tools = new MaintenanceTools();
 
@@ -203,8 +204,10 @@ class MaintenanceToolsTest {
             String res = tools.clearStatus("envie", "soft");
 
             // THEN: seuls les titres non vides sont déplacés vers 'pas_interesse'
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "pas_interesse"));
-            js.verify(() -> JsonStorage.addOrUpdate("Drive", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "pas_interesse"),
+                    Mutation.put("Drive", "pas_interesse")
+            )));
             assertEquals("Déplacé 2 films de « liste d’envie » vers « pas intéressé ».", res);
         }
     }
@@ -222,7 +225,7 @@ class MaintenanceToolsTest {
             String res = tools.clearStatus("pas_interesse", "soft");
 
             // THEN: déplacement vers 'deja_vu' + libellé au singulier
-            js.verify(() -> JsonStorage.addOrUpdate("Jojo Rabbit", "deja_vu"));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Jojo Rabbit", "deja_vu"))));
             assertEquals("Déplacé 1 film de « pas intéressé » vers « déjà vu ».", res);
         }
     }
@@ -368,8 +371,10 @@ class MaintenanceToolsTest {
             String res = tools.clearStatus("deja_vu", "soft");
 
             // THEN (T): déplacés vers 'pas_interesse' + message pluriel correct
-            js.verify(() -> JsonStorage.addOrUpdate("Blade Runner 2049", "pas_interesse"));
-            js.verify(() -> JsonStorage.addOrUpdate("Parasite", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Blade Runner 2049", "pas_interesse"),
+                    Mutation.put("Parasite", "pas_interesse")
+            )));
             assertEquals("Déplacé 2 films de « déjà vu » vers « pas intéressé ».", res);
         }
     }
@@ -1,10 +1,17 @@
 package app.cinematch.agent.tools;
 
+import app.cinematch.api.LlmPriority;
+import app.cinematch.util.HistoryRepository;
 import app.cinematch.util.JsonStorage;
+import app.cinematch.util.Mutation;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.MockedStatic;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -24,8 +31,10 @@ class MultiActionToolsTest {
             String out = tools.mixedActions(instruction);
 
             // THEN — On vérifie que les deux opérations ont bien été déclenchées, dans le bon statut.
-            js.verify(() -> JsonStorage.addOrUpdate("Drive", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Dune", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Drive", "envie"),
+                    Mutation.put("Dune", "pas_interesse")
+            )));
             assertTrue(out.contains("Ajoutés"));
             assertTrue(out.contains("Retirés"));
         }
@@ -44,10 +53,12 @@ class MultiActionToolsTest {
             String out = tools.mixedActions(instruction);
 
             // THEN — Vérification des appels et d'un résumé lisible.
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "envie"), times(1));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "envie"), times(1));
-            js.verify(() -> JsonStorage.addOrUpdate("Blade Runner 2049", "envie"), times(1));
-            js.verify(() -> JsonStorage.addOrUpdate("Parasite", "pas_interesse"), times(1));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "envie"),
+                    Mutation.put("Heat", "envie"),
+                    Mutation.put("Blade Runner 2049", "envie"),
+                    Mutation.put("Parasite", "pas_interesse")
+            )));
             assertTrue(out.contains("Ajoutés"));
             assertTrue(out.contains("Retirés"));
         }
@@ -66,8 +77,10 @@ class MultiActionToolsTest {
             String out = tools.mixedActions(instruction);
 
             // THEN — Vérifie les statuts normalisés.
-            js.verify(() -> JsonStorage.addOrUpdate("Jojo Rabbit", "deja_vu"));
-            js.verify(() -> JsonStorage.addOrUpdate("Matrix", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Jojo Rabbit", "deja_vu"),
+                    Mutation.put("Matrix", "pas_interesse")
+            )));
             assertTrue(out.contains("Statuts"));
         }
     }
@@ -85,7 +98,7 @@ class MultiActionToolsTest {
             String out = tools.mixedActions(instruction);
 
             // THEN — Ajout implicite à la wishlist.
-            js.verify(() -> JsonStorage.addOrUpdate("Dune", "envie"));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Dune", "envie"))));
             assertTrue(out.contains("Ajoutés"));
         }
     }
@@ -103,8 +116,10 @@ class MultiActionToolsTest {
             tools.mixedActions(instruction);
 
             // THEN — Titres nettoyés et statuts corrects.
-            js.verify(() -> JsonStorage.addOrUpdate("Le Grand Badaud", "envie"));
-            js.verify(() -> JsonStorage.addOrUpdate("Pain and Chocolate", "pas_interesse"));
+            js.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Le Grand Badaud", "envie"),
+                    Mutation.put("Pain and Chocolate", "pas_interesse")
+            )));
         }
     }
 
@@ -121,8 +136,8 @@ class MultiActionToolsTest {
             tools.mixedActions("mets Heat en deja vu");
 
             // THEN — Les deux doivent être normalisés en 'deja_vu'.
-            js.verify(() -> JsonStorage.addOrUpdate("Alien", "deja_vu"));
-            js.verify(() -> JsonStorage.addOrUpdate("Heat", "deja_vu"));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Alien", "deja_vu"))));
+            js.verify(() -> JsonStorage.apply(List.of(Mutation.put("Heat", "deja_vu"))));
         }
     }
 
@@ -162,4 +177,57 @@ class MultiActionToolsTest {
             assertEquals("Aucune action à effectuer.", out);
         }
     }
+
+    @Test
+    @DisplayName("Écritures en un lot, descriptions en parallèle, rendues dans l'ordre du plan")
+    void givenAddsAndDescribes_whenMixed_thenBatchedAndConcurrent() {
+        // GIVEN — Un describer qui ne rend la main que si les deux descriptions tournent ensemble.
+        HistoryRepository repo = mock(HistoryRepository.class);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        MultiActionTools tools = new MultiActionTools(repo, title -> {
+            bothStarted.countDown();
+            try {
+                return bothStarted.await(5, TimeUnit.SECONDS) ? "Sur " + title + "." : "séquentiel";
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // WHEN — Ajouts puis deux descriptions.
+        String out = tools.mixedActions("ajoute Alien, Heat puis décris Drive et décris Dune");
+
+        // THEN — Un seul lot d'écriture, descriptions concurrentes et ordonnées.
+        verify(repo).apply(List.of(Mutation.put("Alien", "envie"), Mutation.put("Heat", "envie")));
+        assertEquals("Ajoutés: Alien, Heat.\n« Drive » : Sur Drive.\n« Dune » : Sur Dune.", out);
+    }
+
+    @Test
+    @DisplayName("Descriptions parallèles : exécutées à la priorité de l'appelant")
+    void givenInteractiveCaller_whenDescribe_thenWorkersKeepPriority() {
+        // GIVEN — Un describer qui rapporte la priorité de son thread.
+        HistoryRepository repo = mock(HistoryRepository.class);
+        MultiActionTools tools = new MultiActionTools(repo, title -> title + "=" + LlmPriority.current());
+
+        // WHEN — Appel depuis le chat.
+        String out = LlmPriority.call(LlmPriority.INTERACTIVE,
+                () -> tools.mixedActions("ajoute Alien puis décris Drive"));
+
+        // THEN
+        assertEquals("Ajoutés: Alien.\n« Drive » : Drive=INTERACTIVE", out);
+    }
+
+    @Test
+    @DisplayName("Sans générateur de descriptions : erreur signalée, écritures appliquées")
+    void givenNoDescriber_whenDescribe_thenErrorAndWritesKept() {
+        // GIVEN
+        HistoryRepository repo = mock(HistoryRepository.class);
+        MultiActionTools tools = new MultiActionTools(repo);
+
+        // WHEN
+        String out = tools.mixedActions("ajoute Alien puis décris Drive");
+
+        // THEN
+        verify(repo).apply(List.of(Mutation.put("Alien", "envie")));
+        assertEquals("Ajoutés: Alien. Erreurs: Drive → description indisponible.", out);
+    }
 }
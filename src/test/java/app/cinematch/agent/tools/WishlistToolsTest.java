@@ -1,6 +1,7 @@
 package app.cinematch.agent.tools;
 
 import app.cinematch.util.JsonStorage;
+import app.cinematch.util.Mutation;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -56,9 +57,11 @@ class WishlistToolsTest {
             String result = tools.addToWishlist(multi);
 
             // THEN: 3 écritures non vides, résumé ADDED_MANY:3                   // THEN
-            mocked.verify(() -> JsonStorage.addOrUpdate("Alien", "envie"));
-            mocked.verify(() -> JsonStorage.addOrUpdate("Heat", "envie"));
-            mocked.verify(() -> JsonStorage.addOrUpdate("Drive", "envie"));
+            mocked.verify(() -> JsonStorage.apply(List.of(
+                    Mutation.put("Alien", "envie"),
+                    Mutation.put("Heat", "envie"),
+                    Mutation.put("Drive", "envie")
+            )));
             mocked.verifyNoMoreInteractions();
             assertEquals("ADDED_MANY:3", result);
         }
@@ -0,0 +1,36 @@
+package app.cinematch.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class LlmPriorityTest {
+
+    @Test
+    @DisplayName("Sans priorité fixée : VISIBLE")
+    void current_defaultsToVisible() {
+        assertEquals(LlmPriority.VISIBLE, LlmPriority.current());
+    }
+
+    @Test
+    @DisplayName("call() fixe la priorité pendant l'action puis rétablit la précédente, même en cas d'erreur")
+    void call_setsAndRestores() {
+        // Given / When: appels imbriqués
+        LlmPriority inner = LlmPriority.call(LlmPriority.INTERACTIVE,
+                () -> LlmPriority.call(LlmPriority.PREFETCH, LlmPriority::current));
+        LlmPriority outer = LlmPriority.call(LlmPriority.INTERACTIVE, () -> {
+            LlmPriority.call(LlmPriority.PREFETCH, () -> null);
+            return LlmPriority.current();
+        });
+
+        // Then
+        assertEquals(LlmPriority.PREFETCH, inner);
+        assertEquals(LlmPriority.INTERACTIVE, outer);
+        assertThrows(IllegalStateException.class, () -> LlmPriority.call(LlmPriority.PREFETCH, () -> {
+            throw new IllegalStateException("boom");
+        }));
+        assertEquals(LlmPriority.VISIBLE, LlmPriority.current());
+    }
+}
@@ -0,0 +1,181 @@
+package app.cinematch.api;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests des variantes non bloquantes d’{@link OllamaClient} contre un faux serveur
+ * Ollama local (GIVEN / WHEN / THEN).
+ */
+class OllamaClientAsyncTest {
+
+    private static final int CHUNKS = 200;
+
+    private HttpServer server;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicBoolean aborted = new AtomicBoolean();
+    private final CountDownLatch firstChunk = new CountDownLatch(1);
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private volatile long chunkDelayMs;
+    private volatile String lastBody;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/api/chat", exchange -> {
+            lastBody = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            final boolean stream = lastBody.contains("\"stream\":true");
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (!stream) {
+                    exchange.sendResponseHeaders(200, 0);
+                    out.write("{\"message\":{\"role\":\"assistant\",\"content\":\"Bloc\"},\"done\":true}"
+                            .getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                exchange.sendResponseHeaders(200, 0);
+                for (int i = 0; i < CHUNKS; i++) {
+                    out.write(("{\"message\":{\"content\":\"t" + i + " \"},\"done\":false}\n")
+                            .getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    written.incrementAndGet();
+                    firstChunk.countDown();
+                    Thread.sleep(chunkDelayMs);
+                }
+                out.write("{\"message\":{\"content\":\"\"},\"done\":true}\n".getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                aborted.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                finished.countDown();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private OllamaClient client() {
+        return new OllamaClient("http://localhost:" + server.getAddress().getPort(), "m");
+    }
+
+    @Test
+    @DisplayName("warmUp : requête sans message, avec keep_alive et options du client")
+    void warmUp_sendsEmptyChatWithKeepAliveAndOptions() throws Exception {
+        // GIVEN un client configuré
+        final OllamaClient client = new OllamaClient("http://localhost:" + server.getAddress().getPort(), "m",
+                OllamaTransport.shared(), "10m", java.util.Map.of("num_ctx", 4096));
+
+        // WHEN
+        final boolean ok = client.warmUp().get(5, TimeUnit.SECONDS);
+
+        // THEN chargement signalé, aucun message envoyé, mêmes réglages que les vrais appels
+        assertTrue(ok);
+        assertTrue(lastBody.contains("\"messages\":[]"));
+        assertTrue(lastBody.contains("\"keep_alive\":\"10m\""));
+        assertTrue(lastBody.contains("\"num_ctx\":4096"));
+        client.chatAsync("sys", "usr").get(5, TimeUnit.SECONDS);
+        assertTrue(lastBody.contains("\"keep_alive\":\"10m\"") && lastBody.contains("\"num_ctx\":4096"));
+    }
+
+    @Test
+    @DisplayName("warmUp : serveur injoignable -> false, sans exception")
+    void warmUp_unreachable_returnsFalse() throws Exception {
+        // GIVEN un port fermé
+        final int port = server.getAddress().getPort();
+        server.stop(0);
+
+        // WHEN / THEN
+        assertFalse(new OllamaClient("http://localhost:" + port, "m").warmUp().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("chat(List) : tous les tours envoyés, dans l’ordre")
+    void chatMessages_sendsAllTurnsInOrder() {
+        // GIVEN une conversation à plusieurs tours
+        final List<app.cinematch.model.LlmMessage> messages = List.of(
+                new app.cinematch.model.LlmMessage("system", "S"),
+                new app.cinematch.model.LlmMessage("user", "Q1"),
+                new app.cinematch.model.LlmMessage("assistant", "R1"),
+                new app.cinematch.model.LlmMessage("user", "Q2"));
+
+        // WHEN
+        final String answer = client().chat(messages);
+
+        // THEN
+        assertEquals("Bloc", answer);
+        assertTrue(lastBody.contains("\"messages\":[{\"role\":\"system\",\"content\":\"S\"},"
+                + "{\"role\":\"user\",\"content\":\"Q1\"},{\"role\":\"assistant\",\"content\":\"R1\"},"
+                + "{\"role\":\"user\",\"content\":\"Q2\"}]"), lastBody);
+    }
+
+    @Test
+    @DisplayName("chatAsync : réponse complète sans bloquer l’appelant")
+    void chatAsync_returnsContent() throws Exception {
+        // GIVEN / WHEN
+        final CompletableFuture<String> f = client().chatAsync("sys", "usr");
+
+        // THEN
+        assertEquals("Bloc", f.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("chatStreamAsync : fragments transmis dans l’ordre, texte complet en fin de flux")
+    void chatStreamAsync_forwardsTokens() throws Exception {
+        // GIVEN
+        chunkDelayMs = 0;
+        final List<String> tokens = new CopyOnWriteArrayList<>();
+
+        // WHEN
+        final String full = client().chatStreamAsync("sys", "usr", tokens::add).get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertEquals(CHUNKS, tokens.size());
+        assertEquals("t0 ", tokens.get(0));
+        assertEquals(String.join("", tokens), full);
+    }
+
+    @Test
+    @DisplayName("chatStreamAsync : l’annulation interrompt l’échange, le serveur cesse d’écrire")
+    void cancel_abortsExchange() throws Exception {
+        // GIVEN une génération lente (200 fragments × 20 ms)
+        chunkDelayMs = 20;
+        final List<String> tokens = new CopyOnWriteArrayList<>();
+        final CompletableFuture<String> f = client().chatStreamAsync("sys", "usr", tokens::add);
+        assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+
+        // WHEN
+        assertTrue(f.cancel(true));
+
+        // THEN la connexion est fermée bien avant la fin du flux
+        assertTrue(finished.await(5, TimeUnit.SECONDS), "le serveur doit constater la fermeture");
+        assertTrue(aborted.get(), "l’écriture côté serveur doit échouer");
+        assertTrue(written.get() < CHUNKS, "la génération ne doit pas aller à son terme");
+        assertTrue(f.isCancelled());
+        final int seen = tokens.size();
+        Thread.sleep(100);
+        assertEquals(seen, tokens.size(), "plus aucun fragment après l’annulation");
+    }
+}
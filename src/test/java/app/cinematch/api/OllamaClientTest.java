@@ -4,13 +4,23 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -88,6 +98,190 @@ class OllamaClientTest {
         assertTrue(result.contains("boom"));
     }
 
+    @Test
+    void chatStream_forwardsEachNdjsonChunk_andReturnsFullText() throws Exception {
+        // Given: une réponse NDJSON en trois fragments puis done=true
+        OllamaClient client = new OllamaClient("http://host:1234", "m");
+        injectMock(client, "http", httpMock);
+
+        String ndjson = String.join("\n",
+                "{\"message\":{\"role\":\"assistant\",\"content\":\"Bon\"},\"done\":false}",
+                "",
+                "{\"message\":{\"role\":\"assistant\",\"content\":\"jour \"},\"done\":false}",
+                "{\"message\":{\"role\":\"assistant\",\"content\":\"é!\"},\"done\":false}",
+                "{\"message\":{\"role\":\"assistant\",\"content\":\"\"},\"done\":true}",
+                "{\"message\":{\"role\":\"assistant\",\"content\":\"ignoré\"},\"done\":false}");
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> response = (HttpResponse<InputStream>) mock(HttpResponse.class);
+        org.mockito.Mockito.when(response.body())
+                .thenReturn(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+        org.mockito.Mockito.when(httpMock.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(response);
+        List<String> tokens = new ArrayList<>();
+
+        // When
+        String result = client.chatStream("sys", "usr", tokens::add);
+
+        // Then: chaque fragment est transmis dans l’ordre, la lecture s’arrête à done=true
+        assertEquals(List.of("Bon", "jour ", "é!"), tokens);
+        assertEquals("Bonjour é!", result);
+    }
+
+    @Test
+    void chatStream_interruptedDuringRead_returnsPartialText() throws Exception {
+        // Given: un fragment reçu, puis une lecture bloquante interrompue
+        OllamaClient client = new OllamaClient("http://host:1234", "m");
+        injectMock(client, "http", httpMock);
+        byte[] first = "{\"message\":{\"content\":\"Bon\"},\"done\":false}\n".getBytes(StandardCharsets.UTF_8);
+        InputStream body = new InputStream() {
+            private int pos;
+
+            @Override
+            public int read() throws IOException {
+                if (pos < first.length) {
+                    return first[pos++];
+                }
+                // drapeau déjà consommé par la couche réseau : seule l'exception le signale
+                throw new java.io.InterruptedIOException("interrompu");
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (pos < first.length) {
+                    int n = Math.min(len, first.length - pos);
+                    System.arraycopy(first, pos, b, off, n);
+                    pos += n;
+                    return n;
+                }
+                return read();
+            }
+        };
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> response = (HttpResponse<InputStream>) mock(HttpResponse.class);
+        org.mockito.Mockito.when(response.body()).thenReturn(body);
+        org.mockito.Mockito.when(httpMock.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(response);
+
+        // When
+        String result;
+        boolean stillInterrupted;
+        try {
+            result = client.chatStream("sys", "usr", null);
+        } finally {
+            stillInterrupted = Thread.interrupted();
+        }
+
+        // Then: le texte déjà reçu est renvoyé, pas une erreur, et l'interruption reste visible
+        assertEquals("Bon", result);
+        assertTrue(stillInterrupted);
+    }
+
+    @Test
+    void chatStream_returnsErrorPrefix_whenChunkCarriesError() throws Exception {
+        // Given: Ollama répond par une ligne {"error": ...}
+        OllamaClient client = new OllamaClient("http://host:1234", "m");
+        injectMock(client, "http", httpMock);
+
+        @SuppressWarnings("unchecked")
+        HttpResponse<InputStream> response = (HttpResponse<InputStream>) mock(HttpResponse.class);
+        org.mockito.Mockito.when(response.body()).thenReturn(new ByteArrayInputStream(
+                "{\"error\":\"model not found\"}".getBytes(StandardCharsets.UTF_8)));
+        org.mockito.Mockito.when(httpMock.send(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(response);
+
+        // When
+        String result = client.chatStream("sys", "usr", null);
+
+        // Then
+        assertTrue(result.startsWith("[Erreur Ollama] "));
+        assertTrue(result.contains("model not found"));
+    }
+
+    @Test
+    void chatAsync_waitsForTransportPermit_beforeSending() throws Exception {
+        // Given: un transport limité à une requête, un premier échange qui ne se termine pas
+        OllamaTransport transport = new OllamaTransport(Duration.ofSeconds(1), Duration.ofSeconds(5), 1, 1);
+        OllamaClient client = new OllamaClient("http://localhost:11434", "test-model", transport);
+        injectMock(client, "http", httpMock);
+        CompletableFuture<HttpResponse<Object>> first = new CompletableFuture<>();
+        @SuppressWarnings("unchecked")
+        HttpResponse<Object> response = (HttpResponse<Object>) mock(HttpResponse.class);
+        org.mockito.Mockito.when(response.body()).thenReturn("{\"message\":{\"content\":\"ok\"}}");
+        org.mockito.Mockito.when(httpMock.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(first, CompletableFuture.completedFuture(response));
+
+        // When: deux appels asynchrones
+        CompletableFuture<String> a = client.chatAsync("sys", "1");
+        CompletableFuture<String> b = client.chatAsync("sys", "2");
+
+        // Then: le second n'est envoyé qu'une fois le premier terminé
+        verify(httpMock, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        first.complete(response);
+        assertEquals("ok", a.get(1, TimeUnit.SECONDS));
+        assertEquals("ok", b.get(1, TimeUnit.SECONDS));
+        verify(httpMock, times(2)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(1, transport.availablePermits());
+    }
+
+    @Test
+    void chatAsync_sendThrows_releasesTransportPermit() throws Exception {
+        // Given: un transport limité à une requête, un envoi qui échoue avant tout échange
+        OllamaTransport transport = new OllamaTransport(Duration.ofSeconds(1), Duration.ofSeconds(5), 1, 1);
+        OllamaClient client = new OllamaClient("http://localhost:11434", "test-model", transport);
+        injectMock(client, "http", httpMock);
+        org.mockito.Mockito.when(httpMock.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenThrow(new IllegalArgumentException("requête refusée"));
+
+        // When
+        String result = client.chatAsync("sys", "usr").get(1, TimeUnit.SECONDS);
+
+        // Then: erreur rapportée et la place est rendue
+        assertTrue(result.startsWith("[Erreur Ollama] "));
+        assertTrue(result.contains("requête refusée"));
+        assertEquals(1, transport.availablePermits());
+    }
+
+    @Test
+    void chatAsync_identicalInFlight_sentOnce() throws Exception {
+        // Given: un échange qui ne se termine pas tout de suite
+        OllamaClient client = new OllamaClient("http://localhost:11434", "test-model");
+        injectMock(client, "http", httpMock);
+        CompletableFuture<HttpResponse<Object>> exchange = new CompletableFuture<>();
+        @SuppressWarnings("unchecked")
+        HttpResponse<Object> response = (HttpResponse<Object>) mock(HttpResponse.class);
+        org.mockito.Mockito.when(response.body()).thenReturn("{\"message\":{\"content\":\"ok\"}}");
+        org.mockito.Mockito.when(httpMock.sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class)))
+                .thenReturn(exchange);
+
+        // When: deux fois la même requête, la première en cours
+        CompletableFuture<String> a = client.chatAsync("sys", "usr");
+        CompletableFuture<String> b = client.chatAsync("sys", "usr");
+        exchange.complete(response);
+
+        // Then: un seul envoi, même réponse
+        verify(httpMock, times(1)).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals("ok", a.get(1, TimeUnit.SECONDS));
+        assertEquals("ok", b.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void chatAsync_cancelWhileWaiting_neverSends() throws Exception {
+        // Given: la seule place est prise
+        OllamaTransport transport = new OllamaTransport(Duration.ofSeconds(1), Duration.ofSeconds(5), 1, 1);
+        OllamaClient client = new OllamaClient("http://localhost:11434", "test-model", transport);
+        injectMock(client, "http", httpMock);
+        OllamaTransport.Permit busy = transport.acquire();
+
+        // When: un appel en attente est annulé, puis la place est rendue
+        CompletableFuture<String> waiting = client.chatAsync("sys", "usr");
+        waiting.cancel(true);
+        busy.close();
+
+        // Then: rien n'est parti et la place reste libre
+        verify(httpMock, org.mockito.Mockito.never()).sendAsync(any(HttpRequest.class), any(HttpResponse.BodyHandler.class));
+        assertEquals(1, transport.availablePermits());
+    }
+
     // --- utilitaire d’injection du mock dans le champ privé 'http'
     private static void injectMock(Object target, String field, Object value) throws Exception {
         Field f = target.getClass().getDeclaredField(field);
@@ -0,0 +1,258 @@
+package app.cinematch.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+class OllamaTransportTest {
+
+    private OllamaTransport transport;
+
+    @BeforeEach
+    void setUp() {
+        // Given: un transport limité à 2 requêtes simultanées
+        transport = new OllamaTransport(Duration.ofSeconds(1), Duration.ofSeconds(7), 2, 1);
+    }
+
+    @Test
+    @DisplayName("Client HTTP unique, HTTP/1.1, délais configurés")
+    void httpClient_isSharedAndConfigured() {
+        // Then
+        assertSame(transport.http(), transport.http());
+        assertEquals(HttpClient.Version.HTTP_1_1, transport.http().version());
+        assertEquals(Duration.ofSeconds(1), transport.http().connectTimeout().orElseThrow());
+        assertEquals(Duration.ofSeconds(7), transport.requestTimeout());
+        assertTrue(transport.http().executor().isPresent());
+    }
+
+    @Test
+    @DisplayName("Au-delà de la limite, la demande attend qu'une place soit rendue (ordre d'arrivée)")
+    void acquireAsync_waitsBeyondLimit_fifo() throws Exception {
+        // Given: deux places prises
+        OllamaTransport.Permit p1 = transport.acquireAsync().get();
+        OllamaTransport.Permit p2 = transport.acquireAsync().get();
+        assertEquals(0, transport.availablePermits());
+
+        // When: deux demandes de plus
+        CompletableFuture<OllamaTransport.Permit> third = transport.acquireAsync();
+        CompletableFuture<OllamaTransport.Permit> fourth = transport.acquireAsync();
+
+        // Then: elles attendent, puis passent dans l'ordre
+        assertFalse(third.isDone());
+        p1.close();
+        assertTrue(third.isDone());
+        assertFalse(fourth.isDone());
+        p2.close();
+        assertTrue(fourth.isDone());
+    }
+
+    @Test
+    @DisplayName("Fermer deux fois une place ne la rend qu'une fois")
+    void permitClose_isIdempotent() throws Exception {
+        // Given
+        OllamaTransport.Permit p = transport.acquire();
+
+        // When
+        p.close();
+        p.close();
+
+        // Then
+        assertEquals(2, transport.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Demande annulée : la place libérée passe à la suivante")
+    void cancelledWaiter_isSkipped() throws Exception {
+        // Given: transport plein et deux demandes en attente
+        OllamaTransport.Permit p1 = transport.acquire();
+        transport.acquire();
+        CompletableFuture<OllamaTransport.Permit> cancelled = transport.acquireAsync();
+        CompletableFuture<OllamaTransport.Permit> next = transport.acquireAsync();
+
+        // When
+        cancelled.cancel(false);
+        p1.close();
+
+        // Then
+        assertTrue(next.isDone());
+        assertEquals(0, transport.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Attente bloquante interrompue : aucune place perdue")
+    void acquire_interrupted_releasesNothing() throws Exception {
+        // Given: transport plein
+        OllamaTransport.Permit p1 = transport.acquire();
+        OllamaTransport.Permit p2 = transport.acquire();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        Thread t = new Thread(() -> {
+            try {
+                transport.acquire();
+            } catch (Throwable e) {
+                error.set(e);
+            } finally {
+                done.countDown();
+            }
+        });
+
+        // When: le thread en attente est interrompu
+        t.start();
+        Thread.sleep(50);
+        t.interrupt();
+
+        // Then: InterruptedException, et les places rendues ensuite sont toutes disponibles
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof InterruptedException);
+        p1.close();
+        p2.close();
+        assertEquals(2, transport.availablePermits());
+    }
+
+    @Test
+    @DisplayName("Propriétés système : valeurs lues, bornes minimales appliquées")
+    void fromSystemProperties_readsValues() {
+        // Given
+        System.setProperty(OllamaTransport.PROP_MAX_CONCURRENT, "0");
+        System.setProperty(OllamaTransport.PROP_REQUEST_TIMEOUT_SEC, "90");
+        try {
+            // When
+            OllamaTransport t = OllamaTransport.fromSystemProperties();
+
+            // Then
+            assertEquals(1, t.maxConcurrent());
+            assertEquals(Duration.ofSeconds(90), t.requestTimeout());
+        } finally {
+            System.clearProperty(OllamaTransport.PROP_MAX_CONCURRENT);
+            System.clearProperty(OllamaTransport.PROP_REQUEST_TIMEOUT_SEC);
+        }
+    }
+
+    @Test
+    @DisplayName("shared() renvoie toujours le même transport")
+    void shared_isSingleton() {
+        assertSame(OllamaTransport.shared(), OllamaTransport.shared());
+    }
+
+    @Test
+    @DisplayName("Place rendue : la demande la plus prioritaire passe d'abord, FIFO dans une classe")
+    void release_servesHighestPriorityFirst() throws Exception {
+        // Given: une seule place, prise ; des demandes de toutes classes en attente
+        OllamaTransport t = new OllamaTransport(Duration.ofSeconds(1), Duration.ofSeconds(5), 1, 1);
+        OllamaTransport.Permit busy = t.acquire(LlmPriority.VISIBLE);
+        CompletableFuture<OllamaTransport.Permit> prefetch = t.acquireAsync(LlmPriority.PREFETCH);
+        CompletableFuture<OllamaTransport.Permit> visible = t.acquireAsync(LlmPriority.VISIBLE);
+        CompletableFuture<OllamaTransport.Permit> chat1 = t.acquireAsync(LlmPriority.INTERACTIVE);
+        CompletableFuture<OllamaTransport.Permit> chat2 = t.acquireAsync(LlmPriority.INTERACTIVE);
+
+        // When / Then: chat1, chat2, visible, prefetch
+        busy.close();
+        assertTrue(chat1.isDone());
+        assertFalse(chat2.isDone());
+        chat1.get().close();
+        assertTrue(chat2.isDone());
+        chat2.get().close();
+        assertTrue(visible.isDone());
+        assertFalse(prefetch.isDone());
+        visible.get().close();
+        assertEquals(LlmPriority.PREFETCH, prefetch.get().priority());
+    }
+
+    @Test
+    @DisplayName("Place réservée : le chat part aussitôt même si le reste attend")
+    void reservedSlot_keepsChatImmediate() throws Exception {
+        // Given: 2 places dont 1 réservée au chat, une description en cours
+        OllamaTransport t = new OllamaTransport(Duration.ofSeconds(1), Duration.ofSeconds(5), 2, 1, 1);
+        OllamaTransport.Permit description = t.acquire(LlmPriority.VISIBLE);
+
+        // When
+        CompletableFuture<OllamaTransport.Permit> prefetch = t.acquireAsync(LlmPriority.PREFETCH);
+        CompletableFuture<OllamaTransport.Permit> chat = t.acquireAsync(LlmPriority.INTERACTIVE);
+
+        // Then: le préchargement attend malgré la place libre, le chat passe
+        assertFalse(prefetch.isDone());
+        assertTrue(chat.isDone());
+        chat.get().close();
+        assertFalse(prefetch.isDone(), "la place réservée ne revient pas au préchargement");
+        description.close();
+        assertTrue(prefetch.isDone());
+    }
+
+    @Test
+    @DisplayName("Priorité du thread appelant utilisée par défaut")
+    void acquire_defaultsToThreadPriority() {
+        // Given / When
+        OllamaTransport.Permit p = LlmPriority.call(LlmPriority.PREFETCH, () -> transport.acquireAsync().join());
+
+        // Then
+        assertEquals(LlmPriority.PREFETCH, p.priority());
+        p.close();
+    }
+
+    @Test
+    @DisplayName("Requêtes identiques en cours : un seul échange, même résultat pour tous")
+    void deduplicate_sharesOneExchange() throws Exception {
+        // Given
+        AtomicInteger starts = new AtomicInteger();
+        CompletableFuture<String> exchange = new CompletableFuture<>();
+
+        // When
+        CompletableFuture<String> a = transport.deduplicate("k", () -> {
+            starts.incrementAndGet();
+            return exchange;
+        });
+        CompletableFuture<String> b = transport.deduplicate("k", () -> {
+            starts.incrementAndGet();
+            return CompletableFuture.completedFuture("autre");
+        });
+        exchange.complete("R");
+
+        // Then
+        assertEquals(1, starts.get());
+        assertEquals("R", a.get());
+        assertEquals("R", b.get());
+        assertEquals(0, transport.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Échange partagé : annulé seulement quand tous ses appelants ont annulé")
+    void deduplicate_cancelsWhenLastSubscriberLeaves() {
+        // Given
+        CompletableFuture<String> exchange = new CompletableFuture<>();
+        CompletableFuture<String> a = transport.deduplicate("k", () -> exchange);
+        CompletableFuture<String> b = transport.deduplicate("k", () -> exchange);
+
+        // When / Then
+        a.cancel(true);
+        assertFalse(exchange.isCancelled());
+        assertFalse(b.isDone());
+        b.cancel(true);
+        assertTrue(exchange.isCancelled());
+        assertEquals(0, transport.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Échange terminé : une nouvelle requête identique repart")
+    void deduplicate_afterCompletion_startsAgain() throws Exception {
+        // Given
+        transport.deduplicate("k", () -> CompletableFuture.completedFuture("1")).get();
+
+        // When
+        String second = transport.deduplicate("k", () -> CompletableFuture.completedFuture("2")).get();
+
+        // Then
+        assertEquals("2", second);
+    }
+}
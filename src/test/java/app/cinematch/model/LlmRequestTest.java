@@ -64,4 +64,31 @@ public class LlmRequestTest {
         assertEquals(1, req.messages().size());
         assertTrue(req.stream());
     }
+
+    @Test
+    void givenKeepAliveAndOptions_whenSerialize_thenOllamaFieldNamesUsed() throws Exception {
+        // Given
+        LlmRequest req = new LlmRequest("qwen2.5", List.of(), false, "30m", java.util.Map.of("num_ctx", 8192));
+
+        // When
+        String json = MAPPER.writeValueAsString(req);
+
+        // Then
+        assertTrue(json.contains("\"keep_alive\":\"30m\""));
+        assertTrue(json.contains("\"options\":{\"num_ctx\":8192}"));
+    }
+
+    @Test
+    void givenNoKeepAliveNorOptions_whenSerialize_thenFieldsOmitted() throws Exception {
+        // Given constructeur 3 args, options vides = absentes
+        LlmRequest req = new LlmRequest("qwen2.5", List.of(), true, null, java.util.Map.of());
+
+        // When
+        String json = MAPPER.writeValueAsString(req);
+
+        // Then
+        assertFalse(json.contains("keep_alive"));
+        assertFalse(json.contains("options"));
+        assertNull(new LlmRequest("qwen2.5", List.of(), true).keepAlive());
+    }
 }
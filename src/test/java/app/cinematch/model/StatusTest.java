@@ -0,0 +1,58 @@
+package app.cinematch.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du statut compact {@link Status} et de sa forme JSON (GIVEN / WHEN / THEN).
+ */
+class StatusTest {
+
+    @Test
+    @DisplayName("fromCode : casse ignorée, statut libre ou absent -> null")
+    void fromCode_caseInsensitive_unknownIsNull() {
+        // GIVEN / WHEN / THEN
+        assertEquals(Status.ENVIE, Status.fromCode("envie"));
+        assertEquals(Status.DEJA_VU, Status.fromCode("DEJA_VU"));
+        assertEquals(Status.PAS_INTERESSE, Status.fromCode("Pas_Interesse"));
+        assertNull(Status.fromCode("liked"));
+        assertNull(Status.fromCode(null));
+        assertEquals(3, Status.count());
+    }
+
+    @Test
+    @DisplayName("Jackson : le statut s’écrit et se relit par son code historique")
+    void jackson_usesStoredCode() throws Exception {
+        // GIVEN
+        final ObjectMapper mapper = new ObjectMapper();
+
+        // WHEN
+        final String json = mapper.writeValueAsString(Status.DEJA_VU);
+        final Status back = mapper.readValue("\"ENVIE\"", Status.class);
+
+        // THEN
+        assertEquals("\"deja_vu\"", json);
+        assertEquals(Status.ENVIE, back);
+    }
+
+    @Test
+    @DisplayName("HistoryEntry : JSON inchangé (trois chaînes), formes primitives exposées")
+    void historyEntry_jsonUnchanged_primitiveViews() throws Exception {
+        // GIVEN
+        final ObjectMapper mapper = new ObjectMapper();
+        final HistoryEntry e = new HistoryEntry("Alien", "Envie", "2024-01-02T03:04:05");
+
+        // WHEN
+        final String json = mapper.writeValueAsString(e);
+        final HistoryEntry back = mapper.readValue(json, HistoryEntry.class);
+
+        // THEN
+        assertEquals("{\"title\":\"Alien\",\"status\":\"Envie\",\"dateTimeIso\":\"2024-01-02T03:04:05\"}", json);
+        assertEquals(e, back);
+        assertEquals(Status.ENVIE, back.statusValue());
+        assertEquals(Timestamps.toEpochNanos("2024-01-02T03:04:05"), back.epochNanos());
+    }
+}
@@ -0,0 +1,50 @@
+package app.cinematch.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la conversion date ISO <-> nanosecondes {@link Timestamps} (GIVEN / WHEN / THEN).
+ */
+class TimestampsTest {
+
+    @Test
+    @DisplayName("toEpochNanos / toIso : aller-retour exact d’une LocalDateTime ISO")
+    void roundTrip_localDateTime() {
+        // GIVEN
+        final String iso = "2025-10-24T09:30:00.123456789";
+
+        // WHEN
+        final long nanos = Timestamps.toEpochNanos(iso);
+
+        // THEN
+        assertNotEquals(Timestamps.NONE, nanos);
+        assertEquals(iso, Timestamps.toIso(nanos));
+    }
+
+    @Test
+    @DisplayName("toEpochNanos : ordre chronologique, décalage et date seule acceptés")
+    void ordering_andLenientFormats() {
+        // GIVEN / WHEN
+        final long day = Timestamps.toEpochNanos("2024-03-01");
+        final long morning = Timestamps.toEpochNanos("2024-03-01T10:00");
+        final long zoned = Timestamps.toEpochNanos("2024-03-01T10:00:00Z");
+        final long later = Timestamps.toEpochNanos("2024-03-01T10:00:00.5");
+
+        // THEN
+        assertTrue(day < morning);
+        assertEquals(morning, zoned);
+        assertTrue(morning < later);
+    }
+
+    @Test
+    @DisplayName("toEpochNanos : absente ou illisible -> NONE, toIso(NONE) -> null")
+    void invalid_isNone() {
+        // GIVEN / WHEN / THEN
+        assertEquals(Timestamps.NONE, Timestamps.toEpochNanos(null));
+        assertEquals(Timestamps.NONE, Timestamps.toEpochNanos("hier soir"));
+        assertNull(Timestamps.toIso(Timestamps.NONE));
+    }
+}
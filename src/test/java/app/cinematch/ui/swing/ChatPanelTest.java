@@ -170,7 +170,12 @@ class ChatPanelTest {
     @Test
     void givenSecondConstructorWithChatAgent_whenSend_thenUsesAgentAsk() throws Exception {
         ChatAgent agent = mock(ChatAgent.class);
-        when(agent.ask("Ping")).thenReturn("Pong");
+        when(agent.askStream(eq("Ping"), any())).thenAnswer(inv -> {
+            final java.util.function.Consumer<String> onToken = inv.getArgument(1);
+            onToken.accept("Po");
+            onToken.accept("ng");
+            return "Pong";
+        });
         ChatPanel panel = new ChatPanel(agent, s -> {});
         JTextField input = getPrivate(panel, "inputField");
         JButton send = getPrivate(panel, "sendButton");
@@ -180,6 +185,35 @@ class ChatPanelTest {
         onEDTAndWait(send::doClick);
 
         waitUntil("réponse IA visible", 2000, () -> pane.getText().contains("Pong"));
-        verify(agent).ask("Ping");
+        verify(agent).askStream(eq("Ping"), any());
+    }
+
+    @Test
+    void givenStreamingFunction_whenTokensArrive_thenPartialAnswerVisibleBeforeEnd() throws Exception {
+        java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+        ChatPanel panel = new ChatPanel((String text, java.util.function.Consumer<String> onToken) -> {
+            onToken.accept("Premier fragment");
+            try {
+                release.await(2, java.util.concurrent.TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            onToken.accept(" et la suite");
+            return "Premier fragment et la suite";
+        }, s -> {});
+        JTextField input = getPrivate(panel, "inputField");
+        JButton send = getPrivate(panel, "sendButton");
+        JTextPane pane = getPrivate(panel, "conversationPane");
+
+        onEDTAndWait(() -> input.setText("Salut"));
+        onEDTAndWait(send::doClick);
+
+        waitUntil("fragment visible avant la fin", 2000, () -> pane.getText().contains("Premier fragment"));
+        assertFalse(send.isEnabled(), "La réponse est encore en cours");
+
+        release.countDown();
+        waitUntil("réponse complète visible", 2000, () -> pane.getText().contains("et la suite"));
+        waitUntil("bouton réactivé", 2000, send::isEnabled);
+        assertEquals(1, pane.getText().split("Premier fragment", -1).length - 1, "Une seule bulle IA");
     }
 }
@@ -226,7 +226,8 @@ class SimilarMoviePanelTest {
         waitUntil(Duration.ofSeconds(2), "desc-1 non visible",
                 () -> safeGetHtml(ep).contains("desc-1"));
 
-        when(service.generateDescription("Y")).thenReturn("desc-2");
+        when(service.regenerateDescriptionAsync(eq("Y"), any()))
+                .thenReturn(java.util.concurrent.CompletableFuture.completedFuture("desc-2"));
         noThrow(regen::doClick, "Régénérer description ne doit pas jeter");
 
         waitUntil(Duration.ofSeconds(2), "desc-2 non visible",
@@ -1,6 +1,7 @@
 package app.cinematch.ui.swing;
 
 import app.cinematch.MovieRecommenderService;
+import app.cinematch.RecommendationPrefetcher;
 import app.cinematch.model.Recommendation;
 import app.cinematch.util.JsonStorage;
 import java.lang.reflect.Field;
@@ -17,6 +18,7 @@ import java.awt.image.BufferedImage;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
@@ -268,7 +270,11 @@ final class SwipeRecommenderPanelTest {
         Method start = SwipeRecommenderPanel.class.getDeclaredMethod("startDescriptionForCurrent");
         start.setAccessible(true);
         JEditorPane desc = (JEditorPane) getField(panel, "descPane");
-        String before = desc.getText();
+        JLabel title = (JLabel) getField(panel, "title");
+        awaitTrue(() -> title.getText().startsWith("Erreur"), 3, TimeUnit.SECONDS); // 1re proposition terminée
+        final String[] read = new String[1];
+        SwingUtilities.invokeAndWait(() -> read[0] = desc.getText());
+        String before = read[0];
 
         // WHEN on invoque la méthode
         SwingUtilities.invokeAndWait(() -> { try { start.invoke(panel); } catch (Exception e) { throw new RuntimeException(e); } });
@@ -277,12 +283,41 @@ final class SwipeRecommenderPanelTest {
         assertTrue(desc.getText().equals(before));
     }
 
+    @Test
+    @DisplayName("startDescriptionForCurrent: une nouvelle description annule la précédente")
+    void startDescription_again_cancelsPreviousTask() throws Exception {
+        // GIVEN une première génération qui ne se termine pas
+        MovieRecommenderService service = mock(MovieRecommenderService.class);
+        final java.util.concurrent.CompletableFuture<String> pending = new java.util.concurrent.CompletableFuture<>();
+        when(service.generateDescriptionAsync(eq("A"), any()))
+                .thenReturn(pending)
+                .thenReturn(java.util.concurrent.CompletableFuture.completedFuture("Desc A"));
+        final SwipeRecommenderPanel[] ref = new SwipeRecommenderPanel[1];
+        SwingUtilities.invokeAndWait(() ->
+                ref[0] = new SwipeRecommenderPanel(service, mock(java.util.function.Consumer.class)));
+        SwipeRecommenderPanel panel = ref[0];
+        Recommendation recA = mock(Recommendation.class); when(recA.title()).thenReturn("A");
+        setField(panel, "current", recA);
+        Method start = SwipeRecommenderPanel.class.getDeclaredMethod("startDescriptionForCurrent");
+        start.setAccessible(true);
+        JEditorPane desc = (JEditorPane) getField(panel, "descPane");
+
+        // WHEN on relance la génération
+        SwingUtilities.invokeAndWait(() -> { try { start.invoke(panel); } catch (Exception e) { throw new RuntimeException(e); } });
+        SwingUtilities.invokeAndWait(() -> { try { start.invoke(panel); } catch (Exception e) { throw new RuntimeException(e); } });
+
+        // THEN la première est annulée (échange HTTP interrompu), la seconde s’affiche
+        assertTrue(pending.isCancelled());
+        awaitTrue(() -> desc.getText().contains("Desc A"), 2, TimeUnit.SECONDS);
+    }
+
     @Test
     @DisplayName("startDescriptionForCurrent: mismatch (current change) -> sortie ignorée")
     void startDescription_mismatch_isIgnored() throws Exception {
         // GIVEN current = A et service renvoie une desc
         MovieRecommenderService service = mock(MovieRecommenderService.class);
-        when(service.generateDescription("A")).thenReturn("Desc A");
+        final java.util.concurrent.CompletableFuture<String> descA = new java.util.concurrent.CompletableFuture<>();
+        when(service.generateDescriptionAsync(eq("A"), any())).thenReturn(descA);
         final SwipeRecommenderPanel[] ref = new SwipeRecommenderPanel[1];
         SwingUtilities.invokeAndWait(() ->
                 ref[0] = new SwipeRecommenderPanel(service, mock(java.util.function.Consumer.class)));
@@ -297,9 +332,12 @@ final class SwipeRecommenderPanelTest {
         SwingUtilities.invokeAndWait(() -> { try { start.invoke(panel); } catch (Exception e) { throw new RuntimeException(e); } });
         Recommendation recB = mock(Recommendation.class); when(recB.title()).thenReturn("B");
         setField(panel, "current", recB);
+        descA.complete("Desc A");
 
         // THEN le HTML ne doit pas contenir "Desc A" (mismatch => early return dans done())
-        awaitTrue(() -> !desc.getText().contains("Desc A"), 2, TimeUnit.SECONDS);
+        SwingUtilities.invokeAndWait(() -> { });
+        SwingUtilities.invokeAndWait(() -> { });
+        assertTrue(!desc.getText().contains("Desc A"));
     }
 
     @Test
@@ -307,7 +345,12 @@ final class SwipeRecommenderPanelTest {
     void startDescription_success_updatesHtml() throws Exception {
         // GIVEN current = Film, service renvoie deux lignes avec caractères HTML
         MovieRecommenderService service = mock(MovieRecommenderService.class);
-        when(service.generateDescription("Film")).thenReturn("Line1\nLine2 & <3");
+        when(service.generateDescriptionAsync(eq("Film"), any())).thenAnswer(inv -> {
+            final java.util.function.Consumer<String> onToken = inv.getArgument(1);
+            onToken.accept("Line1\n");
+            onToken.accept("Line2 & <3");
+            return java.util.concurrent.CompletableFuture.completedFuture("Line1\nLine2 & <3");
+        });
         final SwipeRecommenderPanel[] ref = new SwipeRecommenderPanel[1];
         SwingUtilities.invokeAndWait(() ->
                 ref[0] = new SwipeRecommenderPanel(service, mock(java.util.function.Consumer.class)));
@@ -382,4 +425,52 @@ final class SwipeRecommenderPanelTest {
         verify(service, after(300).never()).mark(anyString(), anyString());
     }
 
+    @Test
+    @DisplayName("proposeNext: reco préchargée -> affichée tout de suite, sans régénérer la description")
+    void proposeNext_prefetched_isShownImmediately() throws Exception {
+        // GIVEN une file qui a déjà une recommandation décrite
+        final MovieRecommenderService service = mock(MovieRecommenderService.class);
+        final RecommendationPrefetcher prefetcher = mock(RecommendationPrefetcher.class);
+        when(prefetcher.next()).thenReturn(java.util.concurrent.CompletableFuture.completedFuture(
+                new RecommendationPrefetcher.Prepared(
+                        new Recommendation("Heat", "Polar culte", "Netflix", null), "Ready & <b>")));
+
+        // WHEN on construit le panneau (première proposition)
+        final SwipeRecommenderPanel[] ref = new SwipeRecommenderPanel[1];
+        SwingUtilities.invokeAndWait(() ->
+                ref[0] = new SwipeRecommenderPanel(service, mock(java.util.function.Consumer.class), prefetcher));
+
+        // THEN titre + description visibles dès le retour du constructeur, sans appel au modèle
+        final JLabel title = (JLabel) getField(ref[0], "title");
+        final JEditorPane desc = (JEditorPane) getField(ref[0], "descPane");
+        assertEquals("Heat", title.getText());
+        assertTrue(desc.getText().contains("Ready &amp; &lt;b&gt;"));
+        assertTrue(((JButton) getField(ref[0], "likeBtn")).isEnabled());
+        verify(service, never()).generateDescriptionAsync(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Clic 'Je veux voir' -> la file de préchargement est prévenue du changement")
+    void likeButton_notifiesPrefetcher() throws Exception {
+        // GIVEN une reco courante
+        final MovieRecommenderService service = mock(MovieRecommenderService.class);
+        final RecommendationPrefetcher prefetcher = mock(RecommendationPrefetcher.class);
+        when(prefetcher.next()).thenReturn(new java.util.concurrent.CompletableFuture<>());
+        final SwipeRecommenderPanel[] ref = new SwipeRecommenderPanel[1];
+        SwingUtilities.invokeAndWait(() ->
+                ref[0] = new SwipeRecommenderPanel(service, mock(java.util.function.Consumer.class), prefetcher));
+        setField(ref[0], "current", new Recommendation("Matrix", "r", "p", null));
+        enableButtonsForClick(ref[0]);
+
+        // WHEN
+        final JButton likeBtn = (JButton) getField(ref[0], "likeBtn");
+        SwingUtilities.invokeAndWait(likeBtn::doClick);
+
+        // THEN marquage puis invalidation, avant la demande suivante
+        final org.mockito.InOrder order = inOrder(service, prefetcher);
+        order.verify(service).mark("Matrix", "envie");
+        order.verify(prefetcher).historyChanged();
+        order.verify(prefetcher).next();
+    }
+
 }
@@ -111,7 +111,12 @@ final class WishlistPanelTest {
     void GIVEN_selectedTitle_WHEN_generateForSelection_THEN_htmlUpdated() throws Exception {
         // GIVEN
         MovieRecommenderService service = mock(MovieRecommenderService.class);
-        when(service.generateDescription("Titre A")).thenReturn("Line1\nLine2 & <3");
+        when(service.generateDescriptionStream(eq("Titre A"), any())).thenAnswer(inv -> {
+            final Consumer<String> onToken = inv.getArgument(1);
+            onToken.accept("Line1\n");
+            onToken.accept("Line2 & <3");
+            return "Line1\nLine2 & <3";
+        });
         WishlistPanel[] ref = new WishlistPanel[1];
         SwingUtilities.invokeAndWait(() -> ref[0] = new WishlistPanel(service, mock(Consumer.class)));
         WishlistPanel panel = ref[0];
@@ -131,7 +136,7 @@ final class WishlistPanelTest {
         SwingUtilities.invokeAndWait(describe::doClick);
 
         // THEN — le service est bien appelé avec le bon titre
-        verify(service, timeout(2000)).generateDescription("Titre A");
+        verify(service, timeout(2000)).generateDescriptionStream(eq("Titre A"), any());
 
         // THEN — le HTML est mis à jour ou affiche une erreur gérée
         awaitTrue(() -> {
@@ -291,7 +296,8 @@ final class WishlistPanelTest {
         SwingUtilities.invokeAndWait(describe::doClick);
 
         // THEN
-        verify(service, after(300).never()).generateDescription(anyString());
+        verify(service, after(300).never()).generateDescriptionStream(anyString(), any());
+        verify(service, never()).generateDescription(anyString());
         assertEquals(before, desc.getText(), "HTML inchangé quand rien n'est sélectionné");
     }
 
@@ -321,7 +327,7 @@ final class WishlistPanelTest {
     void GIVEN_selectedTitle_WHEN_generateForSelectionThrows_THEN_errorHtml() throws Exception {
         // GIVEN
         MovieRecommenderService service = mock(MovieRecommenderService.class);
-        when(service.generateDescription("Titre Err")).thenThrow(new RuntimeException("Boom!"));
+        when(service.generateDescriptionStream(eq("Titre Err"), any())).thenThrow(new RuntimeException("Boom!"));
         WishlistPanel[] ref = new WishlistPanel[1];
         SwingUtilities.invokeAndWait(() -> ref[0] = new WishlistPanel(service, mock(Consumer.class)));
         WishlistPanel panel = ref[0];
@@ -341,7 +347,7 @@ final class WishlistPanelTest {
         SwingUtilities.invokeAndWait(describe::doClick);
 
         // THEN — service appelé + HTML d'erreur rendu + contrôles réactivés
-        verify(service, timeout(2000)).generateDescription("Titre Err");
+        verify(service, timeout(2000)).generateDescriptionStream(eq("Titre Err"), any());
         awaitTrue(() -> {
             String html = desc.getText();
             return html.contains("Erreur") || html.contains("Erreur :</span>");
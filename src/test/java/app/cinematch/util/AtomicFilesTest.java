@@ -0,0 +1,78 @@
+package app.cinematch.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de l’écriture atomique (GIVEN / WHEN / THEN).
+ */
+class AtomicFilesTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("cinematch.storage.silent", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("cinematch.storage.silent");
+    }
+
+    @Test
+    @DisplayName("write : crée les répertoires, remplace la cible et garde la version précédente")
+    void write_replacesAndKeepsBackup() throws Exception {
+        // GIVEN
+        final Path target = dir.resolve("sub/storage.json");
+
+        // WHEN: deux écritures (le flux fourni peut être fermé par le corps)
+        AtomicFiles.write(target.toFile(), out -> out.write("v1".getBytes(StandardCharsets.UTF_8)));
+        AtomicFiles.write(target.toFile(), out -> {
+            out.write("v2".getBytes(StandardCharsets.UTF_8));
+            out.close();
+        });
+
+        // THEN
+        assertEquals("v2", Files.readString(target));
+        assertEquals("v1", Files.readString(dir.resolve("sub/storage.json.bak")));
+        assertFalse(Files.exists(dir.resolve("sub/storage.json.tmp")));
+    }
+
+    @Test
+    @DisplayName("write : un échec en cours d’écriture laisse la cible intacte")
+    void write_failureKeepsTarget() throws Exception {
+        // GIVEN
+        final Path target = dir.resolve("storage.json");
+        Files.writeString(target, "ok", StandardCharsets.UTF_8);
+
+        // WHEN: le corps échoue après avoir écrit une partie du contenu
+        assertThrows(IOException.class, () -> AtomicFiles.write(target.toFile(), out -> {
+            out.write("partiel".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("disque plein");
+        }));
+
+        // THEN: ni troncature, ni temporaire résiduel
+        assertEquals("ok", Files.readString(target));
+        assertFalse(Files.exists(dir.resolve("storage.json.tmp")));
+    }
+
+    @Test
+    @DisplayName("write : une cible répertoire est refusée")
+    void write_rejectsDirectory() throws Exception {
+        final Path target = Files.createDirectory(dir.resolve("storage.json"));
+        assertThrows(IOException.class, () -> AtomicFiles.write(target.toFile(), out -> { }));
+        assertTrue(Files.isDirectory(target));
+    }
+}
@@ -0,0 +1,185 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de l’instantané binaire et du format binaire de JsonStorage (GIVEN / WHEN / THEN).
+ */
+class BinarySnapshotTest {
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        System.setProperty("cinematch.storage", dir.resolve("storage.json").toString());
+        System.setProperty("cinematch.storage.format", "binary");
+        System.setProperty("cinematch.storage.silent", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("cinematch.storage");
+        System.clearProperty("cinematch.storage.format");
+        System.clearProperty("cinematch.storage.silent");
+    }
+
+    private BinarySnapshot roundTrip(final List<HistoryEntry> entries) throws IOException {
+        final File f = dir.resolve("snap.bin").toFile();
+        try (OutputStream out = Files.newOutputStream(f.toPath())) {
+            BinarySnapshot.write(out, entries);
+        }
+        return BinarySnapshot.read(f);
+    }
+
+    @Test
+    @DisplayName("Aller-retour exact : dates ISO (epoch ou texte), champs nuls, Unicode")
+    void roundTrip_isExact() throws Exception {
+        // GIVEN: date canonique, date non canonique, date absente, statut absent
+        final List<HistoryEntry> entries = List.of(
+                new HistoryEntry("Amélie", "envie", "2025-10-24T09:30:12.123456"),
+                new HistoryEntry("Heat", "deja_vu", "2024-01-01T10:00:00"),
+                new HistoryEntry("Dune", "envie", null),
+                new HistoryEntry("Alien", null, "pas une date"));
+
+        // WHEN
+        final BinarySnapshot snap = roundTrip(entries);
+
+        // THEN
+        assertEquals(entries, snap.entries());
+        assertEquals(4, snap.size());
+    }
+
+    @Test
+    @DisplayName("Requêtes : même ordre et mêmes comptes que l’index résident")
+    void queries_matchHistoryStore() throws Exception {
+        // GIVEN
+        final List<HistoryEntry> entries = List.of(
+                new HistoryEntry("A", "envie", "2024-02-01T10:00"),
+                new HistoryEntry("B", "ENVIE", null),
+                new HistoryEntry("C", "envie", "2024-03-01T10:00:00"),
+                new HistoryEntry("D", "envie", "2024-02-01T10:00"),
+                new HistoryEntry("E", "deja_vu", "2024-04-01T10:00:00.5"));
+        final HistoryStore store = new HistoryStore(entries);
+
+        // WHEN
+        final BinarySnapshot snap = roundTrip(entries);
+
+        // THEN
+        assertEquals(store.titlesByStatus("envie"), snap.titlesByStatus("Envie"));
+        assertEquals(List.of("C", "A", "D", "B"), snap.titlesByStatus("envie"));
+        assertEquals(4, snap.countByStatus("envie"));
+        assertEquals(0, snap.countByStatus("pas_interesse"));
+        assertEquals("E", snap.get("e").title());
+        assertNull(snap.get("Z"));
+    }
+
+    @Test
+    @DisplayName("Doublons de titre : la dernière occurrence l’emporte")
+    void duplicates_lastWins() throws Exception {
+        final BinarySnapshot snap = roundTrip(List.of(
+                new HistoryEntry("Heat", "envie", "2024-01-01T10:00"),
+                new HistoryEntry("Alien", "envie", "2024-01-02T10:00"),
+                new HistoryEntry("HEAT", "deja_vu", "2024-01-03T10:00")));
+
+        assertEquals(new HistoryStore(List.of(
+                new HistoryEntry("Heat", "envie", "2024-01-01T10:00"),
+                new HistoryEntry("Alien", "envie", "2024-01-02T10:00"),
+                new HistoryEntry("HEAT", "deja_vu", "2024-01-03T10:00"))).entries(), snap.entries());
+    }
+
+    @Test
+    @DisplayName("Fichier tronqué ou étranger : IOException")
+    void corruptFile_throws() throws Exception {
+        // GIVEN
+        final Path f = dir.resolve("snap.bin");
+        try (OutputStream out = Files.newOutputStream(f)) {
+            BinarySnapshot.write(out, List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00")));
+        }
+        final byte[] full = Files.readAllBytes(f);
+
+        // WHEN / THEN
+        Files.write(f, Arrays.copyOf(full, full.length - 3));
+        assertThrows(IOException.class, () -> BinarySnapshot.read(f.toFile()));
+        Files.writeString(f, "[]", StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> BinarySnapshot.read(f.toFile()));
+        Files.write(f, new byte[0]);
+        assertThrows(IOException.class, () -> BinarySnapshot.read(f.toFile()));
+    }
+
+    @Test
+    @DisplayName("JsonStorage binaire : conversion du JSON existant, mutations, export JSON")
+    void jsonStorage_binaryFormat_convertsAndExports() throws Exception {
+        // GIVEN: un ancien storage.json
+        final Path json = dir.resolve("storage.json");
+        Files.writeString(json, "[{\"title\":\"A\",\"status\":\"envie\",\"dateTimeIso\":\"2024-01-01T10:00:00\"}]",
+                StandardCharsets.UTF_8);
+
+        // WHEN: lecture (conversion), puis mutation
+        assertEquals(List.of("A"), JsonStorage.getByStatus("envie"));
+        JsonStorage.addOrUpdate("B", "envie");
+
+        // THEN: storage.bin fait foi, le JSON d’origine reste intact
+        assertTrue(Files.isRegularFile(dir.resolve("storage.bin")));
+        assertEquals(List.of("A"), JsonStorage.readFile(json.toFile()).stream().map(HistoryEntry::title).toList());
+        assertEquals(List.of("B", "A"), BinarySnapshot.read(dir.resolve("storage.bin").toFile())
+                .titlesByStatus("envie"));
+
+        // export JSON lisible, relisible comme stockage
+        final Path export = dir.resolve("export.json");
+        assertTrue(JsonStorage.exportJson(export.toFile()));
+        assertEquals(JsonStorage.loadAll(), JsonStorage.readFile(export.toFile()));
+        assertTrue(Files.readString(export).contains("\n"));
+    }
+
+    @Test
+    @DisplayName("JsonStorage binaire : instantané corrompu relu depuis le .bak")
+    void jsonStorage_binaryFormat_recoversFromBackup() throws Exception {
+        // GIVEN: deux écritures (le .bak garde la première), puis corruption
+        JsonStorage.saveAll(List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00:00")));
+        JsonStorage.addOrUpdate("B", "envie");
+        Files.write(dir.resolve("storage.bin"), new byte[]{1, 2, 3});
+
+        // WHEN / THEN
+        assertEquals(List.of("A"), JsonStorage.getByStatus("envie"));
+    }
+
+    @Test
+    @DisplayName("Gros historique : instantané nettement plus petit que le JSON")
+    void largeHistory_isCompact() throws Exception {
+        // GIVEN
+        final List<HistoryEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            entries.add(new HistoryEntry("Titre " + i, i % 3 == 0 ? "deja_vu" : "envie",
+                    "2024-01-01T10:00:00." + String.format("%06d", i)));
+        }
+        JsonStorage.saveAll(entries);
+
+        // WHEN
+        final long bin = Files.size(dir.resolve("storage.bin"));
+        final Path export = dir.resolve("export.json");
+        JsonStorage.exportJson(export.toFile());
+
+        // THEN
+        assertTrue(bin * 3 < Files.size(export), "bin=" + bin + " json=" + Files.size(export));
+        assertEquals(16_667, JsonStorage.countByStatus("deja_vu"));
+        assertEquals("Titre 49998", JsonStorage.getByStatus("deja_vu").get(0));
+    }
+}
@@ -0,0 +1,150 @@
+package app.cinematch.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du cache des descriptions {@link DescriptionCache} (GIVEN / WHEN / THEN).
+ */
+class DescriptionCacheTest {
+
+    @Test
+    @DisplayName("key : titre normalisé (casse, espaces), modèle et version du prompt distincts")
+    void key_normalizesTitle_andSeparatesModelAndVersion() {
+        // GIVEN / WHEN / THEN
+        assertEquals(DescriptionCache.key("m", "v1", "Le  Samouraï"),
+                DescriptionCache.key("m", "v1", "  le samouraï "));
+        assertNotEquals(DescriptionCache.key("m", "v1", "Alien"), DescriptionCache.key("autre", "v1", "Alien"));
+        assertNotEquals(DescriptionCache.key("m", "v1", "Alien"), DescriptionCache.key("m", "v2", "Alien"));
+    }
+
+    @Test
+    @DisplayName("LRU : l’entrée la moins récemment lue est évincée, compteurs à jour")
+    void lru_evictsLeastRecentlyUsed_andCounts() {
+        // GIVEN
+        final DescriptionCache cache = new DescriptionCache(2, Duration.ofHours(1), null);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertEquals("A", cache.get("a"));
+
+        // WHEN
+        cache.put("c", "C");
+
+        // THEN
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("C", cache.get("c"));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    @DisplayName("remove : l’entrée disparaît, y compris du niveau disque")
+    void remove_dropsEntry_fromMemoryAndDisk(@TempDir Path dir) {
+        // GIVEN
+        final File file = dir.resolve("descriptions.json").toFile();
+        final DescriptionCache cache = new DescriptionCache(10, Duration.ofHours(1), file);
+        cache.put("a", "A");
+        cache.put("b", "B");
+
+        // WHEN
+        cache.remove("a");
+
+        // THEN
+        assertNull(cache.get("a"));
+        assertEquals("B", cache.get("b"));
+        final DescriptionCache reloaded = new DescriptionCache(10, Duration.ofHours(1), file);
+        assertNull(reloaded.get("a"));
+        assertEquals("B", reloaded.get("b"));
+    }
+
+    @Test
+    @DisplayName("TTL : une entrée expirée est un échec et disparaît")
+    void ttl_expiresEntries() {
+        // GIVEN
+        final AtomicLong now = new AtomicLong(1_000);
+        final DescriptionCache cache = new DescriptionCache(10, Duration.ofMinutes(1), null, now::get);
+        cache.put("a", "A");
+
+        // WHEN
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+
+        // THEN
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    @DisplayName("Disque : relu par une nouvelle instance, entrées expirées ignorées")
+    void diskTier_survivesRestart_andDropsExpired(@TempDir Path dir) {
+        // GIVEN
+        final File file = dir.resolve("descriptions.json").toFile();
+        final AtomicLong now = new AtomicLong(0);
+        final DescriptionCache first = new DescriptionCache(10, Duration.ofHours(1), file, now::get);
+        first.put("vieux", "V");
+        now.set(Duration.ofMinutes(40).toMillis());
+        first.put("recent", "R");
+
+        // WHEN : redémarrage 30 min plus tard (« vieux » a 70 min)
+        now.addAndGet(Duration.ofMinutes(30).toMillis());
+        final DescriptionCache second = new DescriptionCache(10, Duration.ofHours(1), file, now::get);
+
+        // THEN
+        assertEquals("R", second.get("recent"));
+        assertNull(second.get("vieux"));
+        assertEquals(1, second.size());
+    }
+
+    @Test
+    @DisplayName("Disque : fichier illisible -> cache vide, pas d’exception")
+    void diskTier_corruptFile_startsEmpty(@TempDir Path dir) throws Exception {
+        // GIVEN
+        final File file = dir.resolve("descriptions.json").toFile();
+        Files.writeString(file.toPath(), "{ pas du json");
+        System.setProperty("cinematch.storage.silent", "true");
+        try {
+            // WHEN
+            final DescriptionCache cache = new DescriptionCache(10, Duration.ofHours(1), file);
+
+            // THEN
+            assertEquals(0, cache.size());
+            cache.put("a", "A");
+            assertEquals("A", new DescriptionCache(10, Duration.ofHours(1), file).get("a"));
+        } finally {
+            System.clearProperty("cinematch.storage.silent");
+        }
+    }
+
+    @Test
+    @DisplayName("Lecture en cache : bien en dessous de la milliseconde")
+    void hit_isSubMillisecond() {
+        // GIVEN
+        final DescriptionCache cache = new DescriptionCache(256, Duration.ofHours(1), null);
+        final String key = DescriptionCache.key("m", "v1", "Inception");
+        cache.put(key, "Un rêve dans un rêve.");
+        for (int i = 0; i < 10_000; i++) {
+            cache.get(key);
+        }
+
+        // WHEN
+        final long start = System.nanoTime();
+        for (int i = 0; i < 1_000; i++) {
+            assertNotNull(cache.get(DescriptionCache.key("m", "v1", "Inception")));
+        }
+        final long perHitNanos = (System.nanoTime() - start) / 1_000;
+
+        // THEN
+        assertTrue(perHitNanos < 1_000_000, "lecture en " + perHitNanos + " ns");
+    }
+}
@@ -0,0 +1,98 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de l’index résident HistoryStore (GIVEN / WHEN / THEN).
+ */
+class HistoryStoreTest {
+
+    @Test
+    @DisplayName("titlesByStatus : statut insensible à la casse, tri date desc, ordre d’insertion à égalité")
+    void titlesByStatus_sortedDescWithStableTies() {
+        // GIVEN
+        final HistoryStore store = new HistoryStore(List.of(
+                new HistoryEntry("A", "ENVIE", "2024-02-01T10:00:00"),
+                new HistoryEntry("B", "envie", "2024-03-01T10:00:00"),
+                new HistoryEntry("C", "envie", "2024-02-01T10:00:00"),
+                new HistoryEntry("D", "deja_vu", "2024-05-01T10:00:00")
+        ));
+
+        // WHEN
+        final List<String> envies = store.titlesByStatus("Envie");
+
+        // THEN
+        assertEquals(List.of("B", "A", "C"), envies);
+        assertEquals(3, store.countByStatus("envie"));
+        assertEquals(1, store.countByStatus("deja_vu"));
+        assertEquals(0, store.countByStatus("inconnu"));
+    }
+
+    @Test
+    @DisplayName("put : remplace par titre (casse ignorée) et déplace l’entrée entre statuts")
+    void put_replacesByTitleAndMovesStatus() {
+        // GIVEN
+        final HistoryStore store = new HistoryStore();
+        store.put(new HistoryEntry("Matrix", "envie", "2024-01-01T00:00:00"));
+
+        // WHEN
+        store.put(new HistoryEntry("matrix", "deja_vu", "2024-01-02T00:00:00"));
+
+        // THEN
+        assertEquals(1, store.size());
+        assertTrue(store.titlesByStatus("envie").isEmpty());
+        assertEquals(List.of("matrix"), store.titlesByStatus("deja_vu"));
+        assertEquals("deja_vu", store.get("MATRIX").status());
+    }
+
+    @Test
+    @DisplayName("remove / removeAllByStatus : index titre et statut cohérents")
+    void removals_keepBothIndexesConsistent() {
+        // GIVEN
+        final HistoryStore store = new HistoryStore(List.of(
+                new HistoryEntry("A", "envie", "1"),
+                new HistoryEntry("B", "envie", "2"),
+                new HistoryEntry("C", "pas_interesse", "3")
+        ));
+
+        // WHEN
+        final boolean removed = store.remove("a");
+        final int cleared = store.removeAllByStatus("ENVIE");
+
+        // THEN
+        assertTrue(removed);
+        assertFalse(store.remove("a"));
+        assertEquals(1, cleared);
+        assertNull(store.get("B"));
+        assertEquals(List.of(new HistoryEntry("C", "pas_interesse", "3")), store.entries());
+    }
+
+    @Test
+    @DisplayName("titlesByStatus : tri chronologique entre formats ISO, dates illisibles en dernier")
+    void titlesByStatus_mixedFormats_chronological() {
+        // GIVEN
+        final HistoryStore store = new HistoryStore(List.of(
+                new HistoryEntry("Sans date", "deja_vu", null),
+                new HistoryEntry("Illisible", "deja_vu", "hier"),
+                new HistoryEntry("Jour", "deja_vu", "2024-03-02"),
+                new HistoryEntry("Minute", "deja_vu", "2024-03-01T23:59"),
+                new HistoryEntry("Décalage", "deja_vu", "2024-03-03T08:00:00Z"),
+                new HistoryEntry("Libre", "vu_au_cine", "2024-03-04T08:00:00")
+        ));
+
+        // WHEN
+        final List<String> seen = store.titlesByStatus("DEJA_VU");
+
+        // THEN
+        assertEquals(List.of("Décalage", "Jour", "Minute", "Sans date", "Illisible"), seen);
+        assertEquals(List.of("Libre"), store.titlesByStatus("Vu_Au_Cine"));
+        assertEquals(1, store.removeAllByStatus("vu_au_cine"));
+        assertEquals(5, store.size());
+    }
+}
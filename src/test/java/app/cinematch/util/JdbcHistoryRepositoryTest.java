@@ -0,0 +1,135 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du dépôt H2 embarqué (GIVEN / WHEN / THEN).
+ */
+class JdbcHistoryRepositoryTest {
+
+    private JdbcHistoryRepository repo;
+
+    @BeforeEach
+    void setUp() {
+        repo = new JdbcHistoryRepository("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        repo.close();
+    }
+
+    @Test
+    @DisplayName("addOrUpdate : une entrée par titre (casse ignorée), dernier statut gagnant")
+    void addOrUpdate_replacesByTitleIgnoringCase() {
+        // WHEN
+        repo.addOrUpdate("Heat", "envie");
+        repo.addOrUpdate("HEAT", "deja_vu");
+
+        // THEN
+        assertEquals(1, repo.size());
+        assertEquals("deja_vu", repo.find("heat").status());
+        assertEquals("HEAT", repo.find("heat").title());
+        assertTrue(repo.getByStatus("envie").isEmpty());
+        assertEquals(1, repo.countByStatus("DEJA_VU"));
+        assertNull(repo.find("Alien"));
+        assertNull(repo.find(" "));
+    }
+
+    @Test
+    @DisplayName("getByStatus : date décroissante, dates nulles en fin, ordre d’insertion à égalité")
+    void getByStatus_ordersByDateDesc() {
+        // GIVEN
+        repo.saveAll(List.of(
+                new HistoryEntry("A", "envie", "2024-02-01T10:00:00"),
+                new HistoryEntry("B", "envie", null),
+                new HistoryEntry("C", "envie", "2024-03-01T10:00:00"),
+                new HistoryEntry("D", "envie", "2024-02-01T10:00:00"),
+                new HistoryEntry("E", "deja_vu", "2024-04-01T10:00:00")));
+
+        // WHEN / THEN
+        assertEquals(List.of("C", "A", "D", "B"), repo.getByStatus("ENVIE"));
+        assertEquals(4, repo.countByStatus("envie"));
+        assertEquals(List.of("A", "B", "C", "D", "E"),
+                repo.loadAll().stream().map(HistoryEntry::title).toList());
+    }
+
+    @Test
+    @DisplayName("apply : lot transactionnel, comptes identiques à JsonStorage")
+    void apply_countsLikeJsonStorage() {
+        // GIVEN
+        repo.saveAll(List.of(
+                new HistoryEntry("Old", "pas_interesse", "2024-01-01T10:00:00"),
+                new HistoryEntry("Dune", "envie", "2024-01-02T10:00:00"),
+                new HistoryEntry("Heat", "envie", "2024-01-03T10:00:00")));
+
+        // WHEN
+        final int n = repo.apply(List.of(
+                Mutation.put("heat", "deja_vu"),
+                Mutation.put("Alien", "envie"),
+                Mutation.remove("dune"),
+                Mutation.remove("Absent"),
+                Mutation.removeStatus("pas_interesse")));
+
+        // THEN
+        assertEquals(4, n);
+        assertEquals(List.of("Alien"), repo.getByStatus("envie"));
+        assertEquals(List.of("heat"), repo.getByStatus("deja_vu"));
+        assertEquals(0, repo.apply(List.of()));
+    }
+
+    @Test
+    @DisplayName("remove / removeAllByStatus")
+    void remove_andRemoveAllByStatus() {
+        // GIVEN
+        repo.addOrUpdate("A", "envie");
+        repo.addOrUpdate("B", "envie");
+        repo.addOrUpdate("C", "deja_vu");
+
+        // WHEN / THEN
+        assertTrue(repo.remove("a"));
+        assertFalse(repo.remove("a"));
+        assertFalse(repo.remove(null));
+        assertEquals(1, repo.removeAllByStatus("ENVIE"));
+        assertEquals(0, repo.removeAllByStatus(""));
+        assertEquals(List.of("C"), repo.getByStatus("deja_vu"));
+    }
+
+    @Test
+    @DisplayName("Base fichier : contenu conservé après réouverture")
+    void fileDatabase_persistsAcrossReopen(@TempDir final Path dir) {
+        // GIVEN
+        final Path db = dir.resolve("storage");
+        try (JdbcHistoryRepository first = JdbcHistoryRepository.openFile(db.toFile())) {
+            first.addOrUpdate("Alien", "envie");
+            first.addOrUpdate("Heat", "envie");
+        }
+
+        // WHEN
+        try (JdbcHistoryRepository second = JdbcHistoryRepository.openFile(db.toFile())) {
+            second.addOrUpdate("Dune", "envie");
+
+            // THEN: l’ordre d’insertion continue après réouverture
+            assertEquals(3, second.size());
+            assertEquals(List.of("Alien", "Heat", "Dune"),
+                    second.loadAll().stream().map(HistoryEntry::title).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("URL invalide : IllegalStateException")
+    void invalidUrl_throwsIllegalState() {
+        assertThrows(IllegalStateException.class, () -> new JdbcHistoryRepository("jdbc:nope:x"));
+    }
+}
@@ -14,6 +14,8 @@ public class JsonStorageTest {
 
     private static final Path STORAGE_PATH =
             Paths.get("src", "main", "resources", "storage.json");
+    private static final Path BAK_PATH =
+            Paths.get("src", "main", "resources", "storage.json.bak");
 
     private byte[] backupBytes;
     private boolean backupExisted;
@@ -25,6 +27,7 @@ public class JsonStorageTest {
         backupExisted = Files.exists(STORAGE_PATH);
         backupBytes = backupExisted ? Files.readAllBytes(STORAGE_PATH) : null;
         Files.deleteIfExists(STORAGE_PATH); // test part sur base vide
+        Files.deleteIfExists(BAK_PATH);     // pas de reprise depuis un .bak d’un autre test
     }
 
     @AfterEach
@@ -32,6 +35,7 @@ public class JsonStorageTest {
         System.clearProperty("cinematch.storage.silent"); // remet l’état normal
 
         Files.deleteIfExists(STORAGE_PATH);
+        Files.deleteIfExists(BAK_PATH);
         if (backupExisted) {
             Files.write(STORAGE_PATH, backupBytes);
         }
@@ -127,6 +131,152 @@ public class JsonStorageTest {
         assertEquals(List.of("C", "A", "D"), envies);
     }
 
+    @Test
+    @DisplayName("Index résident : relu seulement si le fichier change sur disque")
+    void getByStatus_reloads_only_when_file_changes() throws Exception {
+        // GIVEN: un premier contenu lu une fois
+        JsonStorage.saveAll(List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00:00")));
+        assertEquals(List.of("A"), JsonStorage.getByStatus("envie"));
+
+        // WHEN: un autre processus réécrit le fichier (taille différente)
+        Files.writeString(STORAGE_PATH, """
+          [
+            {"title":"B","status":"envie","dateTimeIso":"2024-02-01T10:00:00"},
+            {"title":"C","status":"envie","dateTimeIso":"2024-03-01T10:00:00"}
+          ]
+        """, StandardCharsets.UTF_8);
+
+        // THEN: le changement est détecté, et les comptes suivent
+        assertEquals(List.of("C", "B"), JsonStorage.getByStatus("envie"));
+        assertEquals(2, JsonStorage.countByStatus("ENVIE"));
+        assertEquals(0, JsonStorage.countByStatus("deja_vu"));
+    }
+
+    @Test
+    @DisplayName("apply : un lot mixte est appliqué dans l'ordre, en une seule écriture")
+    void apply_batch_in_order_single_write() throws Exception {
+        // GIVEN: un historique existant
+        JsonStorage.saveAll(List.of(
+                new HistoryEntry("Old", "pas_interesse", "2024-01-01T10:00:00"),
+                new HistoryEntry("Dune", "envie", "2024-01-02T10:00:00")));
+
+        // WHEN: ajouts, suppression, vidage de statut et suppressions vides ignorées
+        int n = JsonStorage.apply(List.of(
+                Mutation.put("Alien", "envie"),
+                Mutation.put("Heat", "envie"),
+                Mutation.remove("dune"),
+                Mutation.remove("  "),
+                Mutation.removeStatus("PAS_INTERESSE"),
+                Mutation.removeStatus(null)));
+
+        // THEN: 2 ajouts + 1 suppression + 1 vidage ; le dernier ajout est le plus récent
+        assertEquals(4, n);
+        assertEquals(List.of("Heat", "Alien"), JsonStorage.getByStatus("envie"));
+        assertEquals(2, JsonStorage.loadAll().size());
+        assertEquals("envie", JsonStorage.find("alien").status());
+        assertNull(JsonStorage.find("dune"));
+        String onDisk = Files.readString(STORAGE_PATH, StandardCharsets.UTF_8);
+        assertTrue(onDisk.contains("Heat") && !onDisk.contains("Old"));
+    }
+
+    @Test
+    @DisplayName("apply : lot null ou vide -> 0, fichier non créé")
+    void apply_empty_is_noop() {
+        assertEquals(0, JsonStorage.apply(null));
+        assertEquals(0, JsonStorage.apply(List.of()));
+        assertEquals(0, JsonStorage.apply(List.of(Mutation.remove(null))));
+        assertFalse(Files.exists(STORAGE_PATH));
+    }
+
+    @Test
+    @DisplayName("saveAll : écriture atomique, version précédente gardée en .bak, pas de .tmp résiduel")
+    void saveAll_is_atomic_and_rotates_backup() throws Exception {
+        // GIVEN / WHEN: deux sauvegardes successives
+        JsonStorage.saveAll(List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00:00")));
+        JsonStorage.saveAll(List.of(new HistoryEntry("B", "envie", "2024-01-02T10:00:00")));
+
+        // THEN: la cible a la dernière version, le .bak la précédente
+        assertTrue(Files.readString(STORAGE_PATH).contains("\"B\""));
+        assertTrue(Files.readString(BAK_PATH).contains("\"A\""));
+        assertFalse(Files.exists(Paths.get(STORAGE_PATH + ".tmp")));
+    }
+
+    @Test
+    @DisplayName("Fichier tronqué : relecture depuis le .bak, l'écriture suivante ne perd rien")
+    void truncated_file_is_recovered_from_backup() throws Exception {
+        // GIVEN: une sauvegarde complète, puis un fichier tronqué (arrêt brutal d'un autre écrivain)
+        JsonStorage.saveAll(List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00:00")));
+        JsonStorage.saveAll(List.of(
+                new HistoryEntry("A", "envie", "2024-01-01T10:00:00"),
+                new HistoryEntry("B", "deja_vu", "2024-01-02T10:00:00")));
+        Files.writeString(STORAGE_PATH, "[{\"title\":\"A\",\"sta", StandardCharsets.UTF_8);
+
+        // WHEN: lecture puis nouvelle mutation
+        List<String> envies = JsonStorage.getByStatus("envie");
+        JsonStorage.addOrUpdate("C", "envie");
+
+        // THEN: l'historique de la sauvegarde est conservé et complété
+        assertEquals(List.of("A"), envies);
+        assertEquals(List.of("C", "A"), JsonStorage.getByStatus("envie"));
+        assertTrue(Files.readString(STORAGE_PATH).contains("\"C\""));
+    }
+
+    @Test
+    @DisplayName("Écriture différée : mémoire à jour tout de suite, disque au flush()")
+    void writeBehind_updates_memory_then_flushes() throws Exception {
+        System.setProperty("cinematch.storage.writeBehind", "true");
+        System.setProperty("cinematch.storage.writeBehind.delayMs", "60000");
+        try {
+            // WHEN: plusieurs mutations rapides
+            JsonStorage.addOrUpdate("A", "envie");
+            JsonStorage.addOrUpdate("B", "envie");
+            JsonStorage.remove("a");
+
+            // THEN: lecture immédiate depuis la mémoire, rien encore sur disque
+            assertEquals(List.of("B"), JsonStorage.getByStatus("envie"));
+            assertFalse(Files.exists(STORAGE_PATH));
+
+            // WHEN: flush explicite (comme le hook d'arrêt)
+            JsonStorage.flush();
+
+            // THEN: une seule écriture avec l'état final
+            String onDisk = Files.readString(STORAGE_PATH, StandardCharsets.UTF_8);
+            assertTrue(onDisk.contains("\"B\"") && !onDisk.contains("\"A\""));
+            assertFalse(Files.exists(BAK_PATH));
+        } finally {
+            JsonStorage.flush();
+            System.clearProperty("cinematch.storage.writeBehind");
+            System.clearProperty("cinematch.storage.writeBehind.delayMs");
+        }
+    }
+
+    @Test
+    @DisplayName("Écriture différée : seuil de mutations -> écriture en arrière-plan")
+    void writeBehind_flushes_when_max_pending_reached() throws Exception {
+        System.setProperty("cinematch.storage.writeBehind", "true");
+        System.setProperty("cinematch.storage.writeBehind.delayMs", "60000");
+        System.setProperty("cinematch.storage.writeBehind.maxPending", "2");
+        try {
+            // WHEN: le seuil est atteint
+            JsonStorage.apply(List.of(Mutation.put("A", "envie")));
+            JsonStorage.addOrUpdate("B", "deja_vu");
+
+            // THEN: le thread d'arrière-plan écrit sans flush() explicite
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (!Files.exists(STORAGE_PATH) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            JsonStorage.flush(); // attend une éventuelle écriture en cours
+            String onDisk = Files.readString(STORAGE_PATH, StandardCharsets.UTF_8);
+            assertTrue(onDisk.contains("\"A\"") && onDisk.contains("\"B\""));
+        } finally {
+            JsonStorage.flush();
+            System.clearProperty("cinematch.storage.writeBehind");
+            System.clearProperty("cinematch.storage.writeBehind.delayMs");
+            System.clearProperty("cinematch.storage.writeBehind.maxPending");
+        }
+    }
+
     @Test
     @DisplayName("loadAll tolère JSON corrompu et renvoie []")
     void loadAll_handles_corrupted_json() throws Exception {
@@ -0,0 +1,164 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du mode journalisé de JsonStorage (GIVEN / WHEN / THEN).
+ */
+class StorageJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private Path storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = dir.resolve("storage.json");
+        System.setProperty("cinematch.storage", storage.toString());
+        System.setProperty("cinematch.storage.journal", "true");
+        System.setProperty("cinematch.storage.silent", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("cinematch.storage");
+        System.clearProperty("cinematch.storage.journal");
+        System.clearProperty("cinematch.storage.journal.compactEvery");
+        System.clearProperty("cinematch.storage.silent");
+    }
+
+    @Test
+    @DisplayName("addOrUpdate ajoute au journal sans réécrire le snapshot")
+    void addOrUpdate_appendsToJournal_only() throws Exception {
+        // GIVEN: un snapshot existant
+        Files.writeString(storage,
+                "[{\"title\":\"Alien\",\"status\":\"envie\",\"dateTimeIso\":\"2024-01-01T10:00:00\"}]",
+                StandardCharsets.UTF_8);
+        final String before = Files.readString(storage);
+
+        // WHEN: deux mutations
+        JsonStorage.addOrUpdate("Heat", "envie");
+        JsonStorage.addOrUpdate("alien", "deja_vu");
+
+        // THEN: le snapshot est intact, le journal contient 2 lignes, l’état est à jour
+        assertEquals(before, Files.readString(storage));
+        final List<String> lines = Files.readAllLines(dir.resolve("storage.json.journal"));
+        assertEquals(2, lines.size());
+        assertEquals(List.of("Heat"), JsonStorage.getByStatus("envie"));
+        assertEquals(List.of("alien"), JsonStorage.getByStatus("deja_vu"));
+    }
+
+    @Test
+    @DisplayName("Rejeu : snapshot + journal (dernière ligne tronquée ignorée)")
+    void open_replaysSnapshotAndJournal() throws Exception {
+        // GIVEN: un snapshot, un journal avec put/del/clear et une ligne tronquée
+        Files.writeString(storage, "[{\"title\":\"A\",\"status\":\"envie\",\"dateTimeIso\":\"1\"},"
+                + "{\"title\":\"B\",\"status\":\"deja_vu\",\"dateTimeIso\":\"2\"}]", StandardCharsets.UTF_8);
+        Files.writeString(dir.resolve("storage.json.journal"),
+                "{\"op\":\"put\",\"title\":\"C\",\"status\":\"envie\",\"dateTimeIso\":\"3\"}\n"
+                        + "{\"op\":\"del\",\"title\":\"a\"}\n"
+                        + "{\"op\":\"clear\",\"status\":\"DEJA_VU\"}\n"
+                        + "{\"op\":\"put\",\"tit", StandardCharsets.UTF_8);
+
+        // WHEN: ouverture du moteur
+        final StorageJournal j = StorageJournal.open(storage.toFile(), 100);
+
+        // THEN: seul C subsiste
+        final List<HistoryEntry> all = j.entries();
+        assertEquals(1, all.size());
+        assertEquals("C", all.get(0).title());
+        j.close();
+    }
+
+    @Test
+    @DisplayName("remove / removeAllByStatus : comptes exacts et persistance après réouverture")
+    void removals_arePersistedInJournal() {
+        // GIVEN
+        JsonStorage.addOrUpdate("A", "envie");
+        JsonStorage.addOrUpdate("B", "envie");
+        JsonStorage.addOrUpdate("C", "deja_vu");
+
+        // WHEN
+        final boolean removed = JsonStorage.remove("a");
+        final boolean missing = JsonStorage.remove("Z");
+        final int cleared = JsonStorage.removeAllByStatus("envie");
+
+        // THEN
+        assertTrue(removed);
+        assertFalse(missing);
+        assertEquals(1, cleared);
+        final StorageJournal reopened = StorageJournal.open(storage.toFile(), 100);
+        assertEquals(List.of("C"), reopened.entries().stream().map(HistoryEntry::title).toList());
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("compact : snapshot réécrit et journal vidé, état conservé")
+    void compact_writesSnapshotAndTruncatesJournal() {
+        // GIVEN: un moteur avec quelques mutations
+        final StorageJournal j = StorageJournal.open(storage.toFile(), 1000);
+        assertDoesNotThrow(() -> {
+            j.put(new HistoryEntry("A", "envie", "1"));
+            j.put(new HistoryEntry("B", "pas_interesse", "2"));
+        });
+
+        // WHEN: compaction explicite
+        j.compact();
+
+        // THEN: plus de journal, snapshot relisible avec les deux entrées
+        assertFalse(Files.exists(dir.resolve("storage.json.journal")));
+        assertFalse(Files.exists(dir.resolve("storage.json.journal.old")));
+        final StorageJournal reopened = StorageJournal.open(storage.toFile(), 1000);
+        assertEquals(2, reopened.entries().size());
+        j.close();
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("saveAll remplace l’état et supprime le journal")
+    void saveAll_replacesStateAndClearsJournal() {
+        // GIVEN
+        JsonStorage.addOrUpdate("A", "envie");
+
+        // WHEN
+        JsonStorage.saveAll(List.of(new HistoryEntry("X", "deja_vu", "2024-01-01T00:00:00")));
+
+        // THEN
+        assertFalse(Files.exists(dir.resolve("storage.json.journal")));
+        assertEquals(List.of("X"), JsonStorage.getByStatus("deja_vu"));
+        assertTrue(JsonStorage.getByStatus("envie").isEmpty());
+    }
+
+    @Test
+    @DisplayName("apply : un lot produit un seul ajout au journal, rejouable")
+    void apply_appendsWholeBatch_andReplays() throws Exception {
+        // GIVEN
+        JsonStorage.addOrUpdate("A", "envie");
+
+        // WHEN: un lot de trois mutations
+        final int n = JsonStorage.apply(List.of(
+                Mutation.put("B", "envie"),
+                Mutation.put("C", "deja_vu"),
+                Mutation.remove("a")));
+
+        // THEN: 4 lignes de journal (1 + 3) et état identique après réouverture
+        assertEquals(3, n);
+        assertEquals(4, Files.readAllLines(dir.resolve("storage.json.journal")).size());
+        final StorageJournal reopened = StorageJournal.open(storage.toFile(), 100);
+        assertEquals(List.of("B", "C"), reopened.entries().stream().map(HistoryEntry::title).toList());
+        reopened.close();
+    }
+}
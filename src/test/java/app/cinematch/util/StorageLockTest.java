@@ -0,0 +1,164 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du verrou inter-processus et de la détection des écritures concurrentes
+ * (GIVEN / WHEN / THEN).
+ */
+class StorageLockTest {
+
+    @TempDir
+    Path dir;
+
+    private Path storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = dir.resolve("storage.json");
+        System.setProperty("cinematch.storage", storage.toString());
+        System.setProperty("cinematch.storage.silent", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        JsonStorage.flush();
+        System.clearProperty("cinematch.storage");
+        System.clearProperty("cinematch.storage.silent");
+        System.clearProperty("cinematch.storage.writeBehind");
+        System.clearProperty("cinematch.storage.writeBehind.delayMs");
+    }
+
+    @Test
+    @DisplayName("Verrou réentrant : fichier .lock créé, génération incrémentée")
+    void lock_isReentrant_andCountsGenerations() {
+        // GIVEN / WHEN
+        try (StorageLock outer = StorageLock.acquire(storage.toFile())) {
+            assertEquals(0L, outer.generation());
+            try (StorageLock inner = StorageLock.acquire(storage.toFile())) {
+                assertEquals(1L, inner.bumpGeneration());
+            }
+            // THEN: le niveau externe garde le verrou et voit la génération
+            assertEquals(1L, outer.generation());
+        }
+        assertTrue(Files.isRegularFile(dir.resolve("storage.json.lock")));
+        try (StorageLock again = StorageLock.acquire(storage.toFile())) {
+            assertEquals(1L, again.generation());
+        }
+    }
+
+    @Test
+    @DisplayName("Verrou exclusif entre threads de la même JVM")
+    void lock_excludesOtherThreads() throws Exception {
+        // GIVEN: le verrou est tenu par ce thread
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean acquired = new AtomicBoolean();
+        final Thread other;
+        try (StorageLock ignored = StorageLock.acquire(storage.toFile())) {
+            other = new Thread(() -> {
+                started.countDown();
+                try (StorageLock l = StorageLock.acquire(storage.toFile())) {
+                    acquired.set(true);
+                }
+            });
+            other.start();
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100);
+
+            // THEN: l’autre thread attend
+            assertFalse(acquired.get());
+        }
+        other.join(5_000);
+        assertTrue(acquired.get());
+    }
+
+    @Test
+    @DisplayName("Deux processus écrivent le même fichier : aucune mise à jour perdue")
+    void twoProcesses_doNotLoseUpdates() throws Exception {
+        // GIVEN: un second processus CineMatch sur le même fichier
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        final Process child = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                "-Dcinematch.storage=" + storage,
+                "-Dcinematch.storage.silent=true",
+                Writer.class.getName(), "P", "150")
+                .redirectErrorStream(true)
+                .redirectOutput(dir.resolve("child.log").toFile())
+                .start();
+
+        // WHEN: les deux processus ajoutent chacun leurs titres en même temps
+        Writer.main(new String[]{"T", "150"});
+        assertTrue(child.waitFor(60, TimeUnit.SECONDS), "processus fils bloqué");
+        assertEquals(0, child.exitValue(), Files.readString(dir.resolve("child.log")));
+
+        // THEN: les 300 titres sont présents
+        assertEquals(300, JsonStorage.countByStatus("envie"));
+    }
+
+    @Test
+    @DisplayName("Écriture différée : les écritures d’un autre processus sont fusionnées au flush")
+    void writeBehind_mergesExternalWrites() throws Exception {
+        // GIVEN: un état chargé, puis une mutation en mémoire seulement
+        System.setProperty("cinematch.storage.writeBehind", "true");
+        System.setProperty("cinematch.storage.writeBehind.delayMs", "60000");
+        JsonStorage.saveAll(List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00:00")));
+        JsonStorage.flush();
+        JsonStorage.addOrUpdate("B", "envie");
+
+        // WHEN: un autre processus écrit le fichier sous verrou
+        try (StorageLock lock = StorageLock.acquire(storage.toFile())) {
+            Files.writeString(storage, "[{\"title\":\"A\",\"status\":\"envie\",\"dateTimeIso\":\"2024-01-01T10:00:00\"},"
+                    + "{\"title\":\"X\",\"status\":\"deja_vu\",\"dateTimeIso\":\"2024-01-02T10:00:00\"}]",
+                    StandardCharsets.UTF_8);
+            lock.bumpGeneration();
+        }
+        JsonStorage.flush();
+
+        // THEN: ni « B » (ce processus) ni « X » (l’autre) ne sont perdus
+        final List<String> titles = JsonStorage.readFile(storage.toFile()).stream()
+                .map(HistoryEntry::title).toList();
+        assertTrue(titles.containsAll(List.of("A", "B", "X")), titles.toString());
+        assertEquals(List.of("X"), JsonStorage.getByStatus("deja_vu"));
+    }
+
+    /** Processus écrivain utilisé par {@link #twoProcesses_doNotLoseUpdates()}. */
+    public static final class Writer {
+        public static void main(final String[] args) {
+            final int n = Integer.parseInt(args[1]);
+            for (int i = 0; i < n; i++) {
+                JsonStorage.addOrUpdate(args[0] + i, "envie");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Répertoire impossible à créer : verrou JVM seul, génération inconnue")
+    void lockUnavailable_degradesToJvmLock() throws Exception {
+        // GIVEN: un fichier à la place du répertoire parent
+        final File blocker = dir.resolve("blocker").toFile();
+        assertTrue(blocker.createNewFile());
+
+        // WHEN / THEN
+        try (StorageLock lock = StorageLock.acquire(new File(blocker, "storage.json"))) {
+            assertEquals(StorageLock.UNKNOWN, lock.generation());
+            assertEquals(StorageLock.UNKNOWN, lock.bumpGeneration());
+        }
+    }
+}
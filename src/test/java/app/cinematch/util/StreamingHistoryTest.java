@@ -0,0 +1,163 @@
+package app.cinematch.util;
+
+import app.cinematch.model.HistoryEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests du mode flux de JsonStorage (GIVEN / WHEN / THEN).
+ */
+class StreamingHistoryTest {
+
+    @TempDir
+    Path dir;
+
+    private Path storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = dir.resolve("storage.json");
+        System.setProperty("cinematch.storage", storage.toString());
+        System.setProperty("cinematch.storage.mode", "streaming");
+        System.setProperty("cinematch.storage.silent", "true");
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("cinematch.storage");
+        System.clearProperty("cinematch.storage.mode");
+        System.clearProperty("cinematch.storage.silent");
+    }
+
+    @Test
+    @DisplayName("Requêtes filtrées pendant le parsing (statut, titre, champs inconnus ignorés)")
+    void queries_filterWhileParsing() throws Exception {
+        // GIVEN: un fichier indenté avec un champ inconnu
+        Files.writeString(storage, """
+          [
+            {"title":"A","status":"ENVIE","dateTimeIso":"2024-02-01T10:00:00","note":{"x":[1,2]}},
+            {"title":"B","status":"deja_vu","dateTimeIso":"2024-02-03T09:00:00"},
+            {"title":"C","status":"envie","dateTimeIso":"2024-03-01T12:00:00"},
+            {"title":"D","status":"envie","dateTimeIso":null}
+          ]
+        """, StandardCharsets.UTF_8);
+
+        // WHEN / THEN
+        assertEquals(List.of("C", "A", "D"), JsonStorage.getByStatus("envie"));
+        assertEquals(3, JsonStorage.countByStatus("envie"));
+        assertEquals("deja_vu", JsonStorage.find("b").status());
+        assertNull(JsonStorage.find("Z"));
+        assertEquals(4, JsonStorage.loadAll().size());
+    }
+
+    @Test
+    @DisplayName("Fichier absent, vide ou corrompu : résultats vides")
+    void missingOrCorrupt_isEmpty() throws Exception {
+        assertTrue(JsonStorage.getByStatus("envie").isEmpty());
+
+        Files.writeString(storage, "", StandardCharsets.UTF_8);
+        assertTrue(JsonStorage.loadAll().isEmpty());
+
+        Files.writeString(storage, "[{\"title\":\"A\",\"status\":\"envie\"}, {oops", StandardCharsets.UTF_8);
+        assertTrue(JsonStorage.getByStatus("envie").isEmpty());
+        assertEquals(0, JsonStorage.countByStatus("envie"));
+
+        Files.writeString(storage, "{\"title\":\"A\"}", StandardCharsets.UTF_8);
+        assertTrue(JsonStorage.loadAll().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Mutations : réécriture en flux, sortie compacte")
+    void mutations_rewriteCompact() throws Exception {
+        // GIVEN
+        JsonStorage.saveAll(List.of(
+                new HistoryEntry("A", "envie", "2024-01-01T10:00:00"),
+                new HistoryEntry("B", "deja_vu", "2024-01-02T10:00:00")));
+
+        // WHEN
+        JsonStorage.addOrUpdate("a", "deja_vu");
+        final boolean removed = JsonStorage.remove("Z");
+        final int cleared = JsonStorage.removeAllByStatus("DEJA_VU");
+
+        // THEN: titre remplacé puis statut vidé ; aucun saut de ligne ni indentation
+        assertFalse(removed);
+        assertEquals(2, cleared);
+        assertEquals("[]", Files.readString(storage));
+        JsonStorage.addOrUpdate("C", "envie");
+        final String json = Files.readString(storage);
+        assertFalse(json.contains("\n") || json.contains("  "));
+        assertTrue(JsonStorage.remove("c"));
+        assertFalse(Files.exists(dir.resolve("storage.json.tmp")));
+    }
+
+    @Test
+    @DisplayName("apply : un seul passage, comptes identiques au mode index")
+    void apply_matchesIndexedSemantics() {
+        // GIVEN
+        JsonStorage.saveAll(List.of(
+                new HistoryEntry("Old", "pas_interesse", "2024-01-01T10:00:00"),
+                new HistoryEntry("Dune", "envie", "2024-01-02T10:00:00"),
+                new HistoryEntry("Heat", "envie", "2024-01-03T10:00:00")));
+
+        // WHEN: remplacement, suppression, vidage de statut
+        final int n = JsonStorage.apply(List.of(
+                Mutation.put("heat", "deja_vu"),
+                Mutation.put("Alien", "envie"),
+                Mutation.remove("dune"),
+                Mutation.removeStatus("pas_interesse")));
+
+        // THEN: 2 ajouts + 1 suppression + 1 vidage
+        assertEquals(4, n);
+        assertEquals(List.of("Alien"), JsonStorage.getByStatus("envie"));
+        assertEquals(List.of("heat"), JsonStorage.getByStatus("deja_vu"));
+        assertEquals(2, JsonStorage.loadAll().size());
+    }
+
+    @Test
+    @DisplayName("Fichier corrompu : requêtes et réécriture repartent du .bak")
+    void corruptFile_recoversFromBackup() throws Exception {
+        // GIVEN: deux écritures (le .bak garde la première), puis corruption de la cible
+        JsonStorage.saveAll(List.of(new HistoryEntry("A", "envie", "2024-01-01T10:00:00")));
+        JsonStorage.addOrUpdate("B", "envie");
+        Files.writeString(storage, "[{\"title\":", StandardCharsets.UTF_8);
+
+        // WHEN / THEN: lecture depuis la sauvegarde, puis mutation sans perte
+        assertEquals(List.of("A"), JsonStorage.getByStatus("envie"));
+        JsonStorage.addOrUpdate("C", "envie");
+        assertEquals(2, JsonStorage.countByStatus("envie"));
+        assertNotNull(JsonStorage.find("a"));
+    }
+
+    @Test
+    @DisplayName("Gros historique : comptage et filtrage sans charger la liste")
+    void largeHistory_countAndFilter() throws Exception {
+        // GIVEN: 100 000 entrées, une sur dix en 'deja_vu'
+        try (BufferedWriter w = Files.newBufferedWriter(storage, StandardCharsets.UTF_8)) {
+            w.write('[');
+            for (int i = 0; i < 100_000; i++) {
+                if (i > 0) w.write(',');
+                w.write("{\"title\":\"T" + i + "\",\"status\":\"" + (i % 10 == 0 ? "deja_vu" : "envie")
+                        + "\",\"dateTimeIso\":\"2024-01-01T00:00:00\"}");
+            }
+            w.write(']');
+        }
+
+        // WHEN / THEN
+        assertEquals(10_000, JsonStorage.countByStatus("deja_vu"));
+        final List<String> seen = JsonStorage.getByStatus("deja_vu");
+        assertEquals(10_000, seen.size());
+        assertEquals("T0", seen.get(0));
+        assertEquals("envie", JsonStorage.find("T99999").status());
+    }
+}